@@ -20,6 +20,7 @@
 package org.sonar.ce;
 
 import org.sonar.ce.log.CeLogging;
+import org.sonar.ce.profiling.CeTaskProfiling;
 import org.sonar.core.platform.Module;
 import org.sonar.process.systeminfo.ProcessStateSystemInfo;
 import org.sonar.server.computation.configuration.CeConfigurationImpl;
@@ -31,6 +32,7 @@ public class CeConfigurationModule extends Module {
     add(
       CeConfigurationImpl.class,
       CeLogging.class,
+      CeTaskProfiling.class,
       CeDatabaseMBeanImpl.class,
       new ProcessStateSystemInfo("Compute Engine State"));
   }
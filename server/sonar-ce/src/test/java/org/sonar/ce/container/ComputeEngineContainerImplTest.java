@@ -89,7 +89,7 @@ public class ComputeEngineContainerImplTest {
       .hasSize(
         CONTAINER_ITSELF
           + 73 // level 4
-          + 4 // content of CeConfigurationModule
+          + 5 // content of CeConfigurationModule
           + 3 // content of CeHttpModule
           + 5 // content of CeQueueModule
           + 4 // content of ProjectAnalysisTaskModule
@@ -61,6 +61,29 @@ public interface CEQueueStatus {
    */
   long addError(long processingTime);
 
+  /**
+   * Adds the time spent by a task in the queue, from its submission to the beginning of its processing.
+   *
+   * @param waitTime duration of wait in ms
+   *
+   * @return the new time spent waiting in queue
+   *
+   * @see #getWaitTime()
+   *
+   * @throws IllegalArgumentException if waitTime is < 0
+   */
+  long addWaitTime(long waitTime);
+
+  /**
+   * Adds the specified number to the count of pending tasks which could not be claimed, because they were
+   * claimed concurrently.
+   *
+   * @return the new count of claim conflicts
+   *
+   * @see #getClaimConflictCount()
+   */
+  long addClaimConflicts(int count);
+
   /**
    * Count of batch reports waiting for processing since startup, including reports received before instance startup.
    */
@@ -85,4 +108,14 @@ public interface CEQueueStatus {
    * Time spent processing batch reports since startup, in milliseconds.
    */
   long getProcessingTime();
+
+  /**
+   * Time spent by tasks in the queue before their processing since startup, in milliseconds.
+   */
+  long getWaitTime();
+
+  /**
+   * Count of pending tasks which could not be claimed since instance startup, because they were claimed concurrently.
+   */
+  long getClaimConflictCount();
 }
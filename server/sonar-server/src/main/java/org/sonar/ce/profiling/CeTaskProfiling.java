@@ -0,0 +1,168 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.profiling;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.CheckForNull;
+import org.sonar.db.profiling.SqlStatementCounter;
+import org.sonar.db.protobuf.DbCe;
+
+/**
+ * Records the resources consumed by each step of the Compute Engine task executed by the current thread:
+ * wall time, CPU time, memory allocated and SQL statements executed. Like {@link org.sonar.ce.log.CeLogging},
+ * the recording is bound to the worker thread between {@link #initForTask()} and {@link #clearForTask()}.
+ */
+public class CeTaskProfiling {
+
+  private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+  private static final long UNSUPPORTED = -1L;
+
+  private final ThreadLocal<DbCe.TaskProfile.Builder> taskProfile = new ThreadLocal<>();
+  private final ThreadLocal<StepProfilerImpl> currentStep = new ThreadLocal<>();
+
+  public void initForTask() {
+    taskProfile.set(DbCe.TaskProfile.newBuilder());
+    currentStep.remove();
+    SqlStatementCounter.start();
+  }
+
+  public void clearForTask() {
+    taskProfile.remove();
+    currentStep.remove();
+    SqlStatementCounter.stop();
+  }
+
+  /**
+   * Profile of the steps executed so far by the task of the current thread, or {@code null} if
+   * profiling is not initialized or no step has been executed.
+   */
+  @CheckForNull
+  public DbCe.TaskProfile getProfile() {
+    DbCe.TaskProfile.Builder builder = taskProfile.get();
+    if (builder == null || builder.getStepCount() == 0) {
+      return null;
+    }
+    return builder.build();
+  }
+
+  /**
+   * Starts measuring the resources consumed by a step. The returned profiler does nothing
+   * if profiling is not initialized for the current thread.
+   */
+  public StepProfiler startStep() {
+    DbCe.TaskProfile.Builder builder = taskProfile.get();
+    if (builder == null) {
+      return NoopStepProfiler.INSTANCE;
+    }
+    StepProfilerImpl stepProfiler = new StepProfilerImpl(builder);
+    currentStep.set(stepProfiler);
+    return stepProfiler;
+  }
+
+  /**
+   * Adds the cumulative duration of a component visitor to the step being executed by the current thread, if any.
+   */
+  public void addVisitorDuration(String visitorName, long durationMs) {
+    StepProfilerImpl stepProfiler = currentStep.get();
+    if (stepProfiler != null) {
+      stepProfiler.step.addVisitor(DbCe.Visitor.newBuilder()
+        .setName(visitorName)
+        .setDurationMs(durationMs));
+    }
+  }
+
+  private static long currentThreadCpuTime() {
+    if (THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() && THREAD_MX_BEAN.isThreadCpuTimeEnabled()) {
+      return THREAD_MX_BEAN.getCurrentThreadCpuTime();
+    }
+    return UNSUPPORTED;
+  }
+
+  private static long currentThreadAllocatedBytes() {
+    if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+      if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return UNSUPPORTED;
+  }
+
+  private static long toMillis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+
+  public interface StepProfiler {
+    /**
+     * Stops measuring and adds the step to the profile of the task.
+     */
+    void stop(String description);
+  }
+
+  private enum NoopStepProfiler implements StepProfiler {
+    INSTANCE;
+
+    @Override
+    public void stop(String description) {
+      // profiling is not initialized
+    }
+  }
+
+  private class StepProfilerImpl implements StepProfiler {
+    private final DbCe.TaskProfile.Builder task;
+    private final DbCe.Step.Builder step = DbCe.Step.newBuilder();
+    private final long startWallTime;
+    private final long startCpuTime;
+    private final long startAllocatedBytes;
+    private final int startDbStatements;
+    private final long startDbTime;
+
+    private StepProfilerImpl(DbCe.TaskProfile.Builder task) {
+      this.task = task;
+      this.startWallTime = System.nanoTime();
+      this.startCpuTime = currentThreadCpuTime();
+      this.startAllocatedBytes = currentThreadAllocatedBytes();
+      this.startDbStatements = SqlStatementCounter.getStatementCount();
+      this.startDbTime = SqlStatementCounter.getDurationNanos();
+    }
+
+    @Override
+    public void stop(String description) {
+      step.setDescription(description)
+        .setWallTimeMs(toMillis(System.nanoTime() - startWallTime))
+        .setDbStatements(SqlStatementCounter.getStatementCount() - startDbStatements)
+        .setDbTimeMs(toMillis(SqlStatementCounter.getDurationNanos() - startDbTime));
+      long cpuTime = currentThreadCpuTime();
+      if (startCpuTime != UNSUPPORTED && cpuTime != UNSUPPORTED) {
+        step.setCpuTimeMs(toMillis(cpuTime - startCpuTime));
+      }
+      long allocatedBytes = currentThreadAllocatedBytes();
+      if (startAllocatedBytes != UNSUPPORTED && allocatedBytes != UNSUPPORTED) {
+        step.setAllocatedBytes(allocatedBytes - startAllocatedBytes);
+      }
+      task.addStep(step);
+      if (currentStep.get() == this) {
+        currentStep.remove();
+      }
+    }
+  }
+}
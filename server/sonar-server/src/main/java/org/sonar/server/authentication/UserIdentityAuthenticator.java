@@ -29,6 +29,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import javax.annotation.Nonnull;
 import org.sonar.api.server.authentication.IdentityProvider;
@@ -41,6 +42,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.UserDto;
 import org.sonar.db.user.UserGroupDto;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.ExternalIdentity;
 import org.sonar.server.user.NewUser;
 import org.sonar.server.user.UpdateUser;
@@ -52,10 +54,12 @@ public class UserIdentityAuthenticator {
 
   private final DbClient dbClient;
   private final UserUpdater userUpdater;
+  private final AuthorizationCache authorizationCache;
 
-  public UserIdentityAuthenticator(DbClient dbClient, UserUpdater userUpdater) {
+  public UserIdentityAuthenticator(DbClient dbClient, UserUpdater userUpdater, AuthorizationCache authorizationCache) {
     this.dbClient = dbClient;
     this.userUpdater = userUpdater;
+    this.authorizationCache = authorizationCache;
   }
 
   public UserDto authenticate(UserIdentity user, IdentityProvider provider) {
@@ -121,27 +125,34 @@ public class UserIdentityAuthenticator {
       allGroups.addAll(groupsToRemove);
       Map<String, GroupDto> groupsByName = from(dbClient.groupDao().selectByNames(dbSession, allGroups)).uniqueIndex(GroupDtoToName.INSTANCE);
 
-      addGroups(dbSession, userDto, groupsToAdd, groupsByName);
-      removeGroups(dbSession, userDto, groupsToRemove, groupsByName);
+      boolean addedGroups = addGroups(dbSession, userDto, groupsToAdd, groupsByName);
+      boolean removedGroups = removeGroups(dbSession, userDto, groupsToRemove, groupsByName);
 
       dbSession.commit();
+      if (addedGroups || removedGroups) {
+        authorizationCache.clear();
+      }
     }
   }
 
-  private void addGroups(DbSession dbSession, UserDto userDto, Collection<String> groupsToAdd, Map<String, GroupDto> groupsByName) {
-    groupsToAdd.stream().map(groupsByName::get).filter(groupDto -> groupDto != null).forEach(
-      groupDto -> {
-        LOGGER.debug("Adding group '{}' to user '{}'", groupDto.getName(), userDto.getLogin());
-        dbClient.userGroupDao().insert(dbSession, new UserGroupDto().setGroupId(groupDto.getId()).setUserId(userDto.getId()));
-      });
+  private boolean addGroups(DbSession dbSession, UserDto userDto, Collection<String> groupsToAdd, Map<String, GroupDto> groupsByName) {
+    boolean added = false;
+    for (GroupDto groupDto : from(groupsToAdd).transform(groupsByName::get).filter(Objects::nonNull)) {
+      LOGGER.debug("Adding group '{}' to user '{}'", groupDto.getName(), userDto.getLogin());
+      dbClient.userGroupDao().insert(dbSession, new UserGroupDto().setGroupId(groupDto.getId()).setUserId(userDto.getId()));
+      added = true;
+    }
+    return added;
   }
 
-  private void removeGroups(DbSession dbSession, UserDto userDto, Collection<String> groupsToRemove, Map<String, GroupDto> groupsByName) {
-    groupsToRemove.stream().map(groupsByName::get).filter(groupDto -> groupDto != null).forEach(
-      groupDto -> {
-        LOGGER.debug("Removing group '{}' from user '{}'", groupDto.getName(), userDto.getLogin());
-        dbClient.userGroupDao().delete(dbSession, new UserGroupDto().setGroupId(groupDto.getId()).setUserId(userDto.getId()));
-      });
+  private boolean removeGroups(DbSession dbSession, UserDto userDto, Collection<String> groupsToRemove, Map<String, GroupDto> groupsByName) {
+    boolean removed = false;
+    for (GroupDto groupDto : from(groupsToRemove).transform(groupsByName::get).filter(Objects::nonNull)) {
+      LOGGER.debug("Removing group '{}' from user '{}'", groupDto.getName(), userDto.getLogin());
+      dbClient.userGroupDao().delete(dbSession, new UserGroupDto().setGroupId(groupDto.getId()).setUserId(userDto.getId()));
+      removed = true;
+    }
+    return removed;
   }
 
   private enum GroupDtoToName implements Function<GroupDto, String> {
@@ -30,6 +30,7 @@ import org.sonar.api.server.ServerSide;
 import org.sonar.db.DbClient;
 import org.sonar.db.user.UserDto;
 import org.sonar.server.exceptions.UnauthorizedException;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.ServerUserSession;
 import org.sonar.server.user.ThreadLocalUserSession;
 
@@ -73,14 +74,16 @@ public class UserSessionInitializer {
   private final JwtHttpHandler jwtHttpHandler;
   private final BasicAuthenticator basicAuthenticator;
   private final ThreadLocalUserSession threadLocalSession;
+  private final AuthorizationCache authorizationCache;
 
   public UserSessionInitializer(DbClient dbClient, Settings settings, JwtHttpHandler jwtHttpHandler, BasicAuthenticator basicAuthenticator,
-                                ThreadLocalUserSession threadLocalSession) {
+                                ThreadLocalUserSession threadLocalSession, AuthorizationCache authorizationCache) {
     this.dbClient = dbClient;
     this.settings = settings;
     this.jwtHttpHandler = jwtHttpHandler;
     this.basicAuthenticator = basicAuthenticator;
     this.threadLocalSession = threadLocalSession;
+    this.authorizationCache = authorizationCache;
   }
 
   public boolean initUserSession(HttpServletRequest request, HttpServletResponse response) {
@@ -105,14 +108,14 @@ public class UserSessionInitializer {
   private void setUserSession(HttpServletRequest request, HttpServletResponse response) {
     Optional<UserDto> user = authenticate(request, response);
     if (user.isPresent()) {
-      ServerUserSession session = createForUser(dbClient, user.get());
+      ServerUserSession session = createForUser(dbClient, authorizationCache, user.get());
       threadLocalSession.set(session);
       request.setAttribute(ACCESS_LOG_LOGIN, session.getLogin());
     } else {
       if (settings.getBoolean(CORE_FORCE_AUTHENTICATION_PROPERTY)) {
         throw new UnauthorizedException("User must be authenticated");
       }
-      threadLocalSession.set(createForAnonymous(dbClient));
+      threadLocalSession.set(createForAnonymous(dbClient, authorizationCache));
       request.setAttribute(ACCESS_LOG_LOGIN, "-");
     }
   }
@@ -19,7 +19,7 @@
  */
 package org.sonar.server.batch;
 
-import org.apache.commons.io.IOUtils;
+import java.nio.charset.StandardCharsets;
 import org.sonar.api.server.ws.Request;
 import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
@@ -35,6 +35,7 @@ import org.sonar.server.user.UserSession;
 import org.sonarqube.ws.MediaTypes;
 
 import static org.sonar.core.permission.GlobalPermissions.SCAN_EXECUTION;
+import static org.sonar.server.ws.WsUtils.writeWithETag;
 
 public class GlobalAction implements BatchWsAction {
 
@@ -72,8 +73,7 @@ public class GlobalAction implements BatchWsAction {
       addMetrics(ref, session);
       addSettings(ref, hasScanPerm, isLogged, session);
 
-      response.stream().setMediaType(MediaTypes.JSON);
-      IOUtils.write(ref.toJson(), response.stream().output());
+      writeWithETag(ref.toJson().getBytes(StandardCharsets.UTF_8), MediaTypes.JSON, request, response);
     } finally {
       MyBatis.closeQuietly(session);
     }
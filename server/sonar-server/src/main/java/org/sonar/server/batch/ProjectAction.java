@@ -31,7 +31,7 @@ import org.sonarqube.ws.WsBatch.WsProjectResponse;
 import org.sonarqube.ws.WsBatch.WsProjectResponse.FileData.Builder;
 
 import static org.sonar.server.ws.KeyExamples.KEY_PROJECT_EXAMPLE_001;
-import static org.sonar.server.ws.WsUtils.writeProtobuf;
+import static org.sonar.server.ws.WsUtils.writeProtobufWithETag;
 
 public class ProjectAction implements BatchWsAction {
 
@@ -80,7 +80,7 @@ public class ProjectAction implements BatchWsAction {
       .setIssuesMode(wsRequest.mandatoryParamAsBoolean(PARAM_ISSUES_MODE)));
 
     WsProjectResponse projectResponse = buildResponse(data);
-    writeProtobuf(projectResponse, wsRequest, wsResponse);
+    writeProtobufWithETag(projectResponse, wsRequest, wsResponse);
   }
 
   private static WsProjectResponse buildResponse(ProjectRepositories data) {
@@ -68,7 +68,8 @@ public class TaskAction implements CeWsAction {
     WebService.NewAction action = controller.createAction(ACTION)
       .setDescription("Give Compute Engine task details such as type, status, duration and associated component.<br />" +
         "Requires 'Administer System' or 'Execute Analysis' permission.<br/>" +
-        "Since 6.1, field \"logs\" is deprecated and its value is always false.")
+        "Since 6.1, field \"logs\" is deprecated and its value is always false.<br/>" +
+        "Since 6.2, the resources consumed by each step of the task can be returned with additional field \"profile\".")
       .setResponseExample(getClass().getResource("task-example.json"))
       .setSince("5.2")
       .setHandler(this);
@@ -101,6 +102,7 @@ public class TaskAction implements CeWsAction {
           checkPermission(ceActivityDto.getComponentUuid());
           Set<AdditionalField> additionalFields = AdditionalField.getFromRequest(wsRequest);
           maskErrorStacktrace(ceActivityDto, additionalFields);
+          maskProfile(ceActivityDto, additionalFields);
           wsTaskResponse.setTask(
             wsTaskFormatter.formatActivity(dbSession, ceActivityDto, extractScannerContext(dbSession, ceActivityDto, additionalFields)));
         } else {
@@ -127,6 +129,12 @@ public class TaskAction implements CeWsAction {
     }
   }
 
+  private static void maskProfile(CeActivityDto ceActivityDto, Set<AdditionalField> additionalFields) {
+    if (!additionalFields.contains(AdditionalField.PROFILE)) {
+      ceActivityDto.setProfileData(null);
+    }
+  }
+
   @CheckForNull
   private String extractScannerContext(DbSession dbSession, CeActivityDto activityDto, Set<AdditionalField> additionalFields) {
     if (additionalFields.contains(AdditionalField.SCANNER_CONTEXT)) {
@@ -138,7 +146,8 @@ public class TaskAction implements CeWsAction {
 
   private enum AdditionalField {
     STACKTRACE("stacktrace"),
-    SCANNER_CONTEXT("scannerContext");
+    SCANNER_CONTEXT("scannerContext"),
+    PROFILE("profile");
 
     private final String label;
 
@@ -21,6 +21,7 @@ package org.sonar.server.ce.ws;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.InvalidProtocolBufferException;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
@@ -38,6 +39,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDto;
 import org.sonar.db.component.ComponentDto;
+import org.sonar.db.protobuf.DbCe;
 import org.sonarqube.ws.WsCe;
 
 /**
@@ -137,6 +139,39 @@ public class TaskFormatter {
       builder.setScannerContext(scannerContext);
     }
     builder.setHasScannerContext(dto.isHasScannerContext());
+    byte[] profileData = dto.getProfileData();
+    if (profileData != null) {
+      builder.setProfile(formatProfile(dto.getUuid(), profileData));
+    }
+    return builder.build();
+  }
+
+  private static WsCe.TaskProfile formatProfile(String taskUuid, byte[] profileData) {
+    DbCe.TaskProfile profile;
+    try {
+      profile = DbCe.TaskProfile.parseFrom(profileData);
+    } catch (InvalidProtocolBufferException e) {
+      throw new IllegalStateException("Fail to deserialize profile of task " + taskUuid, e);
+    }
+    WsCe.TaskProfile.Builder builder = WsCe.TaskProfile.newBuilder();
+    for (DbCe.Step step : profile.getStepList()) {
+      WsCe.TaskStep.Builder stepBuilder = builder.addStepsBuilder()
+        .setDescription(step.getDescription())
+        .setWallTimeMs(step.getWallTimeMs())
+        .setDbStatements(step.getDbStatements())
+        .setDbTimeMs(step.getDbTimeMs());
+      if (step.hasCpuTimeMs()) {
+        stepBuilder.setCpuTimeMs(step.getCpuTimeMs());
+      }
+      if (step.hasAllocatedBytes()) {
+        stepBuilder.setAllocatedBytes(step.getAllocatedBytes());
+      }
+      for (DbCe.Visitor visitor : step.getVisitorList()) {
+        stepBuilder.addVisitorsBuilder()
+          .setName(visitor.getName())
+          .setDurationMs(visitor.getDurationMs());
+      }
+    }
     return builder.build();
   }
 
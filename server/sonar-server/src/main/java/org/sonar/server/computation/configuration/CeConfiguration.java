@@ -31,4 +31,10 @@ public interface CeConfiguration {
    * when previous one had nothing to do.
    */
   long getQueuePollingDelay();
+
+  /**
+   * The maximum number of pending tasks claimed by a single poll of the queue. When greater than 1, claimed tasks
+   * are handed off in memory to the idle workers.
+   */
+  int getPeekBatchSize();
 }
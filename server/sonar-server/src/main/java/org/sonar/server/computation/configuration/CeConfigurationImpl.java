@@ -32,9 +32,11 @@ import static java.lang.String.format;
  * Immutable implementation of {@link CeConfiguration} which takes value returned by
  * {@link CeConfiguration#getWorkerCount()} from property {@link CeConfigurationImpl#CE_WORKERS_COUNT_PROPERTY} and
  * always returns {@link #DEFAULT_QUEUE_POLLING_DELAY} when {@link CeConfiguration#getQueuePollingDelay()} is called.
+ * {@link CeConfiguration#getPeekBatchSize()} is taken from property {@link CeConfigurationImpl#CE_PEEK_BATCH_SIZE_PROPERTY}.
  */
 public class CeConfigurationImpl implements CeConfiguration, Startable {
   public static final String CE_WORKERS_COUNT_PROPERTY = "sonar.ce.workerCount";
+  public static final String CE_PEEK_BATCH_SIZE_PROPERTY = "sonar.ce.peekBatchSize";
 
   private static final Logger LOG = Loggers.get(CeConfigurationImpl.class);
 
@@ -43,35 +45,38 @@ public class CeConfigurationImpl implements CeConfiguration, Startable {
   // 2 seconds
   @VisibleForTesting
   protected static final long DEFAULT_QUEUE_POLLING_DELAY = 2 * 1000L;
+  @VisibleForTesting
+  protected static final int DEFAULT_PEEK_BATCH_SIZE = 1;
 
   private final int workerCount;
+  private final int peekBatchSize;
 
   public CeConfigurationImpl(Settings settings) {
-    String workerCountAsStr = settings.getString(CE_WORKERS_COUNT_PROPERTY);
-    if (workerCountAsStr == null || workerCountAsStr.isEmpty()) {
-      this.workerCount = DEFAULT_WORKER_COUNT;
-    } else {
-      this.workerCount = parseStringValue(workerCountAsStr);
-    }
+    this.workerCount = parsePositiveInt(settings, CE_WORKERS_COUNT_PROPERTY, DEFAULT_WORKER_COUNT);
+    this.peekBatchSize = parsePositiveInt(settings, CE_PEEK_BATCH_SIZE_PROPERTY, DEFAULT_PEEK_BATCH_SIZE);
   }
 
-  private static int parseStringValue(String workerCountAsStr) {
+  private static int parsePositiveInt(Settings settings, String propertyKey, int defaultValue) {
+    String valueAsStr = settings.getString(propertyKey);
+    if (valueAsStr == null || valueAsStr.isEmpty()) {
+      return defaultValue;
+    }
     try {
-      int value = Integer.parseInt(workerCountAsStr);
+      int value = Integer.parseInt(valueAsStr);
       if (value < 1) {
-        throw parsingError(workerCountAsStr);
+        throw parsingError(valueAsStr, propertyKey);
       }
       return value;
     } catch (NumberFormatException e) {
-      throw parsingError(workerCountAsStr);
+      throw parsingError(valueAsStr, propertyKey);
     }
   }
 
-  private static MessageException parsingError(String workerCountAsStr) {
+  private static MessageException parsingError(String valueAsStr, String propertyKey) {
     return MessageException.of(format(
       "value '%s' of property %s is invalid. It must an integer strictly greater than 0.",
-      workerCountAsStr,
-      CE_WORKERS_COUNT_PROPERTY)
+      valueAsStr,
+      propertyKey)
       );
   }
 
@@ -80,6 +85,9 @@ public class CeConfigurationImpl implements CeConfiguration, Startable {
     if (this.workerCount > 1) {
       LOG.info("Compute Engine will use {} concurrent workers to process tasks", this.workerCount);
     }
+    if (this.peekBatchSize > 1) {
+      LOG.info("Compute Engine will claim up to {} tasks each time it polls the queue", this.peekBatchSize);
+    }
   }
 
   @Override
@@ -96,4 +104,9 @@ public class CeConfigurationImpl implements CeConfiguration, Startable {
   public long getQueuePollingDelay() {
     return DEFAULT_QUEUE_POLLING_DELAY;
   }
+
+  @Override
+  public int getPeekBatchSize() {
+    return peekBatchSize;
+  }
 }
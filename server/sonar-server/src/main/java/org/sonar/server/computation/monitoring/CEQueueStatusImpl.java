@@ -34,6 +34,8 @@ public class CEQueueStatusImpl implements CEQueueStatus {
   private final AtomicLong error = new AtomicLong(0);
   private final AtomicLong success = new AtomicLong(0);
   private final AtomicLong processingTime = new AtomicLong(0);
+  private final AtomicLong waitTime = new AtomicLong(0);
+  private final AtomicLong claimConflicts = new AtomicLong(0);
 
   public CEQueueStatusImpl(DbClient dbClient) {
     this.dbClient = dbClient;
@@ -58,6 +60,17 @@ public class CEQueueStatusImpl implements CEQueueStatus {
     return success.incrementAndGet();
   }
 
+  @Override
+  public long addWaitTime(long waitTimeInMs) {
+    checkArgument(waitTimeInMs >= 0, "Wait time can not be < 0");
+    return waitTime.addAndGet(waitTimeInMs);
+  }
+
+  @Override
+  public long addClaimConflicts(int count) {
+    return claimConflicts.addAndGet(count);
+  }
+
   private void addProcessingTime(long ms) {
     checkArgument(ms >= 0, "Processing time can not be < 0");
     processingTime.addAndGet(ms);
@@ -89,4 +102,14 @@ public class CEQueueStatusImpl implements CEQueueStatus {
   public long getProcessingTime() {
     return processingTime.get();
   }
+
+  @Override
+  public long getWaitTime() {
+    return waitTime.get();
+  }
+
+  @Override
+  public long getClaimConflictCount() {
+    return claimConflicts.get();
+  }
 }
@@ -48,6 +48,16 @@ public interface CeTasksMBean {
    */
   long getProcessingTime();
 
+  /**
+   * Time spent by tasks in the queue before their processing since startup, in milliseconds.
+   */
+  long getWaitTime();
+
+  /**
+   * Count of pending tasks which could not be claimed since startup, because they were claimed concurrently.
+   */
+  long getClaimConflictCount();
+
   /**
    * Configured number of Workers.
    */
@@ -27,6 +27,7 @@ import org.sonar.ce.queue.CeTaskResult;
 import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeActivityDto.Status;
 import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.protobuf.DbCe;
 
 /**
  * Queue of pending Compute Engine tasks. Both producer and consumer actions
@@ -44,6 +45,11 @@ public interface InternalCeQueue extends CeQueue {
    *
    * <p>Only a single task can be peeked by project.</p>
    *
+   * <p>When {@link org.sonar.server.computation.configuration.CeConfiguration#getPeekBatchSize()} is greater than 1,
+   * a single poll of the database claims several tasks, which are handed off to the next calls. In this mode,
+   * this method waits up to {@link org.sonar.server.computation.configuration.CeConfiguration#getQueuePollingDelay()}
+   * for a task before returning nothing.</p>
+   *
    * <p>An unchecked exception may be thrown on technical errors (db connection, ...).</p>
    */
   Optional<CeTask> peek();
@@ -65,7 +71,18 @@ public interface InternalCeQueue extends CeQueue {
    * @throws IllegalStateException if the task does not exist in the queue
    * @throws IllegalArgumentException if {@code error} is non {@code null} but {@code status} is not {@link Status#FAILED}
    */
-  void remove(CeTask task, Status status, @Nullable CeTaskResult taskResult, @Nullable Throwable error);
+  default void remove(CeTask task, Status status, @Nullable CeTaskResult taskResult, @Nullable Throwable error) {
+    remove(task, status, taskResult, error, null);
+  }
+
+  /**
+   * Same as {@link #remove(CeTask, Status, CeTaskResult, Throwable)}, also registering the resources consumed by
+   * each step of the task, if they have been recorded.
+   *
+   * @throws IllegalStateException if the task does not exist in the queue
+   * @throws IllegalArgumentException if {@code error} is non {@code null} but {@code status} is not {@link Status#FAILED}
+   */
+  void remove(CeTask task, Status status, @Nullable CeTaskResult taskResult, @Nullable Throwable error, @Nullable DbCe.TaskProfile profile);
 
   void cancel(DbSession dbSession, CeQueueDto ceQueueDto);
 
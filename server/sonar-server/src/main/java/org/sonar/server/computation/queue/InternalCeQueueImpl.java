@@ -24,7 +24,14 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.log4j.Logger;
@@ -39,6 +46,8 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.protobuf.DbCe;
+import org.sonar.server.computation.configuration.CeConfiguration;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
@@ -49,19 +58,28 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
   private final System2 system2;
   private final DbClient dbClient;
   private final CEQueueStatus queueStatus;
+  private final CeConfiguration ceConfiguration;
 
   // state
   private AtomicBoolean peekPaused = new AtomicBoolean(false);
+  // tasks claimed by a poll of the queue and not yet peeked by a worker, used when peek batch size is greater than 1
+  private final BlockingQueue<ClaimedTask> handOff = new LinkedBlockingQueue<>();
+  private final Lock claimLock = new ReentrantLock();
+  private final AtomicInteger processingCount = new AtomicInteger(0);
 
-  public InternalCeQueueImpl(System2 system2, DbClient dbClient, UuidFactory uuidFactory, CEQueueStatus queueStatus) {
+  public InternalCeQueueImpl(System2 system2, DbClient dbClient, UuidFactory uuidFactory, CEQueueStatus queueStatus, CeConfiguration ceConfiguration) {
     super(dbClient, uuidFactory);
     this.system2 = system2;
     this.dbClient = dbClient;
     this.queueStatus = queueStatus;
+    this.ceConfiguration = ceConfiguration;
   }
 
   @Override
   public Optional<CeTask> peek() {
+    if (ceConfiguration.getPeekBatchSize() > 1) {
+      return peekFromHandOff();
+    }
     if (peekPaused.get()) {
       return Optional.absent();
     }
@@ -71,7 +89,7 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
       CeTask task = null;
       if (dto.isPresent()) {
         task = loadTask(dbSession, dto.get());
-        queueStatus.addInProgress();
+        startProcessing(dto.get().getCreatedAt());
       }
       return Optional.fromNullable(task);
 
@@ -80,16 +98,94 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
     }
   }
 
+  /**
+   * A single worker at a time claims pending tasks from the database. Claimed tasks are handed off to the
+   * workers waiting for a task, so that they do not wait for the next polling of the queue.
+   */
+  private Optional<CeTask> peekFromHandOff() {
+    if (peekPaused.get()) {
+      waitForPollingDelay();
+      return Optional.absent();
+    }
+    ClaimedTask claimedTask = handOff.poll();
+    if (claimedTask == null && claimLock.tryLock()) {
+      try {
+        claimTasks();
+      } catch (RuntimeException e) {
+        // do not let workers poll a failing database without delay
+        waitForPollingDelay();
+        throw e;
+      } finally {
+        claimLock.unlock();
+      }
+      claimedTask = handOff.poll();
+    }
+    if (claimedTask == null) {
+      claimedTask = pollHandOff();
+    }
+    if (claimedTask == null) {
+      return Optional.absent();
+    }
+    processingCount.incrementAndGet();
+    startProcessing(claimedTask.createdAt);
+    return Optional.of(claimedTask.task);
+  }
+
+  private void claimTasks() {
+    // do not claim more tasks than idle workers, claimed tasks are already IN_PROGRESS
+    int maxTasks = Math.max(1, Math.min(ceConfiguration.getPeekBatchSize(), ceConfiguration.getWorkerCount() - processingCount.get()));
+    DbSession dbSession = dbClient.openSession(false);
+    try {
+      List<CeQueueDto> eligibleTasks = dbClient.ceQueueDao().selectEligibleForPeek(dbSession, maxTasks);
+      if (eligibleTasks.isEmpty()) {
+        return;
+      }
+      List<CeQueueDto> peekedTasks = dbClient.ceQueueDao().peek(dbSession, eligibleTasks);
+      queueStatus.addClaimConflicts(eligibleTasks.size() - peekedTasks.size());
+      for (CeQueueDto dto : peekedTasks) {
+        handOff.add(new ClaimedTask(loadTask(dbSession, dto), dto.getCreatedAt()));
+      }
+    } finally {
+      dbClient.closeSession(dbSession);
+    }
+  }
+
+  @CheckForNull
+  private ClaimedTask pollHandOff() {
+    try {
+      return handOff.poll(ceConfiguration.getQueuePollingDelay(), TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+  }
+
+  private void waitForPollingDelay() {
+    try {
+      Thread.sleep(ceConfiguration.getQueuePollingDelay());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void startProcessing(long createdAt) {
+    queueStatus.addInProgress();
+    queueStatus.addWaitTime(Math.max(0L, system2.now() - createdAt));
+  }
+
   @Override
   public int clear() {
+    handOff.clear();
     return cancelAll(true);
   }
 
   @Override
-  public void remove(CeTask task, CeActivityDto.Status status, @Nullable CeTaskResult taskResult, @Nullable Throwable error) {
+  public void remove(CeTask task, CeActivityDto.Status status, @Nullable CeTaskResult taskResult, @Nullable Throwable error,
+    @Nullable DbCe.TaskProfile profile) {
     checkArgument(error == null || status == CeActivityDto.Status.FAILED, "Error can be provided only when status is FAILED");
     DbSession dbSession = dbClient.openSession(false);
     try {
+      processingCount.updateAndGet(count -> Math.max(0, count - 1));
       Optional<CeQueueDto> queueDto = dbClient.ceQueueDao().selectByUuid(dbSession, task.getUuid());
       checkState(queueDto.isPresent(), "Task does not exist anymore: %s", task);
       CeActivityDto activityDto = new CeActivityDto(queueDto.get());
@@ -97,6 +193,9 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
       updateQueueStatus(status, activityDto);
       updateTaskResult(activityDto, taskResult);
       updateError(activityDto, error);
+      if (profile != null) {
+        activityDto.setProfileData(profile.toByteArray());
+      }
       remove(dbSession, queueDto.get(), activityDto);
     } finally {
       dbClient.closeSession(dbSession);
@@ -172,6 +271,16 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
     return peekPaused.get();
   }
 
+  private static final class ClaimedTask {
+    private final CeTask task;
+    private final long createdAt;
+
+    private ClaimedTask(CeTask task, long createdAt) {
+      this.task = task;
+      this.createdAt = createdAt;
+    }
+  }
+
   /**
    * A {@link PrintWriter} subclass which enforces that line returns are {@code \n} whichever the platform.
    */
@@ -22,25 +22,36 @@ package org.sonar.server.computation.task.projectanalysis.batch;
 import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
 import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
 import com.google.protobuf.Parser;
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.NoSuchElementException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import javax.annotation.CheckForNull;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.LineIterator;
+import org.picocontainer.Startable;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.core.util.LineReaderIterator;
+import org.sonar.core.util.Protobuf;
+import org.sonar.scanner.protocol.output.FileStructure;
 import org.sonar.scanner.protocol.output.ScannerReport;
 
-public class BatchReportReaderImpl implements BatchReportReader {
+/**
+ * Reads the report held by {@link BatchReportDirectoryHolder}, which is either a directory or the zip archive
+ * uploaded by the scanner. Entries of an archive are read on demand, it is never extracted.
+ */
+public class BatchReportReaderImpl implements BatchReportReader, Startable {
 
   private final BatchReportDirectoryHolder batchReportDirectoryHolder;
-  private org.sonar.scanner.protocol.output.ScannerReportReader delegate;
+  private ReportEntries entries;
   // caching of metadata which are read often
   private ScannerReport.Metadata metadata;
 
@@ -49,8 +60,22 @@ public class BatchReportReaderImpl implements BatchReportReader {
   }
 
   private void ensureInitialized() {
-    if (this.delegate == null) {
-      this.delegate = new org.sonar.scanner.protocol.output.ScannerReportReader(batchReportDirectoryHolder.getDirectory());
+    if (this.entries == null) {
+      File report = batchReportDirectoryHolder.getDirectory();
+      this.entries = report.isDirectory() ? new DirectoryEntries(report) : new ZipEntries(report);
+    }
+  }
+
+  @Override
+  public void start() {
+    // report is opened lazily
+  }
+
+  @Override
+  public void stop() {
+    if (entries != null) {
+      entries.close();
+      entries = null;
     }
   }
 
@@ -58,7 +83,11 @@ public class BatchReportReaderImpl implements BatchReportReader {
   public ScannerReport.Metadata readMetadata() {
     ensureInitialized();
     if (this.metadata == null) {
-      this.metadata = delegate.readMetadata();
+      InputStream input = entries.open(FileStructure.METADATA_FILE_NAME);
+      if (input == null) {
+        throw new IllegalStateException("Metadata file is missing in analysis report: " + FileStructure.METADATA_FILE_NAME);
+      }
+      this.metadata = Protobuf.read(input, ScannerReport.Metadata.parser());
     }
     return this.metadata;
   }
@@ -66,91 +95,87 @@ public class BatchReportReaderImpl implements BatchReportReader {
   @Override
   public CloseableIterator<String> readScannerLogs() {
     ensureInitialized();
-    File file = delegate.getFileStructure().analysisLog();
-    if (!file.exists()) {
+    InputStream input = entries.open(FileStructure.ANALYSIS_LOG_FILE_NAME);
+    if (input == null) {
       return CloseableIterator.emptyCloseableIterator();
     }
-    try {
-      InputStreamReader reader = new InputStreamReader(FileUtils.openInputStream(file), StandardCharsets.UTF_8);
-      return new LineReaderIterator(reader);
-    } catch (IOException e) {
-      throw new IllegalStateException("Fail to open file " + file, e);
-    }
+    return new LineReaderIterator(new InputStreamReader(input, StandardCharsets.UTF_8));
   }
 
   @Override
   public CloseableIterator<ScannerReport.ActiveRule> readActiveRules() {
-    ensureInitialized();
-    return delegate.readActiveRules();
+    return readStream(FileStructure.ACTIVE_RULES_FILE_NAME, ScannerReport.ActiveRule.parser());
   }
 
   @Override
   public CloseableIterator<ScannerReport.Measure> readComponentMeasures(int componentRef) {
-    ensureInitialized();
-    return delegate.readComponentMeasures(componentRef);
+    return readStream(FileStructure.Domain.MEASURES.fileName(componentRef), ScannerReport.Measure.parser());
   }
 
   @Override
   @CheckForNull
   public ScannerReport.Changesets readChangesets(int componentRef) {
     ensureInitialized();
-    return delegate.readChangesets(componentRef);
+    InputStream input = entries.open(FileStructure.Domain.CHANGESETS.fileName(componentRef));
+    if (input == null) {
+      return null;
+    }
+    return Protobuf.read(input, ScannerReport.Changesets.parser());
   }
 
   @Override
   public ScannerReport.Component readComponent(int componentRef) {
     ensureInitialized();
-    return delegate.readComponent(componentRef);
+    String name = FileStructure.Domain.COMPONENT.fileName(componentRef);
+    InputStream input = entries.open(name);
+    if (input == null) {
+      throw new IllegalStateException("Unable to find report for component #" + componentRef + ". File does not exist: " + name);
+    }
+    return Protobuf.read(input, ScannerReport.Component.parser());
   }
 
   @Override
   public CloseableIterator<ScannerReport.Issue> readComponentIssues(int componentRef) {
-    ensureInitialized();
-    return delegate.readComponentIssues(componentRef);
+    return readStream(FileStructure.Domain.ISSUES.fileName(componentRef), ScannerReport.Issue.parser());
   }
 
   @Override
   public CloseableIterator<ScannerReport.Duplication> readComponentDuplications(int componentRef) {
-    ensureInitialized();
-    return delegate.readComponentDuplications(componentRef);
+    return readStream(FileStructure.Domain.DUPLICATIONS.fileName(componentRef), ScannerReport.Duplication.parser());
   }
 
   @Override
   public CloseableIterator<ScannerReport.CpdTextBlock> readCpdTextBlocks(int componentRef) {
-    ensureInitialized();
-    return delegate.readCpdTextBlocks(componentRef);
+    return readStream(FileStructure.Domain.CPD_TEXT_BLOCKS.fileName(componentRef), ScannerReport.CpdTextBlock.parser());
   }
 
   @Override
   public CloseableIterator<ScannerReport.Symbol> readComponentSymbols(int componentRef) {
-    ensureInitialized();
-    return delegate.readComponentSymbols(componentRef);
+    return readStream(FileStructure.Domain.SYMBOLS.fileName(componentRef), ScannerReport.Symbol.parser());
   }
 
   @Override
   public CloseableIterator<ScannerReport.SyntaxHighlightingRule> readComponentSyntaxHighlighting(int fileRef) {
-    ensureInitialized();
-    return delegate.readComponentSyntaxHighlighting(fileRef);
+    return readStream(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS.fileName(fileRef), ScannerReport.SyntaxHighlightingRule.parser());
   }
 
   @Override
   public CloseableIterator<ScannerReport.LineCoverage> readComponentCoverage(int fileRef) {
-    ensureInitialized();
-    return delegate.readComponentCoverage(fileRef);
+    return readStream(FileStructure.Domain.COVERAGES.fileName(fileRef), ScannerReport.LineCoverage.parser());
   }
 
   @Override
   public Optional<CloseableIterator<String>> readFileSource(int fileRef) {
     ensureInitialized();
-    File file = delegate.readFileSource(fileRef);
-    if (file == null) {
+    InputStream input = entries.open(FileStructure.Domain.SOURCE.fileName(fileRef));
+    if (input == null) {
       return Optional.absent();
     }
 
     try {
-      return Optional.of(new CloseableLineIterator(IOUtils.lineIterator(FileUtils.openInputStream(file), StandardCharsets.UTF_8)));
+      return Optional.of(new CloseableLineIterator(IOUtils.lineIterator(input, StandardCharsets.UTF_8)));
     } catch (IOException e) {
-      throw new IllegalStateException("Fail to traverse file: " + file, e);
+      throw new IllegalStateException("Fail to traverse source of file " + fileRef, e);
     }
   }
 
@@ -186,56 +211,50 @@ public class BatchReportReaderImpl implements BatchReportReader {
   @Override
   public CloseableIterator<ScannerReport.Test> readTests(int testFileRef) {
     ensureInitialized();
-    File file = delegate.readTests(testFileRef);
-    if (file == null) {
-      return CloseableIterator.emptyCloseableIterator();
-    }
-
-    try {
-      return new ParserCloseableIterator<>(ScannerReport.Test.parser(), FileUtils.openInputStream(file));
-    } catch (IOException e) {
-      Throwables.propagate(e);
-      // actually never reached
+    InputStream input = entries.open(FileStructure.Domain.TESTS.fileName(testFileRef));
+    if (input == null) {
       return CloseableIterator.emptyCloseableIterator();
     }
+    return new ParserCloseableIterator<>(ScannerReport.Test.parser(), input);
   }
 
   @Override
   public CloseableIterator<ScannerReport.CoverageDetail> readCoverageDetails(int testFileRef) {
     ensureInitialized();
-    File file = delegate.readCoverageDetails(testFileRef);
-    if (file == null) {
-      return CloseableIterator.emptyCloseableIterator();
-    }
-
-    try {
-      return new ParserCloseableIterator<>(ScannerReport.CoverageDetail.parser(), FileUtils.openInputStream(file));
-    } catch (IOException e) {
-      Throwables.propagate(e);
-      // actually never reached
+    InputStream input = entries.open(FileStructure.Domain.COVERAGE_DETAILS.fileName(testFileRef));
+    if (input == null) {
       return CloseableIterator.emptyCloseableIterator();
     }
+    return new ParserCloseableIterator<>(ScannerReport.CoverageDetail.parser(), input);
   }
 
   @Override
   public CloseableIterator<ScannerReport.ContextProperty> readContextProperties() {
+    return readStream(FileStructure.CONTEXT_PROPERTIES_FILE_NAME, ScannerReport.ContextProperty.parser());
+  }
+
+  private <T extends Message> CloseableIterator<T> readStream(String entryName, Parser<T> parser) {
     ensureInitialized();
-    return delegate.readContextProperties();
+    InputStream input = entries.open(entryName);
+    if (input == null) {
+      return CloseableIterator.emptyCloseableIterator();
+    }
+    return Protobuf.readStream(input, parser);
   }
 
   private static class ParserCloseableIterator<T> extends CloseableIterator<T> {
     private final Parser<T> parser;
-    private final FileInputStream fileInputStream;
+    private final InputStream inputStream;
 
-    public ParserCloseableIterator(Parser<T> parser, FileInputStream fileInputStream) {
+    public ParserCloseableIterator(Parser<T> parser, InputStream inputStream) {
       this.parser = parser;
-      this.fileInputStream = fileInputStream;
+      this.inputStream = inputStream;
     }
 
     @Override
     protected T doNext() {
       try {
-        return parser.parseDelimitedFrom(fileInputStream);
+        return parser.parseDelimitedFrom(inputStream);
       } catch (InvalidProtocolBufferException e) {
         Throwables.propagate(e);
         // actually never reached
@@ -245,7 +264,78 @@ public class BatchReportReaderImpl implements BatchReportReader {
 
     @Override
     protected void doClose() throws Exception {
-      fileInputStream.close();
+      inputStream.close();
+    }
+  }
+
+  private interface ReportEntries {
+    /**
+     * Opens the entry with the given name, or returns {@code null} if it does not exist. The stream
+     * must be closed by caller.
+     */
+    @CheckForNull
+    InputStream open(String name);
+
+    void close();
+  }
+
+  private static class DirectoryEntries implements ReportEntries {
+    private final File dir;
+
+    private DirectoryEntries(File dir) {
+      this.dir = dir;
+    }
+
+    @Override
+    @CheckForNull
+    public InputStream open(String name) {
+      File file = new File(dir, name);
+      if (!file.isFile()) {
+        return null;
+      }
+      try {
+        return new BufferedInputStream(Files.newInputStream(file.toPath()));
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to open file " + file, e);
+      }
+    }
+
+    @Override
+    public void close() {
+      // nothing to do
+    }
+  }
+
+  private static class ZipEntries implements ReportEntries {
+    private final File zip;
+    private final ZipFile zipFile;
+
+    private ZipEntries(File zip) {
+      this.zip = zip;
+      try {
+        this.zipFile = new ZipFile(zip);
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to open analysis report " + zip, e);
+      }
+    }
+
+    @Override
+    @CheckForNull
+    public InputStream open(String name) {
+      ZipEntry entry = zipFile.getEntry(name);
+      if (entry == null || entry.isDirectory()) {
+        return null;
+      }
+      try {
+        return new BufferedInputStream(zipFile.getInputStream(entry));
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to read entry " + name + " of analysis report " + zip, e);
+      }
+    }
+
+    @Override
+    public void close() {
+      IOUtils.closeQuietly(zipFile);
     }
   }
 }
@@ -20,6 +20,11 @@
 package org.sonar.server.computation.task.projectanalysis.component;
 
 public interface TreeRootHolder {
+  /**
+   * @return true if the holder is empty
+   */
+  boolean isEmpty();
+
   /**
    * The root of the tree of Component representing the component in the current ScannerReport.
    *
@@ -46,6 +46,11 @@ public class TreeRootHolderImpl implements MutableTreeRootHolder {
     return this;
   }
 
+  @Override
+  public boolean isEmpty() {
+    return this.root == null;
+  }
+
   @Override
   public Component getRoot() {
     checkInitialized();
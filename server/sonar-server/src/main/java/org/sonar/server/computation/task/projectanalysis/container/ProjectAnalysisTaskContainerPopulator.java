@@ -80,6 +80,7 @@ import org.sonar.server.computation.task.projectanalysis.issue.commonrule.Skippe
 import org.sonar.server.computation.task.projectanalysis.issue.commonrule.TestErrorRule;
 import org.sonar.server.computation.task.projectanalysis.issue.filter.IssueFilter;
 import org.sonar.server.computation.task.projectanalysis.language.LanguageRepositoryImpl;
+import org.sonar.server.computation.task.projectanalysis.measure.BaseMeasureCache;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureComputersHolderImpl;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureComputersVisitor;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepositoryImpl;
@@ -162,6 +163,7 @@ public final class ProjectAnalysisTaskContainerPopulator implements ContainerPop
 
       // repositories
       LanguageRepositoryImpl.class,
+      BaseMeasureCache.class,
       MeasureRepositoryImpl.class,
       EventRepositoryImpl.class,
       SettingsRepositoryImpl.class,
@@ -0,0 +1,395 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.apache.commons.lang.SerializationUtils;
+import org.sonar.api.issue.IssueComment;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.Duration;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.issue.DefaultIssueComment;
+import org.sonar.core.issue.FieldDiffs;
+import org.sonar.db.protobuf.DbIssues;
+import org.sonar.server.util.cache.BlockDiskCacheCodec;
+
+/**
+ * Binary encoding of {@link DefaultIssue}, including changes and comments, used by {@link IssueCache}.
+ * It is much more compact and faster than Java serialization. Fields which type is not known
+ * (values of {@link FieldDiffs.Diff} and locations) fallback to Java serialization.
+ */
+public class DefaultIssueCodec extends BlockDiskCacheCodec<DefaultIssue> {
+
+  private static final int NULL_SIZE = -1;
+
+  private static final byte VALUE_NULL = 0;
+  private static final byte VALUE_STRING = 1;
+  private static final byte VALUE_LONG = 2;
+  private static final byte VALUE_INTEGER = 3;
+  private static final byte VALUE_DOUBLE = 4;
+  private static final byte VALUE_BOOLEAN = 5;
+  private static final byte VALUE_DATE = 6;
+  private static final byte VALUE_SERIALIZED = 7;
+
+  private static final byte LOCATIONS_NULL = 0;
+  private static final byte LOCATIONS_PROTOBUF = 1;
+  private static final byte LOCATIONS_SERIALIZED = 2;
+
+  public DefaultIssueCodec(boolean compressed) {
+    super(compressed);
+  }
+
+  @Override
+  protected void write(DefaultIssue issue, DataOutput output) throws IOException {
+    writeNullableString(output, issue.key());
+    output.writeByte(issue.type() == null ? 0 : issue.type().getDbConstant());
+    writeNullableString(output, issue.componentUuid());
+    writeNullableString(output, issue.componentKey());
+    writeNullableString(output, issue.moduleUuid());
+    writeNullableString(output, issue.moduleUuidPath());
+    writeNullableString(output, issue.projectUuid());
+    writeNullableString(output, issue.projectKey());
+    writeNullableString(output, issue.ruleKey() == null ? null : issue.ruleKey().toString());
+    writeNullableString(output, issue.language());
+    writeNullableString(output, issue.severity());
+    output.writeBoolean(issue.manualSeverity());
+    writeNullableString(output, issue.message());
+    output.writeInt(issue.line() == null ? 0 : issue.line());
+    output.writeBoolean(issue.gap() != null);
+    if (issue.gap() != null) {
+      output.writeDouble(issue.gap());
+    }
+    writeNullableLong(output, issue.effortInMinutes());
+    writeNullableString(output, issue.status());
+    writeNullableString(output, issue.resolution());
+    writeNullableString(output, issue.assignee());
+    writeNullableString(output, issue.checksum());
+    writeAttributes(output, issue.attributes());
+    writeNullableString(output, issue.authorLogin());
+    writeComments(output, issue.comments());
+    writeTags(output, issue.tags());
+    writeLocations(output, issue.getLocations());
+    writeNullableDate(output, issue.creationDate());
+    writeNullableDate(output, issue.updateDate());
+    writeNullableDate(output, issue.closeDate());
+    writeChanges(output, issue.changes(), issue.currentChange());
+    output.writeBoolean(issue.isNew());
+    output.writeBoolean(issue.isBeingClosed());
+    output.writeBoolean(issue.isOnDisabledRule());
+    output.writeBoolean(issue.isChanged());
+    output.writeBoolean(issue.mustSendNotifications());
+    writeNullableLong(output, issue.selectedAt());
+  }
+
+  @Override
+  protected DefaultIssue read(DataInput input) throws IOException {
+    DefaultIssue issue = new DefaultIssue();
+    issue.setKey(readNullableString(input));
+    byte type = input.readByte();
+    if (type != 0) {
+      issue.setType(RuleType.valueOf(type));
+    }
+    issue.setComponentUuid(readNullableString(input));
+    issue.setComponentKey(readNullableString(input));
+    issue.setModuleUuid(readNullableString(input));
+    issue.setModuleUuidPath(readNullableString(input));
+    issue.setProjectUuid(readNullableString(input));
+    issue.setProjectKey(readNullableString(input));
+    String ruleKey = readNullableString(input);
+    if (ruleKey != null) {
+      issue.setRuleKey(RuleKey.parse(ruleKey));
+    }
+    issue.setLanguage(readNullableString(input));
+    issue.setSeverity(readNullableString(input));
+    issue.setManualSeverity(input.readBoolean());
+    issue.setMessage(readNullableString(input));
+    int line = input.readInt();
+    issue.setLine(line == 0 ? null : line);
+    issue.setGap(input.readBoolean() ? input.readDouble() : null);
+    Long effort = readNullableLong(input);
+    issue.setEffort(effort == null ? null : Duration.create(effort));
+    String status = readNullableString(input);
+    if (status != null) {
+      issue.setStatus(status);
+    }
+    issue.setResolution(readNullableString(input));
+    issue.setAssignee(readNullableString(input));
+    issue.setChecksum(readNullableString(input));
+    issue.setAttributes(readAttributes(input));
+    issue.setAuthorLogin(readNullableString(input));
+    readComments(input, issue);
+    Set<String> tags = readTags(input);
+    if (tags != null) {
+      issue.setTags(tags);
+    }
+    issue.setLocations(readLocations(input));
+    issue.setCreationDate(readNullableDate(input));
+    issue.setUpdateDate(readNullableDate(input));
+    issue.setCloseDate(readNullableDate(input));
+    readChanges(input, issue);
+    issue.setNew(input.readBoolean());
+    issue.setBeingClosed(input.readBoolean());
+    issue.setOnDisabledRule(input.readBoolean());
+    issue.setChanged(input.readBoolean());
+    issue.setSendNotifications(input.readBoolean());
+    issue.setSelectedAt(readNullableLong(input));
+    return issue;
+  }
+
+  private static void writeAttributes(DataOutput output, Map<String, String> attributes) throws IOException {
+    output.writeInt(attributes.size());
+    for (Map.Entry<String, String> entry : attributes.entrySet()) {
+      writeNullableString(output, entry.getKey());
+      writeNullableString(output, entry.getValue());
+    }
+  }
+
+  @CheckForNull
+  private static Map<String, String> readAttributes(DataInput input) throws IOException {
+    int size = input.readInt();
+    if (size == 0) {
+      return null;
+    }
+    Map<String, String> attributes = new HashMap<>(size);
+    for (int i = 0; i < size; i++) {
+      attributes.put(readNullableString(input), readNullableString(input));
+    }
+    return attributes;
+  }
+
+  private static void writeComments(DataOutput output, List<IssueComment> comments) throws IOException {
+    output.writeInt(comments.size());
+    for (IssueComment comment : comments) {
+      writeNullableString(output, comment.issueKey());
+      writeNullableString(output, comment.key());
+      writeNullableString(output, comment.userLogin());
+      writeNullableString(output, comment.markdownText());
+      writeNullableDate(output, comment.createdAt());
+      writeNullableDate(output, comment.updatedAt());
+      output.writeBoolean(comment instanceof DefaultIssueComment && ((DefaultIssueComment) comment).isNew());
+    }
+  }
+
+  private static void readComments(DataInput input, DefaultIssue issue) throws IOException {
+    int size = input.readInt();
+    for (int i = 0; i < size; i++) {
+      DefaultIssueComment comment = new DefaultIssueComment()
+        .setIssueKey(readNullableString(input))
+        .setKey(readNullableString(input))
+        .setUserLogin(readNullableString(input))
+        .setMarkdownText(readNullableString(input))
+        .setCreatedAt(readNullableDate(input))
+        .setUpdatedAt(readNullableDate(input))
+        .setNew(input.readBoolean());
+      issue.addComment(comment);
+    }
+  }
+
+  private static void writeTags(DataOutput output, Set<String> tags) throws IOException {
+    output.writeInt(tags.isEmpty() ? NULL_SIZE : tags.size());
+    for (String tag : tags) {
+      writeNullableString(output, tag);
+    }
+  }
+
+  @CheckForNull
+  private static Set<String> readTags(DataInput input) throws IOException {
+    int size = input.readInt();
+    if (size == NULL_SIZE) {
+      return null;
+    }
+    Set<String> tags = new LinkedHashSet<>(size);
+    for (int i = 0; i < size; i++) {
+      tags.add(readNullableString(input));
+    }
+    return tags;
+  }
+
+  private static void writeLocations(DataOutput output, @Nullable Object locations) throws IOException {
+    if (locations == null) {
+      output.writeByte(LOCATIONS_NULL);
+    } else if (locations instanceof DbIssues.Locations) {
+      output.writeByte(LOCATIONS_PROTOBUF);
+      writeNullableBytes(output, ((DbIssues.Locations) locations).toByteArray());
+    } else {
+      output.writeByte(LOCATIONS_SERIALIZED);
+      writeNullableBytes(output, SerializationUtils.serialize((Serializable) locations));
+    }
+  }
+
+  @CheckForNull
+  private static Object readLocations(DataInput input) throws IOException {
+    byte kind = input.readByte();
+    switch (kind) {
+      case LOCATIONS_NULL:
+        return null;
+      case LOCATIONS_PROTOBUF:
+        return DbIssues.Locations.parseFrom(readNullableBytes(input));
+      case LOCATIONS_SERIALIZED:
+        return SerializationUtils.deserialize(readNullableBytes(input));
+      default:
+        throw new IllegalStateException("Unsupported type of locations: " + kind);
+    }
+  }
+
+  /**
+   * The current change is usually also referenced (even several times) by the list of changes. Changes
+   * are written once and referenced by index, so that the same instances are shared after decoding.
+   */
+  private static void writeChanges(DataOutput output, List<FieldDiffs> changes, @Nullable FieldDiffs currentChange) throws IOException {
+    List<FieldDiffs> distinctChanges = new ArrayList<>();
+    Map<FieldDiffs, Integer> indexes = new IdentityHashMap<>();
+    for (FieldDiffs change : changes) {
+      indexOf(change, distinctChanges, indexes);
+    }
+    int currentIndex = currentChange == null ? NULL_SIZE : indexOf(currentChange, distinctChanges, indexes);
+
+    output.writeInt(distinctChanges.size());
+    for (FieldDiffs change : distinctChanges) {
+      writeFieldDiffs(output, change);
+    }
+    output.writeInt(changes.size());
+    for (FieldDiffs change : changes) {
+      output.writeInt(indexes.get(change));
+    }
+    output.writeInt(currentIndex);
+  }
+
+  private static int indexOf(FieldDiffs change, List<FieldDiffs> distinctChanges, Map<FieldDiffs, Integer> indexes) {
+    Integer index = indexes.get(change);
+    if (index == null) {
+      index = distinctChanges.size();
+      distinctChanges.add(change);
+      indexes.put(change, index);
+    }
+    return index;
+  }
+
+  private static void readChanges(DataInput input, DefaultIssue issue) throws IOException {
+    int distinctSize = input.readInt();
+    List<FieldDiffs> distinctChanges = new ArrayList<>(distinctSize);
+    for (int i = 0; i < distinctSize; i++) {
+      distinctChanges.add(readFieldDiffs(input));
+    }
+    int size = input.readInt();
+    List<FieldDiffs> changes = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      changes.add(distinctChanges.get(input.readInt()));
+    }
+    int currentIndex = input.readInt();
+    if (currentIndex != NULL_SIZE) {
+      // setCurrentChange() also appends to the list of changes, which is overridden just after
+      issue.setCurrentChange(distinctChanges.get(currentIndex));
+    }
+    if (!changes.isEmpty() || currentIndex != NULL_SIZE) {
+      issue.setChanges(changes);
+    }
+  }
+
+  private static void writeFieldDiffs(DataOutput output, FieldDiffs diffs) throws IOException {
+    writeNullableString(output, diffs.issueKey());
+    writeNullableString(output, diffs.userLogin());
+    writeNullableDate(output, diffs.creationDate());
+    output.writeInt(diffs.diffs().size());
+    for (Map.Entry<String, FieldDiffs.Diff> entry : diffs.diffs().entrySet()) {
+      writeNullableString(output, entry.getKey());
+      writeValue(output, entry.getValue().oldValue());
+      writeValue(output, entry.getValue().newValue());
+    }
+  }
+
+  private static FieldDiffs readFieldDiffs(DataInput input) throws IOException {
+    FieldDiffs diffs = new FieldDiffs()
+      .setIssueKey(readNullableString(input))
+      .setUserLogin(readNullableString(input))
+      .setCreationDate(readNullableDate(input));
+    int size = input.readInt();
+    for (int i = 0; i < size; i++) {
+      diffs.setDiff(readNullableString(input), readValue(input), readValue(input));
+    }
+    return diffs;
+  }
+
+  private static void writeValue(DataOutput output, @Nullable Object value) throws IOException {
+    if (value == null) {
+      output.writeByte(VALUE_NULL);
+    } else if (value instanceof String) {
+      output.writeByte(VALUE_STRING);
+      writeNullableString(output, (String) value);
+    } else if (value instanceof Long) {
+      output.writeByte(VALUE_LONG);
+      output.writeLong((Long) value);
+    } else if (value instanceof Integer) {
+      output.writeByte(VALUE_INTEGER);
+      output.writeInt((Integer) value);
+    } else if (value instanceof Double) {
+      output.writeByte(VALUE_DOUBLE);
+      output.writeDouble((Double) value);
+    } else if (value instanceof Boolean) {
+      output.writeByte(VALUE_BOOLEAN);
+      output.writeBoolean((Boolean) value);
+    } else if (value.getClass() == Date.class) {
+      output.writeByte(VALUE_DATE);
+      output.writeLong(((Date) value).getTime());
+    } else {
+      output.writeByte(VALUE_SERIALIZED);
+      writeNullableBytes(output, SerializationUtils.serialize((Serializable) value));
+    }
+  }
+
+  @CheckForNull
+  private static Serializable readValue(DataInput input) throws IOException {
+    byte kind = input.readByte();
+    switch (kind) {
+      case VALUE_NULL:
+        return null;
+      case VALUE_STRING:
+        return readNullableString(input);
+      case VALUE_LONG:
+        return input.readLong();
+      case VALUE_INTEGER:
+        return input.readInt();
+      case VALUE_DOUBLE:
+        return input.readDouble();
+      case VALUE_BOOLEAN:
+        return input.readBoolean();
+      case VALUE_DATE:
+        return new Date(input.readLong());
+      case VALUE_SERIALIZED:
+        return (Serializable) SerializationUtils.deserialize(readNullableBytes(input));
+      default:
+        throw new IllegalStateException("Unsupported type of value: " + kind);
+    }
+  }
+}
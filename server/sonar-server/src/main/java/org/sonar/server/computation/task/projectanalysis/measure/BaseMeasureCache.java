@@ -0,0 +1,194 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.picocontainer.Startable;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.measure.MeasureDto;
+import org.sonar.db.measure.MeasureQuery;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
+import org.sonar.server.computation.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
+
+import static org.sonar.db.DatabaseUtils.PARTITION_SIZE_FOR_ORACLE;
+import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.POST_ORDER;
+
+/**
+ * Measures of the last analysis (aka. base measures), loaded from database by chunks of components.
+ * <p>
+ * The first time the base measures of a component are requested, the measures of all the metrics of this component
+ * and of the components next to it in the tree (in post-order, which is the order of most of the visitors) are loaded
+ * with a single request. Components which are not in the tree are loaded alone. Only the last
+ * {@link #MAX_LOADED_CHUNKS} chunks are kept in memory.
+ * </p>
+ * <p>
+ * The number of hits and misses is logged when the task is completed.
+ * </p>
+ */
+public class BaseMeasureCache implements Startable {
+  private static final Logger LOGGER = Loggers.get(BaseMeasureCache.class);
+
+  static final int CHUNK_SIZE = PARTITION_SIZE_FOR_ORACLE;
+  static final int MAX_LOADED_CHUNKS = 2;
+
+  private final DbClient dbClient;
+  private final TreeRootHolder treeRootHolder;
+  private final Map<String, ComponentMeasures> measuresByComponentUuid = new HashMap<>();
+  private final Deque<List<String>> loadedChunks = new ArrayDeque<>();
+  private List<String> componentUuidsInTreeOrder;
+  private Map<String, Integer> indexByComponentUuid;
+  private long hits = 0;
+  private long misses = 0;
+
+  public BaseMeasureCache(DbClient dbClient, TreeRootHolder treeRootHolder) {
+    this.dbClient = dbClient;
+    this.treeRootHolder = treeRootHolder;
+  }
+
+  @CheckForNull
+  public MeasureDto get(Component component, int metricId) {
+    ComponentMeasures measures = measuresByComponentUuid.get(component.getUuid());
+    if (measures == null) {
+      misses++;
+      load(component.getUuid());
+      measures = measuresByComponentUuid.get(component.getUuid());
+    } else {
+      hits++;
+    }
+    return measures.get(metricId);
+  }
+
+  /**
+   * Number of requests for which measures of component were already loaded
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * Number of requests which required to load measures from database
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  @Override
+  public void start() {
+    // measures are loaded lazily
+  }
+
+  @Override
+  public void stop() {
+    LOGGER.debug("Base measures cache: {} hits, {} misses", hits, misses);
+    measuresByComponentUuid.clear();
+    loadedChunks.clear();
+  }
+
+  private void load(String componentUuid) {
+    List<String> chunk = getChunkOf(componentUuid);
+    Map<String, List<MeasureDto>> dtosByComponentUuid = new HashMap<>();
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      MeasureQuery query = MeasureQuery.builder().setComponentUuids(chunk).build();
+      for (MeasureDto dto : dbClient.measureDao().selectByQuery(dbSession, query)) {
+        dtosByComponentUuid.computeIfAbsent(dto.getComponentUuid(), uuid -> new ArrayList<>()).add(dto);
+      }
+    }
+    for (String uuid : chunk) {
+      List<MeasureDto> dtos = dtosByComponentUuid.get(uuid);
+      measuresByComponentUuid.put(uuid, dtos == null ? ComponentMeasures.EMPTY : new ComponentMeasures(dtos));
+    }
+    loadedChunks.addLast(chunk);
+    if (loadedChunks.size() > MAX_LOADED_CHUNKS) {
+      // visitors have moved past the oldest chunk, it is loaded again if needed
+      loadedChunks.removeFirst().forEach(measuresByComponentUuid::remove);
+    }
+  }
+
+  private List<String> getChunkOf(String componentUuid) {
+    ensureTreeOrderIsPopulated();
+    Integer index = indexByComponentUuid.get(componentUuid);
+    if (index == null) {
+      return Collections.singletonList(componentUuid);
+    }
+    int start = index - index % CHUNK_SIZE;
+    int end = Math.min(start + CHUNK_SIZE, componentUuidsInTreeOrder.size());
+    return componentUuidsInTreeOrder.subList(start, end);
+  }
+
+  private void ensureTreeOrderIsPopulated() {
+    if (componentUuidsInTreeOrder != null) {
+      return;
+    }
+    List<String> uuids = new ArrayList<>();
+    Map<String, Integer> indexes = new HashMap<>();
+    if (!treeRootHolder.isEmpty()) {
+      new DepthTraversalTypeAwareCrawler(
+        new TypeAwareVisitorAdapter(CrawlerDepthLimit.LEAVES, POST_ORDER) {
+          @Override
+          public void visitAny(Component component) {
+            indexes.put(component.getUuid(), uuids.size());
+            uuids.add(component.getUuid());
+          }
+        }).visit(treeRootHolder.getRoot());
+    }
+    this.componentUuidsInTreeOrder = uuids;
+    this.indexByComponentUuid = indexes;
+  }
+
+  /**
+   * Measures of a component, sorted by metric id
+   */
+  private static class ComponentMeasures {
+    private static final ComponentMeasures EMPTY = new ComponentMeasures(Collections.emptyList());
+
+    private final int[] metricIds;
+    private final MeasureDto[] measures;
+
+    private ComponentMeasures(List<MeasureDto> dtos) {
+      MeasureDto[] sorted = dtos.toArray(new MeasureDto[dtos.size()]);
+      Arrays.sort(sorted, (m1, m2) -> Integer.compare(m1.getMetricId(), m2.getMetricId()));
+      this.measures = sorted;
+      this.metricIds = new int[sorted.length];
+      for (int i = 0; i < sorted.length; i++) {
+        metricIds[i] = sorted[i].getMetricId();
+      }
+    }
+
+    @CheckForNull
+    private MeasureDto get(int metricId) {
+      int index = Arrays.binarySearch(metricIds, metricId);
+      return index >= 0 ? measures[index] : null;
+    }
+  }
+}
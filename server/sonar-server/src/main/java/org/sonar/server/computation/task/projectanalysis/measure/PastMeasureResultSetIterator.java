@@ -0,0 +1,104 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.apache.commons.dbutils.DbUtils;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.ResultSetIterator;
+
+/**
+ * Scroll over the measures of an analysis (excluding measures on developers), without loading
+ * all the rows in memory. Measures can optionally be restricted to a set of at most 1'000 components.
+ */
+public class PastMeasureResultSetIterator extends ResultSetIterator<PastMeasureResultSetIterator.Row> {
+
+  private static final String SQL_ALL = "select pm.component_uuid, pm.metric_id, pm.value from project_measures pm " +
+    "where pm.analysis_uuid=? and pm.person_id is null";
+
+  private PastMeasureResultSetIterator(PreparedStatement stmt) throws SQLException {
+    super(stmt);
+  }
+
+  public static PastMeasureResultSetIterator create(DbClient dbClient, DbSession session, String analysisUuid, @Nullable Collection<String> componentUuids) {
+    Collection<String> uuids = componentUuids == null ? Collections.emptyList() : componentUuids;
+    StringBuilder sql = new StringBuilder(SQL_ALL);
+    if (!uuids.isEmpty()) {
+      sql.append(" and pm.component_uuid in (");
+      for (int i = 0; i < uuids.size(); i++) {
+        sql.append(i == 0 ? "?" : ",?");
+      }
+      sql.append(")");
+    }
+    PreparedStatement stmt = dbClient.getMyBatis().newScrollingSelectStatement(session, sql.toString());
+    try {
+      int index = 1;
+      stmt.setString(index, analysisUuid);
+      for (String uuid : uuids) {
+        index++;
+        stmt.setString(index, uuid);
+      }
+      return new PastMeasureResultSetIterator(stmt);
+    } catch (SQLException e) {
+      DbUtils.closeQuietly(stmt);
+      throw new IllegalStateException("Fail to prepare SQL request to select measures of analysis " + analysisUuid, e);
+    }
+  }
+
+  @Override
+  protected Row read(ResultSet rs) throws SQLException {
+    String componentUuid = rs.getString(1);
+    int metricId = rs.getInt(2);
+    double value = rs.getDouble(3);
+    return new Row(componentUuid, metricId, rs.wasNull() ? null : value);
+  }
+
+  public static class Row {
+    private final String componentUuid;
+    private final int metricId;
+    private final Double value;
+
+    public Row(String componentUuid, int metricId, @Nullable Double value) {
+      this.componentUuid = componentUuid;
+      this.metricId = metricId;
+      this.value = value;
+    }
+
+    public String getComponentUuid() {
+      return componentUuid;
+    }
+
+    public int getMetricId() {
+      return metricId;
+    }
+
+    @CheckForNull
+    public Double getValue() {
+      return value;
+    }
+  }
+}
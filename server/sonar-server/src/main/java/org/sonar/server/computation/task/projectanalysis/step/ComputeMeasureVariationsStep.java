@@ -19,9 +19,11 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
-import com.google.common.base.Function;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
+import com.google.common.collect.Lists;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -34,7 +36,6 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
-import org.sonar.db.measure.PastMeasureDto;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
 import org.sonar.server.computation.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
@@ -44,6 +45,7 @@ import org.sonar.server.computation.task.projectanalysis.measure.Measure;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureKey;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureVariations;
+import org.sonar.server.computation.task.projectanalysis.measure.PastMeasureResultSetIterator;
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
 import org.sonar.server.computation.task.projectanalysis.period.Period;
@@ -52,11 +54,11 @@ import org.sonar.server.computation.task.step.ComputationStep;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.lang.String.format;
-import static java.util.function.Function.identity;
-import static org.sonar.core.util.stream.Collectors.uniqueIndex;
+import static org.sonar.db.DatabaseUtils.PARTITION_SIZE_FOR_ORACLE;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.DIRECTORY;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.SUBVIEW;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
+import static org.sonar.server.computation.task.projectanalysis.period.PeriodsHolder.MAX_NUMBER_OF_PERIODS;
 
 /**
  * Set variations on all numeric measures found in the repository.
@@ -66,19 +68,30 @@ import static org.sonar.server.computation.task.projectanalysis.component.Compon
  */
 public class ComputeMeasureVariationsStep implements ComputationStep {
 
+  static final int DEFAULT_MAX_COMPONENTS_IN_MEMORY = 10_000;
+
   private final DbClient dbClient;
   private final TreeRootHolder treeRootHolder;
   private final PeriodsHolder periodsHolder;
   private final MetricRepository metricRepository;
   private final MeasureRepository measureRepository;
+  private final int maxComponentsInMemory;
 
   public ComputeMeasureVariationsStep(DbClient dbClient, TreeRootHolder treeRootHolder, PeriodsHolder periodsHolder, MetricRepository metricRepository,
     MeasureRepository measureRepository) {
+    this(dbClient, treeRootHolder, periodsHolder, metricRepository, measureRepository, DEFAULT_MAX_COMPONENTS_IN_MEMORY);
+  }
+
+  @VisibleForTesting
+  ComputeMeasureVariationsStep(DbClient dbClient, TreeRootHolder treeRootHolder, PeriodsHolder periodsHolder, MetricRepository metricRepository,
+    MeasureRepository measureRepository, int maxComponentsInMemory) {
+    checkArgument(maxComponentsInMemory > 0, "Max number of components in memory must be positive");
     this.dbClient = dbClient;
     this.treeRootHolder = treeRootHolder;
     this.periodsHolder = periodsHolder;
     this.metricRepository = metricRepository;
     this.measureRepository = measureRepository;
+    this.maxComponentsInMemory = maxComponentsInMemory;
   }
 
   @Override
@@ -86,55 +99,97 @@ public class ComputeMeasureVariationsStep implements ComputationStep {
     DbSession dbSession = dbClient.openSession(false);
     try {
       List<Metric> metrics = StreamSupport.stream(metricRepository.getAll().spliterator(), false).filter(NumericMetric.INSTANCE::apply).collect(Collectors.toList());
-      new DepthTraversalTypeAwareCrawler(new VariationMeasuresVisitor(dbSession, metrics))
-        .visit(treeRootHolder.getRoot());
+      List<Component> components = collectComponents();
+      VariationMeasuresComputer computer = new VariationMeasuresComputer(dbSession, metrics);
+      if (components.size() <= maxComponentsInMemory) {
+        // a single scroll over all the measures of each period, without any IN clause
+        computer.compute(components, false);
+      } else {
+        for (List<Component> slice : Lists.partition(components, Math.min(maxComponentsInMemory, PARTITION_SIZE_FOR_ORACLE))) {
+          computer.compute(slice, true);
+        }
+      }
     } finally {
       dbClient.closeSession(dbSession);
     }
   }
 
-  private class VariationMeasuresVisitor extends TypeAwareVisitorAdapter {
+  private List<Component> collectComponents() {
+    List<Component> components = new ArrayList<>();
+    // measures on files are currently purged, so past measures are not available on files
+    new DepthTraversalTypeAwareCrawler(
+      new TypeAwareVisitorAdapter(CrawlerDepthLimit.reportMaxDepth(DIRECTORY).withViewsMaxDepth(SUBVIEW), PRE_ORDER) {
+        @Override
+        public void visitAny(Component component) {
+          components.add(component);
+        }
+      }).visit(treeRootHolder.getRoot());
+    return components;
+  }
+
+  /**
+   * Loads the past measures of a set of components with one request per period, then computes
+   * the variations of these components. Past values are kept as a {@code double[period][metric]}
+   * matrix per component, where missing values are 0.
+   */
+  private class VariationMeasuresComputer {
 
     private final DbSession session;
-    private final Set<Integer> metricIds;
     private final List<Metric> metrics;
+    private final Map<Integer, Integer> metricIndexesById = new HashMap<>();
 
-    VariationMeasuresVisitor(DbSession session, List<Metric> metrics) {
-      // measures on files are currently purged, so past measures are not available on files
-      super(CrawlerDepthLimit.reportMaxDepth(DIRECTORY).withViewsMaxDepth(SUBVIEW), PRE_ORDER);
+    VariationMeasuresComputer(DbSession session, List<Metric> metrics) {
       this.session = session;
-      this.metricIds = metrics.stream().map(MetricDtoToMetricId.INSTANCE::apply).collect(Collectors.toSet());
       this.metrics = metrics;
+      for (int i = 0; i < metrics.size(); i++) {
+        metricIndexesById.put(metrics.get(i).getId(), i);
+      }
     }
 
-    @Override
-    public void visitAny(Component component) {
-      MeasuresWithVariationRepository measuresWithVariationRepository = computeMeasuresWithVariations(component);
-      processMeasuresWithVariation(component, measuresWithVariationRepository);
+    void compute(List<Component> components, boolean restrictToComponents) {
+      Map<String, double[][]> pastValuesByComponentUuid = loadPastValues(components, restrictToComponents);
+      for (Component component : components) {
+        MeasuresWithVariationRepository measuresWithVariationRepository = computeMeasuresWithVariations(component, pastValuesByComponentUuid.get(component.getUuid()));
+        processMeasuresWithVariation(component, measuresWithVariationRepository);
+      }
     }
 
-    private MeasuresWithVariationRepository computeMeasuresWithVariations(Component component) {
-      MeasuresWithVariationRepository measuresWithVariationRepository = new MeasuresWithVariationRepository();
+    private Map<String, double[][]> loadPastValues(List<Component> components, boolean restrictToComponents) {
+      Map<String, double[][]> pastValuesByComponentUuid = new HashMap<>();
+      if (metrics.isEmpty()) {
+        return pastValuesByComponentUuid;
+      }
+      Set<String> componentUuids = components.stream().map(Component::getUuid).collect(Collectors.toSet());
       for (Period period : periodsHolder.getPeriods()) {
-        List<PastMeasureDto> pastMeasures = dbClient.measureDao()
-          .selectPastMeasures(session, component.getUuid(), period.getAnalysisUuid(), metricIds);
-        setVariationMeasures(component, pastMeasures, period.getIndex(), measuresWithVariationRepository);
+        try (PastMeasureResultSetIterator rows = PastMeasureResultSetIterator.create(dbClient, session, period.getAnalysisUuid(),
+          restrictToComponents ? componentUuids : null)) {
+          while (rows.hasNext()) {
+            PastMeasureResultSetIterator.Row row = rows.next();
+            Integer metricIndex = metricIndexesById.get(row.getMetricId());
+            if (metricIndex == null || row.getValue() == null || !componentUuids.contains(row.getComponentUuid())) {
+              continue;
+            }
+            double[][] pastValues = pastValuesByComponentUuid.computeIfAbsent(row.getComponentUuid(), uuid -> new double[MAX_NUMBER_OF_PERIODS][metrics.size()]);
+            pastValues[period.getIndex() - 1][metricIndex] = row.getValue();
+          }
+        }
       }
-      return measuresWithVariationRepository;
+      return pastValuesByComponentUuid;
     }
 
-    private void setVariationMeasures(Component component, List<PastMeasureDto> pastMeasures, int period, MeasuresWithVariationRepository measuresWithVariationRepository) {
-      Map<MeasureKey, PastMeasureDto> pastMeasuresByMeasureKey = pastMeasures
-        .stream()
-        .collect(uniqueIndex(m -> new MeasureKey(metricRepository.getById((long) m.getMetricId()).getKey(), null), identity()));
-      for (Metric metric : metrics) {
-        Optional<Measure> measure = measureRepository.getRawMeasure(component, metric);
-        if (measure.isPresent() && !measure.get().hasVariations()) {
-          PastMeasureDto pastMeasure = pastMeasuresByMeasureKey.get(new MeasureKey(metric.getKey(), null));
-          double pastValue = (pastMeasure != null && pastMeasure.hasValue()) ? pastMeasure.getValue() : 0d;
-          measuresWithVariationRepository.add(metric, measure.get(), period, computeVariation(measure.get(), pastValue));
+    private MeasuresWithVariationRepository computeMeasuresWithVariations(Component component, @Nullable double[][] pastValues) {
+      MeasuresWithVariationRepository measuresWithVariationRepository = new MeasuresWithVariationRepository();
+      for (Period period : periodsHolder.getPeriods()) {
+        for (int i = 0; i < metrics.size(); i++) {
+          Metric metric = metrics.get(i);
+          Optional<Measure> measure = measureRepository.getRawMeasure(component, metric);
+          if (measure.isPresent() && !measure.get().hasVariations()) {
+            double pastValue = pastValues == null ? 0d : pastValues[period.getIndex() - 1][i];
+            measuresWithVariationRepository.add(metric, measure.get(), period.getIndex(), computeVariation(measure.get(), pastValue));
+          }
         }
       }
+      return measuresWithVariationRepository;
     }
 
     private double computeVariation(Measure measure, double pastValue) {
@@ -216,16 +271,6 @@ public class ComputeMeasureVariationsStep implements ComputationStep {
     }
   }
 
-  private enum MetricDtoToMetricId implements Function<Metric, Integer> {
-    INSTANCE;
-
-    @Nullable
-    @Override
-    public Integer apply(@Nonnull Metric metric) {
-      return metric.getId();
-    }
-  }
-
   private enum NumericMetric implements Predicate<Metric> {
     INSTANCE;
 
@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.Map;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.profiling.CeTaskProfiling;
 import org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.component.VisitorsCrawler;
@@ -34,10 +35,19 @@ public class ExecuteVisitorsStep implements ComputationStep {
 
   private final TreeRootHolder treeRootHolder;
   private final List<ComponentVisitor> visitors;
+  private final CeTaskProfiling taskProfiling;
 
+  /**
+   * Used when no {@link CeTaskProfiling} is available in pico container.
+   */
   public ExecuteVisitorsStep(TreeRootHolder treeRootHolder, List<ComponentVisitor> visitors) {
+    this(treeRootHolder, visitors, new CeTaskProfiling());
+  }
+
+  public ExecuteVisitorsStep(TreeRootHolder treeRootHolder, List<ComponentVisitor> visitors, CeTaskProfiling taskProfiling) {
     this.treeRootHolder = treeRootHolder;
     this.visitors = visitors;
+    this.taskProfiling = taskProfiling;
   }
 
   @Override
@@ -47,18 +57,19 @@ public class ExecuteVisitorsStep implements ComputationStep {
 
   @Override
   public void execute() {
-    VisitorsCrawler visitorsCrawler = new VisitorsCrawler(visitors, LOGGER.isDebugEnabled());
+    VisitorsCrawler visitorsCrawler = new VisitorsCrawler(visitors, true);
     visitorsCrawler.visit(treeRootHolder.getRoot());
-    logVisitorExecutionDurations(visitors, visitorsCrawler);
+    recordVisitorExecutionDurations(visitorsCrawler);
   }
 
-  private static void logVisitorExecutionDurations(List<ComponentVisitor> visitors, VisitorsCrawler visitorsCrawler) {
-    if (LOGGER.isDebugEnabled()) {
-      LOGGER.debug("  Execution time for each component visitor:");
-      Map<ComponentVisitor, Long> cumulativeDurations = visitorsCrawler.getCumulativeDurations();
-      for (ComponentVisitor visitor : visitors) {
-        LOGGER.debug("  - {} | time={}ms", visitor.getClass().getSimpleName(), cumulativeDurations.get(visitor));
-      }
+  private void recordVisitorExecutionDurations(VisitorsCrawler visitorsCrawler) {
+    Map<ComponentVisitor, Long> cumulativeDurations = visitorsCrawler.getCumulativeDurations();
+    LOGGER.debug("  Execution time for each component visitor:");
+    for (ComponentVisitor visitor : visitors) {
+      String visitorName = visitor.getClass().getSimpleName();
+      Long duration = cumulativeDurations.get(visitor);
+      LOGGER.debug("  - {} | time={}ms", visitorName, duration);
+      taskProfiling.addVisitorDuration(visitorName, duration);
     }
   }
 }
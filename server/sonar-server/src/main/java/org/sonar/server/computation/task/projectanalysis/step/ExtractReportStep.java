@@ -19,14 +19,14 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
-import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Optional;
 import org.sonar.api.utils.MessageException;
 import org.sonar.api.utils.TempFolder;
-import org.sonar.api.utils.ZipUtils;
 import org.sonar.ce.queue.CeTask;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -35,8 +35,9 @@ import org.sonar.server.computation.task.projectanalysis.batch.MutableBatchRepor
 import org.sonar.server.computation.task.step.ComputationStep;
 
 /**
- * Extracts the content zip file of the {@link CeTask} to a temp directory and adds a {@link File}
- * representing that temp directory to the {@link MutableBatchReportDirectoryHolder}.
+ * Copies the zip file of the {@link CeTask} from database to a temp file and adds this {@link File}
+ * to the {@link MutableBatchReportDirectoryHolder}. The zip is not extracted, its entries are read on
+ * demand by {@link org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderImpl}.
  */
 public class ExtractReportStep implements ComputationStep {
 
@@ -58,14 +59,15 @@ public class ExtractReportStep implements ComputationStep {
     try (DbSession dbSession = dbClient.openSession(false)) {
       Optional<CeTaskInputDao.DataStream> opt = dbClient.ceTaskInputDao().selectData(dbSession, task.getUuid());
       if (opt.isPresent()) {
-        File unzippedDir = tempFolder.newDir();
+        // random access to entries requires a local file, the database stream can only be read once
+        File reportZip = tempFolder.newFile("report-" + task.getUuid(), ".zip");
         try (CeTaskInputDao.DataStream reportStream = opt.get();
-             InputStream zipStream = new BufferedInputStream(reportStream.getInputStream())) {
-          ZipUtils.unzip(zipStream, unzippedDir);
+             InputStream zipStream = reportStream.getInputStream()) {
+          Files.copy(zipStream, reportZip.toPath(), StandardCopyOption.REPLACE_EXISTING);
         } catch (IOException e) {
           throw new IllegalStateException("Fail to extract report " + task.getUuid() + " from database", e);
         }
-        reportDirectoryHolder.setDirectory(unzippedDir);
+        reportDirectoryHolder.setDirectory(reportZip);
       } else {
         throw MessageException.of("Analysis report " + task.getUuid() + " is missing in database");
       }
@@ -20,9 +20,12 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import org.sonar.api.notifications.Notification;
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolder;
@@ -36,12 +39,14 @@ import org.sonar.server.issue.notification.MyNewIssuesNotification;
 import org.sonar.server.issue.notification.NewIssuesNotification;
 import org.sonar.server.issue.notification.NewIssuesNotificationFactory;
 import org.sonar.server.issue.notification.NewIssuesStatistics;
+import org.sonar.server.notification.NotificationManager;
 import org.sonar.server.notification.NotificationService;
 
 /**
- * Reads issues from disk cache and send related notifications. For performance reasons,
- * the standard notification DB queue is not used as a temporary storage. Notifications
- * are directly processed by {@link NotificationService}.
+ * Reads issues from disk cache and schedules related notifications. Notifications are inserted
+ * by batches in the standard notification DB queue, so that the task does not wait for the
+ * resolution of recipients and for the delivery of emails. They are processed later
+ * by {@link org.sonar.server.notification.NotificationDaemon}.
  */
 public class SendIssueNotificationsStep implements ComputationStep {
   /**
@@ -49,20 +54,28 @@ public class SendIssueNotificationsStep implements ComputationStep {
    */
   static final Set<String> NOTIF_TYPES = ImmutableSet.of(IssueChangeNotification.TYPE, NewIssuesNotification.TYPE, MyNewIssuesNotification.MY_NEW_ISSUES_NOTIF_TYPE);
 
+  /**
+   * Maximum number of notifications kept in memory before being inserted in DB queue
+   */
+  static final int BATCH_SIZE = 1_000;
+
   private final IssueCache issueCache;
   private final RuleRepository rules;
   private final TreeRootHolder treeRootHolder;
   private final NotificationService service;
+  private final NotificationManager notificationManager;
   private final AnalysisMetadataHolder analysisMetadataHolder;
   private NewIssuesNotificationFactory newIssuesNotificationFactory;
+  private final List<Notification> pendingNotifications = new ArrayList<>();
 
   public SendIssueNotificationsStep(IssueCache issueCache, RuleRepository rules, TreeRootHolder treeRootHolder,
-    NotificationService service, AnalysisMetadataHolder analysisMetadataHolder,
+    NotificationService service, NotificationManager notificationManager, AnalysisMetadataHolder analysisMetadataHolder,
     NewIssuesNotificationFactory newIssuesNotificationFactory) {
     this.issueCache = issueCache;
     this.rules = rules;
     this.treeRootHolder = treeRootHolder;
     this.service = service;
+    this.notificationManager = notificationManager;
     this.analysisMetadataHolder = analysisMetadataHolder;
     this.newIssuesNotificationFactory = newIssuesNotificationFactory;
   }
@@ -88,6 +101,7 @@ public class SendIssueNotificationsStep implements ComputationStep {
       sendNewIssuesNotification(newIssuesStats, project, analysisDate);
       sendNewIssuesNotificationToAssignees(newIssuesStats, project, analysisDate);
     }
+    flush();
   }
 
   private void processIssues(NewIssuesStatistics newIssuesStats, CloseableIterator<DefaultIssue> issues, Component project) {
@@ -106,7 +120,7 @@ public class SendIssueNotificationsStep implements ComputationStep {
     changeNotification.setRuleName(rules.getByKey(issue.ruleKey()).getName());
     changeNotification.setIssue(issue);
     changeNotification.setProject(project.getKey(), project.getName());
-    service.deliver(changeNotification);
+    schedule(changeNotification);
   }
 
   private void sendNewIssuesNotification(NewIssuesStatistics statistics, Component project, long analysisDate) {
@@ -117,7 +131,7 @@ public class SendIssueNotificationsStep implements ComputationStep {
       .setAnalysisDate(new Date(analysisDate))
       .setStatistics(project.getName(), globalStatistics)
       .setDebt(globalStatistics.debt());
-    service.deliver(notification);
+    schedule(notification);
   }
 
   private void sendNewIssuesNotificationToAssignees(NewIssuesStatistics statistics, Component project, long analysisDate) {
@@ -134,7 +148,21 @@ public class SendIssueNotificationsStep implements ComputationStep {
         .setStatistics(project.getName(), assigneeStatistics)
         .setDebt(assigneeStatistics.debt());
 
-      service.deliver(myNewIssuesNotification);
+      schedule(myNewIssuesNotification);
+    }
+  }
+
+  private void schedule(Notification notification) {
+    pendingNotifications.add(notification);
+    if (pendingNotifications.size() >= BATCH_SIZE) {
+      flush();
+    }
+  }
+
+  private void flush() {
+    if (!pendingNotifications.isEmpty()) {
+      notificationManager.scheduleForSending(new ArrayList<>(pendingNotifications));
+      pendingNotifications.clear();
     }
   }
 
@@ -23,6 +23,7 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.profiling.CeTaskProfiling;
 import org.sonar.core.util.logs.Profiler;
 
 public final class ComputationStepExecutor {
@@ -31,6 +32,7 @@ public final class ComputationStepExecutor {
   private final ComputationSteps steps;
   @CheckForNull
   private final Listener listener;
+  private final CeTaskProfiling taskProfiling;
 
   /**
    * Used when no {@link ComputationStepExecutor.Listener} is available in pico
@@ -40,9 +42,17 @@ public final class ComputationStepExecutor {
     this(steps, null);
   }
 
+  /**
+   * Used when no {@link CeTaskProfiling} is available in pico container.
+   */
   public ComputationStepExecutor(ComputationSteps steps, @Nullable Listener listener) {
+    this(steps, listener, new CeTaskProfiling());
+  }
+
+  public ComputationStepExecutor(ComputationSteps steps, @Nullable Listener listener, CeTaskProfiling taskProfiling) {
     this.steps = steps;
     this.listener = listener;
+    this.taskProfiling = taskProfiling;
   }
 
   public void execute() {
@@ -60,9 +70,24 @@ public final class ComputationStepExecutor {
 
   private void executeSteps(Profiler stepProfiler) {
     for (ComputationStep step : steps.instances()) {
-      stepProfiler.start();
+      executeStep(stepProfiler, step);
+    }
+  }
+
+  private void executeStep(Profiler stepProfiler, ComputationStep step) {
+    stepProfiler.start();
+    CeTaskProfiling.StepProfiler stepResources = taskProfiling.startStep();
+    boolean executed = false;
+    try {
       step.execute();
-      stepProfiler.stopDebug(step.getDescription());
+      executed = true;
+    } finally {
+      // resources consumed by a failing step are recorded too, they help to diagnose the failure
+      String description = step.getDescription();
+      stepResources.stop(description);
+      if (executed) {
+        stepProfiler.stopDebug(description);
+      }
     }
   }
 
@@ -50,7 +50,8 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
     this.executorService = processingExecutorService;
     this.workerRunnable = workerRunnable;
 
-    this.delayBetweenTasks = ceConfiguration.getQueuePollingDelay();
+    // when tasks are handed off, workers already wait for the polling delay when there is nothing to do
+    this.delayBetweenTasks = ceConfiguration.getPeekBatchSize() > 1 ? 0L : ceConfiguration.getQueuePollingDelay();
     this.timeUnit = MILLISECONDS;
 
     int workerCount = ceConfiguration.getWorkerCount();
@@ -23,6 +23,7 @@ import com.google.common.base.Optional;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.ce.log.CeLogging;
+import org.sonar.ce.profiling.CeTaskProfiling;
 import org.sonar.ce.queue.CeTask;
 import org.sonar.ce.queue.CeTaskResult;
 import org.sonar.ce.taskprocessor.CeTaskProcessor;
@@ -38,11 +39,13 @@ public class CeWorkerCallableImpl implements CeWorkerCallable {
 
   private final InternalCeQueue queue;
   private final CeLogging ceLogging;
+  private final CeTaskProfiling taskProfiling;
   private final CeTaskProcessorRepository taskProcessorRepository;
 
-  public CeWorkerCallableImpl(InternalCeQueue queue, CeLogging ceLogging, CeTaskProcessorRepository taskProcessorRepository) {
+  public CeWorkerCallableImpl(InternalCeQueue queue, CeLogging ceLogging, CeTaskProfiling taskProfiling, CeTaskProcessorRepository taskProcessorRepository) {
     this.queue = queue;
     this.ceLogging = ceLogging;
+    this.taskProfiling = taskProfiling;
     this.taskProcessorRepository = taskProcessorRepository;
   }
 
@@ -72,6 +75,7 @@ public class CeWorkerCallableImpl implements CeWorkerCallable {
 
   private void executeTask(CeTask task) {
     ceLogging.initForTask(task);
+    taskProfiling.initForTask();
     Profiler ceProfiler = startActivityProfiler(task);
 
     CeActivityDto.Status status = CeActivityDto.Status.FAILED;
@@ -91,8 +95,9 @@ public class CeWorkerCallableImpl implements CeWorkerCallable {
       LOG.error(format("Failed to execute task %s", task.getUuid()), e);
       error = e;
     } finally {
-      queue.remove(task, status, taskResult, error);
+      queue.remove(task, status, taskResult, error, taskProfiling.getProfile());
       stopActivityProfiler(ceProfiler, task, status);
+      taskProfiling.clearForTask();
       ceLogging.clearForTask();
     }
   }
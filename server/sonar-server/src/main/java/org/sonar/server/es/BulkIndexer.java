@@ -55,6 +55,7 @@ import static java.lang.String.format;
  *   <li>bulk request is sent on the wire when its size is higher than 5Mb</li>
  *   <li>on large table indexing, replicas and automatic refresh can be temporarily disabled</li>
  *   <li>index refresh is optional (enabled by default)</li>
+ *   <li>requests can be added concurrently, see {@link BulkIndexingPipeline}</li>
  * </ul>
  */
 public class BulkIndexer implements Startable {
@@ -128,7 +129,10 @@ public class BulkIndexer implements Startable {
     progress.start();
   }
 
-  public void add(ActionRequest request) {
+  /**
+   * Can be called concurrently. Blocks when the maximum number of concurrent bulk requests is reached.
+   */
+  public synchronized void add(ActionRequest request) {
     bulkRequest.request().add(request);
     if (bulkRequest.request().estimatedSizeInBytes() >= flushByteSize) {
       executeBulk();
@@ -184,8 +188,10 @@ public class BulkIndexer implements Startable {
 
   @Override
   public void stop() {
-    if (bulkRequest.numberOfActions() > 0) {
-      executeBulk();
+    synchronized (this) {
+      if (bulkRequest.numberOfActions() > 0) {
+        executeBulk();
+      }
     }
     try {
       if (semaphore.tryAcquire(concurrentRequests, 10, TimeUnit.MINUTES)) {
@@ -0,0 +1,256 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.es;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.elasticsearch.action.ActionRequest;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.util.ProgressLogger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.lang.String.format;
+
+/**
+ * Multi-threaded indexing of large volumes of documents, for example when the whole index is populated.
+ * Documents are processed in three stages:
+ * <ol>
+ *   <li>partitions (for example projects) are read by a pool of readers. Each partition is read by a single
+ *   reader, generally through a single JDBC cursor</li>
+ *   <li>a pool of converters transforms the rows into Elasticsearch requests, including the serialization
+ *   of documents to JSON</li>
+ *   <li>requests are sent by the {@link BulkIndexer}, which bounds the number of concurrent bulk requests</li>
+ * </ol>
+ * Readers and converters are connected by a bounded queue and converters are blocked by {@link BulkIndexer#add(ActionRequest)}
+ * when too many bulk requests are being executed, so a slow stage slows down the previous ones instead of
+ * filling the heap.
+ * <p/>
+ * Throughput is logged periodically. Counters can also be read during indexing, for example from another thread.
+ * <p/>
+ * An instance can be used only once.
+ *
+ * @param <P> the type of partitions
+ * @param <R> the type of rows
+ */
+public class BulkIndexingPipeline<P, R> {
+
+  private static final Logger LOGGER = Loggers.get(BulkIndexingPipeline.class);
+  private static final long POLL_TIMEOUT_MS = 100L;
+
+  private final BulkIndexer bulkIndexer;
+  private final PartitionReader<P, R> reader;
+  private final Function<R, ActionRequest> converter;
+  private int readerThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+  private int converterThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+  private int queueCapacity = 10_000;
+
+  private final AtomicBoolean started = new AtomicBoolean(false);
+  private final AtomicLong partitionCount = new AtomicLong(0L);
+  private final AtomicLong processedPartitionCount = new AtomicLong(0L);
+  private final AtomicLong readCount = new AtomicLong(0L);
+  private final AtomicLong convertedCount = new AtomicLong(0L);
+  private volatile boolean readersDone = false;
+  private volatile Throwable failure = null;
+
+  public BulkIndexingPipeline(BulkIndexer bulkIndexer, PartitionReader<P, R> reader, Function<R, ActionRequest> converter) {
+    this.bulkIndexer = bulkIndexer;
+    this.reader = reader;
+    this.converter = converter;
+  }
+
+  /**
+   * Number of partitions which are read concurrently, so the number of JDBC connections used when partitions
+   * are read from database. Default is a quarter of the number of processors.
+   */
+  public BulkIndexingPipeline<P, R> setReaderThreads(int i) {
+    checkArgument(i > 0, "Number of reader threads must be positive");
+    this.readerThreads = i;
+    return this;
+  }
+
+  /**
+   * Default is half the number of processors.
+   */
+  public BulkIndexingPipeline<P, R> setConverterThreads(int i) {
+    checkArgument(i > 0, "Number of converter threads must be positive");
+    this.converterThreads = i;
+    return this;
+  }
+
+  /**
+   * Maximum number of rows which are read but not converted yet. Default is 10'000.
+   */
+  public BulkIndexingPipeline<P, R> setQueueCapacity(int i) {
+    checkArgument(i > 0, "Queue capacity must be positive");
+    this.queueCapacity = i;
+    return this;
+  }
+
+  /**
+   * Indexes all the rows of the given partitions. The {@link BulkIndexer} is started and stopped by this method.
+   *
+   * @return the number of indexed rows
+   * @throws IllegalStateException if a row can't be read or converted
+   */
+  public long index(Collection<P> partitions) {
+    checkState(started.compareAndSet(false, true), "Indexing pipeline can be used only once");
+    partitionCount.set(partitions.size());
+    BlockingQueue<R> queue = new ArrayBlockingQueue<>(queueCapacity);
+    ExecutorService readerExecutor = Executors.newFixedThreadPool(readerThreads, newThreadFactory("reader"));
+    ExecutorService converterExecutor = Executors.newFixedThreadPool(converterThreads, newThreadFactory("converter"));
+    ProgressLogger progress = new ProgressLogger("Progress[BulkIndexingPipeline]", convertedCount, LOGGER)
+      .setPluralLabel("documents");
+    bulkIndexer.start();
+    progress.start();
+    try {
+      List<Future<?>> converterFutures = new ArrayList<>(converterThreads);
+      for (int i = 0; i < converterThreads; i++) {
+        converterFutures.add(converterExecutor.submit(() -> convert(queue)));
+      }
+      List<Future<?>> readerFutures = new ArrayList<>(partitions.size());
+      for (P partition : partitions) {
+        readerFutures.add(readerExecutor.submit(() -> read(partition, queue)));
+      }
+      waitFor(readerFutures);
+      readersDone = true;
+      waitFor(converterFutures);
+      return convertedCount.get();
+    } finally {
+      readerExecutor.shutdownNow();
+      converterExecutor.shutdownNow();
+      progress.stop();
+      bulkIndexer.stop();
+    }
+  }
+
+  private void read(P partition, BlockingQueue<R> queue) {
+    reader.read(partition, row -> {
+      put(queue, row);
+      readCount.incrementAndGet();
+    });
+    processedPartitionCount.incrementAndGet();
+  }
+
+  private void put(BlockingQueue<R> queue, R row) {
+    try {
+      while (!queue.offer(row, POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+        checkNoFailure();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while reading rows", e);
+    }
+  }
+
+  private void convert(BlockingQueue<R> queue) {
+    try {
+      while (true) {
+        R row = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        if (row != null) {
+          bulkIndexer.add(converter.apply(row));
+          convertedCount.incrementAndGet();
+        } else if (readersDone && queue.isEmpty()) {
+          return;
+        } else {
+          checkNoFailure();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      failure = e;
+      throw e;
+    }
+  }
+
+  private void checkNoFailure() {
+    if (failure != null) {
+      throw new IllegalStateException("Indexing is aborted because of a previous failure", failure);
+    }
+  }
+
+  private void waitFor(List<Future<?>> futures) {
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        failure = e.getCause();
+        throw new IllegalStateException("Fail to index documents", e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while indexing documents", e);
+      }
+    }
+  }
+
+  private static ThreadFactory newThreadFactory(String stage) {
+    return new ThreadFactoryBuilder()
+      .setNameFormat(format("BulkIndexingPipeline-%s-%%d", stage))
+      .setDaemon(true)
+      .build();
+  }
+
+  public long getPartitionCount() {
+    return partitionCount.get();
+  }
+
+  public long getProcessedPartitionCount() {
+    return processedPartitionCount.get();
+  }
+
+  /**
+   * Number of rows read from partitions
+   */
+  public long getReadCount() {
+    return readCount.get();
+  }
+
+  /**
+   * Number of rows converted to requests and sent to {@link BulkIndexer}
+   */
+  public long getConvertedCount() {
+    return convertedCount.get();
+  }
+
+  @FunctionalInterface
+  public interface PartitionReader<P, R> {
+    /**
+     * Reads all the rows of the partition and gives them to the consumer. Resources, for example JDBC
+     * connections, must be released before returning.
+     */
+    void read(P partition, Consumer<R> rowConsumer);
+  }
+}
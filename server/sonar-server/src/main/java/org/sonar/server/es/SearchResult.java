@@ -22,6 +22,8 @@ package org.sonar.server.es;
 import com.google.common.base.Function;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.apache.commons.lang.builder.ReflectionToStringBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 
@@ -30,11 +32,20 @@ public class SearchResult<DOC extends BaseDoc> {
   private final List<DOC> docs;
   private final Facets facets;
   private final long total;
+  private final String scrollId;
 
   public SearchResult(SearchResponse response, Function<Map<String, Object>, DOC> converter) {
+    this(response, converter, response.getScrollId());
+  }
+
+  /**
+   * @param scrollId overrides the scroll id of the response, for example when the scroll is already cleared
+   */
+  public SearchResult(SearchResponse response, Function<Map<String, Object>, DOC> converter, @Nullable String scrollId) {
     this.facets = new Facets(response);
     this.total = response.getHits().totalHits();
     this.docs = EsUtils.convertToDocs(response.getHits(), converter);
+    this.scrollId = scrollId;
   }
 
   public List<DOC> getDocs() {
@@ -49,6 +60,14 @@ public class SearchResult<DOC extends BaseDoc> {
     return this.facets;
   }
 
+  /**
+   * Id of the scroll to be used to get the next results, only if the search was executed with a scroll
+   */
+  @CheckForNull
+  public String getScrollId() {
+    return scrollId;
+  }
+
   @Override
   public String toString() {
     return ReflectionToStringBuilder.toString(this);
@@ -26,24 +26,38 @@ import java.util.Set;
 
 import static com.google.common.collect.Sets.newHashSet;
 
+/**
+ * Keys of the issues processed by a bulk change. Issues themselves are not kept, as a bulk change
+ * can process a large number of issues.
+ */
 public class IssueBulkChangeResult {
 
-  private Set<Issue> issuesChanged = newHashSet();
-  private Set<Issue> issuesNotChanged = newHashSet();
+  private Set<String> issuesChanged = newHashSet();
+  private Set<String> issuesNotChanged = newHashSet();
 
   public void addIssueChanged(Issue issue){
-    this.issuesChanged.add(issue);
+    this.issuesChanged.add(issue.key());
   }
 
   public void addIssueNotChanged(Issue issue){
-    this.issuesNotChanged.add(issue);
+    this.issuesNotChanged.add(issue.key());
+  }
+
+  public boolean isChanged(Issue issue) {
+    return issuesChanged.contains(issue.key());
   }
 
-  public Collection<Issue> issuesChanged() {
+  /**
+   * Keys of the changed issues
+   */
+  public Collection<String> issuesChanged() {
     return issuesChanged;
   }
 
-  public Collection<Issue> issuesNotChanged() {
+  /**
+   * Keys of the issues that were not changed
+   */
+  public Collection<String> issuesNotChanged() {
     return issuesNotChanged;
   }
 }
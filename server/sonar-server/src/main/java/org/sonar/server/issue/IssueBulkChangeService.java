@@ -24,10 +24,10 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -35,6 +35,7 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.sonar.api.issue.Issue;
+import org.sonar.api.notifications.Notification;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rules.Rule;
 import org.sonar.api.utils.log.Logger;
@@ -63,6 +64,17 @@ public class IssueBulkChangeService {
 
   private static final Logger LOG = Loggers.get(IssueBulkChangeService.class);
 
+  /**
+   * Number of issues loaded and changed at once. It can't be greater than the max number of results of the
+   * search of issues, which is used to check permissions.
+   */
+  static final int BATCH_SIZE = SearchOptions.MAX_LIMIT;
+
+  /**
+   * Max number of issues of a bulk change
+   */
+  static final int MAX_ISSUES = 10 * BATCH_SIZE;
+
   private final DbClient dbClient;
   private final IssueIndex issueIndex;
   private final IssueStorage issueStorage;
@@ -82,48 +94,72 @@ public class IssueBulkChangeService {
     this.userSession = userSession;
   }
 
+  /**
+   * Issues are processed by batches of {@link #BATCH_SIZE}. Each batch is loaded, changed, persisted and indexed before
+   * the next one, so that at most one batch of issues is loaded in memory. The result keeps only the keys of the issues.
+   * The number of issues is limited to {@link #MAX_ISSUES}, as the request is synchronous. Batches already processed are kept
+   * when a next one fails. Executing the same query again completes the change, as issues already changed are not changed
+   * again.
+   */
   public IssueBulkChangeResult execute(IssueBulkChangeQuery issueBulkChangeQuery, UserSession userSession) {
     LOG.debug("BulkChangeQuery : {}", issueBulkChangeQuery);
     long start = System.currentTimeMillis();
     userSession.checkLoggedIn();
+    List<String> issueKeys = issueBulkChangeQuery.issues();
+    if (issueKeys.size() > MAX_ISSUES) {
+      throw new BadRequestException(String.format("A bulk change can't be applied on more than %d issues", MAX_ISSUES));
+    }
 
     IssueBulkChangeResult result = new IssueBulkChangeResult();
+    IssueChangeContext issueChangeContext = IssueChangeContext.createUser(new Date(), userSession.getLogin());
+    int processedIssues = 0;
+    for (List<String> batchKeys : Lists.partition(issueKeys, BATCH_SIZE)) {
+      executeBatch(issueBulkChangeQuery, batchKeys, issueChangeContext, userSession, result);
+      processedIssues += batchKeys.size();
+      LOG.debug("BulkChange progress : {}/{} issues", processedIssues, issueKeys.size());
+    }
+    LOG.debug("BulkChange execution time : {} ms", System.currentTimeMillis() - start);
+    return result;
+  }
 
-    Collection<Issue> issues = getByKeysForUpdate(issueBulkChangeQuery.issues());
+  private void executeBatch(IssueBulkChangeQuery issueBulkChangeQuery, List<String> issueKeys, IssueChangeContext issueChangeContext, UserSession userSession,
+    IssueBulkChangeResult result) {
+    Collection<Issue> issues = getByKeysForUpdate(issueKeys);
     Repository repository = new Repository(issues);
 
     List<Action> bulkActions = getActionsToApply(issueBulkChangeQuery, issues, userSession);
-    IssueChangeContext issueChangeContext = IssueChangeContext.createUser(new Date(), userSession.getLogin());
-    Set<String> concernedProjects = new HashSet<>();
+    List<DefaultIssue> issuesToSave = new ArrayList<>();
+    List<Notification> notifications = new ArrayList<>();
     for (Issue issue : issues) {
       ActionContext actionContext = new ActionContext(issue, issueChangeContext);
       for (Action action : bulkActions) {
         applyAction(action, actionContext, issueBulkChangeQuery, result);
       }
-      if (!result.issuesChanged().contains(issue)) {
+      if (!result.isChanged(issue)) {
         continue;
       }
       if (issueBulkChangeQuery.hasComment()) {
         applyAction(getAction(CommentAction.COMMENT_KEY), actionContext, issueBulkChangeQuery, result);
       }
-      issueStorage.save((DefaultIssue) issue);
-      if (!issueBulkChangeQuery.sendNotifications()) {
-        continue;
-      }
+      issuesToSave.add((DefaultIssue) issue);
       String projectKey = issue.projectKey();
-      if (projectKey != null) {
+      if (issueBulkChangeQuery.sendNotifications() && projectKey != null) {
         Rule rule = repository.rule(issue.ruleKey());
-        notificationService.scheduleForSending(new IssueChangeNotification()
+        notifications.add(new IssueChangeNotification()
           .setIssue((DefaultIssue) issue)
           .setChangeAuthorLogin(issueChangeContext.login())
           .setRuleName(rule != null ? rule.getName() : null)
           .setProject(projectKey, repository.project(projectKey).name())
           .setComponent(repository.component(issue.componentKey())));
       }
-      concernedProjects.add(issue.projectKey());
     }
-    LOG.debug("BulkChange execution time : {} ms", System.currentTimeMillis() - start);
-    return result;
+    if (!issuesToSave.isEmpty()) {
+      // issues of the batch are persisted, then indexed, at once
+      issueStorage.save(issuesToSave);
+    }
+    if (!notifications.isEmpty()) {
+      notificationService.scheduleForSending(notifications);
+    }
   }
 
   private Collection<Issue> getByKeysForUpdate(List<String> issueKeys) {
@@ -44,6 +44,7 @@ import org.apache.commons.lang.BooleanUtils;
 import org.apache.commons.lang.StringUtils;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequestBuilder;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.query.BoolQueryBuilder;
@@ -212,12 +213,60 @@ public class IssueIndex extends BaseIndex {
   }
 
   public SearchResult<IssueDoc> search(IssueQuery query, SearchOptions options) {
+    SearchRequestBuilder requestBuilder = prepareSearch(query, options);
+    configurePagination(options, requestBuilder);
+    return new SearchResult<>(requestBuilder.get(), DOC_CONVERTER);
+  }
+
+  /**
+   * Same as {@link #search(IssueQuery, SearchOptions)}, except that results are browsed with a scroll, whose id is returned
+   * by {@link SearchResult#getScrollId()}. The offset of options is ignored: the first {@link SearchOptions#getLimit()}
+   * results are returned, next ones are returned by {@link #searchNext(String, int)}.
+   * <p/>
+   * Contrary to offset-based pagination, the cost of getting a page does not depend on its position.
+   * The scroll is cleared as soon as the last page is returned, in which case no scroll id is returned.
+   */
+  public SearchResult<IssueDoc> searchWithScroll(IssueQuery query, SearchOptions options) {
+    SearchRequestBuilder requestBuilder = prepareSearch(query, options)
+      .setScroll(TimeValue.timeValueMinutes(EsUtils.SCROLL_TIME_IN_MINUTES))
+      .setSize(options.getLimit());
+    return toScrollResult(requestBuilder.get(), options.getLimit());
+  }
+
+  /**
+   * Next results of a search executed by {@link #searchWithScroll(IssueQuery, SearchOptions)}. The page size and
+   * the filters of the initial search apply. Facets are not computed.
+   *
+   * @param pageSize the limit of the initial search, used to detect the last page
+   */
+  public SearchResult<IssueDoc> searchNext(String scrollId, int pageSize) {
+    SearchScrollRequestBuilder requestBuilder = getClient().prepareSearchScroll(scrollId)
+      .setScroll(TimeValue.timeValueMinutes(EsUtils.SCROLL_TIME_IN_MINUTES));
+    return toScrollResult(requestBuilder.get(), pageSize);
+  }
+
+  /**
+   * Releases a scroll before its expiration
+   */
+  public void clearScroll(String scrollId) {
+    getClient().nativeClient().prepareClearScroll().addScrollId(scrollId).get();
+  }
+
+  private SearchResult<IssueDoc> toScrollResult(SearchResponse response, int pageSize) {
+    String scrollId = response.getScrollId();
+    if (scrollId != null && response.getHits().getHits().length < pageSize) {
+      clearScroll(scrollId);
+      scrollId = null;
+    }
+    return new SearchResult<>(response, DOC_CONVERTER, scrollId);
+  }
+
+  private SearchRequestBuilder prepareSearch(IssueQuery query, SearchOptions options) {
     SearchRequestBuilder requestBuilder = getClient()
       .prepareSearch(IssueIndexDefinition.INDEX)
       .setTypes(IssueIndexDefinition.TYPE_ISSUE);
 
     configureSorting(query, requestBuilder);
-    configurePagination(options, requestBuilder);
 
     QueryBuilder esQuery = matchAllQuery();
     BoolQueryBuilder esFilter = boolQuery();
@@ -234,7 +283,7 @@ public class IssueIndex extends BaseIndex {
     }
 
     configureStickyFacets(query, options, filters, esQuery, requestBuilder);
-    return new SearchResult<>(requestBuilder.get(), DOC_CONVERTER);
+    return requestBuilder;
   }
 
   private void configureSorting(IssueQuery query, SearchRequestBuilder esRequest) {
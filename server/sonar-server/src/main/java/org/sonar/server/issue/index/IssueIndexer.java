@@ -21,6 +21,8 @@ package org.sonar.server.issue.index;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import javax.annotation.Nullable;
 import org.elasticsearch.action.bulk.BulkRequestBuilder;
 import org.elasticsearch.action.index.IndexRequest;
@@ -29,6 +31,7 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.server.es.BaseIndexer;
 import org.sonar.server.es.BulkIndexer;
+import org.sonar.server.es.BulkIndexingPipeline;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.es.EsUtils;
 
@@ -54,11 +57,38 @@ public class IssueIndexer extends BaseIndexer {
 
   @Override
   protected long doIndex(long lastUpdatedAt) {
+    if (lastUpdatedAt <= 0L) {
+      // index is empty, for example at first startup
+      return doIndexAll(createBulkIndexer(false));
+    }
     return doIndex(createBulkIndexer(false), lastUpdatedAt, null);
   }
 
   public void indexAll() {
-    doIndex(createBulkIndexer(true), 0L, null);
+    doIndexAll(createBulkIndexer(true));
+  }
+
+  /**
+   * Issues of the different projects are read and converted concurrently
+   */
+  private long doIndexAll(BulkIndexer bulk) {
+    List<String> projectUuids;
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      projectUuids = dbClient.issueDao().selectProjectUuids(dbSession);
+    }
+    AtomicLong maxDate = new AtomicLong(0L);
+    new BulkIndexingPipeline<String, IssueDoc>(bulk, this::readIssuesOfProject, issue -> {
+      maxDate.accumulateAndGet(issue.getTechnicalUpdateDate().getTime(), Math::max);
+      return newIndexRequest(issue);
+    }).index(projectUuids);
+    return maxDate.get();
+  }
+
+  private void readIssuesOfProject(String projectUuid, Consumer<IssueDoc> consumer) {
+    try (DbSession dbSession = dbClient.openSession(false);
+      IssueResultSetIterator rowIt = IssueResultSetIterator.create(dbClient, dbSession, 0L, projectUuid)) {
+      rowIt.forEachRemaining(consumer);
+    }
   }
 
   public void index(String projectUuid) {
@@ -29,6 +29,13 @@ public class MyNewIssuesNotification extends NewIssuesNotification {
 
   public static final String MY_NEW_ISSUES_NOTIF_TYPE = "my-new-issues";
 
+  /**
+   * Only the fields are available. Used when reading the notification from the queue.
+   */
+  public MyNewIssuesNotification() {
+    super(MY_NEW_ISSUES_NOTIF_TYPE, null, null, null);
+  }
+
   MyNewIssuesNotification(UserIndex userIndex, DbClient dbClient, Durations durations) {
     super(MY_NEW_ISSUES_NOTIF_TYPE, userIndex, dbClient, durations);
   }
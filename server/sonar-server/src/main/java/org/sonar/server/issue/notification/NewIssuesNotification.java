@@ -23,6 +23,7 @@ import com.google.common.collect.Multiset;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import javax.annotation.Nullable;
 import org.sonar.api.notifications.Notification;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rule.Severity;
@@ -55,11 +56,18 @@ public class NewIssuesNotification extends Notification {
   private final transient DbClient dbClient;
   private final transient Durations durations;
 
+  /**
+   * Only the fields are available. Used when reading the notification from the queue.
+   */
+  public NewIssuesNotification() {
+    this(TYPE, null, null, null);
+  }
+
   NewIssuesNotification(UserIndex userIndex, DbClient dbClient, Durations durations) {
     this(TYPE, userIndex, dbClient, durations);
   }
 
-  protected NewIssuesNotification(String type, UserIndex userIndex, DbClient dbClient, Durations durations) {
+  protected NewIssuesNotification(String type, @Nullable UserIndex userIndex, @Nullable DbClient dbClient, @Nullable Durations durations) {
     super(type);
     this.userIndex = userIndex;
     this.dbClient = dbClient;
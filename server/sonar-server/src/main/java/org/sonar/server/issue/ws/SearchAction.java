@@ -20,14 +20,22 @@
 package org.sonar.server.issue.ws;
 
 import com.google.common.base.Function;
+import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
+import com.google.common.primitives.Ints;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
 import javax.annotation.Nullable;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.search.SearchContextMissingException;
 import org.sonar.api.issue.Issue;
 import org.sonar.api.rule.Severity;
 import org.sonar.api.rules.RuleType;
@@ -36,9 +44,11 @@ import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
 import org.sonar.api.server.ws.WebService.Param;
 import org.sonar.api.utils.Paging;
+import org.sonar.server.es.EsUtils;
 import org.sonar.server.es.Facets;
 import org.sonar.server.es.SearchOptions;
 import org.sonar.server.es.SearchResult;
+import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.issue.IssueQuery;
 import org.sonar.server.issue.IssueQueryService;
 import org.sonar.server.issue.index.IssueDoc;
@@ -51,10 +61,12 @@ import org.sonarqube.ws.client.issue.SearchWsRequest;
 import static com.google.common.collect.FluentIterable.from;
 import static com.google.common.collect.Iterables.concat;
 import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.singletonList;
 import static org.sonar.api.utils.Paging.forPageIndex;
 import static org.sonar.server.es.SearchOptions.MAX_LIMIT;
 import static org.sonar.server.ws.KeyExamples.KEY_PROJECT_EXAMPLE_001;
+import static org.sonar.server.ws.WsUtils.checkRequest;
 import static org.sonar.server.ws.WsUtils.writeProtobuf;
 import static org.sonarqube.ws.client.issue.IssueFilterParameters.ADDITIONAL_FIELDS;
 import static org.sonarqube.ws.client.issue.IssueFilterParameters.ASC;
@@ -70,6 +82,7 @@ import static org.sonarqube.ws.client.issue.IssueFilterParameters.CREATED_AFTER;
 import static org.sonarqube.ws.client.issue.IssueFilterParameters.CREATED_AT;
 import static org.sonarqube.ws.client.issue.IssueFilterParameters.CREATED_BEFORE;
 import static org.sonarqube.ws.client.issue.IssueFilterParameters.CREATED_IN_LAST;
+import static org.sonarqube.ws.client.issue.IssueFilterParameters.CURSOR;
 import static org.sonarqube.ws.client.issue.IssueFilterParameters.DEPRECATED_ACTION_PLANS;
 import static org.sonarqube.ws.client.issue.IssueFilterParameters.DEPRECATED_FACET_MODE_DEBT;
 import static org.sonarqube.ws.client.issue.IssueFilterParameters.DIRECTORIES;
@@ -99,6 +112,8 @@ public class SearchAction implements IssuesWsAction {
 
   private static final String INTERNAL_PARAMETER_DISCLAIMER = "This parameter is mostly used by the Issues page, please prefer usage of the componentKeys parameter. ";
   public static final String SEARCH_ACTION = "search";
+  static final String CURSOR_FIRST_PAGE = "*";
+  private static final String CURSOR_SEPARATOR = "|";
 
   private final UserSession userSession;
   private final IssueIndex issueIndex;
@@ -106,6 +121,12 @@ public class SearchAction implements IssuesWsAction {
   private final SearchResponseLoader searchResponseLoader;
   private final SearchResponseFormat searchResponseFormat;
 
+  /**
+   * Scroll of the last cursor started by each user. A user has at most one open scroll, the previous one being
+   * cleared when a new cursor is started, so that the number of scrolls kept by Elasticsearch is bounded.
+   */
+  private final ConcurrentMap<String, String> openScrollIdsByLogin = new ConcurrentHashMap<>();
+
   public SearchAction(UserSession userSession, IssueIndex issueIndex, IssueQueryService issueQueryService,
     SearchResponseLoader searchResponseLoader, SearchResponseFormat searchResponseFormat) {
     this.userSession = userSession;
@@ -131,6 +152,15 @@ public class SearchAction implements IssuesWsAction {
       .setResponseExample(getClass().getResource("example-search.json"));
 
     action.addPagingParams(100, MAX_LIMIT);
+    action.createParam(CURSOR)
+      .setDescription("To iterate over a large number of issues, for instance to export them. " +
+        "Set to '%s' to get the first page, then to the value of the field 'nextCursor' of the previous response to get the next page. " +
+        "This field is missing from the last page. " +
+        "Contrary to parameter 'p', which is then ignored, the cost of getting a page does not depend on its position. " +
+        "Filters, sort and page size of the first page apply to the next ones, and facets are computed only on the first page. " +
+        "A cursor expires %d minutes after its last usage. Starting a new cursor expires the previous one of the same user.", CURSOR_FIRST_PAGE, EsUtils.SCROLL_TIME_IN_MINUTES)
+      .setSince("6.2")
+      .setExampleValue(CURSOR_FIRST_PAGE);
     action.createParam(Param.FACETS)
       .setDescription("Comma-separated list of the facets to be computed. No facet is computed by default.<br/>" +
         "Since 5.5, facet 'actionPlans' is deprecated.<br/>" +
@@ -298,7 +328,20 @@ public class SearchAction implements IssuesWsAction {
     IssueQuery query = issueQueryService.createFromRequest(request);
 
     // execute request
-    SearchResult<IssueDoc> result = issueIndex.search(query, options);
+    String cursor = request.getCursor();
+    Cursor previousCursor = null;
+    SearchResult<IssueDoc> result;
+    if (cursor == null) {
+      result = issueIndex.search(query, options);
+    } else if (CURSOR_FIRST_PAGE.equals(cursor)) {
+      result = issueIndex.searchWithScroll(query, options);
+    } else {
+      previousCursor = Cursor.parse(cursor, userSession);
+      result = searchNext(previousCursor);
+    }
+    if (cursor != null) {
+      registerScroll(previousCursor, result.getScrollId());
+    }
     List<String> issueKeys = from(result.getDocs()).transform(IssueDocToKey.INSTANCE).toList();
 
     // load the additional information to be returned in response
@@ -323,10 +366,51 @@ public class SearchAction implements IssuesWsAction {
     // can be used to get total debt.
     facets = reorderFacets(facets, options.getFacets());
 
+    // the page index and size of a cursor are the ones of the page it gives, parameters "p" and "ps" are ignored
+    int pageIndex = options.getPage();
+    int pageSize = options.getLimit();
+    if (cursor != null) {
+      pageIndex = previousCursor == null ? 1 : previousCursor.pageIndex;
+      pageSize = previousCursor == null ? options.getLimit() : previousCursor.pageSize;
+    }
     // FIXME allow long in Paging
-    Paging paging = forPageIndex(options.getPage()).withPageSize(options.getLimit()).andTotal((int) result.getTotal());
+    Paging paging = forPageIndex(pageIndex).withPageSize(pageSize).andTotal((int) result.getTotal());
+
+    SearchWsResponse response = searchResponseFormat.formatSearch(additionalFields, data, paging, facets);
+    String scrollId = result.getScrollId();
+    if (cursor != null && scrollId != null) {
+      response = response.toBuilder().setNextCursor(new Cursor(scrollId, pageSize, pageIndex + 1).serialize(userSession)).build();
+    }
+    return response;
+  }
+
+  private void registerScroll(@Nullable Cursor previousCursor, @Nullable String scrollId) {
+    String login = Strings.nullToEmpty(userSession.getLogin());
+    if (previousCursor == null) {
+      String replacedScrollId = scrollId == null ? openScrollIdsByLogin.remove(login) : openScrollIdsByLogin.put(login, scrollId);
+      if (replacedScrollId != null && !replacedScrollId.equals(scrollId)) {
+        issueIndex.clearScroll(replacedScrollId);
+      }
+    } else if (scrollId == null) {
+      openScrollIdsByLogin.remove(login, previousCursor.scrollId);
+    } else {
+      openScrollIdsByLogin.replace(login, previousCursor.scrollId, scrollId);
+    }
+  }
 
-    return searchResponseFormat.formatSearch(additionalFields, data, paging, facets);
+  private SearchResult<IssueDoc> searchNext(Cursor cursor) {
+    try {
+      return issueIndex.searchNext(cursor.scrollId, cursor.pageSize);
+    } catch (IllegalStateException e) {
+      if (ExceptionsHelper.unwrap(e, SearchContextMissingException.class) != null) {
+        openScrollIdsByLogin.remove(Strings.nullToEmpty(userSession.getLogin()), cursor.scrollId);
+        throw new BadRequestException(format("The value of parameter '%s' has expired", CURSOR));
+      }
+      if (ExceptionsHelper.unwrap(e, IllegalArgumentException.class) != null) {
+        throw new BadRequestException(format("Invalid value of parameter '%s'", CURSOR));
+      }
+      throw e;
+    }
   }
 
   private Facets reorderFacets(@Nullable Facets facets, Collection<String> orderedNames) {
@@ -434,6 +518,7 @@ public class SearchAction implements IssuesWsAction {
       .setCreatedAt(request.param(CREATED_AT))
       .setCreatedBefore(request.param(CREATED_BEFORE))
       .setCreatedInLast(request.param(CREATED_IN_LAST))
+      .setCursor(request.param(CURSOR))
       .setDirectories(request.paramAsStrings(DIRECTORIES))
       .setFacetMode(request.mandatoryParam(FACET_MODE))
       .setFacets(request.paramAsStrings(Param.FACETS))
@@ -466,4 +551,40 @@ public class SearchAction implements IssuesWsAction {
       return input.key();
     }
   }
+
+  /**
+   * Position in a scroll of issues. The cursor is bound to the user who started the search, as the scroll
+   * contains the issues visible by this user only.
+   */
+  private static class Cursor {
+    private final String scrollId;
+    private final int pageSize;
+    private final int pageIndex;
+
+    private Cursor(String scrollId, int pageSize, int pageIndex) {
+      this.scrollId = scrollId;
+      this.pageSize = pageSize;
+      this.pageIndex = pageIndex;
+    }
+
+    private String serialize(UserSession userSession) {
+      String value = Strings.nullToEmpty(userSession.getLogin()) + CURSOR_SEPARATOR + pageSize + CURSOR_SEPARATOR + pageIndex + CURSOR_SEPARATOR + scrollId;
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(UTF_8));
+    }
+
+    private static Cursor parse(String cursor, UserSession userSession) {
+      String[] fields;
+      try {
+        fields = new String(Base64.getUrlDecoder().decode(cursor), UTF_8).split(Pattern.quote(CURSOR_SEPARATOR), 4);
+      } catch (IllegalArgumentException e) {
+        throw new BadRequestException(format("Invalid value of parameter '%s'", CURSOR));
+      }
+      String login = Strings.nullToEmpty(userSession.getLogin());
+      Integer pageSize = fields.length == 4 ? Ints.tryParse(fields[1]) : null;
+      Integer pageIndex = fields.length == 4 ? Ints.tryParse(fields[2]) : null;
+      checkRequest(pageSize != null && pageSize > 0 && pageIndex != null && pageIndex > 1 && login.equals(fields[0]),
+        "Invalid value of parameter '%s'", CURSOR);
+      return new Cursor(fields[3], pageSize, pageIndex);
+    }
+  }
 }
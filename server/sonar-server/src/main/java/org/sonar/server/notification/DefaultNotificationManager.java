@@ -22,13 +22,20 @@ package org.sonar.server.notification;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.SetMultimap;
 import java.io.IOException;
 import java.io.InvalidClassException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.notifications.Notification;
 import org.sonar.api.notifications.NotificationChannel;
@@ -51,6 +58,11 @@ public class DefaultNotificationManager implements NotificationManager {
 
   private boolean alreadyLoggedDeserializationIssue = false;
 
+  /**
+   * Subscribers read from DB, by dispatcher and project. Enabled only during {@link #runWithSubscriptionsCache(Runnable)}.
+   */
+  private final ThreadLocal<Map<String, Multimap<String, NotificationChannel>>> subscriptionsCache = new ThreadLocal<>();
+
   /**
    * Default constructor used by Pico
    */
@@ -72,8 +84,7 @@ public class DefaultNotificationManager implements NotificationManager {
    */
   @Override
   public void scheduleForSending(Notification notification) {
-    NotificationQueueDto dto = NotificationQueueDto.toNotificationQueueDto(notification);
-    notificationQueueDao.insert(Arrays.asList(dto));
+    notificationQueueDao.insert(Arrays.asList(toDto(notification)));
   }
 
   @Override
@@ -81,29 +92,52 @@ public class DefaultNotificationManager implements NotificationManager {
     notificationQueueDao.insert(Lists.transform(notification, new Function<Notification, NotificationQueueDto>() {
       @Override
       public NotificationQueueDto apply(Notification notification) {
-        return NotificationQueueDto.toNotificationQueueDto(notification);
+        return toDto(notification);
       }
     }));
   }
 
+  private static NotificationQueueDto toDto(Notification notification) {
+    try {
+      return new NotificationQueueDto().setData(NotificationCodec.encode(notification));
+    } catch (IOException e) {
+      throw new SonarException("Unable to write notification", e);
+    }
+  }
+
   /**
    * Give the notification queue so that it can be processed
    */
   public Notification getFromQueue() {
-    int batchSize = 1;
-    List<NotificationQueueDto> notificationDtos = notificationQueueDao.selectOldest(batchSize);
+    List<Notification> notifications = getFromQueue(1);
+    return notifications.isEmpty() ? null : notifications.get(0);
+  }
+
+  /**
+   * Give the oldest notifications of the queue so that they can be processed. Notifications are removed
+   * from the queue, so that concurrent consumers never process the same notification. The returned list
+   * is empty if the queue is empty or if none of the notifications can be read.
+   */
+  public List<Notification> getFromQueue(int batchSize) {
+    List<NotificationQueueDto> notificationDtos = notificationQueueDao.claimOldest(batchSize);
     if (notificationDtos.isEmpty()) {
-      return null;
+      return Collections.emptyList();
     }
-    notificationQueueDao.delete(notificationDtos);
 
-    return convertToNotification(notificationDtos);
+    List<Notification> notifications = new ArrayList<>(notificationDtos.size());
+    for (NotificationQueueDto notificationDto : notificationDtos) {
+      Notification notification = convertToNotification(notificationDto);
+      if (notification != null) {
+        notifications.add(notification);
+      }
+    }
+    return notifications;
   }
 
-  private Notification convertToNotification(List<NotificationQueueDto> notifications) {
+  @CheckForNull
+  private Notification convertToNotification(NotificationQueueDto notificationDto) {
     try {
-      // If batchSize is increased then we should return a list instead of a single element
-      return notifications.get(0).toNotification();
+      return NotificationCodec.decode(notificationDto.getData());
     } catch (InvalidClassException e) {
       // SONAR-4739
       if (!alreadyLoggedDeserializationIssue) {
@@ -125,12 +159,38 @@ public class DefaultNotificationManager implements NotificationManager {
     return notificationQueueDao.count();
   }
 
+  /**
+   * Runs {@code delivery} in the current thread, while the subscribers of a dispatcher on a project
+   * are loaded only once from DB. That avoids loading the same subscriptions for each notification of
+   * a batch.
+   */
+  public void runWithSubscriptionsCache(Runnable delivery) {
+    subscriptionsCache.set(new HashMap<>());
+    try {
+      delivery.run();
+    } finally {
+      subscriptionsCache.remove();
+    }
+  }
+
+  private Multimap<String, NotificationChannel> cachedSubscribers(String cacheKey, Supplier<Multimap<String, NotificationChannel>> loader) {
+    Map<String, Multimap<String, NotificationChannel>> cache = subscriptionsCache.get();
+    if (cache == null) {
+      return loader.get();
+    }
+    return cache.computeIfAbsent(cacheKey, k -> ImmutableSetMultimap.copyOf(loader.get()));
+  }
+
   /**
    * {@inheritDoc}
    */
   @Override
   public Multimap<String, NotificationChannel> findSubscribedRecipientsForDispatcher(NotificationDispatcher dispatcher,
                                                                                      @Nullable String projectUuid) {
+    return cachedSubscribers("recipients|" + dispatcher.getKey() + "|" + projectUuid, () -> loadSubscribedRecipientsForDispatcher(dispatcher, projectUuid));
+  }
+
+  private Multimap<String, NotificationChannel> loadSubscribedRecipientsForDispatcher(NotificationDispatcher dispatcher, @Nullable String projectUuid) {
     String dispatcherKey = dispatcher.getKey();
 
     SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
@@ -151,6 +211,10 @@ public class DefaultNotificationManager implements NotificationManager {
 
   @Override
   public Multimap<String, NotificationChannel> findNotificationSubscribers(NotificationDispatcher dispatcher, @Nullable String componentKey) {
+    return cachedSubscribers("subscribers|" + dispatcher.getKey() + "|" + componentKey, () -> loadNotificationSubscribers(dispatcher, componentKey));
+  }
+
+  private Multimap<String, NotificationChannel> loadNotificationSubscribers(NotificationDispatcher dispatcher, @Nullable String componentKey) {
     String dispatcherKey = dispatcher.getKey();
 
     SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
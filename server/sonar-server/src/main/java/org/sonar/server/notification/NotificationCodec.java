@@ -0,0 +1,155 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.notification;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Supplier;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.notifications.Notification;
+import org.sonar.server.issue.notification.IssueChangeNotification;
+import org.sonar.server.issue.notification.MyNewIssuesNotification;
+import org.sonar.server.issue.notification.NewIssuesNotification;
+
+import static java.lang.String.format;
+
+/**
+ * Encoding of the notifications stored in the table "notifications".
+ * <p/>
+ * Instances of {@link Notification} and of the core subclasses registered in {@link #CORE_SUBCLASSES} are
+ * stored in a compact binary format: a version byte, a byte telling whether the notification is a core
+ * subclass, then the type and the fields. Core subclasses are read back with their field-only constructor.
+ * Other subclasses, for instance the ones of plugins, are stored with Java serialization, so that they are
+ * read back with their own class and state. Both formats can be read, Java serialization streams being
+ * prefixed by the magic number 0xACED.
+ */
+class NotificationCodec {
+
+  static final byte FORMAT_V1 = 1;
+
+  private static final byte PLAIN_NOTIFICATION = 0;
+  private static final byte CORE_SUBCLASS = 1;
+
+  private static final Map<String, CoreSubclass> CORE_SUBCLASSES = ImmutableMap.of(
+    IssueChangeNotification.TYPE, new CoreSubclass(IssueChangeNotification.class, IssueChangeNotification::new),
+    NewIssuesNotification.TYPE, new CoreSubclass(NewIssuesNotification.class, NewIssuesNotification::new),
+    MyNewIssuesNotification.MY_NEW_ISSUES_NOTIF_TYPE, new CoreSubclass(MyNewIssuesNotification.class, MyNewIssuesNotification::new));
+
+  private NotificationCodec() {
+    // only statics
+  }
+
+  static byte[] encode(Notification notification) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    Class<?> notificationClass = notification.getClass();
+    if (notificationClass == Notification.class || isCoreSubclass(notification)) {
+      try (DataOutputStream output = new DataOutputStream(bytes)) {
+        output.writeByte(FORMAT_V1);
+        output.writeByte(notificationClass == Notification.class ? PLAIN_NOTIFICATION : CORE_SUBCLASS);
+        writeString(output, notification.getType());
+        Map<String, String> fields = notification.getFields();
+        output.writeInt(fields.size());
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+          writeString(output, field.getKey());
+          writeString(output, field.getValue());
+        }
+      }
+    } else {
+      try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+        output.writeObject(notification);
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  static Notification decode(byte[] data) throws IOException, ClassNotFoundException {
+    if (data.length > 0 && data[0] == FORMAT_V1) {
+      try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(data, 1, data.length - 1))) {
+        byte kind = input.readByte();
+        String type = readString(input);
+        Notification notification = newNotification(kind, type);
+        int count = input.readInt();
+        for (int i = 0; i < count; i++) {
+          notification.setFieldValue(readString(input), readString(input));
+        }
+        return notification;
+      }
+    }
+    try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(data))) {
+      return (Notification) input.readObject();
+    }
+  }
+
+  private static boolean isCoreSubclass(Notification notification) {
+    CoreSubclass subclass = CORE_SUBCLASSES.get(notification.getType());
+    return subclass != null && subclass.notificationClass == notification.getClass();
+  }
+
+  private static Notification newNotification(byte kind, @Nullable String type) throws IOException {
+    if (kind == PLAIN_NOTIFICATION) {
+      return new Notification(type);
+    }
+    CoreSubclass subclass = kind == CORE_SUBCLASS ? CORE_SUBCLASSES.get(type) : null;
+    if (subclass == null) {
+      throw new IOException(format("Unsupported notification [kind=%d, type=%s]", kind, type));
+    }
+    return subclass.constructor.get();
+  }
+
+  private static void writeString(DataOutputStream output, @Nullable String s) throws IOException {
+    if (s == null) {
+      output.writeInt(-1);
+    } else {
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      output.writeInt(bytes.length);
+      output.write(bytes);
+    }
+  }
+
+  @CheckForNull
+  private static String readString(DataInputStream input) throws IOException {
+    int length = input.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    input.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static class CoreSubclass {
+    private final Class<? extends Notification> notificationClass;
+    private final Supplier<Notification> constructor;
+
+    private CoreSubclass(Class<? extends Notification> notificationClass, Supplier<Notification> constructor) {
+      this.notificationClass = notificationClass;
+      this.constructor = constructor;
+    }
+  }
+}
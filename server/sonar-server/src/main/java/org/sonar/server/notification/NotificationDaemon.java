@@ -21,9 +21,14 @@ package org.sonar.server.notification;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.picocontainer.Startable;
 import org.sonar.api.Properties;
 import org.sonar.api.Property;
@@ -43,28 +48,46 @@ import org.sonar.api.utils.log.Loggers;
     key = NotificationDaemon.PROPERTY_DELAY_BEFORE_REPORTING_STATUS,
     defaultValue = "600",
     name = "Delay before reporting notification status, in seconds",
+    global = false),
+  @Property(
+    key = NotificationDaemon.PROPERTY_THREADS,
+    defaultValue = "1",
+    name = "Number of threads delivering notifications",
     global = false)
 })
 @ServerSide
 public class NotificationDaemon implements Startable {
   private static final String THREAD_NAME_PREFIX = "sq-notification-service-";
 
+  /**
+   * Maximum number of notifications read from queue and delivered at once
+   */
+  static final int BATCH_SIZE = 100;
+
   private static final Logger LOG = Loggers.get(NotificationDaemon.class);
 
   public static final String PROPERTY_DELAY = "sonar.notifications.delay";
   public static final String PROPERTY_DELAY_BEFORE_REPORTING_STATUS = "sonar.notifications.runningDelayBeforeReportingStatus";
+  public static final String PROPERTY_THREADS = "sonar.notifications.threads";
 
   private final long delayInSeconds;
   private final long delayBeforeReportingStatusInSeconds;
+  private final int threads;
   private final DefaultNotificationManager manager;
   private final NotificationService service;
 
   private ScheduledExecutorService executorService;
+  private ExecutorService deliveryExecutorService;
   private boolean stopping = false;
 
+  private final AtomicLong deliveredCount = new AtomicLong();
+  private final AtomicLong deliveryTimeMs = new AtomicLong();
+  private volatile long lastBatchDeliveryTimeMs = 0L;
+
   public NotificationDaemon(Settings settings, DefaultNotificationManager manager, NotificationService service) {
     this.delayInSeconds = settings.getLong(PROPERTY_DELAY);
     this.delayBeforeReportingStatusInSeconds = settings.getLong(PROPERTY_DELAY_BEFORE_REPORTING_STATUS);
+    this.threads = Math.max(1, settings.getInt(PROPERTY_THREADS));
     this.manager = manager;
     this.service = service;
   }
@@ -76,6 +99,15 @@ public class NotificationDaemon implements Startable {
         .setNameFormat(THREAD_NAME_PREFIX + "%d")
         .setPriority(Thread.MIN_PRIORITY)
         .build());
+    if (threads > 1) {
+      // the scheduled thread claims the batches of notifications, which are delivered by this pool
+      deliveryExecutorService = Executors.newFixedThreadPool(threads,
+        new ThreadFactoryBuilder()
+          .setNameFormat(THREAD_NAME_PREFIX + "delivery-%d")
+          .setPriority(Thread.MIN_PRIORITY)
+          .setDaemon(true)
+          .build());
+    }
     executorService.scheduleWithFixedDelay(() -> {
       try {
         processQueue();
@@ -83,7 +115,7 @@ public class NotificationDaemon implements Startable {
         LOG.error("Error in NotificationService", e);
       }
     }, 0, delayInSeconds, TimeUnit.SECONDS);
-    LOG.info("Notification service started (delay {} sec.)", delayInSeconds);
+    LOG.info("Notification service started (delay {} sec., {} threads)", delayInSeconds, threads);
   }
 
   @Override
@@ -92,6 +124,10 @@ public class NotificationDaemon implements Startable {
       stopping = true;
       executorService.shutdown();
       executorService.awaitTermination(5, TimeUnit.SECONDS);
+      if (deliveryExecutorService != null) {
+        deliveryExecutorService.shutdown();
+        deliveryExecutorService.awaitTermination(5, TimeUnit.SECONDS);
+      }
     } catch (InterruptedException e) {
       LOG.error("Error during stop of notification service", e);
       Thread.currentThread().interrupt();
@@ -104,11 +140,18 @@ public class NotificationDaemon implements Startable {
     long start = now();
     long lastLog = start;
     long notifSentCount = 0;
+    ExecutorService deliveryExecutor = deliveryExecutorService;
+    int maxBatchesInProgress = 2 * threads;
+    Semaphore batchesInProgress = new Semaphore(maxBatchesInProgress);
 
-    Notification notifToSend = manager.getFromQueue();
-    while (notifToSend != null) {
-      service.deliver(notifToSend);
-      notifSentCount++;
+    List<Notification> notifsToSend = manager.getFromQueue(BATCH_SIZE);
+    while (!notifsToSend.isEmpty()) {
+      if (deliveryExecutor == null) {
+        deliver(notifsToSend);
+      } else {
+        submit(deliveryExecutor, batchesInProgress, notifsToSend);
+      }
+      notifSentCount += notifsToSend.size();
       if (stopping) {
         break;
       }
@@ -119,8 +162,61 @@ public class NotificationDaemon implements Startable {
         long spentTimeInMinutes = (now - start) / (60 * 1000);
         log(notifSentCount, remainingNotifCount, spentTimeInMinutes);
       }
-      notifToSend = manager.getFromQueue();
+      notifsToSend = manager.getFromQueue(BATCH_SIZE);
     }
+    // wait for the end of deliveries before next run
+    batchesInProgress.acquireUninterruptibly(maxBatchesInProgress);
+    batchesInProgress.release(maxBatchesInProgress);
+  }
+
+  private void submit(ExecutorService deliveryExecutor, Semaphore batchesInProgress, List<Notification> notifications) {
+    batchesInProgress.acquireUninterruptibly();
+    try {
+      deliveryExecutor.execute(() -> {
+        try {
+          deliver(notifications);
+        } catch (Exception e) {
+          LOG.error("Fail to deliver notifications", e);
+        } finally {
+          batchesInProgress.release();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // stopping
+      batchesInProgress.release();
+      throw e;
+    }
+  }
+
+  private void deliver(List<Notification> notifications) {
+    long startNanos = System.nanoTime();
+    manager.runWithSubscriptionsCache(() -> service.deliver(notifications));
+    long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    deliveredCount.addAndGet(notifications.size());
+    deliveryTimeMs.addAndGet(durationMs);
+    lastBatchDeliveryTimeMs = durationMs;
+  }
+
+  /**
+   * Number of notifications delivered since startup
+   */
+  public long getDeliveredCount() {
+    return deliveredCount.get();
+  }
+
+  /**
+   * Average time spent to deliver a notification since startup, including the resolution of recipients
+   */
+  public long getAverageDeliveryTimeMs() {
+    long count = deliveredCount.get();
+    return count == 0 ? 0L : (deliveryTimeMs.get() / count);
+  }
+
+  /**
+   * Time spent to deliver the latest batch of notifications
+   */
+  public long getLastBatchDeliveryTimeMs() {
+    return lastBatchDeliveryTimeMs;
   }
 
   @VisibleForTesting
@@ -20,12 +20,15 @@
 package org.sonar.server.notification;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.SetMultimap;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -65,7 +68,44 @@ public class NotificationService {
   }
 
   public void deliver(Notification notification) {
-    final SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
+    SetMultimap<String, NotificationChannel> recipients = findRecipients(notification);
+    for (Map.Entry<String, Collection<NotificationChannel>> entry : recipients.asMap().entrySet()) {
+      String username = entry.getKey();
+      Collection<NotificationChannel> userChannels = entry.getValue();
+      LOG.debug("For user {} via {}", username, userChannels);
+      for (NotificationChannel channel : userChannels) {
+        deliver(notification, username, channel);
+      }
+    }
+  }
+
+  /**
+   * Delivers a batch of notifications. Recipients of all the notifications are resolved
+   * first, then notifications are delivered grouped by channel and by recipient.
+   */
+  public void deliver(Collection<Notification> notifications) {
+    Map<NotificationChannel, ListMultimap<String, Notification>> notificationsByChannel = new LinkedHashMap<>();
+    for (Notification notification : notifications) {
+      for (Map.Entry<String, NotificationChannel> recipient : findRecipients(notification).entries()) {
+        notificationsByChannel
+          .computeIfAbsent(recipient.getValue(), channel -> ArrayListMultimap.create())
+          .put(recipient.getKey(), notification);
+      }
+    }
+    for (Map.Entry<NotificationChannel, ListMultimap<String, Notification>> channelEntry : notificationsByChannel.entrySet()) {
+      NotificationChannel channel = channelEntry.getKey();
+      for (Map.Entry<String, Collection<Notification>> userEntry : channelEntry.getValue().asMap().entrySet()) {
+        String username = userEntry.getKey();
+        LOG.debug("For user {} via {}: {} notifications", username, channel, userEntry.getValue().size());
+        for (Notification notification : userEntry.getValue()) {
+          deliver(notification, username, channel);
+        }
+      }
+    }
+  }
+
+  private SetMultimap<String, NotificationChannel> findRecipients(Notification notification) {
+    SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
     for (NotificationDispatcher dispatcher : dispatchers) {
       NotificationDispatcher.Context context = new ContextImpl(recipients);
       try {
@@ -75,22 +115,15 @@ public class NotificationService {
         LOG.warn(String.format("Unable to dispatch notification %s using %s", notification, dispatcher), e);
       }
     }
-    dispatch(notification, recipients);
+    return recipients;
   }
 
-  private void dispatch(Notification notification, SetMultimap<String, NotificationChannel> recipients) {
-    for (Map.Entry<String, Collection<NotificationChannel>> entry : recipients.asMap().entrySet()) {
-      String username = entry.getKey();
-      Collection<NotificationChannel> userChannels = entry.getValue();
-      LOG.debug("For user {} via {}", username, userChannels);
-      for (NotificationChannel channel : userChannels) {
-        try {
-          channel.deliver(notification, username);
-        } catch (Exception e) {
-          // catch all exceptions in order to deliver via other channels
-          LOG.warn("Unable to deliver notification " + notification + " for user " + username + " via " + channel, e);
-        }
-      }
+  private static void deliver(Notification notification, String username, NotificationChannel channel) {
+    try {
+      channel.deliver(notification, username);
+    } catch (Exception e) {
+      // catch all exceptions in order to deliver via other channels
+      LOG.warn("Unable to deliver notification " + notification + " for user " + username + " via " + channel, e);
     }
   }
 
@@ -0,0 +1,117 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.source.ws;
+
+import com.google.common.base.Splitter;
+import com.google.common.io.CharStreams;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.scanner.protocol.input.ScannerInput.FileLineHashes;
+import org.sonar.server.user.UserSession;
+import org.sonarqube.ws.MediaTypes;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.sonar.api.web.UserRole.USER;
+import static org.sonar.server.ws.KeyExamples.KEY_FILE_EXAMPLE_001;
+import static org.sonar.server.ws.KeyExamples.KEY_FILE_EXAMPLE_002;
+
+/**
+ * Bulk version of {@link HashAction}, used by the scanner in issues mode to avoid
+ * one HTTP call per changed file.
+ */
+public class HashesAction implements SourcesWsAction {
+
+  static final int MAX_KEYS = 500;
+  private static final String PARAM_KEYS = "keys";
+  private static final Splitter LINE_SPLITTER = Splitter.on('\n');
+
+  private final DbClient dbClient;
+  private final UserSession userSession;
+
+  public HashesAction(DbClient dbClient, UserSession userSession) {
+    this.dbClient = dbClient;
+    this.userSession = userSession;
+  }
+
+  @Override
+  public void define(WebService.NewController controller) {
+    WebService.NewAction action = controller.createAction("hashes")
+      .setDescription("Return the line hashes of several files, as a list of protocol buffer messages FileLineHashes. " +
+        "Unknown files and files without source are not returned. " +
+        "Require Browse permission on the projects of the files.")
+      .setSince("6.2")
+      .setInternal(true)
+      .setResponseExample(getClass().getResource("example-hashes.proto"))
+      .setHandler(this);
+
+    action
+      .createParam(PARAM_KEYS)
+      .setRequired(true)
+      .setDescription("Comma-separated list of file keys. At most " + MAX_KEYS + " keys are accepted.")
+      .setExampleValue(KEY_FILE_EXAMPLE_001 + "," + KEY_FILE_EXAMPLE_002);
+  }
+
+  @Override
+  public void handle(Request request, Response response) throws Exception {
+    List<String> fileKeys = request.mandatoryParamAsStrings(PARAM_KEYS);
+    checkArgument(fileKeys.size() <= MAX_KEYS, "'%s' can contain at most %s keys, got %s", PARAM_KEYS, MAX_KEYS, fileKeys.size());
+
+    DbSession session = dbClient.openSession(false);
+    try {
+      List<ComponentDto> files = dbClient.componentDao().selectByKeys(session, fileKeys);
+      userSession.checkComponentUuidPermission(USER, files.stream().map(ComponentDto::projectUuid).collect(Collectors.toSet()));
+      Map<String, String> keysByUuid = new HashMap<>();
+      for (ComponentDto file : files) {
+        keysByUuid.put(file.uuid(), file.key());
+      }
+
+      response.stream().setMediaType(MediaTypes.PROTOBUF);
+      OutputStream output = response.stream().output();
+      FileLineHashes.Builder builder = FileLineHashes.newBuilder();
+      dbClient.fileSourceDao().readLineHashesStream(session, keysByUuid.keySet(),
+        (fileUuid, reader) -> writeLineHashes(builder, keysByUuid.get(fileUuid), reader, output));
+    } finally {
+      session.close();
+    }
+  }
+
+  private static void writeLineHashes(FileLineHashes.Builder builder, String fileKey, Reader reader, OutputStream output) {
+    try {
+      builder.clear()
+        .setFileKey(fileKey)
+        .addAllLineHash(LINE_SPLITTER.split(CharStreams.toString(reader)))
+        .build()
+        .writeDelimitedTo(output);
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Can't write line hashes of file '%s'", fileKey), e);
+    }
+  }
+}
@@ -185,6 +185,19 @@ public abstract class AbstractUserSession<T extends AbstractUserSession> impleme
     return this;
   }
 
+  @Override
+  public UserSession checkComponentUuidPermission(String permission, Collection<String> componentUuids) {
+    if (!hasComponentUuidPermission(permission, componentUuids)) {
+      throw new ForbiddenException(INSUFFICIENT_PRIVILEGES_MESSAGE);
+    }
+    return this;
+  }
+
+  @Override
+  public boolean hasComponentUuidPermission(String permission, Collection<String> componentUuids) {
+    return componentUuids.stream().allMatch(componentUuid -> hasComponentUuidPermission(permission, componentUuid));
+  }
+
   public static ForbiddenException insufficientPrivilegesException() {
     return INSUFFICIENT_PRIVILEGES_EXCEPTION;
   }
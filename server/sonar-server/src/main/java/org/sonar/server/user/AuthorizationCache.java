@@ -0,0 +1,99 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.user;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.System2;
+
+/**
+ * Short-lived cache, shared by HTTP requests, of the root projects on which users are granted
+ * a permission. It avoids loading the authorized projects of a user on each request.
+ * <p/>
+ * The cache is cleared by {@link #clear()} when permissions or group memberships are changed by
+ * the web server. Changes made by other processes, for example the default permissions applied
+ * by Compute Engine on new projects, are visible after at most {@link #TTL_MS} milliseconds.
+ */
+@ServerSide
+public class AuthorizationCache {
+
+  static final long TTL_MS = 10_000L;
+  static final int MAX_ENTRIES = 10_000;
+
+  private final System2 system2;
+  private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+  // incremented on each clear, so that values loaded before a change of permissions are not stored
+  private final AtomicLong generation = new AtomicLong();
+
+  public AuthorizationCache(System2 system2) {
+    this.system2 = system2;
+  }
+
+  /**
+   * Projects are identified by uuid, as keys can be renamed.
+   */
+  public Set<String> getAuthorizedProjectUuids(@Nullable Integer userId, String permission, Supplier<Collection<String>> loader) {
+    return get(permission + "|" + userId, loader);
+  }
+
+  /**
+   * Must be called after permissions are changed, including permissions inherited through groups.
+   */
+  public void clear() {
+    generation.incrementAndGet();
+    entries.clear();
+  }
+
+  private Set<String> get(String key, Supplier<Collection<String>> loader) {
+    long now = system2.now();
+    Entry entry = entries.get(key);
+    if (entry != null && entry.expiresAt > now) {
+      return entry.values;
+    }
+    long loadedGeneration = generation.get();
+    Set<String> values = ImmutableSet.copyOf(loader.get());
+    if (entries.size() >= MAX_ENTRIES) {
+      entries.clear();
+    }
+    entries.put(key, new Entry(values, now + TTL_MS));
+    if (generation.get() != loadedGeneration) {
+      // permissions changed while loading
+      entries.remove(key);
+    }
+    return values;
+  }
+
+  private static class Entry {
+    private final Set<String> values;
+    private final long expiresAt;
+
+    private Entry(Set<String> values, long expiresAt) {
+      this.values = values;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
@@ -29,6 +29,7 @@ import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
+import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ResourceDao;
 import org.sonar.db.component.ResourceDto;
 import org.sonar.db.permission.PermissionDao;
@@ -42,15 +43,17 @@ import static java.util.Objects.requireNonNull;
  * Part of the current HTTP session
  */
 public class ServerUserSession extends AbstractUserSession<ServerUserSession> {
-  private Map<String, String> projectKeyByComponentKey = newHashMap();
+  private Map<String, String> projectUuidByComponentKey = newHashMap();
 
   private final DbClient dbClient;
+  private final AuthorizationCache authorizationCache;
   private final PermissionDao permissionDao;
   private final ResourceDao resourceDao;
 
-  private ServerUserSession(DbClient dbClient, @Nullable UserDto userDto) {
+  private ServerUserSession(DbClient dbClient, AuthorizationCache authorizationCache, @Nullable UserDto userDto) {
     super(ServerUserSession.class);
     this.dbClient = dbClient;
+    this.authorizationCache = authorizationCache;
     this.permissionDao = dbClient.permissionDao();
     this.resourceDao = dbClient.resourceDao();
     this.globalPermissions = null;
@@ -62,13 +65,13 @@ public class ServerUserSession extends AbstractUserSession<ServerUserSession> {
     }
   }
 
-  public static ServerUserSession createForUser(DbClient dbClient, UserDto userDto) {
+  public static ServerUserSession createForUser(DbClient dbClient, AuthorizationCache authorizationCache, UserDto userDto) {
     requireNonNull(userDto, "UserDto must not be null");
-    return new ServerUserSession(dbClient, userDto);
+    return new ServerUserSession(dbClient, authorizationCache, userDto);
   }
 
-  public static ServerUserSession createForAnonymous(DbClient dbClient) {
-    return new ServerUserSession(dbClient, null);
+  public static ServerUserSession createForAnonymous(DbClient dbClient, AuthorizationCache authorizationCache) {
+    return new ServerUserSession(dbClient, authorizationCache, null);
   }
 
   private Set<String> getUserGroups(String userLogin) {
@@ -92,32 +95,18 @@ public class ServerUserSession extends AbstractUserSession<ServerUserSession> {
     return globalPermissions;
   }
 
-  private boolean hasProjectPermission(String permission, String projectKey) {
-    if (!projectPermissionsCheckedByKey.contains(permission)) {
-      DbSession dbSession = dbClient.openSession(false);
-      try {
-        Collection<String> projectKeys = permissionDao.selectAuthorizedRootProjectsKeys(dbSession, userId, permission);
-        for (String key : projectKeys) {
-          projectKeyByPermission.put(permission, key);
-        }
-        projectPermissionsCheckedByKey.add(permission);
-      } finally {
-        dbClient.closeSession(dbSession);
-      }
-    }
-    return projectKeyByPermission.get(permission).contains(projectKey);
-  }
-
   // To keep private
   private boolean hasProjectPermissionByUuid(String permission, String projectUuid) {
     if (!projectPermissionsCheckedByUuid.contains(permission)) {
-      DbSession dbSession = dbClient.openSession(false);
-      try {
-        Collection<String> projectUuids = permissionDao.selectAuthorizedRootProjectsUuids(dbSession, userId, permission);
-        addProjectPermission(permission, projectUuids);
-      } finally {
-        dbClient.closeSession(dbSession);
-      }
+      Collection<String> projectUuids = authorizationCache.getAuthorizedProjectUuids(userId, permission, () -> {
+        DbSession dbSession = dbClient.openSession(false);
+        try {
+          return permissionDao.selectAuthorizedRootProjectsUuids(dbSession, userId, permission);
+        } finally {
+          dbClient.closeSession(dbSession);
+        }
+      });
+      addProjectPermission(permission, projectUuids);
     }
     return projectUuidByPermission.get(permission).contains(projectUuid);
   }
@@ -135,20 +124,17 @@ public class ServerUserSession extends AbstractUserSession<ServerUserSession> {
       return true;
     }
 
-    String projectKey = projectKeyByComponentKey.get(componentKey);
-    if (projectKey == null) {
+    // permissions are checked on the project uuid, which contrary to the key can't be changed
+    String projectUuid = projectUuidByComponentKey.get(componentKey);
+    if (projectUuid == null) {
       ResourceDto project = resourceDao.getRootProjectByComponentKey(componentKey);
       if (project == null) {
         return false;
       }
-      projectKey = project.getKey();
-    }
-    boolean hasComponentPermission = hasProjectPermission(permission, projectKey);
-    if (hasComponentPermission) {
-      projectKeyByComponentKey.put(componentKey, projectKey);
-      return true;
+      projectUuid = project.getUuid();
+      projectUuidByComponentKey.put(componentKey, projectUuid);
     }
-    return false;
+    return hasProjectPermissionByUuid(permission, projectUuid);
   }
 
   @Override
@@ -164,13 +150,44 @@ public class ServerUserSession extends AbstractUserSession<ServerUserSession> {
         return false;
       }
       projectUuid = project.getProjectUuid();
-    }
-    boolean hasComponentPermission = hasProjectPermissionByUuid(permission, projectUuid);
-    if (hasComponentPermission) {
       projectUuidByComponentUuid.put(componentUuid, projectUuid);
+    }
+    return hasProjectPermissionByUuid(permission, projectUuid);
+  }
+
+  @Override
+  public boolean hasComponentUuidPermission(String permission, Collection<String> componentUuids) {
+    if (hasPermission(permission)) {
       return true;
     }
-    return false;
+
+    resolveProjectUuids(componentUuids);
+    for (String componentUuid : componentUuids) {
+      String projectUuid = projectUuidByComponentUuid.get(componentUuid);
+      if (projectUuid == null || !hasProjectPermissionByUuid(permission, projectUuid)) {
+        return false;
+      }
+    }
+    return true;
   }
 
+  /**
+   * Loads in a single query the projects of the components which are not already known
+   */
+  private void resolveProjectUuids(Collection<String> componentUuids) {
+    Set<String> unknownUuids = componentUuids.stream()
+      .filter(componentUuid -> !projectUuidByComponentUuid.containsKey(componentUuid))
+      .collect(Collectors.toSet());
+    if (unknownUuids.isEmpty()) {
+      return;
+    }
+    DbSession dbSession = dbClient.openSession(false);
+    try {
+      for (ComponentDto component : dbClient.componentDao().selectByUuids(dbSession, unknownUuids)) {
+        projectUuidByComponentUuid.put(component.uuid(), component.projectUuid());
+      }
+    } finally {
+      dbClient.closeSession(dbSession);
+    }
+  }
 }
@@ -140,4 +140,14 @@ public class ThreadLocalUserSession implements UserSession {
   public boolean hasComponentUuidPermission(String permission, String componentUuid) {
     return get().hasComponentUuidPermission(permission, componentUuid);
   }
+
+  @Override
+  public UserSession checkComponentUuidPermission(String permission, Collection<String> componentUuids) {
+    return get().checkComponentUuidPermission(permission, componentUuids);
+  }
+
+  @Override
+  public boolean hasComponentUuidPermission(String permission, Collection<String> componentUuids) {
+    return get().hasComponentUuidPermission(permission, componentUuids);
+  }
 }
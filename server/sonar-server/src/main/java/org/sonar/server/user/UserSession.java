@@ -92,6 +92,13 @@ public interface UserSession {
    */
   UserSession checkComponentUuidPermission(String permission, String componentUuid);
 
+  /**
+   * Ensures that user implies the specified component permission globally or on all the given components, otherwise
+   * throws a {@link org.sonar.server.exceptions.ForbiddenException}.
+   * @see #hasComponentUuidPermission(String, Collection)
+   */
+  UserSession checkComponentUuidPermission(String permission, Collection<String> componentUuids);
+
   /**
    * Does the user have the given permission for a component key ?
    *
@@ -109,4 +116,13 @@ public interface UserSession {
    * If the component doesn't exist, return false
    */
   boolean hasComponentUuidPermission(String permission, String componentUuid);
+
+  /**
+   * Does the user have the given project permission on all the given component uuids ?
+   *
+   * Same as calling {@link #hasComponentUuidPermission(String, String)} on each component, but the
+   * projects of the components are resolved at once.
+   * If one of the components doesn't exist and the user hasn't the global permission, return false
+   */
+  boolean hasComponentUuidPermission(String permission, Collection<String> componentUuids);
 }
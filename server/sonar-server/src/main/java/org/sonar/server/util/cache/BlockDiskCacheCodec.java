@@ -0,0 +1,288 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Date;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.apache.commons.io.IOUtils;
+import org.sonar.core.util.CloseableIterator;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Binary format of {@link DiskCache}. Objects are encoded by {@link #write(Object, DataOutput)}
+ * and grouped in blocks, which are optionally compressed with LZ4. Each block is self-described:
+ * <pre>
+ *   byte  flags (0 = raw, 1 = LZ4)
+ *   int   number of objects
+ *   int   size of decoded block
+ *   int   size of stored block
+ *   byte[] stored block
+ * </pre>
+ * As there is no file header, the blocks written by successive appenders can simply be concatenated.
+ */
+public abstract class BlockDiskCacheCodec<O> implements DiskCacheCodec<O> {
+
+  public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+  private static final byte RAW = 0;
+  private static final byte LZ4 = 1;
+  private static final int NULL_LENGTH = -1;
+
+  private final boolean compressed;
+  private final int blockSize;
+
+  protected BlockDiskCacheCodec(boolean compressed) {
+    this(compressed, DEFAULT_BLOCK_SIZE);
+  }
+
+  protected BlockDiskCacheCodec(boolean compressed, int blockSize) {
+    this.compressed = compressed;
+    this.blockSize = blockSize;
+  }
+
+  protected abstract void write(O object, DataOutput output) throws IOException;
+
+  protected abstract O read(DataInput input) throws IOException;
+
+  @Override
+  public void writeHeader(OutputStream output) {
+    // no header, an empty file is an empty cache
+  }
+
+  @Override
+  public ObjectWriter<O> newWriter(OutputStream output) {
+    return new BlockWriter(new DataOutputStream(output));
+  }
+
+  @Override
+  public CloseableIterator<O> newReader(InputStream input) {
+    return new BlockIterator(new DataInputStream(input));
+  }
+
+  private class BlockWriter implements ObjectWriter<O> {
+    private final DataOutputStream output;
+    private final BlockBuffer block = new BlockBuffer(blockSize);
+    private final DataOutputStream blockOutput = new DataOutputStream(block);
+    private final LZ4Compressor compressor = compressed ? LZ4Factory.fastestInstance().fastCompressor() : null;
+    private byte[] compressedBlock = new byte[0];
+    private int count = 0;
+
+    private BlockWriter(DataOutputStream output) {
+      this.output = output;
+    }
+
+    @Override
+    public void write(O object) throws IOException {
+      BlockDiskCacheCodec.this.write(object, blockOutput);
+      count++;
+      if (block.size() >= blockSize) {
+        flushBlock();
+      }
+    }
+
+    private void flushBlock() throws IOException {
+      if (count == 0) {
+        return;
+      }
+      blockOutput.flush();
+      int rawLength = block.size();
+      if (compressor == null) {
+        writeBlockHeader(RAW, rawLength, rawLength);
+        output.write(block.buffer(), 0, rawLength);
+      } else {
+        int maxLength = compressor.maxCompressedLength(rawLength);
+        if (compressedBlock.length < maxLength) {
+          compressedBlock = new byte[maxLength];
+        }
+        int compressedLength = compressor.compress(block.buffer(), 0, rawLength, compressedBlock, 0, maxLength);
+        writeBlockHeader(LZ4, rawLength, compressedLength);
+        output.write(compressedBlock, 0, compressedLength);
+      }
+      block.reset();
+      count = 0;
+    }
+
+    private void writeBlockHeader(byte flags, int rawLength, int storedLength) throws IOException {
+      output.writeByte(flags);
+      output.writeInt(count);
+      output.writeInt(rawLength);
+      output.writeInt(storedLength);
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        flushBlock();
+      } finally {
+        output.close();
+      }
+    }
+  }
+
+  private class BlockIterator extends CloseableIterator<O> {
+    private final DataInputStream input;
+    private final LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+    private DataInputStream blockInput = null;
+    private int remainingInBlock = 0;
+
+    private BlockIterator(DataInputStream input) {
+      this.input = input;
+    }
+
+    @Override
+    protected O doNext() {
+      try {
+        while (remainingInBlock == 0) {
+          if (!readBlock()) {
+            return null;
+          }
+        }
+        remainingInBlock--;
+        return read(blockInput);
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to read cache", e);
+      }
+    }
+
+    private boolean readBlock() throws IOException {
+      byte flags;
+      try {
+        flags = input.readByte();
+      } catch (EOFException e) {
+        return false;
+      }
+      int count = input.readInt();
+      int rawLength = input.readInt();
+      int storedLength = input.readInt();
+      byte[] stored = new byte[storedLength];
+      input.readFully(stored);
+      byte[] raw;
+      if (flags == LZ4) {
+        raw = new byte[rawLength];
+        decompressor.decompress(stored, 0, raw, 0, rawLength);
+      } else if (flags == RAW) {
+        raw = stored;
+      } else {
+        throw new IllegalStateException("Unsupported block format: " + flags);
+      }
+      blockInput = new DataInputStream(new ByteArrayInputStream(raw));
+      remainingInBlock = count;
+      return true;
+    }
+
+    @Override
+    protected void doClose() {
+      IOUtils.closeQuietly(input);
+    }
+  }
+
+  protected static void writeNullableString(DataOutput output, @Nullable String s) throws IOException {
+    if (s == null) {
+      output.writeInt(NULL_LENGTH);
+    } else {
+      byte[] bytes = s.getBytes(UTF_8);
+      output.writeInt(bytes.length);
+      output.write(bytes);
+    }
+  }
+
+  @CheckForNull
+  protected static String readNullableString(DataInput input) throws IOException {
+    int length = input.readInt();
+    if (length == NULL_LENGTH) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    input.readFully(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  protected static void writeNullableBytes(DataOutput output, @Nullable byte[] bytes) throws IOException {
+    if (bytes == null) {
+      output.writeInt(NULL_LENGTH);
+    } else {
+      output.writeInt(bytes.length);
+      output.write(bytes);
+    }
+  }
+
+  @CheckForNull
+  protected static byte[] readNullableBytes(DataInput input) throws IOException {
+    int length = input.readInt();
+    if (length == NULL_LENGTH) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    input.readFully(bytes);
+    return bytes;
+  }
+
+  protected static void writeNullableDate(DataOutput output, @Nullable Date date) throws IOException {
+    output.writeBoolean(date != null);
+    if (date != null) {
+      output.writeLong(date.getTime());
+    }
+  }
+
+  @CheckForNull
+  protected static Date readNullableDate(DataInput input) throws IOException {
+    return input.readBoolean() ? new Date(input.readLong()) : null;
+  }
+
+  protected static void writeNullableLong(DataOutput output, @Nullable Long l) throws IOException {
+    output.writeBoolean(l != null);
+    if (l != null) {
+      output.writeLong(l);
+    }
+  }
+
+  @CheckForNull
+  protected static Long readNullableLong(DataInput input) throws IOException {
+    return input.readBoolean() ? input.readLong() : null;
+  }
+
+  /**
+   * Gives access to the internal buffer in order to avoid a copy when flushing a block
+   */
+  private static class BlockBuffer extends ByteArrayOutputStream {
+    private BlockBuffer(int size) {
+      super(size);
+    }
+
+    private byte[] buffer() {
+      return buf;
+    }
+  }
+}
@@ -19,35 +19,44 @@
  */
 package org.sonar.server.util.cache;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
-import org.apache.commons.io.FileUtils;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import org.apache.commons.io.IOUtils;
 import org.sonar.api.utils.System2;
 import org.sonar.core.util.CloseableIterator;
-import org.sonar.server.util.ObjectInputStreamIterator;
 
 /**
  * Serialize and deserialize objects on disk. No search capabilities, only traversal (full scan).
+ * The format of file is defined by a {@link DiskCacheCodec}, Java serialization by default.
  */
 public class DiskCache<O extends Serializable> {
 
+  private static final int BUFFER_SIZE = 64 * 1024;
+
   private final File file;
   private final System2 system2;
+  private final DiskCacheCodec<O> codec;
 
   public DiskCache(File file, System2 system2) {
+    this(file, system2, new JavaSerializationCodec<O>());
+  }
+
+  public DiskCache(File file, System2 system2, DiskCacheCodec<O> codec) {
     this.system2 = system2;
     this.file = file;
+    this.codec = codec;
     OutputStream output = null;
     boolean threw = true;
     try {
-      // writes the serialization stream header required when calling "traverse()"
-      // on empty stream. Moreover it allows to call multiple times "newAppender()"
-      output = new ObjectOutputStream(new FileOutputStream(file));
+      output = new BufferedOutputStream(Files.newOutputStream(file.toPath()), BUFFER_SIZE);
+      codec.writeHeader(output);
       output.flush();
       threw = false;
     } catch (IOException e) {
@@ -68,33 +77,33 @@ public class DiskCache<O extends Serializable> {
   }
 
   public CloseableIterator<O> traverse() {
+    InputStream input = null;
     try {
-      return new ObjectInputStreamIterator<>(FileUtils.openInputStream(file));
+      input = new BufferedInputStream(Files.newInputStream(file.toPath()), BUFFER_SIZE);
+      return codec.newReader(input);
     } catch (IOException e) {
+      IOUtils.closeQuietly(input);
       throw new IllegalStateException("Fail to traverse file: " + file, e);
     }
   }
 
   public class DiskAppender implements AutoCloseable {
-    private final ObjectOutputStream output;
+    private final DiskCacheCodec.ObjectWriter<O> output;
 
     private DiskAppender() {
+      OutputStream stream = null;
       try {
-        this.output = new ObjectOutputStream(new FileOutputStream(file, true)) {
-          @Override
-          protected void writeStreamHeader() throws IOException {
-            // do not write stream headers as it's already done in constructor of DiskCache
-          }
-        };
+        stream = new BufferedOutputStream(Files.newOutputStream(file.toPath(), StandardOpenOption.APPEND), BUFFER_SIZE);
+        this.output = codec.newWriter(stream);
       } catch (IOException e) {
+        IOUtils.closeQuietly(stream);
         throw new IllegalStateException("Fail to open file " + file, e);
       }
     }
 
     public DiskAppender append(O object) {
       try {
-        output.writeObject(object);
-        output.reset();
+        output.write(object);
         return this;
       } catch (IOException e) {
         throw new IllegalStateException("Fail to write into file " + file, e);
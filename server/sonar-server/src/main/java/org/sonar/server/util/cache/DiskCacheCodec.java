@@ -0,0 +1,47 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import org.sonar.core.util.CloseableIterator;
+
+/**
+ * Format of the objects stored by {@link DiskCache}. The file is written by
+ * successive appenders, so the encoding of an appender must be readable
+ * just after the encoding of the previous one.
+ */
+public interface DiskCacheCodec<O> {
+
+  /**
+   * Called once when the file is created, before any appender is opened.
+   */
+  void writeHeader(OutputStream output) throws IOException;
+
+  ObjectWriter<O> newWriter(OutputStream output) throws IOException;
+
+  CloseableIterator<O> newReader(InputStream input) throws IOException;
+
+  interface ObjectWriter<O> extends Closeable {
+    void write(O object) throws IOException;
+  }
+}
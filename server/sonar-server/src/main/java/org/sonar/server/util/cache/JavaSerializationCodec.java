@@ -0,0 +1,69 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.server.util.ObjectInputStreamIterator;
+
+/**
+ * Default format of {@link DiskCache}, based on Java serialization
+ */
+public class JavaSerializationCodec<O extends Serializable> implements DiskCacheCodec<O> {
+
+  @Override
+  public void writeHeader(OutputStream output) throws IOException {
+    // writes the serialization stream header required when calling "traverse()"
+    // on empty stream. Moreover it allows to call multiple times "newAppender()"
+    ObjectOutputStream objectOutput = new ObjectOutputStream(output);
+    objectOutput.flush();
+  }
+
+  @Override
+  public ObjectWriter<O> newWriter(OutputStream output) throws IOException {
+    final ObjectOutputStream objectOutput = new ObjectOutputStream(output) {
+      @Override
+      protected void writeStreamHeader() throws IOException {
+        // do not write stream headers as it's already done by writeHeader()
+      }
+    };
+    return new ObjectWriter<O>() {
+      @Override
+      public void write(O object) throws IOException {
+        objectOutput.writeObject(object);
+        objectOutput.reset();
+      }
+
+      @Override
+      public void close() throws IOException {
+        objectOutput.close();
+      }
+    };
+  }
+
+  @Override
+  public CloseableIterator<O> newReader(InputStream input) throws IOException {
+    return new ObjectInputStreamIterator<>(input);
+  }
+}
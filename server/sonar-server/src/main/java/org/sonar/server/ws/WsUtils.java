@@ -20,11 +20,14 @@
 package org.sonar.server.ws;
 
 import com.google.common.base.Optional;
+import com.google.common.net.HttpHeaders;
 import com.google.protobuf.Message;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import javax.annotation.Nullable;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.IOUtils;
 import org.sonar.api.server.ws.Request;
 import org.sonar.api.server.ws.Response;
@@ -36,6 +39,7 @@ import org.sonarqube.ws.MediaTypes;
 import org.sonarqube.ws.MessageFormatter;
 
 import static java.lang.String.format;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
 
 public class WsUtils {
 
@@ -62,6 +66,41 @@ public class WsUtils {
     }
   }
 
+  /**
+   * Same as {@link #writeProtobuf(Message, Request, Response)}, except that the Protocol Buffers
+   * format also supports conditional requests. See {@link #writeWithETag(byte[], String, Request, Response)}.
+   */
+  public static void writeProtobufWithETag(Message msg, Request request, Response response) {
+    if (request.getMediaType().equals(MediaTypes.PROTOBUF)) {
+      writeWithETag(msg.toByteArray(), MediaTypes.PROTOBUF, request, response);
+    } else {
+      writeProtobuf(msg, request, response);
+    }
+  }
+
+  /**
+   * Writes {@code body} with the header ETag, which is the SHA1 of the body. If the
+   * header If-None-Match of the request has the same value, then the body is not sent and
+   * the status is 304 (Not Modified), so that clients can reuse their own copy.
+   */
+  public static void writeWithETag(byte[] body, String mediaType, Request request, Response response) {
+    String etag = '"' + DigestUtils.sha1Hex(body) + '"';
+    response.setHeader(HttpHeaders.ETAG, etag);
+    response.stream().setMediaType(mediaType);
+    if (request.header(HttpHeaders.IF_NONE_MATCH).filter(etag::equals).isPresent()) {
+      response.stream().setStatus(HTTP_NOT_MODIFIED);
+      return;
+    }
+    OutputStream output = response.stream().output();
+    try {
+      output.write(body);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to write response", e);
+    } finally {
+      IOUtils.closeQuietly(output);
+    }
+  }
+
   /**
    * @throws BadRequestException
    */
@@ -0,0 +1,114 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.profiling;
+
+import org.junit.After;
+import org.junit.Test;
+import org.sonar.db.protobuf.DbCe;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class CeTaskProfilingTest {
+
+  private CeTaskProfiling underTest = new CeTaskProfiling();
+
+  @After
+  public void tearDown() {
+    underTest.clearForTask();
+  }
+
+  @Test
+  public void getProfile_returns_null_if_not_initialized() {
+    underTest.startStep().stop("step1");
+    underTest.addVisitorDuration("visitor1", 10L);
+
+    assertThat(underTest.getProfile()).isNull();
+  }
+
+  @Test
+  public void getProfile_returns_null_if_no_step_has_been_executed() {
+    underTest.initForTask();
+
+    assertThat(underTest.getProfile()).isNull();
+  }
+
+  @Test
+  public void record_steps_in_order_of_execution() {
+    underTest.initForTask();
+
+    underTest.startStep().stop("step1");
+    CeTaskProfiling.StepProfiler step2 = underTest.startStep();
+    byte[] allocated = new byte[1_000_000];
+    step2.stop("step2 " + allocated.length);
+
+    DbCe.TaskProfile profile = underTest.getProfile();
+    assertThat(profile.getStepList()).extracting(DbCe.Step::getDescription).containsExactly("step1", "step2 1000000");
+    DbCe.Step step = profile.getStep(1);
+    assertThat(step.getWallTimeMs()).isGreaterThanOrEqualTo(0L);
+    assertThat(step.getDbStatements()).isEqualTo(0);
+    assertThat(step.getDbTimeMs()).isEqualTo(0L);
+    if (step.hasAllocatedBytes()) {
+      assertThat(step.getAllocatedBytes()).isGreaterThanOrEqualTo(1_000_000L);
+    }
+    if (step.hasCpuTimeMs()) {
+      assertThat(step.getCpuTimeMs()).isGreaterThanOrEqualTo(0L);
+    }
+  }
+
+  @Test
+  public void visitor_durations_are_added_to_the_step_being_executed() {
+    underTest.initForTask();
+
+    CeTaskProfiling.StepProfiler step1 = underTest.startStep();
+    underTest.addVisitorDuration("visitor1", 10L);
+    underTest.addVisitorDuration("visitor2", 20L);
+    step1.stop("step1");
+    underTest.addVisitorDuration("ignored", 30L);
+    underTest.startStep().stop("step2");
+
+    DbCe.TaskProfile profile = underTest.getProfile();
+    assertThat(profile.getStep(0).getVisitorList())
+      .extracting(DbCe.Visitor::getName, DbCe.Visitor::getDurationMs)
+      .containsExactly(tuple("visitor1", 10L), tuple("visitor2", 20L));
+    assertThat(profile.getStep(1).getVisitorList()).isEmpty();
+  }
+
+  @Test
+  public void clearForTask_discards_profile() {
+    underTest.initForTask();
+    underTest.startStep().stop("step1");
+
+    underTest.clearForTask();
+
+    assertThat(underTest.getProfile()).isNull();
+  }
+
+  @Test
+  public void initForTask_discards_profile_of_previous_task() {
+    underTest.initForTask();
+    underTest.startStep().stop("step1");
+
+    underTest.initForTask();
+    underTest.startStep().stop("step2");
+
+    assertThat(underTest.getProfile().getStepList()).extracting(DbCe.Step::getDescription).containsExactly("step2");
+  }
+}
@@ -42,6 +42,7 @@ import org.sonar.db.user.UserDao;
 import org.sonar.db.user.UserDto;
 import org.sonar.db.user.UserGroupDto;
 import org.sonar.db.user.UserTesting;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.NewUserNotifier;
 import org.sonar.server.user.UserUpdater;
 import org.sonar.server.user.index.UserIndexer;
@@ -50,6 +51,8 @@ import static com.google.common.collect.Sets.newHashSet;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 public class UserIdentityAuthenticatorTest {
 
@@ -93,7 +96,9 @@ public class UserIdentityAuthenticatorTest {
     mock(UserIndexer.class),
     system2);
 
-  UserIdentityAuthenticator underTest = new UserIdentityAuthenticator(dbClient, userUpdater);
+  AuthorizationCache authorizationCache = mock(AuthorizationCache.class);
+
+  UserIdentityAuthenticator underTest = new UserIdentityAuthenticator(dbClient, userUpdater, authorizationCache);
 
   @Before
   public void setUp() throws Exception {
@@ -204,6 +209,7 @@ public class UserIdentityAuthenticatorTest {
 
     Set<String> userGroups = new HashSet<>(dbClient.groupMembershipDao().selectGroupsByLogins(dbSession, singletonList(USER_LOGIN)).get(USER_LOGIN));
     assertThat(userGroups).containsOnly("group1", "group2");
+    verify(authorizationCache).clear();
   }
 
   @Test
@@ -233,6 +239,30 @@ public class UserIdentityAuthenticatorTest {
     dbSession.commit();
 
     verifyUserGroups(USER_LOGIN, "group1");
+    verify(authorizationCache).clear();
+  }
+
+  @Test
+  public void do_not_clear_authorization_cache_when_groups_are_not_changed() throws Exception {
+    UserDto user = new UserDto()
+      .setLogin(USER_LOGIN)
+      .setActive(true)
+      .setName("John");
+    userDao.insert(dbSession, user);
+    GroupDto group1 = addGroup("group1");
+    dbClient.userGroupDao().insert(dbSession, new UserGroupDto().setUserId(user.getId()).setGroupId(group1.getId()));
+    dbSession.commit();
+
+    underTest.authenticate(UserIdentity.builder()
+      .setProviderLogin("johndoo")
+      .setLogin(USER_LOGIN)
+      .setName("John")
+      .setGroups(newHashSet("group1"))
+      .build(), IDENTITY_PROVIDER);
+    dbSession.commit();
+
+    verifyUserGroups(USER_LOGIN, "group1");
+    verify(authorizationCache, never()).clear();
   }
 
   @Test
@@ -32,6 +32,7 @@ import org.sonar.db.ce.CeQueueDto;
 import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
+import org.sonar.db.protobuf.DbCe;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.tester.UserSessionRule;
@@ -42,6 +43,7 @@ import org.sonarqube.ws.WsCe;
 
 import static java.util.Collections.singleton;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.sonar.core.permission.GlobalPermissions.PROVISIONING;
 import static org.sonar.core.permission.GlobalPermissions.SCAN_EXECUTION;
 import static org.sonar.core.permission.GlobalPermissions.SYSTEM_ADMIN;
@@ -209,6 +211,54 @@ public class TaskActionTest {
     assertThat(task.hasScannerContext()).isFalse();
   }
 
+  @Test
+  public void return_profile_of_activity_when_additionalField_is_set() {
+    userSession.login("john").setGlobalPermissions(SYSTEM_ADMIN);
+
+    persist(createActivityDto(SOME_TASK_UUID).setProfileData(createProfile().toByteArray()));
+
+    TestResponse wsResponse = ws.newRequest()
+      .setMediaType(PROTOBUF)
+      .setParam("id", SOME_TASK_UUID)
+      .setParam("additionalFields", "profile")
+      .execute();
+
+    WsCe.TaskResponse taskResponse = Protobuf.read(wsResponse.getInputStream(), WsCe.TaskResponse.PARSER);
+    WsCe.Task task = taskResponse.getTask();
+    assertThat(task.hasProfile()).isTrue();
+    assertThat(task.getProfile().getStepsList()).hasSize(2);
+    WsCe.TaskStep step = task.getProfile().getSteps(0);
+    assertThat(step.getDescription()).isEqualTo("Execute component visitors");
+    assertThat(step.getWallTimeMs()).isEqualTo(120L);
+    assertThat(step.getCpuTimeMs()).isEqualTo(100L);
+    assertThat(step.getAllocatedBytes()).isEqualTo(5_000_000L);
+    assertThat(step.getDbStatements()).isEqualTo(12);
+    assertThat(step.getDbTimeMs()).isEqualTo(15L);
+    assertThat(step.getVisitorsList()).extracting(WsCe.TaskVisitor::getName, WsCe.TaskVisitor::getDurationMs)
+      .containsExactly(tuple("IntegrateIssuesVisitor", 80L));
+    step = task.getProfile().getSteps(1);
+    assertThat(step.getDescription()).isEqualTo("Persist sources");
+    assertThat(step.hasCpuTimeMs()).isFalse();
+    assertThat(step.hasAllocatedBytes()).isFalse();
+    assertThat(step.getVisitorsList()).isEmpty();
+  }
+
+  @Test
+  public void do_not_return_profile_of_activity_when_additionalField_is_not_set() {
+    userSession.login("john").setGlobalPermissions(SYSTEM_ADMIN);
+
+    persist(createActivityDto(SOME_TASK_UUID).setProfileData(createProfile().toByteArray()));
+
+    TestResponse wsResponse = ws.newRequest()
+      .setMediaType(PROTOBUF)
+      .setParam("id", SOME_TASK_UUID)
+      .setParam("additionalFields", "stacktrace")
+      .execute();
+
+    WsCe.TaskResponse taskResponse = Protobuf.read(wsResponse.getInputStream(), WsCe.TaskResponse.PARSER);
+    assertThat(taskResponse.getTask().hasProfile()).isFalse();
+  }
+
   @Test
   public void do_not_return_stacktrace_of_failed_activity_without_stacktrace() {
     userSession.login("john").setGlobalPermissions(SYSTEM_ADMIN);
@@ -331,6 +381,24 @@ public class TaskActionTest {
     return activityDto;
   }
 
+  private static DbCe.TaskProfile createProfile() {
+    return DbCe.TaskProfile.newBuilder()
+      .addStep(DbCe.Step.newBuilder()
+        .setDescription("Execute component visitors")
+        .setWallTimeMs(120L)
+        .setCpuTimeMs(100L)
+        .setAllocatedBytes(5_000_000L)
+        .setDbStatements(12)
+        .setDbTimeMs(15L)
+        .addVisitor(DbCe.Visitor.newBuilder().setName("IntegrateIssuesVisitor").setDurationMs(80L)))
+      .addStep(DbCe.Step.newBuilder()
+        .setDescription("Persist sources")
+        .setWallTimeMs(30L)
+        .setDbStatements(40)
+        .setDbTimeMs(20L))
+      .build();
+  }
+
   private void persist(CeQueueDto queueDto) {
     dbTester.getDbClient().ceQueueDao().insert(dbTester.getSession(), queueDto);
     dbTester.commit();
@@ -29,6 +29,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 public class CeConfigurationRule extends ExternalResource implements CeConfiguration {
   private int workerCount = CeConfigurationImpl.DEFAULT_WORKER_COUNT;
   private long queuePollingDelay = CeConfigurationImpl.DEFAULT_QUEUE_POLLING_DELAY;
+  private int peekBatchSize = CeConfigurationImpl.DEFAULT_PEEK_BATCH_SIZE;
 
   @Override
   public int getWorkerCount() {
@@ -50,4 +51,15 @@ public class CeConfigurationRule extends ExternalResource implements CeConfigura
     checkArgument(queuePollingDelay > 0, "Queue polling delay must be >= 0");
     this.queuePollingDelay = queuePollingDelay;
   }
+
+  @Override
+  public int getPeekBatchSize() {
+    return peekBatchSize;
+  }
+
+  public CeConfigurationRule setPeekBatchSize(int peekBatchSize) {
+    checkArgument(peekBatchSize >= 1, "peek batch size must be >= 1");
+    this.peekBatchSize = peekBatchSize;
+    return this;
+  }
 }
@@ -133,6 +133,33 @@ public class CEQueueStatusImplTest {
     assertThat(underTest.getProcessingTime()).isEqualTo(calls);
   }
 
+  @Test
+  public void addWaitTime_throws_IAE_if_time_is_less_than_0() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Wait time can not be < 0");
+
+    underTest.addWaitTime(-1);
+  }
+
+  @Test
+  public void addWaitTime_adds_time_to_WaitTime() {
+    underTest.addWaitTime(SOME_PROCESSING_TIME);
+    underTest.addWaitTime(SOME_PROCESSING_TIME);
+
+    assertThat(underTest.getWaitTime()).isEqualTo(2 * SOME_PROCESSING_TIME);
+    assertThat(underTest.getProcessingTime()).isEqualTo(0);
+  }
+
+  @Test
+  public void addClaimConflicts_increases_ClaimConflictCount() {
+    assertThat(underTest.getClaimConflictCount()).isEqualTo(0);
+
+    underTest.addClaimConflicts(2);
+    underTest.addClaimConflicts(3);
+
+    assertThat(underTest.getClaimConflictCount()).isEqualTo(5);
+  }
+
   @Test
   public void count_Pending_from_database() {
     when(dbClient.ceQueueDao().countByStatus(any(DbSession.class), eq(CeQueueDto.Status.PENDING))).thenReturn(42);
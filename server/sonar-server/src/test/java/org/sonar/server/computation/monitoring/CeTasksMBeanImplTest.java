@@ -37,6 +37,8 @@ public class CeTasksMBeanImplTest {
   private static final long ERROR_COUNT = 10;
   private static final long SUCCESS_COUNT = 13;
   private static final long PROCESSING_TIME = 987;
+  private static final long WAIT_TIME = 654;
+  private static final long CLAIM_CONFLICT_COUNT = 3;
   private static final int WORKER_COUNT = 56;
 
   private CeTasksMBeanImpl underTest = new CeTasksMBeanImpl(new DumbCEQueueStatus(), new DumbCeConfiguration());
@@ -59,6 +61,8 @@ public class CeTasksMBeanImplTest {
     assertThat(underTest.getErrorCount()).isEqualTo(ERROR_COUNT);
     assertThat(underTest.getSuccessCount()).isEqualTo(SUCCESS_COUNT);
     assertThat(underTest.getProcessingTime()).isEqualTo(PROCESSING_TIME);
+    assertThat(underTest.getWaitTime()).isEqualTo(WAIT_TIME);
+    assertThat(underTest.getClaimConflictCount()).isEqualTo(CLAIM_CONFLICT_COUNT);
   }
 
   @Test
@@ -70,7 +74,7 @@ public class CeTasksMBeanImplTest {
   public void export_system_info() {
     ProtobufSystemInfo.Section section = underTest.toProtobuf();
     assertThat(section.getName()).isEqualTo("Compute Engine Tasks");
-    assertThat(section.getAttributesCount()).isEqualTo(6);
+    assertThat(section.getAttributesCount()).isEqualTo(8);
   }
 
   /**
@@ -119,6 +123,26 @@ public class CeTasksMBeanImplTest {
       return PROCESSING_TIME;
     }
 
+    @Override
+    public long addWaitTime(long waitTime) {
+      return methodNotImplemented();
+    }
+
+    @Override
+    public long getWaitTime() {
+      return WAIT_TIME;
+    }
+
+    @Override
+    public long addClaimConflicts(int count) {
+      return methodNotImplemented();
+    }
+
+    @Override
+    public long getClaimConflictCount() {
+      return CLAIM_CONFLICT_COUNT;
+    }
+
     private long methodNotImplemented() {
       throw new UnsupportedOperationException("Not Implemented");
     }
@@ -134,6 +158,11 @@ public class CeTasksMBeanImplTest {
     public long getQueuePollingDelay() {
       throw new UnsupportedOperationException("getQueuePollingDelay is not implemented");
     }
+
+    @Override
+    public int getPeekBatchSize() {
+      throw new UnsupportedOperationException("getPeekBatchSize is not implemented");
+    }
   }
 
   @CheckForNull
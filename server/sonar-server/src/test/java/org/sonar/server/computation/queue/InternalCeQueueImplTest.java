@@ -42,6 +42,8 @@ import org.sonar.db.ce.CeQueueDto;
 import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
+import org.sonar.db.protobuf.DbCe;
+import org.sonar.server.computation.configuration.CeConfigurationRule;
 import org.sonar.server.computation.monitoring.CEQueueStatusImpl;
 
 import static java.util.Arrays.asList;
@@ -66,7 +68,9 @@ public class InternalCeQueueImplTest {
 
   UuidFactory uuidFactory = UuidFactoryImpl.INSTANCE;
   CEQueueStatus queueStatus = new CEQueueStatusImpl(dbTester.getDbClient());
-  InternalCeQueue underTest = new InternalCeQueueImpl(system2, dbTester.getDbClient(), uuidFactory, queueStatus);
+  @Rule
+  public CeConfigurationRule ceConfiguration = new CeConfigurationRule();
+  InternalCeQueue underTest = new InternalCeQueueImpl(system2, dbTester.getDbClient(), uuidFactory, queueStatus, ceConfiguration);
 
   @Test
   public void submit_returns_task_populated_from_CeTaskSubmit_and_creates_CeQueue_row() {
@@ -192,6 +196,20 @@ public class InternalCeQueueImplTest {
     assertThat(history.get().getAnalysisUuid()).isEqualTo("U1");
   }
 
+  @Test
+  public void remove_saves_profile_of_task_when_provided() throws Exception {
+    CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    DbCe.TaskProfile profile = DbCe.TaskProfile.newBuilder()
+      .addStep(DbCe.Step.newBuilder().setDescription("step1").setWallTimeMs(10L))
+      .build();
+
+    Optional<CeTask> peek = underTest.peek();
+    underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, null, null, profile);
+
+    Optional<CeActivityDto> history = dbTester.getDbClient().ceActivityDao().selectByUuid(dbTester.getSession(), task.getUuid());
+    assertThat(DbCe.TaskProfile.parseFrom(history.get().getProfileData())).isEqualTo(profile);
+  }
+
   @Test
   public void remove_saves_error_message_and_stacktrace_when_exception_is_provided() {
     Throwable error = new NullPointerException("Fake NPE to test persistence to DB");
@@ -238,6 +256,53 @@ public class InternalCeQueueImplTest {
     assertThat(peek.isPresent()).isFalse();
   }
 
+  @Test
+  public void peek_claims_several_tasks_at_once_and_hands_them_off() {
+    ceConfiguration.setWorkerCount(3).setPeekBatchSize(3).setQueuePollingDelay(1);
+    CeTask task1 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task2 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task3 = submit(CeTaskTypes.REPORT, "PROJECT_2");
+
+    Optional<CeTask> peek = underTest.peek();
+    assertThat(peek.get().getUuid()).isEqualTo(task1.getUuid());
+    // task of PROJECT_2 is claimed by the same poll, but not the second task of PROJECT_1
+    verifyQueueStatus(task2, CeQueueDto.Status.PENDING);
+    verifyQueueStatus(task3, CeQueueDto.Status.IN_PROGRESS);
+
+    peek = underTest.peek();
+    assertThat(peek.get().getUuid()).isEqualTo(task3.getUuid());
+    assertThat(underTest.peek().isPresent()).isFalse();
+    assertThat(queueStatus.getInProgressCount()).isEqualTo(2);
+
+    // second task of PROJECT_1 can be peeked once the first one is processed
+    underTest.remove(task1, CeActivityDto.Status.SUCCESS, null, null);
+    peek = underTest.peek();
+    assertThat(peek.get().getUuid()).isEqualTo(task2.getUuid());
+    assertThat(queueStatus.getClaimConflictCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void peek_does_not_claim_more_tasks_than_idle_workers() {
+    ceConfiguration.setWorkerCount(2).setPeekBatchSize(5).setQueuePollingDelay(1);
+    CeTask task1 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task2 = submit(CeTaskTypes.REPORT, "PROJECT_2");
+    CeTask task3 = submit(CeTaskTypes.REPORT, "PROJECT_3");
+
+    assertThat(underTest.peek().get().getUuid()).isEqualTo(task1.getUuid());
+
+    verifyQueueStatus(task2, CeQueueDto.Status.IN_PROGRESS);
+    verifyQueueStatus(task3, CeQueueDto.Status.PENDING);
+  }
+
+  @Test
+  public void peek_nothing_from_hand_off_if_paused() {
+    ceConfiguration.setPeekBatchSize(2).setQueuePollingDelay(1);
+    submit(CeTaskTypes.REPORT, "PROJECT_1");
+    underTest.pausePeek();
+
+    assertThat(underTest.peek().isPresent()).isFalse();
+  }
+
   @Test
   public void peek_nothing_if_paused() throws Exception {
     submit(CeTaskTypes.REPORT, "PROJECT_1");
@@ -336,6 +401,10 @@ public class InternalCeQueueImplTest {
     return ComponentTesting.newProjectDto(uuid).setName("name_" + uuid).setKey("key_" + uuid);
   }
 
+  private void verifyQueueStatus(CeTask task, CeQueueDto.Status expectedStatus) {
+    assertThat(dbTester.getDbClient().ceQueueDao().selectByUuid(session, task.getUuid()).get().getStatus()).isEqualTo(expectedStatus);
+  }
+
   private CeTask submit(String reportType, String componentUuid) {
     return underTest.submit(createTaskSubmit(reportType, componentUuid, null));
   }
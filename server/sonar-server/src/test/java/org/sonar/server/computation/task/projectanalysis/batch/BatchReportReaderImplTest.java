@@ -25,6 +25,7 @@ import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.sonar.api.utils.ZipUtils;
 import org.sonar.api.utils.internal.JUnitTempFolder;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.scanner.protocol.output.ScannerReport;
@@ -315,4 +316,27 @@ public class BatchReportReaderImplTest {
     assertThat(res).containsExactly(COVERAGE_DETAIL_1, COVERAGE_DETAIL_2);
     res.close();
   }
+
+  @Test
+  public void read_entries_of_zipped_report_without_extracting_it() throws IOException {
+    ScannerReport.Metadata metadata = ScannerReport.Metadata.newBuilder().setProjectKey("foo").build();
+    writer.writeMetadata(metadata);
+    writer.writeComponent(COMPONENT);
+    writer.writeComponentIssues(COMPONENT_REF, of(ISSUE));
+    FileUtils.writeLines(writer.getSourceFile(COMPONENT_REF), of("1", "2", "3"));
+    File zip = tempFolder.newFile();
+    ZipUtils.zipDir(writer.getFileStructure().metadataFile().getParentFile(), zip);
+
+    BatchReportReaderImpl zipReader = new BatchReportReaderImpl(new ImmutableBatchReportDirectoryHolder(zip));
+
+    assertThat(zipReader.readMetadata()).isEqualTo(metadata);
+    assertThat(zipReader.readComponent(COMPONENT_REF)).isEqualTo(COMPONENT);
+    assertThat(zipReader.readComponentIssues(COMPONENT_REF)).containsExactly(ISSUE);
+    assertThat(zipReader.readComponentMeasures(COMPONENT_REF)).isEmpty();
+    assertThat(zipReader.readChangesets(COMPONENT_REF)).isNull();
+    try (CloseableIterator<String> lines = zipReader.readFileSource(COMPONENT_REF).get()) {
+      assertThat(lines).containsExactly("1", "2", "3");
+    }
+    zipReader.stop();
+  }
 }
@@ -76,6 +76,15 @@ public class TreeRootHolderImplTest {
     underTest.setRoot(DUMB_PROJECT);
   }
 
+  @Test
+  public void isEmpty_is_true_until_root_is_set() {
+    assertThat(underTest.isEmpty()).isTrue();
+
+    underTest.setRoot(DUMB_PROJECT);
+
+    assertThat(underTest.isEmpty()).isFalse();
+  }
+
   @Test
   public void getRoot_throws_ISE_if_root_has_not_been_set_yet() {
     expectNotInitialized_ISE();
@@ -35,6 +35,11 @@ public class TreeRootHolderRule extends ExternalResource implements TreeRootHold
     return this;
   }
 
+  @Override
+  public boolean isEmpty() {
+    return delegate.isEmpty();
+  }
+
   @Override
   public Component getRoot() {
     return delegate.getRoot();
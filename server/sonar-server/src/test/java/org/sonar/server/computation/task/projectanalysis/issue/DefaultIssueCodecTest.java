@@ -0,0 +1,247 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rule.Severity;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.Duration;
+import org.sonar.api.utils.System2;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.issue.DefaultIssueComment;
+import org.sonar.core.issue.FieldDiffs;
+import org.sonar.core.issue.IssueChangeContext;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.db.protobuf.DbCommons;
+import org.sonar.db.protobuf.DbIssues;
+import org.sonar.server.util.cache.DiskCache;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class DefaultIssueCodecTest {
+
+  static final Date DATE = new Date(1_450_000_000_000L);
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void write_and_read_all_fields() throws Exception {
+    DbIssues.Locations locations = DbIssues.Locations.newBuilder()
+      .setTextRange(DbCommons.TextRange.newBuilder().setStartLine(3).setEndLine(4))
+      .build();
+    DefaultIssue issue = new DefaultIssue()
+      .setKey("ISSUE_1")
+      .setType(RuleType.BUG)
+      .setComponentUuid("FILE_UUID")
+      .setComponentKey("FILE_KEY")
+      .setModuleUuid("MODULE_UUID")
+      .setModuleUuidPath(".MODULE_UUID.")
+      .setProjectUuid("PROJECT_UUID")
+      .setProjectKey("PROJECT_KEY")
+      .setRuleKey(RuleKey.of("java", "S001"))
+      .setLanguage("java")
+      .setSeverity(Severity.CRITICAL)
+      .setManualSeverity(true)
+      .setMessage("the message")
+      .setLine(42)
+      .setGap(1.5)
+      .setEffort(Duration.create(10L))
+      .setStatus(Issue.STATUS_RESOLVED)
+      .setResolution(Issue.RESOLUTION_FIXED)
+      .setAssignee("john")
+      .setChecksum("abc")
+      .setAttribute("jira", "FOO-1234")
+      .setAuthorLogin("simon")
+      .setTags(Arrays.asList("security", "cwe"))
+      .setLocations(locations)
+      .setCreationDate(DATE)
+      .setUpdateDate(DATE)
+      .setCloseDate(DATE)
+      .setNew(false)
+      .setBeingClosed(true)
+      .setOnDisabledRule(true)
+      .setChanged(true)
+      .setSendNotifications(true)
+      .setSelectedAt(123L);
+    issue.addComment(new DefaultIssueComment().setIssueKey("ISSUE_1").setKey("COMMENT_1").setUserLogin("john").setMarkdownText("*hello*")
+      .setCreatedAt(DATE).setUpdatedAt(DATE).setNew(true));
+
+    DefaultIssue result = writeAndRead(issue).get(0);
+
+    assertThat(result.key()).isEqualTo("ISSUE_1");
+    assertThat(result.type()).isEqualTo(RuleType.BUG);
+    assertThat(result.componentUuid()).isEqualTo("FILE_UUID");
+    assertThat(result.componentKey()).isEqualTo("FILE_KEY");
+    assertThat(result.moduleUuid()).isEqualTo("MODULE_UUID");
+    assertThat(result.moduleUuidPath()).isEqualTo(".MODULE_UUID.");
+    assertThat(result.projectUuid()).isEqualTo("PROJECT_UUID");
+    assertThat(result.projectKey()).isEqualTo("PROJECT_KEY");
+    assertThat(result.ruleKey()).isEqualTo(RuleKey.of("java", "S001"));
+    assertThat(result.language()).isEqualTo("java");
+    assertThat(result.severity()).isEqualTo(Severity.CRITICAL);
+    assertThat(result.manualSeverity()).isTrue();
+    assertThat(result.message()).isEqualTo("the message");
+    assertThat(result.line()).isEqualTo(42);
+    assertThat(result.gap()).isEqualTo(1.5);
+    assertThat(result.effort()).isEqualTo(Duration.create(10L));
+    assertThat(result.status()).isEqualTo(Issue.STATUS_RESOLVED);
+    assertThat(result.resolution()).isEqualTo(Issue.RESOLUTION_FIXED);
+    assertThat(result.assignee()).isEqualTo("john");
+    assertThat(result.checksum()).isEqualTo("abc");
+    assertThat(result.attributes()).containsOnly(entry("jira", "FOO-1234"));
+    assertThat(result.authorLogin()).isEqualTo("simon");
+    assertThat(result.tags()).containsExactly("security", "cwe");
+    assertThat((DbIssues.Locations) result.getLocations()).isEqualTo(locations);
+    assertThat(result.creationDate()).isEqualTo(DATE);
+    assertThat(result.updateDate()).isEqualTo(DATE);
+    assertThat(result.closeDate()).isEqualTo(DATE);
+    assertThat(result.isNew()).isFalse();
+    assertThat(result.isBeingClosed()).isTrue();
+    assertThat(result.isOnDisabledRule()).isTrue();
+    assertThat(result.isChanged()).isTrue();
+    assertThat(result.mustSendNotifications()).isTrue();
+    assertThat(result.selectedAt()).isEqualTo(123L);
+    assertThat(result.comments()).hasSize(1);
+    DefaultIssueComment comment = (DefaultIssueComment) result.comments().get(0);
+    assertThat(comment.issueKey()).isEqualTo("ISSUE_1");
+    assertThat(comment.key()).isEqualTo("COMMENT_1");
+    assertThat(comment.userLogin()).isEqualTo("john");
+    assertThat(comment.markdownText()).isEqualTo("*hello*");
+    assertThat(comment.createdAt()).isEqualTo(DATE);
+    assertThat(comment.updatedAt()).isEqualTo(DATE);
+    assertThat(comment.isNew()).isTrue();
+  }
+
+  @Test
+  public void write_and_read_minimal_issue() throws Exception {
+    DefaultIssue result = writeAndRead(new DefaultIssue().setKey("ISSUE_1")).get(0);
+
+    assertThat(result.key()).isEqualTo("ISSUE_1");
+    assertThat(result.type()).isNull();
+    assertThat(result.ruleKey()).isNull();
+    assertThat(result.line()).isNull();
+    assertThat(result.gap()).isNull();
+    assertThat(result.effort()).isNull();
+    assertThat(result.status()).isNull();
+    assertThat(result.attributes()).isEmpty();
+    assertThat(result.tags()).isEmpty();
+    assertThat((Object) result.getLocations()).isNull();
+    assertThat(result.creationDate()).isNull();
+    assertThat(result.comments()).isEmpty();
+    assertThat(result.changes()).isEmpty();
+    assertThat(result.currentChange()).isNull();
+    assertThat(result.isNew()).isTrue();
+    assertThat(result.selectedAt()).isNull();
+  }
+
+  @Test
+  public void write_and_read_changes() throws Exception {
+    IssueChangeContext context = IssueChangeContext.createUser(DATE, "john");
+    DefaultIssue issue = new DefaultIssue().setKey("ISSUE_1");
+    issue.addChange(new FieldDiffs().setIssueKey("ISSUE_1").setCreationDate(DATE).setDiff("severity", "MINOR", "MAJOR"));
+    issue.setFieldChange(context, "status", "OPEN", "CLOSED");
+    issue.setFieldChange(context, "effort", 10L, 20L);
+    issue.setFieldChange(context, "line", 3, null);
+
+    DefaultIssue result = writeAndRead(issue).get(0);
+
+    List<FieldDiffs> changes = result.changes();
+    assertThat(changes).hasSize(4);
+    assertThat(changes.get(0).issueKey()).isEqualTo("ISSUE_1");
+    assertThat(changes.get(0).get("severity").oldValue()).isEqualTo("MINOR");
+    assertThat(changes.get(0).get("severity").newValue()).isEqualTo("MAJOR");
+    FieldDiffs currentChange = result.currentChange();
+    assertThat(currentChange).isNotNull();
+    assertThat(changes.get(1)).isSameAs(currentChange);
+    assertThat(changes.get(3)).isSameAs(currentChange);
+    assertThat(currentChange.userLogin()).isEqualTo("john");
+    assertThat(currentChange.creationDate()).isEqualTo(DATE);
+    assertThat(currentChange.diffs().keySet()).containsExactly("status", "effort", "line");
+    assertThat(currentChange.get("status").newValue()).isEqualTo("CLOSED");
+    assertThat(currentChange.get("effort").oldValue()).isEqualTo(10L);
+    assertThat(currentChange.get("effort").newValue()).isEqualTo(20L);
+    assertThat(currentChange.get("line").oldValue()).isEqualTo(3);
+    assertThat(currentChange.get("line").newValue()).isNull();
+  }
+
+  @Test
+  public void write_and_read_many_issues_in_several_blocks() throws Exception {
+    List<DefaultIssue> issues = newArrayList();
+    for (int i = 0; i < 5_000; i++) {
+      issues.add(new DefaultIssue().setKey("ISSUE_" + i).setMessage("message " + i).setLine(i + 1));
+    }
+
+    List<DefaultIssue> result = writeAndRead(issues.toArray(new DefaultIssue[0]));
+
+    assertThat(result).hasSize(5_000);
+    for (int i = 0; i < 5_000; i++) {
+      assertThat(result.get(i).key()).isEqualTo("ISSUE_" + i);
+      assertThat(result.get(i).message()).isEqualTo("message " + i);
+      assertThat(result.get(i).line()).isEqualTo(i + 1);
+    }
+  }
+
+  @Test
+  public void read_issues_of_several_appenders() throws Exception {
+    IssueCache cache = new IssueCache(temp.newFile(), System2.INSTANCE);
+    cache.newAppender().append(new DefaultIssue().setKey("ISSUE_1")).close();
+    cache.newAppender().close();
+    cache.newAppender().append(new DefaultIssue().setKey("ISSUE_2")).append(new DefaultIssue().setKey("ISSUE_3")).close();
+
+    try (CloseableIterator<DefaultIssue> traverse = cache.traverse()) {
+      assertThat(newArrayList(traverse)).extracting("key").containsExactly("ISSUE_1", "ISSUE_2", "ISSUE_3");
+    }
+  }
+
+  @Test
+  public void write_and_read_without_compression() throws Exception {
+    DiskCache<DefaultIssue> cache = new DiskCache<>(temp.newFile(), System2.INSTANCE, new DefaultIssueCodec(false));
+    cache.newAppender().append(new DefaultIssue().setKey("ISSUE_1").setMessage("the message")).close();
+
+    try (CloseableIterator<DefaultIssue> traverse = cache.traverse()) {
+      DefaultIssue result = traverse.next();
+      assertThat(result.key()).isEqualTo("ISSUE_1");
+      assertThat(result.message()).isEqualTo("the message");
+      assertThat(traverse.hasNext()).isFalse();
+    }
+  }
+
+  private List<DefaultIssue> writeAndRead(DefaultIssue... issues) throws Exception {
+    IssueCache cache = new IssueCache(temp.newFile(), System2.INSTANCE);
+    DiskCache<DefaultIssue>.DiskAppender appender = cache.newAppender();
+    for (DefaultIssue issue : issues) {
+      appender.append(issue);
+    }
+    appender.close();
+    try (CloseableIterator<DefaultIssue> traverse = cache.traverse()) {
+      return newArrayList(traverse);
+    }
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.measure.MeasureDao;
+import org.sonar.db.measure.MeasureDto;
+import org.sonar.db.measure.MeasureQuery;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.FILE;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.PROJECT;
+
+public class BaseMeasureCacheTest {
+
+  private static final int METRIC_ID_1 = 10;
+  private static final int METRIC_ID_2 = 20;
+
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule();
+  @Rule
+  public LogTester logTester = new LogTester();
+
+  private DbClient dbClient = mock(DbClient.class);
+  private MeasureDao measureDao = mock(MeasureDao.class);
+  private BaseMeasureCache underTest = new BaseMeasureCache(dbClient, treeRootHolder);
+
+  @Before
+  public void setUp() {
+    when(dbClient.openSession(anyBoolean())).thenReturn(mock(DbSession.class));
+    when(dbClient.measureDao()).thenReturn(measureDao);
+  }
+
+  @Test
+  public void load_measures_of_all_metrics_once_per_component_if_tree_is_empty() {
+    Component file = ReportComponent.builder(FILE, 1).setUuid("FILE").build();
+    when(measureDao.selectByQuery(any(DbSession.class), any(MeasureQuery.class))).thenReturn(Arrays.asList(
+      newMeasureDto("FILE", METRIC_ID_2, 2d),
+      newMeasureDto("FILE", METRIC_ID_1, 1d)));
+
+    assertThat(underTest.get(file, METRIC_ID_1).getValue()).isEqualTo(1d);
+    assertThat(underTest.get(file, METRIC_ID_2).getValue()).isEqualTo(2d);
+    assertThat(underTest.get(file, 30)).isNull();
+
+    ArgumentCaptor<MeasureQuery> query = ArgumentCaptor.forClass(MeasureQuery.class);
+    verify(measureDao).selectByQuery(any(DbSession.class), query.capture());
+    assertThat(query.getValue().getComponentUuids()).containsOnly("FILE");
+    assertThat(query.getValue().getMetricIds()).isNull();
+    assertThat(query.getValue().getAnalysisUuid()).isNull();
+    assertThat(underTest.getMisses()).isEqualTo(1);
+    assertThat(underTest.getHits()).isEqualTo(2);
+  }
+
+  @Test
+  public void load_measures_by_chunks_of_components_in_tree() {
+    List<Component> files = new ArrayList<>();
+    for (int i = 0; i < BaseMeasureCache.CHUNK_SIZE + 10; i++) {
+      files.add(ReportComponent.builder(FILE, i + 2).setUuid("FILE_" + i).build());
+    }
+    Component project = ReportComponent.builder(PROJECT, 1).setUuid("PROJECT").addChildren(files.toArray(new Component[0])).build();
+    treeRootHolder.setRoot(project);
+    when(measureDao.selectByQuery(any(DbSession.class), any(MeasureQuery.class))).thenReturn(Arrays.asList(
+      newMeasureDto("FILE_0", METRIC_ID_1, 1d),
+      newMeasureDto("FILE_1", METRIC_ID_1, 2d)));
+
+    assertThat(underTest.get(files.get(0), METRIC_ID_1).getValue()).isEqualTo(1d);
+    assertThat(underTest.get(files.get(1), METRIC_ID_1).getValue()).isEqualTo(2d);
+    for (Component file : files.subList(2, BaseMeasureCache.CHUNK_SIZE)) {
+      assertThat(underTest.get(file, METRIC_ID_1)).isNull();
+    }
+    // last files and project are in the second chunk
+    assertThat(underTest.get(project, METRIC_ID_1)).isNull();
+    assertThat(underTest.get(files.get(files.size() - 1), METRIC_ID_1)).isNull();
+
+    ArgumentCaptor<MeasureQuery> query = ArgumentCaptor.forClass(MeasureQuery.class);
+    verify(measureDao, times(2)).selectByQuery(any(DbSession.class), query.capture());
+    assertThat(query.getAllValues().get(0).getComponentUuids()).hasSize(BaseMeasureCache.CHUNK_SIZE).startsWith("FILE_0", "FILE_1");
+    assertThat(query.getAllValues().get(1).getComponentUuids()).hasSize(11).endsWith("PROJECT");
+    assertThat(underTest.getMisses()).isEqualTo(2);
+    assertThat(underTest.getHits()).isEqualTo(BaseMeasureCache.CHUNK_SIZE);
+  }
+
+  @Test
+  public void evict_oldest_chunk_when_max_number_of_loaded_chunks_is_reached() {
+    List<Component> files = new ArrayList<>();
+    for (int i = 0; i < BaseMeasureCache.MAX_LOADED_CHUNKS * BaseMeasureCache.CHUNK_SIZE + 10; i++) {
+      files.add(ReportComponent.builder(FILE, i + 2).setUuid("FILE_" + i).build());
+    }
+    treeRootHolder.setRoot(ReportComponent.builder(PROJECT, 1).setUuid("PROJECT").addChildren(files.toArray(new Component[0])).build());
+
+    // one file per chunk
+    for (int i = 0; i < files.size(); i += BaseMeasureCache.CHUNK_SIZE) {
+      underTest.get(files.get(i), METRIC_ID_1);
+    }
+    // second chunk is still loaded, first one has been evicted
+    underTest.get(files.get(BaseMeasureCache.CHUNK_SIZE), METRIC_ID_1);
+    underTest.get(files.get(0), METRIC_ID_1);
+
+    verify(measureDao, times(BaseMeasureCache.MAX_LOADED_CHUNKS + 2)).selectByQuery(any(DbSession.class), any(MeasureQuery.class));
+    assertThat(underTest.getHits()).isEqualTo(1);
+    assertThat(underTest.getMisses()).isEqualTo(BaseMeasureCache.MAX_LOADED_CHUNKS + 2);
+  }
+
+  @Test
+  public void log_hits_and_misses_when_stopped() {
+    logTester.setLevel(LoggerLevel.DEBUG);
+    Component file = ReportComponent.builder(FILE, 1).setUuid("FILE").build();
+    underTest.get(file, METRIC_ID_1);
+    underTest.get(file, METRIC_ID_2);
+
+    underTest.stop();
+
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Base measures cache: 1 hits, 1 misses");
+  }
+
+  private static MeasureDto newMeasureDto(String componentUuid, int metricId, double value) {
+    return new MeasureDto().setComponentUuid(componentUuid).setMetricId(metricId).setValue(value);
+  }
+}
@@ -25,6 +25,8 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.ce.profiling.CeTaskProfiling;
+import org.sonar.db.protobuf.DbCe;
 import org.sonar.server.computation.task.ChangeLogLevel;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor;
@@ -143,6 +145,28 @@ public class ExecuteVisitorsStepTest {
     }
   }
 
+  @Test
+  public void execute_records_execution_duration_of_all_visitors_in_task_profile() {
+    CeTaskProfiling taskProfiling = new CeTaskProfiling();
+    ExecuteVisitorsStep underStep = new ExecuteVisitorsStep(
+      treeRootHolder,
+      asList(new VisitorA(), new VisitorB(), new VisitorC()),
+      taskProfiling);
+
+    taskProfiling.initForTask();
+    try {
+      CeTaskProfiling.StepProfiler stepProfiler = taskProfiling.startStep();
+      underStep.execute();
+      stepProfiler.stop(underStep.getDescription());
+
+      DbCe.TaskProfile profile = taskProfiling.getProfile();
+      assertThat(profile.getStepList()).extracting(DbCe.Step::getDescription).containsExactly("Execute component visitors");
+      assertThat(profile.getStep(0).getVisitorList()).extracting(DbCe.Visitor::getName).containsExactly("VisitorA", "VisitorB", "VisitorC");
+    } finally {
+      taskProfiling.clearForTask();
+    }
+  }
+
   private static class VisitorA extends TypeAwareVisitorAdapter {
     public VisitorA() {
       super(CrawlerDepthLimit.PROJECT, Order.PRE_ORDER);
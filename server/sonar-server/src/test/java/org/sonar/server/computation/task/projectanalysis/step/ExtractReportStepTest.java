@@ -22,7 +22,9 @@ package org.sonar.server.computation.task.projectanalysis.step;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.zip.ZipFile;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -70,7 +72,7 @@ public class ExtractReportStepTest {
   }
 
   @Test
-  public void unzip_report() throws Exception {
+  public void copy_report_without_extracting_it() throws Exception {
     File reportFile = generateReport();
     try (InputStream input = FileUtils.openInputStream(reportFile)) {
       dbTester.getDbClient().ceTaskInputDao().insert(dbTester.getSession(), TASK_UUID, input);
@@ -80,11 +82,13 @@ public class ExtractReportStepTest {
 
     underTest.execute();
 
-    // directory contains the uncompressed report (which contains only metadata.pb in this test)
-    File unzippedDir = reportDirectoryHolder.getDirectory();
-    assertThat(unzippedDir).isDirectory().exists();
-    assertThat(unzippedDir.listFiles()).hasSize(1);
-    assertThat(new File(unzippedDir, "metadata.pb")).hasContent("{metadata}");
+    // holder contains the zip of the report (which contains only metadata.pb in this test)
+    File reportZip = reportDirectoryHolder.getDirectory();
+    assertThat(reportZip).isFile().exists();
+    assertThat(FileUtils.contentEquals(reportZip, reportFile)).isTrue();
+    try (ZipFile zipFile = new ZipFile(reportZip)) {
+      assertThat(IOUtils.toString(zipFile.getInputStream(zipFile.getEntry("metadata.pb")))).isEqualTo("{metadata}");
+    }
   }
 
   private File generateReport() throws IOException {
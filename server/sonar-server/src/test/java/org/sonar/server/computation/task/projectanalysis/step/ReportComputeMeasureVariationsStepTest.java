@@ -147,6 +147,36 @@ public class ReportComputeMeasureVariationsStepTest {
     assertThat(measureRepository.getRawMeasure(directory, ISSUES_METRIC).get().getVariations().getVariation1()).isEqualTo(10d);
   }
 
+  @Test
+  public void set_variation_when_past_measures_are_loaded_by_slices_of_components() {
+    SnapshotDto period1Snapshot = newAnalysis(PROJECT_DTO);
+    dbClient.snapshotDao().insert(session, period1Snapshot);
+    dbClient.measureDao().insert(session, newMeasureDto(ISSUES_METRIC.getId(), PROJECT_DTO.uuid(), period1Snapshot.getUuid(), 60d));
+    ComponentDto directory1Dto = ComponentTesting.newDirectory(PROJECT_DTO, "dir1");
+    ComponentDto directory2Dto = ComponentTesting.newDirectory(PROJECT_DTO, "dir2");
+    dbClient.componentDao().insert(session, directory1Dto, directory2Dto);
+    dbClient.measureDao().insert(session, newMeasureDto(ISSUES_METRIC.getId(), directory1Dto.uuid(), period1Snapshot.getUuid(), 10d));
+    dbClient.measureDao().insert(session, newMeasureDto(ISSUES_METRIC.getId(), directory2Dto.uuid(), period1Snapshot.getUuid(), 50d));
+    session.commit();
+
+    periodsHolder.setPeriods(newPeriod(1, period1Snapshot));
+
+    Component directory1 = ReportComponent.builder(Component.Type.DIRECTORY, 2).setUuid(directory1Dto.uuid()).build();
+    Component directory2 = ReportComponent.builder(Component.Type.DIRECTORY, 3).setUuid(directory2Dto.uuid()).build();
+    Component project = ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_DTO.uuid()).addChildren(directory1, directory2).build();
+    treeRootHolder.setRoot(project);
+
+    addRawMeasure(project, ISSUES_METRIC, newMeasureBuilder().create(80, null));
+    addRawMeasure(directory1, ISSUES_METRIC, newMeasureBuilder().create(20, null));
+    addRawMeasure(directory2, ISSUES_METRIC, newMeasureBuilder().create(40, null));
+
+    new ComputeMeasureVariationsStep(dbClient, treeRootHolder, periodsHolder, metricRepository, measureRepository, 1).execute();
+
+    assertThat(measureRepository.getRawMeasure(project, ISSUES_METRIC).get().getVariations().getVariation1()).isEqualTo(20d);
+    assertThat(measureRepository.getRawMeasure(directory1, ISSUES_METRIC).get().getVariations().getVariation1()).isEqualTo(10d);
+    assertThat(measureRepository.getRawMeasure(directory2, ISSUES_METRIC).get().getVariations().getVariation1()).isEqualTo(-10d);
+  }
+
   @Test
   public void set_zero_variation_when_no_change() {
     // Project
@@ -19,11 +19,15 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
 import org.sonar.api.notifications.Notification;
 import org.sonar.api.rule.Severity;
 import org.sonar.api.utils.Duration;
@@ -41,10 +45,15 @@ import org.sonar.server.issue.notification.MyNewIssuesNotification;
 import org.sonar.server.issue.notification.NewIssuesNotification;
 import org.sonar.server.issue.notification.NewIssuesNotificationFactory;
 import org.sonar.server.issue.notification.NewIssuesStatistics;
+import org.sonar.server.notification.NotificationManager;
 import org.sonar.server.notification.NotificationService;
+import org.sonar.server.util.cache.DiskCache;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -78,6 +87,7 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
   public TemporaryFolder temp = new TemporaryFolder();
 
   NotificationService notificationService = mock(NotificationService.class);
+  NotificationManager notificationManager = mock(NotificationManager.class);
   NewIssuesNotificationFactory newIssuesNotificationFactory = mock(NewIssuesNotificationFactory.class);
   NewIssuesNotification newIssuesNotificationMock = createNewIssuesNotificationMock();
   MyNewIssuesNotification myNewIssuesNotificationMock = createMyNewIssuesNotificationMock();
@@ -88,7 +98,7 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
   @Before
   public void setUp() throws Exception {
     issueCache = new IssueCache(temp.newFile(), System2.INSTANCE);
-    underTest = new SendIssueNotificationsStep(issueCache, mock(RuleRepository.class), treeRootHolder, notificationService, analysisMetadataHolder,
+    underTest = new SendIssueNotificationsStep(issueCache, mock(RuleRepository.class, RETURNS_DEEP_STUBS), treeRootHolder, notificationService, notificationManager, analysisMetadataHolder,
       newIssuesNotificationFactory);
 
     when(newIssuesNotificationFactory.newNewIssuesNotication()).thenReturn(newIssuesNotificationMock);
@@ -101,7 +111,7 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
 
     underTest.execute();
 
-    verify(notificationService, never()).deliver(any(Notification.class));
+    verify(notificationManager, never()).scheduleForSending(anyListOf(Notification.class));
   }
 
   @Test
@@ -114,7 +124,7 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
 
     underTest.execute();
 
-    verify(notificationService).deliver(any(NewIssuesNotification.class));
+    verify(notificationManager).scheduleForSending(Collections.<Notification>singletonList(newIssuesNotificationMock));
     verify(newIssuesNotificationMock).setProject(PROJECT_KEY, PROJECT_UUID, PROJECT_NAME);
     verify(newIssuesNotificationMock).setAnalysisDate(new Date(ANALYSE_DATE));
     verify(newIssuesNotificationMock).setStatistics(eq(PROJECT_NAME), any(NewIssuesStatistics.Stats.class));
@@ -131,7 +141,7 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
 
     underTest.execute();
 
-    verify(notificationService, times(2)).deliver(any(Notification.class));
+    verify(notificationManager).scheduleForSending(Arrays.<Notification>asList(newIssuesNotificationMock, myNewIssuesNotificationMock));
     verify(myNewIssuesNotificationMock).setAssignee(ISSUE_ASSIGNEE);
     verify(myNewIssuesNotificationMock).setProject(PROJECT_KEY, PROJECT_UUID, PROJECT_NAME);
     verify(myNewIssuesNotificationMock).setAnalysisDate(new Date(ANALYSE_DATE));
@@ -148,7 +158,33 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
 
     underTest.execute();
 
-    verify(notificationService).deliver(any(IssueChangeNotification.class));
+    List<Notification> notifications = captureScheduledNotifications(1).get(0);
+    assertThat(notifications).hasSize(1);
+    assertThat(notifications.get(0)).isInstanceOf(IssueChangeNotification.class);
+  }
+
+  @Test
+  public void schedule_notifications_by_batches() throws Exception {
+    DiskCache<DefaultIssue>.DiskAppender appender = issueCache.newAppender();
+    for (int i = 0; i < SendIssueNotificationsStep.BATCH_SIZE + 1; i++) {
+      appender.append(new DefaultIssue().setKey("ISSUE_" + i).setSeverity(Severity.BLOCKER).setChanged(true).setSendNotifications(true));
+    }
+    appender.close();
+
+    when(notificationService.hasProjectSubscribersForTypes(PROJECT_UUID, SendIssueNotificationsStep.NOTIF_TYPES)).thenReturn(true);
+
+    underTest.execute();
+
+    List<List<Notification>> batches = captureScheduledNotifications(2);
+    assertThat(batches.get(0)).hasSize(SendIssueNotificationsStep.BATCH_SIZE);
+    assertThat(batches.get(1)).hasSize(1);
+    verify(notificationService, never()).deliver(any(Notification.class));
+  }
+
+  private List<List<Notification>> captureScheduledNotifications(int expectedCalls) {
+    ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+    verify(notificationManager, times(expectedCalls)).scheduleForSending(captor.capture());
+    return (List) captor.getAllValues();
   }
 
   private NewIssuesNotification createNewIssuesNotificationMock() {
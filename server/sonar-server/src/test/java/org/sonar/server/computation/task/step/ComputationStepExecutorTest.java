@@ -27,6 +27,8 @@ import org.junit.rules.ExpectedException;
 import org.mockito.InOrder;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.ce.profiling.CeTaskProfiling;
+import org.sonar.db.protobuf.DbCe;
 import org.sonar.server.computation.task.ChangeLogLevel;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -115,6 +117,38 @@ public class ComputationStepExecutorTest {
     }
   }
 
+  @Test
+  public void execute_records_profile_of_each_ComputationStep_called() {
+    CeTaskProfiling taskProfiling = new CeTaskProfiling();
+    taskProfiling.initForTask();
+    try {
+      new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2), listener, taskProfiling)
+        .execute();
+
+      assertThat(taskProfiling.getProfile().getStepList()).extracting(DbCe.Step::getDescription).containsExactly("step1", "step2");
+    } finally {
+      taskProfiling.clearForTask();
+    }
+  }
+
+  @Test
+  public void execute_records_profile_of_ComputationStep_which_throws_an_exception() {
+    doThrow(new RuntimeException("simulating failing execute Step method"))
+      .when(computationStep2)
+      .execute();
+    CeTaskProfiling taskProfiling = new CeTaskProfiling();
+    taskProfiling.initForTask();
+    try {
+      new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2, computationStep3), listener, taskProfiling)
+        .execute();
+      fail("exception should have been raised");
+    } catch (RuntimeException e) {
+      assertThat(taskProfiling.getProfile().getStepList()).extracting(DbCe.Step::getDescription).containsExactly("step1", "step2");
+    } finally {
+      taskProfiling.clearForTask();
+    }
+  }
+
   @Test
   public void execute_calls_listener_finished_method_with_all_step_runs() {
     new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2), listener)
@@ -24,21 +24,28 @@ import java.util.List;
 import javax.annotation.Nullable;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.Mockito;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.ce.log.CeLogging;
+import org.sonar.ce.profiling.CeTaskProfiling;
 import org.sonar.ce.queue.CeTask;
+import org.sonar.ce.queue.CeTaskResult;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeTaskTypes;
+import org.sonar.db.protobuf.DbCe;
 import org.sonar.server.computation.queue.InternalCeQueue;
 import org.sonar.server.computation.task.projectanalysis.taskprocessor.ReportTaskProcessor;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
@@ -52,8 +59,9 @@ public class CeWorkerCallableImplTest {
   InternalCeQueue queue = mock(InternalCeQueue.class);
   ReportTaskProcessor taskProcessor = mock(ReportTaskProcessor.class);
   CeLogging ceLogging = spy(CeLogging.class);
-  CeWorkerCallable underTest = new CeWorkerCallableImpl(queue, ceLogging, taskProcessorRepository);
-  InOrder inOrder = Mockito.inOrder(ceLogging, taskProcessor, queue);
+  CeTaskProfiling taskProfiling = spy(CeTaskProfiling.class);
+  CeWorkerCallable underTest = new CeWorkerCallableImpl(queue, ceLogging, taskProfiling, taskProcessorRepository);
+  InOrder inOrder = Mockito.inOrder(ceLogging, taskProfiling, taskProcessor, queue);
 
   @Test
   public void no_pending_tasks_in_queue() throws Exception {
@@ -61,7 +69,7 @@ public class CeWorkerCallableImplTest {
 
     assertThat(underTest.call()).isFalse();
 
-    verifyZeroInteractions(taskProcessor, ceLogging);
+    verifyZeroInteractions(taskProcessor, ceLogging, taskProfiling);
   }
 
   @Test
@@ -73,7 +81,9 @@ public class CeWorkerCallableImplTest {
     assertThat(underTest.call()).isTrue();
 
     inOrder.verify(ceLogging).initForTask(task);
-    inOrder.verify(queue).remove(task, CeActivityDto.Status.FAILED, null, null);
+    inOrder.verify(taskProfiling).initForTask();
+    inOrder.verify(queue).remove(task, CeActivityDto.Status.FAILED, null, null, null);
+    inOrder.verify(taskProfiling).clearForTask();
     inOrder.verify(ceLogging).clearForTask();
   }
 
@@ -86,8 +96,10 @@ public class CeWorkerCallableImplTest {
     assertThat(underTest.call()).isTrue();
 
     inOrder.verify(ceLogging).initForTask(task);
+    inOrder.verify(taskProfiling).initForTask();
     inOrder.verify(taskProcessor).process(task);
-    inOrder.verify(queue).remove(task, CeActivityDto.Status.SUCCESS, null, null);
+    inOrder.verify(queue).remove(task, CeActivityDto.Status.SUCCESS, null, null, null);
+    inOrder.verify(taskProfiling).clearForTask();
     inOrder.verify(ceLogging).clearForTask();
   }
 
@@ -101,11 +113,31 @@ public class CeWorkerCallableImplTest {
     assertThat(underTest.call()).isTrue();
 
     inOrder.verify(ceLogging).initForTask(task);
+    inOrder.verify(taskProfiling).initForTask();
     inOrder.verify(taskProcessor).process(task);
-    inOrder.verify(queue).remove(task, CeActivityDto.Status.FAILED, null, error);
+    inOrder.verify(queue).remove(task, CeActivityDto.Status.FAILED, null, error, null);
+    inOrder.verify(taskProfiling).clearForTask();
     inOrder.verify(ceLogging).clearForTask();
   }
 
+  @Test
+  public void register_profile_of_steps_executed_by_task() throws Exception {
+    CeTask task = createCeTask(null);
+    taskProcessorRepository.setProcessorForTask(task.getType(), taskProcessor);
+    when(queue.peek()).thenReturn(Optional.of(task));
+    when(taskProcessor.process(task)).thenAnswer(invocation -> {
+      taskProfiling.startStep().stop("step1");
+      return null;
+    });
+
+    assertThat(underTest.call()).isTrue();
+
+    ArgumentCaptor<DbCe.TaskProfile> profileCaptor = ArgumentCaptor.forClass(DbCe.TaskProfile.class);
+    verify(queue).remove(eq(task), eq(CeActivityDto.Status.SUCCESS), isNull(CeTaskResult.class), isNull(Throwable.class), profileCaptor.capture());
+    assertThat(profileCaptor.getValue().getStepList()).extracting(DbCe.Step::getDescription).containsExactly("step1");
+    assertThat(taskProfiling.getProfile()).isNull();
+  }
+
   @Test
   public void do_not_display_submitter_param_in_log_when_submitterLogin_is_not_set_in_case_of_success() throws Exception {
     when(queue.peek()).thenReturn(Optional.of(createCeTask(null)));
@@ -0,0 +1,123 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.es;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Collections;
+import java.util.function.Consumer;
+import org.elasticsearch.action.index.IndexRequest;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BulkIndexingPipelineTest {
+
+  @Rule
+  public EsTester esTester = new EsTester(new FakeIndexDefinition());
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void index_nothing() {
+    BulkIndexingPipeline<Integer, Integer> underTest = newPipeline(new RangeReader());
+
+    assertThat(underTest.index(Collections.emptyList())).isEqualTo(0L);
+    assertThat(count()).isEqualTo(0);
+  }
+
+  @Test
+  public void index_rows_of_all_partitions() {
+    BulkIndexingPipeline<Integer, Integer> underTest = newPipeline(new RangeReader())
+      .setReaderThreads(2)
+      .setConverterThreads(3)
+      // smaller than the number of rows, so that readers wait for converters
+      .setQueueCapacity(5);
+
+    long indexed = underTest.index(asList(0, 1, 2, 3));
+
+    assertThat(indexed).isEqualTo(400L);
+    assertThat(count()).isEqualTo(400L);
+    assertThat(underTest.getPartitionCount()).isEqualTo(4L);
+    assertThat(underTest.getProcessedPartitionCount()).isEqualTo(4L);
+    assertThat(underTest.getReadCount()).isEqualTo(400L);
+    assertThat(underTest.getConvertedCount()).isEqualTo(400L);
+  }
+
+  @Test
+  public void fail_if_a_partition_can_not_be_read() {
+    BulkIndexingPipeline<Integer, Integer> underTest = newPipeline((partition, consumer) -> {
+      throw new IllegalArgumentException("Unreadable partition " + partition);
+    });
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Fail to index documents");
+
+    underTest.index(asList(1));
+  }
+
+  @Test
+  public void fail_if_a_row_can_not_be_converted() {
+    BulkIndexingPipeline<Integer, Integer> underTest = new BulkIndexingPipeline<Integer, Integer>(
+      new BulkIndexer(esTester.client(), FakeIndexDefinition.INDEX), new RangeReader(), row -> {
+        throw new IllegalArgumentException("Unexpected row " + row);
+      })
+      .setQueueCapacity(1);
+
+    expectedException.expect(IllegalStateException.class);
+
+    underTest.index(asList(1, 2));
+  }
+
+  @Test
+  public void can_not_be_used_twice() {
+    BulkIndexingPipeline<Integer, Integer> underTest = newPipeline(new RangeReader());
+    underTest.index(asList(1));
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Indexing pipeline can be used only once");
+
+    underTest.index(asList(1));
+  }
+
+  private BulkIndexingPipeline<Integer, Integer> newPipeline(BulkIndexingPipeline.PartitionReader<Integer, Integer> reader) {
+    return new BulkIndexingPipeline<>(new BulkIndexer(esTester.client(), FakeIndexDefinition.INDEX), reader,
+      row -> new IndexRequest(FakeIndexDefinition.INDEX, FakeIndexDefinition.TYPE)
+        .source(ImmutableMap.of(FakeIndexDefinition.INT_FIELD, row)));
+  }
+
+  private long count() {
+    return esTester.countDocuments(FakeIndexDefinition.INDEX, FakeIndexDefinition.TYPE);
+  }
+
+  /**
+   * Partition N contains the 100 rows from N*100 to N*100+99
+   */
+  private static class RangeReader implements BulkIndexingPipeline.PartitionReader<Integer, Integer> {
+    @Override
+    public void read(Integer partition, Consumer<Integer> rowConsumer) {
+      for (int i = 0; i < 100; i++) {
+        rowConsumer.accept(partition * 100 + i);
+      }
+    }
+  }
+}
@@ -46,6 +46,9 @@ import org.sonar.db.rule.RuleDao;
 import org.sonar.db.rule.RuleDto;
 import org.sonar.db.rule.RuleTesting;
 import org.sonar.db.user.UserDto;
+import org.sonar.server.es.SearchOptions;
+import org.sonar.server.exceptions.BadRequestException;
+import org.sonar.server.issue.index.IssueIndex;
 import org.sonar.server.issue.index.IssueIndexer;
 import org.sonar.server.permission.PermissionChange;
 import org.sonar.server.permission.PermissionUpdater;
@@ -55,6 +58,7 @@ import org.sonar.server.user.UserSession;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.newHashMap;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
 
@@ -152,23 +156,45 @@ public class IssueBulkChangeServiceMediumTest {
   }
 
   @Test
-  public void fail_if_bulk_change_on_more_than_500_issues() {
+  public void bulk_change_on_more_than_500_issues_by_batches() {
     List<String> issueKeys = newArrayList();
     for (int i = 0; i < 510; i++) {
-      issueKeys.add("issue-" + i);
+      IssueDto issue = IssueTesting.newDto(rule, file, project).setStatus(Issue.STATUS_OPEN);
+      tester.get(IssueDao.class).insert(session, issue);
+      issueKeys.add(issue.getKey());
     }
+    session.commit();
+    tester.get(IssueIndexer.class).indexAll();
+
+    Map<String, Object> properties = newHashMap();
+    properties.put("issues", Joiner.on(",").join(issueKeys));
+    properties.put("actions", "do_transition");
+    properties.put("do_transition.transition", DefaultTransitions.CONFIRM);
 
+    IssueBulkChangeQuery issueBulkChangeQuery = new IssueBulkChangeQuery(properties, true);
+    IssueBulkChangeResult result = service.execute(issueBulkChangeQuery, userSession);
+    assertThat(result.issuesChanged()).hasSize(510);
+    assertThat(result.issuesNotChanged()).isEmpty();
+    assertThat(tester.get(IssueIndex.class).search(IssueQuery.builder(userSession).statuses(singletonList(Issue.STATUS_CONFIRMED)).build(),
+      new SearchOptions()).getTotal()).isEqualTo(510);
+  }
+
+  @Test
+  public void fail_if_bulk_change_on_more_than_max_issues() {
+    List<String> issueKeys = newArrayList();
+    for (int i = 0; i <= IssueBulkChangeService.MAX_ISSUES; i++) {
+      issueKeys.add("ISSUE_" + i);
+    }
     Map<String, Object> properties = newHashMap();
     properties.put("issues", Joiner.on(",").join(issueKeys));
     properties.put("actions", "do_transition");
     properties.put("do_transition.transition", DefaultTransitions.CONFIRM);
 
     try {
-      IssueBulkChangeQuery issueBulkChangeQuery = new IssueBulkChangeQuery(properties, true);
-      service.execute(issueBulkChangeQuery, userSession);
+      service.execute(new IssueBulkChangeQuery(properties, false), userSession);
       fail();
     } catch (Exception e) {
-      assertThat(e).isInstanceOf(IllegalArgumentException.class).hasMessage("Number of issue keys must be less than 500 (got 510)");
+      assertThat(e).isInstanceOf(BadRequestException.class).hasMessage("A bulk change can't be applied on more than 5000 issues");
     }
   }
 }
@@ -910,6 +910,62 @@ public class IssueIndexTest {
     assertThat(result.getTotal()).isEqualTo(12);
   }
 
+  @Test
+  public void paging_with_scroll() {
+    ComponentDto project = ComponentTesting.newProjectDto();
+    ComponentDto file = ComponentTesting.newFileDto(project, null);
+    for (int i = 0; i < 12; i++) {
+      indexIssues(IssueTesting.newDoc("ISSUE" + i, file).setLine(i));
+    }
+
+    IssueQuery query = IssueQuery.builder(userSessionRule).sort(IssueQuery.SORT_BY_FILE_LINE).asc(true).build();
+    SearchResult<IssueDoc> result = underTest.searchWithScroll(query, new SearchOptions().setPage(3, 5));
+    assertThat(result.getDocs()).extracting(IssueDoc::key).containsExactly("ISSUE0", "ISSUE1", "ISSUE2", "ISSUE3", "ISSUE4");
+    assertThat(result.getTotal()).isEqualTo(12);
+    assertThat(result.getScrollId()).isNotEmpty();
+
+    result = underTest.searchNext(result.getScrollId(), 5);
+    assertThat(result.getDocs()).extracting(IssueDoc::key).containsExactly("ISSUE5", "ISSUE6", "ISSUE7", "ISSUE8", "ISSUE9");
+    assertThat(result.getScrollId()).isNotEmpty();
+
+    // last page
+    result = underTest.searchNext(result.getScrollId(), 5);
+    assertThat(result.getDocs()).extracting(IssueDoc::key).containsExactly("ISSUE10", "ISSUE11");
+    assertThat(result.getScrollId()).isNull();
+    assertThat(countOpenSearchContexts()).isZero();
+  }
+
+  @Test
+  public void scroll_is_cleared_when_first_page_is_the_last_one() {
+    ComponentDto project = ComponentTesting.newProjectDto();
+    ComponentDto file = ComponentTesting.newFileDto(project, null);
+    indexIssues(IssueTesting.newDoc("ISSUE1", file), IssueTesting.newDoc("ISSUE2", file));
+
+    SearchResult<IssueDoc> result = underTest.searchWithScroll(IssueQuery.builder(userSessionRule).build(), new SearchOptions().setLimit(5));
+
+    assertThat(result.getDocs()).hasSize(2);
+    assertThat(result.getScrollId()).isNull();
+    assertThat(countOpenSearchContexts()).isZero();
+  }
+
+  @Test
+  public void clear_scroll() {
+    ComponentDto project = ComponentTesting.newProjectDto();
+    ComponentDto file = ComponentTesting.newFileDto(project, null);
+    indexIssues(IssueTesting.newDoc("ISSUE1", file), IssueTesting.newDoc("ISSUE2", file));
+    SearchResult<IssueDoc> result = underTest.searchWithScroll(IssueQuery.builder(userSessionRule).build(), new SearchOptions().setLimit(1));
+    assertThat(countOpenSearchContexts()).isPositive();
+
+    underTest.clearScroll(result.getScrollId());
+
+    assertThat(countOpenSearchContexts()).isZero();
+  }
+
+  private long countOpenSearchContexts() {
+    return tester.client().nativeClient().admin().indices().prepareStats(IssueIndexDefinition.INDEX).setSearch(true).get()
+      .getTotal().getSearch().getOpenContexts();
+  }
+
   @Test
   public void search_with_max_limit() {
     ComponentDto project = ComponentTesting.newProjectDto();
@@ -108,6 +108,15 @@ public class IssueIndexerTest {
     verifyIssueKeys("ABCDE");
   }
 
+  @Test
+  public void indexAll_indexes_issues_of_all_projects() {
+    dbTester.prepareDbUnit(getClass(), "index_project.xml");
+
+    createIndexer().indexAll();
+
+    verifyIssueKeys("ABCDE", "EDCBA");
+  }
+
   @Test
   public void delete_issues_by_keys() throws Exception {
     addIssue("P1", "Issue1");
@@ -19,6 +19,10 @@
  */
 package org.sonar.server.issue.ws;
 
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.commons.lang.StringUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.ClassRule;
@@ -44,16 +48,25 @@ import org.sonar.db.rule.RuleDao;
 import org.sonar.db.rule.RuleDto;
 import org.sonar.db.rule.RuleTesting;
 import org.sonar.db.user.UserDto;
+import org.sonar.server.es.EsClient;
+import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.issue.IssueQuery;
 import org.sonar.server.issue.IssueTesting;
+import org.sonar.server.issue.index.IssueIndex;
+import org.sonar.server.issue.index.IssueIndexDefinition;
 import org.sonar.server.issue.index.IssueIndexer;
 import org.sonar.server.permission.PermissionChange;
 import org.sonar.server.permission.PermissionUpdater;
 import org.sonar.server.search.QueryContext;
 import org.sonar.server.tester.ServerTester;
 import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.ws.TestResponse;
+import org.sonar.server.ws.WsActionTester;
 import org.sonar.server.ws.WsTester;
+import org.sonarqube.ws.Issues.SearchWsResponse;
+import org.sonarqube.ws.MediaTypes;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.sonar.server.issue.ws.IssuesWs.API_ENDPOINT;
@@ -61,6 +74,7 @@ import static org.sonar.server.issue.ws.SearchAction.SEARCH_ACTION;
 import static org.sonarqube.ws.client.issue.IssueFilterParameters.ADDITIONAL_FIELDS;
 import static org.sonarqube.ws.client.issue.IssueFilterParameters.COMPONENTS;
 import static org.sonarqube.ws.client.issue.IssueFilterParameters.CREATED_AFTER;
+import static org.sonarqube.ws.client.issue.IssueFilterParameters.CURSOR;
 import static org.sonarqube.ws.client.issue.IssueFilterParameters.DEPRECATED_FACET_MODE_DEBT;
 import static org.sonarqube.ws.client.issue.IssueFilterParameters.FACET_MODE_EFFORT;
 import static org.sonarqube.ws.client.issue.IssueFilterParameters.HIDE_COMMENTS;
@@ -105,7 +119,7 @@ public class SearchActionMediumTest {
     assertThat(search.isPost()).isFalse();
     assertThat(search.isInternal()).isFalse();
     assertThat(search.responseExampleAsString()).isNotEmpty();
-    assertThat(search.params()).hasSize(39);
+    assertThat(search.params()).hasSize(40);
   }
 
   @Test
@@ -548,6 +562,100 @@ public class SearchActionMediumTest {
     result.assertJson(this.getClass(), "paging.json");
   }
 
+  @Test
+  public void paging_with_cursor() throws Exception {
+    insertIssues(12);
+    WsActionTester actionTester = new WsActionTester(tester.get(SearchAction.class));
+
+    Set<String> issueKeys = new HashSet<>();
+    SearchWsResponse response = searchWithCursor(actionTester, SearchAction.CURSOR_FIRST_PAGE);
+    assertThat(response.getTotal()).isEqualTo(12);
+    assertThat(response.getPaging().getPageIndex()).isEqualTo(1);
+    assertThat(response.getPaging().getPageSize()).isEqualTo(5);
+    response.getIssuesList().forEach(issue -> issueKeys.add(issue.getKey()));
+    while (response.hasNextCursor()) {
+      int pageIndex = response.getPaging().getPageIndex();
+      response = searchWithCursor(actionTester, response.getNextCursor());
+      assertThat(response.getIssuesCount()).isLessThanOrEqualTo(5);
+      assertThat(response.getPaging().getPageIndex()).isEqualTo(pageIndex + 1);
+      assertThat(response.getPaging().getPageSize()).isEqualTo(5);
+      assertThat(response.getPaging().getTotal()).isEqualTo(12);
+      response.getIssuesList().forEach(issue -> issueKeys.add(issue.getKey()));
+    }
+
+    // last page is not empty, its scroll is released
+    assertThat(response.getPaging().getPageIndex()).isEqualTo(3);
+    assertThat(response.getIssuesCount()).isEqualTo(2);
+    assertThat(issueKeys).hasSize(12);
+    assertThat(countOpenSearchContexts()).isZero();
+  }
+
+  @Test
+  public void fail_when_cursor_is_invalid() throws Exception {
+    expectedException.expect(BadRequestException.class);
+
+    wsTester.newGetRequest(API_ENDPOINT, SEARCH_ACTION)
+      .setParam(CURSOR, "polop")
+      .execute();
+  }
+
+  @Test
+  public void fail_when_cursor_has_expired() throws Exception {
+    insertIssues(12);
+    WsActionTester actionTester = new WsActionTester(tester.get(SearchAction.class));
+    String cursor = searchWithCursor(actionTester, SearchAction.CURSOR_FIRST_PAGE).getNextCursor();
+    String scrollId = StringUtils.substringAfterLast(new String(Base64.getUrlDecoder().decode(cursor), UTF_8), "|");
+    tester.get(IssueIndex.class).clearScroll(scrollId);
+
+    expectedException.expect(BadRequestException.class);
+    expectedException.expectMessage("The value of parameter 'cursor' has expired");
+
+    searchWithCursor(actionTester, cursor);
+  }
+
+  @Test
+  public void starting_a_cursor_expires_the_previous_one_of_the_user() throws Exception {
+    insertIssues(12);
+    WsActionTester actionTester = new WsActionTester(tester.get(SearchAction.class));
+    String firstCursor = searchWithCursor(actionTester, SearchAction.CURSOR_FIRST_PAGE).getNextCursor();
+    long openContexts = countOpenSearchContexts();
+
+    String secondCursor = searchWithCursor(actionTester, SearchAction.CURSOR_FIRST_PAGE).getNextCursor();
+
+    assertThat(countOpenSearchContexts()).isEqualTo(openContexts);
+    assertThat(searchWithCursor(actionTester, secondCursor).getIssuesCount()).isEqualTo(5);
+    expectedException.expect(BadRequestException.class);
+    expectedException.expectMessage("The value of parameter 'cursor' has expired");
+    searchWithCursor(actionTester, firstCursor);
+  }
+
+  private void insertIssues(int count) {
+    RuleDto rule = newRule();
+    ComponentDto project = insertComponent(ComponentTesting.newProjectDto("PROJECT_ID").setKey("PROJECT_KEY"));
+    setDefaultProjectPermission(project);
+    ComponentDto file = insertComponent(ComponentTesting.newFileDto(project, null, "FILE_ID").setKey("FILE_KEY"));
+    for (int i = 0; i < count; i++) {
+      IssueDto issue = IssueTesting.newDto(rule, file, project);
+      tester.get(IssueDao.class).insert(session, issue);
+    }
+    session.commit();
+    tester.get(IssueIndexer.class).indexAll();
+  }
+
+  private static long countOpenSearchContexts() {
+    return tester.get(EsClient.class).nativeClient().admin().indices().prepareStats(IssueIndexDefinition.INDEX).setSearch(true).get()
+      .getTotal().getSearch().getOpenContexts();
+  }
+
+  private static SearchWsResponse searchWithCursor(WsActionTester actionTester, String cursor) throws Exception {
+    TestResponse response = actionTester.newRequest()
+      .setParam(CURSOR, cursor)
+      .setParam(WebService.Param.PAGE_SIZE, "5")
+      .setMediaType(MediaTypes.PROTOBUF)
+      .execute();
+    return SearchWsResponse.parseFrom(response.getInputStream());
+  }
+
   @Test
   public void paging_with_page_size_to_minus_one() throws Exception {
     RuleDto rule = newRule();
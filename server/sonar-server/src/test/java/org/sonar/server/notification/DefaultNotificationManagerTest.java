@@ -21,14 +21,17 @@ package org.sonar.server.notification;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
-import java.io.InvalidClassException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import org.junit.Before;
 import org.junit.Test;
-import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.sonar.api.notifications.Notification;
@@ -39,8 +42,6 @@ import org.sonar.db.property.PropertiesDao;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
-import static org.mockito.Mockito.inOrder;
-import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.only;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -97,22 +98,39 @@ public class DefaultNotificationManagerTest {
     Notification notification = new Notification("test");
     NotificationQueueDto dto = NotificationQueueDto.toNotificationQueueDto(notification);
     List<NotificationQueueDto> dtos = Arrays.asList(dto);
-    when(notificationQueueDao.selectOldest(1)).thenReturn(dtos);
+    when(notificationQueueDao.claimOldest(1)).thenReturn(dtos);
 
     assertThat(manager.getFromQueue()).isNotNull();
 
-    InOrder inOrder = inOrder(notificationQueueDao);
-    inOrder.verify(notificationQueueDao).selectOldest(1);
-    inOrder.verify(notificationQueueDao).delete(dtos);
+    verify(notificationQueueDao).claimOldest(1);
+  }
+
+  @Test
+  public void get_batch_of_notifications_from_queue() throws Exception {
+    NotificationQueueDto dto1 = NotificationQueueDto.toNotificationQueueDto(new Notification("test1"));
+    NotificationQueueDto dto2 = new NotificationQueueDto().setData(serializeWithIncompatibleVersion(new Notification("test2")));
+    NotificationQueueDto dto3 = NotificationQueueDto.toNotificationQueueDto(new Notification("test3"));
+    List<NotificationQueueDto> dtos = Arrays.asList(dto1, dto2, dto3);
+    when(notificationQueueDao.claimOldest(10)).thenReturn(dtos);
+
+    List<Notification> notifications = manager.getFromQueue(10);
+
+    assertThat(notifications).extracting(Notification::getType).containsExactly("test1", "test3");
+  }
+
+  @Test
+  public void get_empty_batch_if_queue_is_empty() {
+    when(notificationQueueDao.claimOldest(10)).thenReturn(Collections.emptyList());
+
+    assertThat(manager.getFromQueue(10)).isEmpty();
   }
 
   // SONAR-4739
   @Test
   public void shouldNotFailWhenUnableToDeserialize() throws Exception {
-    NotificationQueueDto dto1 = mock(NotificationQueueDto.class);
-    when(dto1.toNotification()).thenThrow(new InvalidClassException("Pouet"));
+    NotificationQueueDto dto1 = new NotificationQueueDto().setData(serializeWithIncompatibleVersion(new Notification("test")));
     List<NotificationQueueDto> dtos = Arrays.asList(dto1);
-    when(notificationQueueDao.selectOldest(1)).thenReturn(dtos);
+    when(notificationQueueDao.claimOldest(1)).thenReturn(dtos);
 
     manager = spy(manager);
     assertThat(manager.getFromQueue()).isNull();
@@ -162,6 +180,24 @@ public class DefaultNotificationManagerTest {
     assertThat(map.get("user4")).isNull();
   }
 
+  @Test
+  public void load_subscribers_only_once_when_cache_is_enabled() {
+    when(propertiesDao.selectNotificationSubscribers("NewViolations", "Email", "struts")).thenReturn(Lists.newArrayList("user1"));
+
+    manager.runWithSubscriptionsCache(() -> {
+      assertThat(manager.findNotificationSubscribers(dispatcher, "struts").keySet()).containsOnly("user1");
+      assertThat(manager.findNotificationSubscribers(dispatcher, "struts").keySet()).containsOnly("user1");
+      manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45");
+      manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45");
+    });
+    verify(propertiesDao, times(1)).selectNotificationSubscribers("NewViolations", "Email", "struts");
+    verify(propertiesDao, times(1)).selectUsersForNotification("NewViolations", "Email", "uuid_45");
+
+    // cache is disabled once the delivery is done
+    manager.findNotificationSubscribers(dispatcher, "struts");
+    verify(propertiesDao, times(2)).selectNotificationSubscribers("NewViolations", "Email", "struts");
+  }
+
   @Test
   public void findNotificationSubscribers() {
     when(propertiesDao.selectNotificationSubscribers("NewViolations", "Email", "struts")).thenReturn(Lists.newArrayList("user1", "user2"));
@@ -175,4 +211,29 @@ public class DefaultNotificationManagerTest {
     assertThat(map.get("user2")).containsOnly(emailChannel, twitterChannel);
     assertThat(map.get("other")).isNull();
   }
+
+  /**
+   * Java serialization of the notification, but with a serialVersionUID which does not match the class
+   * anymore, as after an upgrade.
+   */
+  private static byte[] serializeWithIncompatibleVersion(Notification notification) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+      output.writeObject(notification);
+    }
+    byte[] data = bytes.toByteArray();
+    byte[] className = Notification.class.getName().getBytes(StandardCharsets.UTF_8);
+    int suidIndex = indexOf(data, className) + className.length;
+    data[suidIndex] = (byte) ~data[suidIndex];
+    return data;
+  }
+
+  private static int indexOf(byte[] data, byte[] searched) {
+    for (int i = 0; i <= data.length - searched.length; i++) {
+      if (Arrays.equals(Arrays.copyOfRange(data, i, i + searched.length), searched)) {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException("Not found");
+  }
 }
@@ -0,0 +1,152 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.notification;
+
+import org.junit.Test;
+import org.sonar.api.notifications.Notification;
+import org.sonar.server.issue.notification.IssueChangeNotification;
+import org.sonar.server.issue.notification.MyNewIssuesNotification;
+import org.sonar.server.issue.notification.NewIssuesNotification;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NotificationCodecTest {
+
+  @Test
+  public void encode_notification_in_compact_format() throws Exception {
+    Notification notification = new Notification("issue-changes")
+      .setFieldValue("key", "ABCDE")
+      .setFieldValue("message", "\u00e9t\u00e9")
+      .setFieldValue("assignee", null);
+
+    byte[] data = NotificationCodec.encode(notification);
+
+    assertThat(data[0]).isEqualTo(NotificationCodec.FORMAT_V1);
+    Notification decoded = NotificationCodec.decode(data);
+    assertThat(decoded).isEqualTo(notification);
+    assertThat(decoded.getFieldValue("message")).isEqualTo("\u00e9t\u00e9");
+    assertThat(decoded.getFieldValue("assignee")).isNull();
+  }
+
+  @Test
+  public void encode_core_subclasses_in_compact_format() throws Exception {
+    Notification notification = new IssueChangeNotification()
+      .setProject("org.apache:struts", "Struts")
+      .setChangeAuthorLogin("simon");
+
+    byte[] data = NotificationCodec.encode(notification);
+
+    assertThat(data[0]).isEqualTo(NotificationCodec.FORMAT_V1);
+    Notification decoded = NotificationCodec.decode(data);
+    assertThat(decoded).isInstanceOf(IssueChangeNotification.class).isEqualTo(notification);
+    assertThat(decoded.getFieldValue("changeAuthor")).isEqualTo("simon");
+  }
+
+  @Test
+  public void encode_new_issues_notifications_in_compact_format() throws Exception {
+    Notification newIssues = new NewIssuesNotification().setProject("org.apache:struts", "UUID", "Struts");
+    Notification myNewIssues = new MyNewIssuesNotification().setAssignee("simon");
+
+    byte[] newIssuesData = NotificationCodec.encode(newIssues);
+    byte[] myNewIssuesData = NotificationCodec.encode(myNewIssues);
+
+    assertThat(newIssuesData[0]).isEqualTo(NotificationCodec.FORMAT_V1);
+    assertThat(myNewIssuesData[0]).isEqualTo(NotificationCodec.FORMAT_V1);
+    assertThat(NotificationCodec.decode(newIssuesData)).isExactlyInstanceOf(NewIssuesNotification.class).isEqualTo(newIssues);
+    assertThat(NotificationCodec.decode(myNewIssuesData)).isExactlyInstanceOf(MyNewIssuesNotification.class).isEqualTo(myNewIssues);
+  }
+
+  @Test
+  public void use_java_serialization_if_subclass_reuses_type_of_core_subclass() throws Exception {
+    Notification notification = new PluginIssueChangeNotification();
+
+    byte[] data = NotificationCodec.encode(notification);
+
+    assertThat(data[0]).isEqualTo((byte) 0xAC);
+    assertThat(NotificationCodec.decode(data)).isInstanceOf(PluginIssueChangeNotification.class);
+  }
+
+  @Test
+  public void use_java_serialization_if_subclass_has_no_state() throws Exception {
+    Notification notification = new StatelessNotification().setFieldValue("key", "ABCDE");
+
+    byte[] data = NotificationCodec.encode(notification);
+
+    assertThat(data[0]).isEqualTo((byte) 0xAC);
+    Notification decoded = NotificationCodec.decode(data);
+    assertThat(decoded).isInstanceOf(StatelessNotification.class).isEqualTo(notification);
+  }
+
+  @Test
+  public void use_java_serialization_if_subclass_has_state() throws Exception {
+    StatefulNotification notification = new StatefulNotification("foo");
+
+    byte[] data = NotificationCodec.encode(notification);
+
+    assertThat(data[0]).isEqualTo((byte) 0xAC);
+    Notification decoded = NotificationCodec.decode(data);
+    assertThat(decoded).isInstanceOf(StatefulNotification.class);
+    assertThat(((StatefulNotification) decoded).attribute).isEqualTo("foo");
+  }
+
+  @Test
+  public void use_java_serialization_if_subclass_overrides_accessors() throws Exception {
+    byte[] data = NotificationCodec.encode(new CustomMessageNotification());
+
+    assertThat(data[0]).isEqualTo((byte) 0xAC);
+    assertThat(NotificationCodec.decode(data).getDefaultMessage()).isEqualTo("custom");
+  }
+
+  private static class PluginIssueChangeNotification extends IssueChangeNotification {
+    private static final long serialVersionUID = 1L;
+  }
+
+  private static class StatelessNotification extends Notification {
+    private static final long serialVersionUID = 1L;
+    private final transient Object notSerialized = new Object();
+
+    StatelessNotification() {
+      super("stateless");
+    }
+  }
+
+  private static class StatefulNotification extends Notification {
+    private static final long serialVersionUID = 1L;
+    private final String attribute;
+
+    StatefulNotification(String attribute) {
+      super("stateful");
+      this.attribute = attribute;
+    }
+  }
+
+  private static class CustomMessageNotification extends Notification {
+    private static final long serialVersionUID = 1L;
+
+    CustomMessageNotification() {
+      super("custom");
+    }
+
+    @Override
+    public String getDefaultMessage() {
+      return "custom";
+    }
+  }
+}
@@ -21,6 +21,7 @@ package org.sonar.server.notification;
 
 import com.google.common.collect.Sets;
 import java.util.Arrays;
+import java.util.Collections;
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
@@ -31,6 +32,7 @@ import org.sonar.api.notifications.NotificationChannel;
 import org.sonar.db.DbClient;
 import org.sonar.db.property.PropertiesDao;
 
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
@@ -68,7 +70,11 @@ public class NotificationDaemonTest {
     when(commentOnIssueCreatedByMe.getType()).thenReturn("issue-changes");
     when(qualityGateChange.getKey()).thenReturn("QGateChange");
     when(qualityGateChange.getType()).thenReturn("qgate-changes");
-    when(manager.getFromQueue()).thenReturn(notification).thenReturn(null);
+    when(manager.getFromQueue(NotificationDaemon.BATCH_SIZE)).thenReturn(singletonList(notification)).thenReturn(Collections.emptyList());
+    doAnswer(invocation -> {
+      ((Runnable) invocation.getArguments()[0]).run();
+      return null;
+    }).when(manager).runWithSubscriptionsCache(any(Runnable.class));
 
     Settings settings = new MapSettings().setProperty("sonar.notifications.delay", 1L);
 
@@ -174,7 +180,8 @@ public class NotificationDaemonTest {
   @Test
   public void shouldNotStopWhenException() {
     setUpMocks();
-    when(manager.getFromQueue()).thenThrow(new RuntimeException("Unexpected exception")).thenReturn(notification).thenReturn(null);
+    when(manager.getFromQueue(NotificationDaemon.BATCH_SIZE)).thenThrow(new RuntimeException("Unexpected exception")).thenReturn(singletonList(notification))
+      .thenReturn(Collections.emptyList());
     doAnswer(addUser(ASSIGNEE_SIMON, emailChannel)).when(commentOnIssueAssignedToMe).dispatch(same(notification), any(NotificationDispatcher.Context.class));
     doAnswer(addUser(CREATOR_SIMON, emailChannel)).when(commentOnIssueCreatedByMe).dispatch(same(notification), any(NotificationDispatcher.Context.class));
 
@@ -197,6 +204,47 @@ public class NotificationDaemonTest {
     verify(gtalkChannel, never()).deliver(any(Notification.class), anyString());
   }
 
+  @Test
+  public void deliver_batch_of_notifications_and_record_statistics() {
+    setUpMocks();
+    Notification otherNotification = mock(Notification.class);
+    when(manager.getFromQueue(NotificationDaemon.BATCH_SIZE)).thenReturn(Arrays.asList(notification, otherNotification)).thenReturn(Collections.emptyList());
+    doAnswer(addUser(ASSIGNEE_SIMON, emailChannel)).when(commentOnIssueAssignedToMe).dispatch(any(Notification.class), any(NotificationDispatcher.Context.class));
+
+    underTest.processQueue();
+
+    verify(emailChannel).deliver(notification, ASSIGNEE_SIMON);
+    verify(emailChannel).deliver(otherNotification, ASSIGNEE_SIMON);
+    verify(manager).runWithSubscriptionsCache(any(Runnable.class));
+    assertThat(underTest.getDeliveredCount()).isEqualTo(2);
+    assertThat(underTest.getAverageDeliveryTimeMs()).isGreaterThanOrEqualTo(0);
+  }
+
+  @Test
+  public void deliver_batches_of_notifications_concurrently() {
+    setUpMocks();
+    Notification otherNotification = mock(Notification.class);
+    Notification thirdNotification = mock(Notification.class);
+    when(manager.getFromQueue(NotificationDaemon.BATCH_SIZE))
+      .thenReturn(singletonList(notification))
+      .thenReturn(singletonList(otherNotification))
+      .thenReturn(singletonList(thirdNotification))
+      .thenReturn(Collections.emptyList());
+    doAnswer(addUser(ASSIGNEE_SIMON, emailChannel)).when(commentOnIssueAssignedToMe).dispatch(any(Notification.class), any(NotificationDispatcher.Context.class));
+    Settings settings = new MapSettings()
+      .setProperty("sonar.notifications.delay", 1L)
+      .setProperty(NotificationDaemon.PROPERTY_THREADS, 2);
+    underTest = new NotificationDaemon(settings, manager, service);
+
+    underTest.start();
+    verify(emailChannel, timeout(2000)).deliver(notification, ASSIGNEE_SIMON);
+    verify(emailChannel, timeout(2000)).deliver(otherNotification, ASSIGNEE_SIMON);
+    verify(emailChannel, timeout(2000)).deliver(thirdNotification, ASSIGNEE_SIMON);
+    underTest.stop();
+
+    assertThat(underTest.getDeliveredCount()).isEqualTo(3);
+  }
+
   @Test
   public void getDispatchers() {
     setUpMocks();
@@ -216,7 +264,8 @@ public class NotificationDaemonTest {
   public void shouldLogEvery10Minutes() {
     setUpMocks();
     // Emulate 2 notifications in DB
-    when(manager.getFromQueue()).thenReturn(notification).thenReturn(notification).thenReturn(null);
+    when(manager.getFromQueue(NotificationDaemon.BATCH_SIZE)).thenReturn(singletonList(notification)).thenReturn(singletonList(notification))
+      .thenReturn(Collections.emptyList());
     when(manager.count()).thenReturn(1L).thenReturn(0L);
     underTest = spy(underTest);
     // Emulate processing of each notification take 10 min to have a log each time
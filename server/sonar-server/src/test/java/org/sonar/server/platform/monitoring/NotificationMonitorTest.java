@@ -0,0 +1,54 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import org.junit.Test;
+import org.sonar.server.notification.DefaultNotificationManager;
+import org.sonar.server.notification.NotificationDaemon;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class NotificationMonitorTest {
+
+  DefaultNotificationManager manager = mock(DefaultNotificationManager.class);
+  NotificationDaemon daemon = mock(NotificationDaemon.class);
+  NotificationMonitor underTest = new NotificationMonitor(manager, daemon);
+
+  @Test
+  public void name_is_not_empty() {
+    assertThat(underTest.name()).isEqualTo("Notifications");
+  }
+
+  @Test
+  public void queue_and_delivery_info() {
+    when(manager.count()).thenReturn(12L);
+    when(daemon.getDeliveredCount()).thenReturn(100L);
+    when(daemon.getAverageDeliveryTimeMs()).thenReturn(5L);
+    when(daemon.getLastBatchDeliveryTimeMs()).thenReturn(250L);
+
+    assertThat(underTest.attributes())
+      .containsEntry("Queue Size", 12L)
+      .containsEntry("Delivered Notifications", 100L)
+      .containsEntry("Average Delivery Time (ms)", 5L)
+      .containsEntry("Last Batch Delivery Time (ms)", 250L);
+  }
+}
@@ -70,6 +70,21 @@ public class SourceServiceTest {
     assertThat(lines.get(2).getLine()).isEqualTo(7);
   }
 
+  @Test
+  public void get_range_of_lines_over_several_blocks_of_lines() throws Exception {
+    FileSourceDto dto = new FileSourceDto();
+    dto.setFileUuid("BIG_FILE_UUID").setProjectUuid("PROJECT_UUID");
+    dto.setSourceData(FileSourceTesting.newFakeData(2000).build());
+    dbTester.getDbClient().fileSourceDao().insert(dto);
+
+    Optional<Iterable<DbFileSources.Line>> linesOpt = underTest.getLines(dbTester.getSession(), "BIG_FILE_UUID", 499, 1001);
+    assertThat(linesOpt.isPresent()).isTrue();
+    List<DbFileSources.Line> lines = Lists.newArrayList(linesOpt.get());
+    assertThat(lines).hasSize(503);
+    assertThat(lines.get(0).getLine()).isEqualTo(499);
+    assertThat(lines.get(502).getLine()).isEqualTo(1001);
+  }
+
   @Test
   public void get_range_of_lines_as_raw_text() throws Exception {
     Optional<Iterable<String>> linesOpt = underTest.getLinesAsRawText(dbTester.getSession(), FILE_UUID, 5, 7);
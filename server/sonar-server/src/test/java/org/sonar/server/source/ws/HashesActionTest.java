@@ -0,0 +1,114 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.source.ws;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.utils.System2;
+import org.sonar.api.web.UserRole;
+import org.sonar.db.DbTester;
+import org.sonar.scanner.protocol.input.ScannerInput.FileLineHashes;
+import org.sonar.server.exceptions.ForbiddenException;
+import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.ws.WsTester;
+
+import static java.util.Collections.nCopies;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HashesActionTest {
+
+  private static final String PROJECT_UUID = "ABCD";
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  @Rule
+  public UserSessionRule userSessionRule = UserSessionRule.standalone();
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  WsTester tester;
+
+  @Before
+  public void before() {
+    tester = new WsTester(new SourcesWs(new HashesAction(db.getDbClient(), userSessionRule)));
+    db.prepareDbUnit(getClass(), "shared.xml");
+  }
+
+  @Test
+  public void return_hashes_of_files() throws Exception {
+    userSessionRule.login("polop").addProjectUuidPermissions(UserRole.USER, PROJECT_UUID);
+
+    List<FileLineHashes> result = call("Action.java,Service.java");
+
+    assertThat(result).extracting(FileLineHashes::getFileKey).containsOnly("Action.java", "Service.java");
+    for (FileLineHashes hashes : result) {
+      if (hashes.getFileKey().equals("Action.java")) {
+        assertThat(hashes.getLineHashList()).containsExactly("987654");
+      } else {
+        assertThat(hashes.getLineHashList()).containsExactly("abc", "", "def");
+      }
+    }
+  }
+
+  @Test
+  public void ignore_unknown_files_and_files_without_source() throws Exception {
+    userSessionRule.login("polop").addProjectUuidPermissions(UserRole.USER, PROJECT_UUID);
+
+    List<FileLineHashes> result = call("Action.java,NoSource.java,Unknown.java");
+
+    assertThat(result).extracting(FileLineHashes::getFileKey).containsOnly("Action.java");
+  }
+
+  @Test
+  public void fail_on_missing_permission() throws Exception {
+    userSessionRule.login("polop");
+
+    expectedException.expect(ForbiddenException.class);
+    call("Action.java");
+  }
+
+  @Test
+  public void fail_if_too_many_keys() throws Exception {
+    userSessionRule.login("polop").addProjectUuidPermissions(UserRole.USER, PROJECT_UUID);
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("'keys' can contain at most 500 keys, got 501");
+    call(String.join(",", nCopies(HashesAction.MAX_KEYS + 1, "Action.java")));
+  }
+
+  private List<FileLineHashes> call(String keys) throws Exception {
+    WsTester.TestRequest request = tester.newGetRequest("api/sources", "hashes").setParam("keys", keys);
+    InputStream input = new ByteArrayInputStream(request.execute().output());
+    List<FileLineHashes> result = new ArrayList<>();
+    FileLineHashes hashes;
+    while ((hashes = FileLineHashes.parseDelimitedFrom(input)) != null) {
+      result.add(hashes);
+    }
+    return result;
+  }
+}
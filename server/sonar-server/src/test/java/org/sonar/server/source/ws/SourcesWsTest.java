@@ -40,7 +40,8 @@ public class SourcesWsTest {
   RawAction rawAction = new RawAction(mock(DbClient.class), mock(SourceService.class), userSessionRule, mock(ComponentFinder.class));
   LinesAction linesAction = new LinesAction(mock(ComponentFinder.class), mock(DbClient.class), mock(SourceService.class), mock(HtmlSourceDecorator.class), userSessionRule);
   HashAction hashAction = new HashAction(mock(DbClient.class), userSessionRule, mock(ComponentFinder.class));
-  WsTester tester = new WsTester(new SourcesWs(showAction, rawAction, linesAction, hashAction));
+  HashesAction hashesAction = new HashesAction(mock(DbClient.class), userSessionRule);
+  WsTester tester = new WsTester(new SourcesWs(showAction, rawAction, linesAction, hashAction, hashesAction));
 
   @Test
   public void define_ws() {
@@ -48,7 +49,7 @@ public class SourcesWsTest {
     assertThat(controller).isNotNull();
     assertThat(controller.since()).isEqualTo("4.2");
     assertThat(controller.description()).isNotEmpty();
-    assertThat(controller.actions()).hasSize(4);
+    assertThat(controller.actions()).hasSize(5);
 
     WebService.Action show = controller.action("show");
     assertThat(show).isNotNull();
@@ -81,5 +82,13 @@ public class SourcesWsTest {
     assertThat(hash.isInternal()).isTrue();
     assertThat(hash.responseExampleAsString()).isNotEmpty();
     assertThat(hash.params()).hasSize(1);
+
+    WebService.Action hashes = controller.action("hashes");
+    assertThat(hashes).isNotNull();
+    assertThat(hashes.handler()).isSameAs(hashesAction);
+    assertThat(hashes.since()).isEqualTo("6.2");
+    assertThat(hashes.isInternal()).isTrue();
+    assertThat(hashes.responseExampleAsString()).isNotEmpty();
+    assertThat(hashes.params()).hasSize(1);
   }
 }
@@ -304,5 +304,14 @@ public class UserSessionRule implements TestRule, UserSession {
     return currentUserSession.checkComponentUuidPermission(permission, componentUuid);
   }
 
+  @Override
+  public UserSession checkComponentUuidPermission(String permission, Collection<String> componentUuids) {
+    return currentUserSession.checkComponentUuidPermission(permission, componentUuids);
+  }
+
+  @Override
+  public boolean hasComponentUuidPermission(String permission, Collection<String> componentUuids) {
+    return currentUserSession.hasComponentUuidPermission(permission, componentUuids);
+  }
 
 }
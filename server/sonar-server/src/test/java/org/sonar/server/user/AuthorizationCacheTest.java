@@ -0,0 +1,91 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.user;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.Test;
+import org.sonar.api.utils.internal.TestSystem2;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AuthorizationCacheTest {
+
+  private TestSystem2 system2 = new TestSystem2().setNow(1_000L);
+  private AtomicInteger loads = new AtomicInteger();
+  private AuthorizationCache underTest = new AuthorizationCache(system2);
+
+  @Test
+  public void load_authorized_projects_once() {
+    assertThat(underTest.getAuthorizedProjectUuids(10, "user", loader("P1", "P2"))).containsOnly("P1", "P2");
+    assertThat(underTest.getAuthorizedProjectUuids(10, "user", loader("P3"))).containsOnly("P1", "P2");
+
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void cache_by_user_and_permission() {
+    underTest.getAuthorizedProjectUuids(10, "user", loader("P1"));
+
+    assertThat(underTest.getAuthorizedProjectUuids(11, "user", loader("P2"))).containsOnly("P2");
+    assertThat(underTest.getAuthorizedProjectUuids(null, "user", loader("P3"))).containsOnly("P3");
+    assertThat(underTest.getAuthorizedProjectUuids(10, "admin", loader("P4"))).containsOnly("P4");
+    assertThat(loads.get()).isEqualTo(4);
+  }
+
+  @Test
+  public void reload_authorized_projects_when_expired() {
+    underTest.getAuthorizedProjectUuids(10, "user", loader("P1"));
+
+    system2.setNow(1_000L + AuthorizationCache.TTL_MS - 1);
+    assertThat(underTest.getAuthorizedProjectUuids(10, "user", loader("P2"))).containsOnly("P1");
+
+    system2.setNow(1_000L + AuthorizationCache.TTL_MS);
+    assertThat(underTest.getAuthorizedProjectUuids(10, "user", loader("P2"))).containsOnly("P2");
+  }
+
+  @Test
+  public void reload_authorized_projects_when_cleared() {
+    underTest.getAuthorizedProjectUuids(10, "user", loader("P1"));
+
+    underTest.clear();
+
+    assertThat(underTest.getAuthorizedProjectUuids(10, "user", loader("P2"))).containsOnly("P2");
+  }
+
+  @Test
+  public void do_not_cache_projects_loaded_while_permissions_are_changed() {
+    underTest.getAuthorizedProjectUuids(10, "user", () -> {
+      underTest.clear();
+      return asList("P1");
+    });
+
+    assertThat(underTest.getAuthorizedProjectUuids(10, "user", loader("P2"))).containsOnly("P2");
+  }
+
+  private Supplier<Collection<String>> loader(String... projects) {
+    return () -> {
+      loads.incrementAndGet();
+      return asList(projects);
+    };
+  }
+}
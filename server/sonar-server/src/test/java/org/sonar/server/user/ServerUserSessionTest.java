@@ -19,6 +19,7 @@
  */
 package org.sonar.server.user;
 
+import java.util.Collections;
 import javax.annotation.Nullable;
 import org.junit.Before;
 import org.junit.Rule;
@@ -38,6 +39,8 @@ import org.sonar.db.permission.UserPermissionDto;
 import org.sonar.db.user.UserDto;
 import org.sonar.server.exceptions.ForbiddenException;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.sonar.core.permission.GlobalPermissions.QUALITY_GATE_ADMIN;
 import static org.sonar.core.permission.GlobalPermissions.QUALITY_PROFILE_ADMIN;
@@ -65,6 +68,8 @@ public class ServerUserSessionTest {
 
   DbSession dbSession = dbTester.getSession();
 
+  AuthorizationCache authorizationCache = new AuthorizationCache(System2.INSTANCE);
+
   UserDto userDto = newUserDto().setLogin(LOGIN);
   ComponentDto project, file;
 
@@ -113,6 +118,17 @@ public class ServerUserSessionTest {
     assertThat(session.hasComponentPermission(UserRole.ADMIN, FILE_KEY)).isFalse();
   }
 
+  @Test
+  public void has_component_permission_after_project_key_is_renamed() {
+    addProjectPermissions(project, UserRole.USER);
+    assertThat(newUserSession(userDto).hasComponentPermission(UserRole.USER, project.key())).isTrue();
+
+    dbClient.componentKeyUpdaterDao().updateKey(project.uuid(), "NEW_KEY");
+
+    // authorized projects are still cached
+    assertThat(newUserSession(userDto).hasComponentPermission(UserRole.USER, "NEW_KEY")).isTrue();
+  }
+
   @Test
   public void has_component_uuid_permission() {
     addProjectPermissions(project, UserRole.USER);
@@ -123,6 +139,48 @@ public class ServerUserSessionTest {
     assertThat(session.hasComponentUuidPermission(UserRole.ADMIN, FILE_UUID)).isFalse();
   }
 
+  @Test
+  public void has_component_uuid_permission_on_several_components() {
+    ComponentDto otherProject = componentDbTester.insertComponent(ComponentTesting.newProjectDto());
+    addProjectPermissions(project, UserRole.USER);
+    UserSession session = newUserSession(userDto);
+
+    assertThat(session.hasComponentUuidPermission(UserRole.USER, asList(PROJECT_UUID, FILE_UUID))).isTrue();
+    assertThat(session.hasComponentUuidPermission(UserRole.USER, asList(FILE_UUID, otherProject.uuid()))).isFalse();
+    assertThat(session.hasComponentUuidPermission(UserRole.USER, asList(FILE_UUID, "unknown"))).isFalse();
+    assertThat(session.hasComponentUuidPermission(UserRole.ADMIN, singletonList(FILE_UUID))).isFalse();
+    assertThat(session.hasComponentUuidPermission(UserRole.USER, Collections.emptyList())).isTrue();
+  }
+
+  @Test
+  public void has_component_uuid_permission_on_several_components_with_only_global_permission() {
+    addGlobalPermissions(UserRole.USER);
+    UserSession session = newUserSession(userDto);
+
+    assertThat(session.hasComponentUuidPermission(UserRole.USER, asList(FILE_UUID, "unknown"))).isTrue();
+    assertThat(session.hasComponentUuidPermission(UserRole.ADMIN, singletonList(FILE_UUID))).isFalse();
+  }
+
+  @Test
+  public void check_component_uuid_permission_on_several_components_ko() {
+    addProjectPermissions(project, UserRole.USER);
+    UserSession session = newUserSession(userDto);
+
+    expectedException.expect(ForbiddenException.class);
+    session.checkComponentUuidPermission(UserRole.USER, asList(FILE_UUID, "another-uuid"));
+  }
+
+  @Test
+  public void authorized_projects_are_shared_by_sessions_until_cache_is_cleared() {
+    assertThat(newUserSession(userDto).hasComponentUuidPermission(UserRole.USER, FILE_UUID)).isFalse();
+
+    addProjectPermissions(project, UserRole.USER);
+    assertThat(newUserSession(userDto).hasComponentUuidPermission(UserRole.USER, FILE_UUID)).isFalse();
+
+    authorizationCache.clear();
+    assertThat(newUserSession(userDto).hasComponentUuidPermission(UserRole.USER, FILE_UUID)).isTrue();
+  }
+
   @Test
   public void has_component_permission_with_only_global_permission() {
     addGlobalPermissions(UserRole.USER);
@@ -265,11 +323,11 @@ public class ServerUserSessionTest {
   }
 
   private ServerUserSession newUserSession(UserDto userDto) {
-    return createForUser(dbClient, userDto);
+    return createForUser(dbClient, authorizationCache, userDto);
   }
 
   private ServerUserSession newAnonymousSession() {
-    return createForAnonymous(dbClient);
+    return createForAnonymous(dbClient, authorizationCache);
   }
 
   private void addGlobalPermissions(String... permissions) {
@@ -46,6 +46,7 @@ import org.sonar.db.user.UserGroupDao;
 import org.sonar.db.user.UserGroupDto;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.ws.WsTester;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -86,7 +87,8 @@ public class DeleteActionTest {
         dbClient,
         new UserGroupFinder(dbClient),
         userSession,
-        settings)));
+        settings,
+        new AuthorizationCache(System2.INSTANCE))));
   }
 
   @Test
@@ -25,6 +25,9 @@ import org.junit.rules.TemporaryFolder;
 import org.sonar.api.utils.System2;
 import org.sonar.core.util.CloseableIterator;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 
@@ -52,6 +55,27 @@ public class DiskCacheTest {
     }
   }
 
+  @Test
+  public void write_and_read_with_binary_codec() throws Exception {
+    for (boolean compressed : new boolean[] {false, true}) {
+      DiskCache<String> cache = new DiskCache<>(temp.newFile(), System2.INSTANCE, new StringCodec(compressed));
+      try (CloseableIterator<String> traverse = cache.traverse()) {
+        assertThat(traverse).isEmpty();
+      }
+
+      cache.newAppender()
+        .append("foo")
+        .append("bar")
+        .close();
+      cache.newAppender()
+        .append("baz")
+        .close();
+      try (CloseableIterator<String> traverse = cache.traverse()) {
+        assertThat(traverse).containsExactly("foo", "bar", "baz");
+      }
+    }
+  }
+
   @Test
   public void fail_if_file_is_not_writable() throws Exception {
     try {
@@ -77,4 +101,21 @@ public class DiskCacheTest {
       assertThat(e).hasMessage("expected error");
     }
   }
+
+  private static class StringCodec extends BlockDiskCacheCodec<String> {
+    StringCodec(boolean compressed) {
+      // small blocks in order to test concatenation of blocks
+      super(compressed, 4);
+    }
+
+    @Override
+    protected void write(String object, DataOutput output) throws IOException {
+      writeNullableString(output, object);
+    }
+
+    @Override
+    protected String read(DataInput input) throws IOException {
+      return readNullableString(input);
+    }
+  }
 }
@@ -116,6 +116,14 @@ public class ServletRequestTest {
     assertThat(result).isEmpty();
   }
 
+  @Test
+  public void read_header() {
+    when(source.getHeader("If-None-Match")).thenReturn("\"abc\"");
+
+    assertThat(underTest.header("If-None-Match")).hasValue("\"abc\"");
+    assertThat(underTest.header("Unknown")).isEmpty();
+  }
+
   @Test
   public void read_input_stream() throws Exception {
     when(source.getContentType()).thenReturn("multipart/form-data");
@@ -20,6 +20,8 @@
 package org.sonar.server.ws;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -68,6 +70,42 @@ public class WsUtilsTest {
     assertThat(Issues.Issue.parseFrom(response.getFlushedOutput()).getKey()).isEqualTo("I1");
   }
 
+  @Test
+  public void write_body_with_etag() throws Exception {
+    TestRequest request = new TestRequest();
+    DumbResponse response = new DumbResponse();
+
+    WsUtils.writeWithETag("{}".getBytes(StandardCharsets.UTF_8), MediaTypes.JSON, request, response);
+
+    assertThat(response.stream().mediaType()).isEqualTo(MediaTypes.JSON);
+    assertThat(response.getHeader("ETag")).isEqualTo('"' + DigestUtils.sha1Hex("{}") + '"');
+    assertThat(response.outputAsString()).isEqualTo("{}");
+  }
+
+  @Test
+  public void do_not_write_body_if_etag_matches_if_none_match_header() throws Exception {
+    TestRequest request = new TestRequest();
+    request.setHeader("If-None-Match", '"' + DigestUtils.sha1Hex("{}") + '"');
+    DumbResponse response = new DumbResponse();
+
+    WsUtils.writeWithETag("{}".getBytes(StandardCharsets.UTF_8), MediaTypes.JSON, request, response);
+
+    assertThat(response.stream().status()).isEqualTo(304);
+    assertThat(response.getHeader("ETag")).isEqualTo('"' + DigestUtils.sha1Hex("{}") + '"');
+    assertThat(response.getFlushedOutput()).isEmpty();
+  }
+
+  @Test
+  public void write_body_if_etag_does_not_match_if_none_match_header() throws Exception {
+    TestRequest request = new TestRequest();
+    request.setHeader("If-None-Match", "\"outdated\"");
+    DumbResponse response = new DumbResponse();
+
+    WsUtils.writeWithETag("{}".getBytes(StandardCharsets.UTF_8), MediaTypes.JSON, request, response);
+
+    assertThat(response.outputAsString()).isEqualTo("{}");
+  }
+
   @Test
   public void log_message_when_error_writing_message() throws IOException {
     TestRequest request = new TestRequest();
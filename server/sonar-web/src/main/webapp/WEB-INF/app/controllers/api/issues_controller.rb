@@ -182,7 +182,7 @@ class Api::IssuesController < Api::ApiController
     }
     hash[:issuesNotChanged] = {
       :total => result.issuesNotChanged().size,
-      :issues => result.issuesNotChanged().map { |issue| issue.key() }
+      :issues => result.issuesNotChanged().to_a
     }
 
     respond_to do |format|
@@ -0,0 +1,91 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.colorizer;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Immutable set of keywords which can be looked up with the characters of a token, so that no {@link String}
+ * is created for each token. Lookup can be case-insensitive, keywords being then expected in upper case.
+ */
+final class KeywordTable {
+
+  private final String[] table;
+  private final int mask;
+  private final int maxLength;
+
+  KeywordTable(Set<String> keywords) {
+    int size = Integer.highestOneBit(Math.max(keywords.size(), 1) * 4);
+    this.table = new String[size];
+    this.mask = size - 1;
+    int max = 0;
+    for (String keyword : keywords) {
+      int index = keyword.hashCode() & mask;
+      while (table[index] != null) {
+        index = (index + 1) & mask;
+      }
+      table[index] = keyword;
+      max = Math.max(max, keyword.length());
+    }
+    this.maxLength = max;
+  }
+
+  boolean contains(CharSequence word, boolean upperCase) {
+    int length = word.length();
+    if (length > maxLength) {
+      return false;
+    }
+    int hash = 0;
+    for (int i = 0; i < length; i++) {
+      char c = word.charAt(i);
+      if (upperCase) {
+        if (c > 127) {
+          // upper case of non-ASCII characters may change the length of the word
+          return contains(word.toString().toUpperCase(Locale.ENGLISH), false);
+        }
+        c = Character.toUpperCase(c);
+      }
+      // same as String#hashCode()
+      hash = 31 * hash + c;
+    }
+    int index = hash & mask;
+    while (table[index] != null) {
+      if (matches(table[index], word, upperCase)) {
+        return true;
+      }
+      index = (index + 1) & mask;
+    }
+    return false;
+  }
+
+  private static boolean matches(String keyword, CharSequence word, boolean upperCase) {
+    if (keyword.length() != word.length()) {
+      return false;
+    }
+    for (int i = 0; i < keyword.length(); i++) {
+      char c = word.charAt(i);
+      if (keyword.charAt(i) != (upperCase ? Character.toUpperCase(c) : c)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
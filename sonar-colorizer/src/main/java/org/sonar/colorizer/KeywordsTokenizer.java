@@ -21,7 +21,6 @@ package org.sonar.colorizer;
 
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Locale;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -41,6 +40,7 @@ public class KeywordsTokenizer extends NotThreadSafeTokenizer {
   private static final String DEFAULT_REGEX = "[a-zA-Z_][a-zA-Z0-9_]*+";
 
   private Set<String> keywords = new HashSet<>();
+  private final KeywordTable keywordTable;
 
   public KeywordsTokenizer(String tagBefore, String tagAfter, Set<String> keywords) {
     this(tagBefore, tagAfter, keywords, DEFAULT_REGEX);
@@ -51,6 +51,7 @@ public class KeywordsTokenizer extends NotThreadSafeTokenizer {
     this.tagAfter = tagAfter;
     this.keywords = keywords;
     this.matcher = Pattern.compile(regex).matcher("");
+    this.keywordTable = new KeywordTable(keywords);
   }
 
   public KeywordsTokenizer(String tagBefore, String tagAfter, String... keywords) {
@@ -58,12 +59,23 @@ public class KeywordsTokenizer extends NotThreadSafeTokenizer {
     this.tagAfter = tagAfter;
     Collections.addAll(this.keywords, keywords);
     this.matcher = Pattern.compile(DEFAULT_REGEX).matcher("");
+    this.keywordTable = new KeywordTable(this.keywords);
+  }
+
+  private KeywordsTokenizer(KeywordsTokenizer source) {
+    this.tagBefore = source.tagBefore;
+    this.tagAfter = source.tagAfter;
+    this.keywords = source.keywords;
+    this.caseInsensitive = source.caseInsensitive;
+    this.matcher = source.matcher.pattern().matcher("");
+    // immutable, shared by clones
+    this.keywordTable = source.keywordTable;
   }
 
   @Override
   public boolean consume(CodeReader code, HtmlCodeBuilder codeBuilder) {
     if (code.popTo(matcher, tmpBuilder) > 0) {
-      if (isKeyword(tmpBuilder.toString())) {
+      if (keywordTable.contains(tmpBuilder, caseInsensitive)) {
         codeBuilder.appendWithoutTransforming(tagBefore);
         codeBuilder.append(tmpBuilder);
         codeBuilder.appendWithoutTransforming(tagAfter);
@@ -76,23 +88,12 @@ public class KeywordsTokenizer extends NotThreadSafeTokenizer {
     return false;
   }
 
-  private boolean isKeyword(String word) {
-    if (!caseInsensitive && keywords.contains(word)) {
-      return true;
-    } else if (caseInsensitive && keywords.contains(word.toUpperCase(Locale.ENGLISH))) {
-      return true;
-    }
-    return false;
-  }
-
   public void setCaseInsensitive(boolean caseInsensitive) {
     this.caseInsensitive = caseInsensitive;
   }
 
   @Override
   public KeywordsTokenizer clone() {
-    KeywordsTokenizer clone = new KeywordsTokenizer(tagBefore, tagAfter, keywords, matcher.pattern().pattern());
-    clone.caseInsensitive = caseInsensitive;
-    return clone;
+    return new KeywordsTokenizer(this);
   }
 }
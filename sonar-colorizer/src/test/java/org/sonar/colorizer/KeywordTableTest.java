@@ -0,0 +1,58 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.colorizer;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KeywordTableTest {
+
+  private KeywordTable table = new KeywordTable(new HashSet<>(Arrays.asList("SELECT", "FROM", "WHERE", "\u00C4NDERN", "public", "static")));
+
+  @Test
+  public void case_sensitive_lookup() {
+    assertThat(table.contains(new StringBuilder("public"), false)).isTrue();
+    assertThat(table.contains(new StringBuilder("static"), false)).isTrue();
+    assertThat(table.contains(new StringBuilder("Public"), false)).isFalse();
+    assertThat(table.contains(new StringBuilder("publi"), false)).isFalse();
+    assertThat(table.contains(new StringBuilder("publicstatic"), false)).isFalse();
+    assertThat(table.contains(new StringBuilder(""), false)).isFalse();
+  }
+
+  @Test
+  public void case_insensitive_lookup_of_upper_case_keywords() {
+    assertThat(table.contains(new StringBuilder("select"), true)).isTrue();
+    assertThat(table.contains(new StringBuilder("From"), true)).isTrue();
+    assertThat(table.contains(new StringBuilder("\u00e4ndern"), true)).isTrue();
+    assertThat(table.contains(new StringBuilder("public"), true)).isFalse();
+    assertThat(table.contains(new StringBuilder("other"), true)).isFalse();
+  }
+
+  @Test
+  public void empty_table() {
+    KeywordTable empty = new KeywordTable(Collections.emptySet());
+    assertThat(empty.contains(new StringBuilder("foo"), false)).isFalse();
+    assertThat(empty.contains(new StringBuilder(""), true)).isFalse();
+  }
+}
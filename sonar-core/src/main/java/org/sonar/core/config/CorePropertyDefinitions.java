@@ -58,6 +58,7 @@ public class CorePropertyDefinitions {
     defs.addAll(SecurityProperties.all());
     defs.addAll(DebtProperties.all());
     defs.addAll(PurgeProperties.all());
+    defs.addAll(ScannerThreadsProperties.all());
     defs.addAll(EmailSettings.definitions());
 
     defs.addAll(ImmutableList.of(
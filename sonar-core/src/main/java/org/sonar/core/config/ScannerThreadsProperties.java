@@ -0,0 +1,83 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.config;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import org.sonar.api.PropertyType;
+import org.sonar.api.config.PropertyDefinition;
+
+/**
+ * Number of threads used by the steps of analysis which can be executed concurrently. Steps are sequential
+ * by default.
+ */
+public class ScannerThreadsProperties {
+
+  public static final String MODULES_THREADS = "sonar.modules.threads";
+  public static final String SENSORS_THREADS = "sonar.sensors.threads";
+  public static final String SCM_THREADS = "sonar.scm.threads";
+  public static final String CPD_THREADS = "sonar.cpd.threads";
+  public static final String COLORIZER_THREADS = "sonar.colorizer.threads";
+
+  private static final String DEFAULT_THREADS = "1";
+
+  private ScannerThreadsProperties() {
+    // only static stuff
+  }
+
+  static List<PropertyDefinition> all() {
+    return ImmutableList.of(
+      PropertyDefinition.builder(MODULES_THREADS)
+        .name("Module threads")
+        .description("Number of threads scanning the modules of a multi-module project. The root module is scanned once the other ones are done.")
+        .type(PropertyType.INTEGER)
+        .defaultValue(DEFAULT_THREADS)
+        .hidden()
+        .build(),
+      PropertyDefinition.builder(SENSORS_THREADS)
+        .name("Sensor threads")
+        .description("Number of threads executing the sensors of a module. Only consecutive sensors declared as thread-safe are executed concurrently.")
+        .type(PropertyType.INTEGER)
+        .defaultValue(DEFAULT_THREADS)
+        .hidden()
+        .build(),
+      PropertyDefinition.builder(SCM_THREADS)
+        .name("SCM blame threads")
+        .description("Number of threads executing the blame command of the SCM provider. When greater than 1, files are blamed by chunks of 20 files.")
+        .type(PropertyType.INTEGER)
+        .defaultValue(DEFAULT_THREADS)
+        .hidden()
+        .build(),
+      PropertyDefinition.builder(CPD_THREADS)
+        .name("Duplication detection threads")
+        .description("Number of threads detecting the duplications of files at the end of the analysis.")
+        .type(PropertyType.INTEGER)
+        .defaultValue(DEFAULT_THREADS)
+        .hidden()
+        .build(),
+      PropertyDefinition.builder(COLORIZER_THREADS)
+        .name("Code colorizer threads")
+        .description("Number of threads highlighting the files which are not highlighted by their language plugin.")
+        .type(PropertyType.INTEGER)
+        .defaultValue(DEFAULT_THREADS)
+        .hidden()
+        .build());
+  }
+}
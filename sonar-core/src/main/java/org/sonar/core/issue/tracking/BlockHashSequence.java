@@ -58,6 +58,13 @@ public class BlockHashSequence {
     return blockHashes[line - 1];
   }
 
+  /**
+   * Number of lines
+   */
+  int length() {
+    return blockHashes.length;
+  }
+
   public boolean hasLine(@Nullable Integer line) {
     return (line != null) && (line > 0) && (line <= blockHashes.length);
   }
@@ -19,18 +19,25 @@
  */
 package org.sonar.core.issue.tracking;
 
-import com.google.common.collect.LinkedHashMultimap;
-import com.google.common.collect.Lists;
-import com.google.common.collect.Multimap;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.Arrays;
 
+/**
+ * Detects code moves by comparing blocks of lines. Issues are grouped by line in arrays,
+ * and line hashes are interned to ints before comparing pairs of lines, so that
+ * the (up to 250'000) pairs of lines do not allocate objects.
+ */
 class BlockRecognizer<RAW extends Trackable, BASE extends Trackable> {
 
+  /**
+   * Maximum number of pairs of lines to be compared. It avoids processing too many combinations.
+   */
+  private static final int MAX_LINE_PAIRS = 250_000;
+
+  // number of bits of the fields packed in the sort keys of pairs of lines
+  private static final int INDEX_BITS = 18;
+  private static final int DISTANCE_BITS = 23;
+  private static final int WEIGHT_BITS = 22;
+
   /**
    * If base source code is available, then detect code moves through block hashes.
    * Only the issues associated to a line can be matched here.
@@ -39,58 +46,73 @@ class BlockRecognizer<RAW extends Trackable, BASE extends Trackable> {
     BlockHashSequence rawHashSequence = rawInput.getBlockHashSequence();
     BlockHashSequence baseHashSequence = baseInput.getBlockHashSequence();
 
-    Multimap<Integer, RAW> rawsByLine = groupByLine(tracking.getUnmatchedRaws(), rawHashSequence);
-    Multimap<Integer, BASE> basesByLine = groupByLine(tracking.getUnmatchedBases(), baseHashSequence);
-    Map<Integer, HashOccurrence> occurrencesByHash = new HashMap<>();
+    LineGroups<RAW> rawsByLine = new LineGroups<>(tracking.getUnmatchedRaws(), tracking.getRaws().size(), rawHashSequence);
+    LineGroups<BASE> basesByLine = new LineGroups<>(tracking.getUnmatchedBases(), tracking.getBases().size(), baseHashSequence);
+
+    // occurrences of the block hashes of base lines, indexed by the identifiers of hashes
+    IntTupleIndex hashes = new IntTupleIndex(basesByLine.size());
+    int[] baseGroupOfHash = new int[basesByLine.size()];
+    int[] baseCountOfHash = new int[basesByLine.size()];
+    int[] rawGroupOfHash = new int[basesByLine.size()];
+    int[] rawCountOfHash = new int[basesByLine.size()];
 
-    for (Integer line : basesByLine.keySet()) {
-      int hash = baseHashSequence.getBlockHashForLine(line);
-      HashOccurrence hashOccurrence = occurrencesByHash.get(hash);
-      if (hashOccurrence == null) {
+    for (int group = 0; group < basesByLine.size(); group++) {
+      int sizeBefore = hashes.size();
+      int hash = hashes.add(baseHashSequence.getBlockHashForLine(basesByLine.line(group)), 0, 0);
+      if (hash == sizeBefore) {
         // first occurrence in base
-        hashOccurrence = new HashOccurrence();
-        hashOccurrence.baseLine = line;
-        hashOccurrence.baseCount = 1;
-        occurrencesByHash.put(hash, hashOccurrence);
-      } else {
-        hashOccurrence.baseCount++;
+        baseGroupOfHash[hash] = group;
       }
+      baseCountOfHash[hash]++;
     }
 
-    for (Integer line : rawsByLine.keySet()) {
-      int hash = rawHashSequence.getBlockHashForLine(line);
-      HashOccurrence hashOccurrence = occurrencesByHash.get(hash);
-      if (hashOccurrence != null) {
-        hashOccurrence.rawLine = line;
-        hashOccurrence.rawCount++;
+    for (int group = 0; group < rawsByLine.size(); group++) {
+      int hash = hashes.indexOf(rawHashSequence.getBlockHashForLine(rawsByLine.line(group)), 0, 0);
+      if (hash >= 0) {
+        rawGroupOfHash[hash] = group;
+        rawCountOfHash[hash]++;
       }
     }
 
-    for (HashOccurrence hashOccurrence : occurrencesByHash.values()) {
-      if (hashOccurrence.baseCount == 1 && hashOccurrence.rawCount == 1) {
-        // Guaranteed that baseLine has been moved to rawLine, so we can map all issues on baseLine to all issues on rawLine
-        map(rawsByLine.get(hashOccurrence.rawLine), basesByLine.get(hashOccurrence.baseLine), tracking);
-        basesByLine.removeAll(hashOccurrence.baseLine);
-        rawsByLine.removeAll(hashOccurrence.rawLine);
+    for (int hash = 0; hash < hashes.size(); hash++) {
+      if (baseCountOfHash[hash] == 1 && rawCountOfHash[hash] == 1) {
+        // Guaranteed that baseLine has been moved to rawLine, so we can map all issues on baseLine to all issues on rawLine.
+        // Lines are distinct for each hash, so the order of processing does not matter.
+        map(rawsByLine, rawGroupOfHash[hash], basesByLine, baseGroupOfHash[hash], tracking);
+        basesByLine.remove(baseGroupOfHash[hash]);
+        rawsByLine.remove(rawGroupOfHash[hash]);
       }
     }
 
     // Check if remaining number of lines exceeds threshold. It avoids processing too many combinations.
-    if (basesByLine.keySet().size() * rawsByLine.keySet().size() >= 250_000) {
+    // A negative number is an overflow, so it exceeds the threshold too.
+    int pairCount = basesByLine.remainingSize() * rawsByLine.remainingSize();
+    if (pairCount >= MAX_LINE_PAIRS || pairCount < 0) {
       return;
     }
 
-    List<LinePair> possibleLinePairs = Lists.newArrayList();
-    for (Integer baseLine : basesByLine.keySet()) {
-      for (Integer rawLine : rawsByLine.keySet()) {
-        int weight = lengthOfMaximalBlock(baseInput.getLineHashSequence(), baseLine, rawInput.getLineHashSequence(), rawLine);
-        possibleLinePairs.add(new LinePair(baseLine, rawLine, weight));
+    ObjectIndex<String> lineHashes = new ObjectIndex<>(baseInput.getLineHashSequence().length() + rawInput.getLineHashSequence().length());
+    int[] baseLineHashes = toIds(baseInput.getLineHashSequence(), lineHashes);
+    int[] rawLineHashes = toIds(rawInput.getLineHashSequence(), lineHashes);
+    int[] pairBaseGroups = new int[pairCount];
+    int[] pairRawGroups = new int[pairCount];
+    int[] weights = new int[pairCount];
+    int[] distances = new int[pairCount];
+    int pair = 0;
+    for (int baseGroup : basesByLine.remainingGroups()) {
+      int baseLine = basesByLine.line(baseGroup);
+      for (int rawGroup : rawsByLine.remainingGroups()) {
+        int rawLine = rawsByLine.line(rawGroup);
+        pairBaseGroups[pair] = baseGroup;
+        pairRawGroups[pair] = rawGroup;
+        weights[pair] = lengthOfMaximalBlock(baseLineHashes, baseLine, rawLineHashes, rawLine);
+        distances[pair] = Math.abs(baseLine - rawLine);
+        pair++;
       }
     }
-    Collections.sort(possibleLinePairs, LinePairComparator.INSTANCE);
-    for (LinePair linePair : possibleLinePairs) {
+    for (int sortedPair : sortLinePairs(weights, distances)) {
       // High probability that baseLine has been moved to rawLine, so we can map all issues on baseLine to all issues on rawLine
-      map(rawsByLine.get(linePair.rawLine), basesByLine.get(linePair.baseLine), tracking);
+      map(rawsByLine, pairRawGroups[sortedPair], basesByLine, pairBaseGroups[sortedPair], tracking);
     }
   }
 
@@ -99,20 +121,31 @@ class BlockRecognizer<RAW extends Trackable, BASE extends Trackable> {
    * @param startLineB number of line from second version of text (numbering starts from 1)
    */
   static int lengthOfMaximalBlock(LineHashSequence hashesA, int startLineA, LineHashSequence hashesB, int startLineB) {
-    if (!hashesA.getHashForLine(startLineA).equals(hashesB.getHashForLine(startLineB))) {
+    ObjectIndex<String> lineHashes = new ObjectIndex<>(hashesA.length() + hashesB.length());
+    return lengthOfMaximalBlock(toIds(hashesA, lineHashes), startLineA, toIds(hashesB, lineHashes), startLineB);
+  }
+
+  /**
+   * Same as {@link #lengthOfMaximalBlock(LineHashSequence, int, LineHashSequence, int)} on hashes
+   * converted by {@link #toIds(LineHashSequence, ObjectIndex)}
+   */
+  private static int lengthOfMaximalBlock(int[] hashesA, int startLineA, int[] hashesB, int startLineB) {
+    if (hashForLine(hashesA, startLineA) != hashForLine(hashesB, startLineB)) {
       return 0;
     }
+    int lengthA = hashesA.length - 1;
+    int lengthB = hashesB.length - 1;
     int length = 0;
     int ai = startLineA;
     int bi = startLineB;
-    while (ai <= hashesA.length() && bi <= hashesB.length() && hashesA.getHashForLine(ai).equals(hashesB.getHashForLine(bi))) {
+    while (ai <= lengthA && bi <= lengthB && hashForLine(hashesA, ai) == hashForLine(hashesB, bi)) {
       ai++;
       bi++;
       length++;
     }
     ai = startLineA;
     bi = startLineB;
-    while (ai > 0 && bi > 0 && hashesA.getHashForLine(ai).equals(hashesB.getHashForLine(bi))) {
+    while (ai > 0 && bi > 0 && hashForLine(hashesA, ai) == hashForLine(hashesB, bi)) {
       ai--;
       bi--;
       length++;
@@ -121,9 +154,83 @@ class BlockRecognizer<RAW extends Trackable, BASE extends Trackable> {
     return length - 1;
   }
 
-  private void map(Collection<RAW> raws, Collection<BASE> bases, Tracking<RAW, BASE> result) {
-    for (RAW raw : raws) {
-      for (BASE base : bases) {
+  /**
+   * Identifiers of the hashes of lines. Line 1 is at index 1. Index 0 is the identifier of
+   * the empty string, which is the hash of lines that do not exist.
+   */
+  private static int[] toIds(LineHashSequence sequence, ObjectIndex<String> lineHashes) {
+    int[] ids = new int[sequence.length() + 1];
+    ids[0] = lineHashes.idOf("");
+    for (int line = 1; line <= sequence.length(); line++) {
+      ids[line] = lineHashes.idOf(sequence.getHashForLine(line));
+    }
+    return ids;
+  }
+
+  private static int hashForLine(int[] ids, int line) {
+    if (line > 0 && line < ids.length) {
+      return ids[line];
+    }
+    return ids[0];
+  }
+
+  /**
+   * Indices of pairs of lines, sorted by decreasing weight then by increasing distance between lines.
+   * The sort is stable: pairs with the same weight and distance stay in the order of creation.
+   * <p/>
+   * Weight, distance and index are packed in a long, so that a primitive sort can be used.
+   * That's always the case except with files of millions of lines, which fall back to a sort of boxed indices.
+   */
+  private static int[] sortLinePairs(int[] weights, int[] distances) {
+    int count = weights.length;
+    int[] sorted = new int[count];
+    if (canBePacked(weights, distances)) {
+      long[] keys = new long[count];
+      long maxWeight = (1L << WEIGHT_BITS) - 1;
+      for (int i = 0; i < count; i++) {
+        keys[i] = ((maxWeight - weights[i]) << (DISTANCE_BITS + INDEX_BITS)) | ((long) distances[i] << INDEX_BITS) | i;
+      }
+      Arrays.sort(keys);
+      int indexMask = (1 << INDEX_BITS) - 1;
+      for (int i = 0; i < count; i++) {
+        sorted[i] = (int) (keys[i] & indexMask);
+      }
+    } else {
+      Integer[] boxed = new Integer[count];
+      for (int i = 0; i < count; i++) {
+        boxed[i] = i;
+      }
+      Arrays.sort(boxed, (o1, o2) -> {
+        int weightDiff = weights[o2] - weights[o1];
+        if (weightDiff != 0) {
+          return weightDiff;
+        }
+        return distances[o1] - distances[o2];
+      });
+      for (int i = 0; i < count; i++) {
+        sorted[i] = boxed[i];
+      }
+    }
+    return sorted;
+  }
+
+  private static boolean canBePacked(int[] weights, int[] distances) {
+    if (weights.length >= (1 << INDEX_BITS)) {
+      return false;
+    }
+    for (int i = 0; i < weights.length; i++) {
+      if (weights[i] >= (1 << WEIGHT_BITS) || distances[i] >= (1 << DISTANCE_BITS)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void map(LineGroups<RAW> raws, int rawGroup, LineGroups<BASE> bases, int baseGroup, Tracking<RAW, BASE> result) {
+    for (int r = raws.first(rawGroup); r >= 0; r = raws.next(r)) {
+      RAW raw = raws.get(r);
+      for (int b = bases.first(baseGroup); b >= 0; b = bases.next(b)) {
+        BASE base = bases.get(b);
         if (result.containsUnmatchedBase(base) && base.getRuleKey().equals(raw.getRuleKey())) {
           result.match(raw, base);
           break;
@@ -132,47 +239,111 @@ class BlockRecognizer<RAW extends Trackable, BASE extends Trackable> {
     }
   }
 
-  private static <T extends Trackable> Multimap<Integer, T> groupByLine(Iterable<T> trackables, BlockHashSequence hashSequence) {
-    Multimap<Integer, T> result = LinkedHashMultimap.create();
-    for (T trackable : trackables) {
-      Integer line = trackable.getLine();
-      if (hashSequence.hasLine(line)) {
-        result.put(line, trackable);
+  /**
+   * Trackables grouped by line, in the order of first occurrence of lines. Trackables of a group
+   * keep their order and, as in a {@code SetMultimap}, equal trackables are kept only once per line.
+   */
+  private static final class LineGroups<T extends Trackable> {
+    // group + 1 of each line, 0 if line has no trackables
+    private final int[] groupOfLine;
+    private final int[] lines;
+    private final int[] firstMembers;
+    private final int[] lastMembers;
+    private final boolean[] removed;
+    private final Trackable[] members;
+    private final int[] nextMembers;
+    private int size = 0;
+    private int memberCount = 0;
+    private int removedCount = 0;
+
+    LineGroups(Iterable<T> trackables, int maxTrackables, BlockHashSequence hashSequence) {
+      this.groupOfLine = new int[hashSequence.length() + 1];
+      this.lines = new int[maxTrackables];
+      this.firstMembers = new int[maxTrackables];
+      this.lastMembers = new int[maxTrackables];
+      this.removed = new boolean[maxTrackables];
+      this.members = new Trackable[maxTrackables];
+      this.nextMembers = new int[maxTrackables];
+      for (T trackable : trackables) {
+        Integer line = trackable.getLine();
+        if (hashSequence.hasLine(line)) {
+          add(line, trackable);
+        }
       }
     }
-    return result;
-  }
 
-  private static class LinePair {
-    int baseLine;
-    int rawLine;
-    int weight;
+    private void add(int line, T trackable) {
+      int group = groupOfLine[line] - 1;
+      if (group < 0) {
+        group = size;
+        size++;
+        groupOfLine[line] = group + 1;
+        lines[group] = line;
+        firstMembers[group] = -1;
+      } else {
+        for (int m = firstMembers[group]; m >= 0; m = nextMembers[m]) {
+          if (members[m].equals(trackable)) {
+            return;
+          }
+        }
+      }
+      int member = memberCount;
+      memberCount++;
+      members[member] = trackable;
+      nextMembers[member] = -1;
+      if (firstMembers[group] < 0) {
+        firstMembers[group] = member;
+      } else {
+        nextMembers[lastMembers[group]] = member;
+      }
+      lastMembers[group] = member;
+    }
 
-    public LinePair(int baseLine, int rawLine, int weight) {
-      this.baseLine = baseLine;
-      this.rawLine = rawLine;
-      this.weight = weight;
+    /**
+     * Number of groups, including the removed ones
+     */
+    int size() {
+      return size;
     }
-  }
 
-  private static class HashOccurrence {
-    int baseLine;
-    int rawLine;
-    int baseCount;
-    int rawCount;
-  }
+    int remainingSize() {
+      return size - removedCount;
+    }
 
-  private enum LinePairComparator implements Comparator<LinePair> {
-    INSTANCE;
+    int[] remainingGroups() {
+      int[] result = new int[remainingSize()];
+      int index = 0;
+      for (int group = 0; group < size; group++) {
+        if (!removed[group]) {
+          result[index] = group;
+          index++;
+        }
+      }
+      return result;
+    }
 
-    @Override
-    public int compare(LinePair o1, LinePair o2) {
-      int weightDiff = o2.weight - o1.weight;
-      if (weightDiff != 0) {
-        return weightDiff;
-      } else {
-        return Math.abs(o1.baseLine - o1.rawLine) - Math.abs(o2.baseLine - o2.rawLine);
+    void remove(int group) {
+      if (!removed[group]) {
+        removed[group] = true;
+        removedCount++;
       }
     }
+
+    int line(int group) {
+      return lines[group];
+    }
+
+    int first(int group) {
+      return firstMembers[group];
+    }
+
+    int next(int member) {
+      return nextMembers[member];
+    }
+
+    @SuppressWarnings("unchecked")
+    T get(int member) {
+      return (T) members[member];
+    }
   }
 }
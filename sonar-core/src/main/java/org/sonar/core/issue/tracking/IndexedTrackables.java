@@ -0,0 +1,96 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.issue.tracking;
+
+import java.util.Collection;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * The trackables of an {@link Input}, in the order of {@link Input#getIssues()}, with the
+ * attributes used by {@link Tracker} replaced by ints. Rule keys, line hashes and messages
+ * are interned by an {@link ObjectIndex} shared by raw and base trackables, so that equal
+ * values have the same identifier in both.
+ */
+class IndexedTrackables<T extends Trackable> {
+
+  private final Trackable[] trackables;
+  private final int[] ruleIds;
+  private final int[] lineHashIds;
+  private final int[] messageIds;
+  private final int[] lines;
+  private final boolean[] lineDefined;
+
+  IndexedTrackables(Collection<T> collection, ObjectIndex<Object> dictionary) {
+    int size = collection.size();
+    this.trackables = new Trackable[size];
+    this.ruleIds = new int[size];
+    this.lineHashIds = new int[size];
+    this.messageIds = new int[size];
+    this.lines = new int[size];
+    this.lineDefined = new boolean[size];
+    int index = 0;
+    for (T trackable : collection) {
+      trackables[index] = trackable;
+      ruleIds[index] = dictionary.idOf(trackable.getRuleKey());
+      lineHashIds[index] = dictionary.idOf(StringUtils.defaultString(trackable.getLineHash(), ""));
+      messageIds[index] = dictionary.idOf(trackable.getMessage());
+      Integer line = trackable.getLine();
+      lineDefined[index] = line != null;
+      lines[index] = line == null ? 0 : line;
+      index++;
+    }
+  }
+
+  int size() {
+    return trackables.length;
+  }
+
+  @SuppressWarnings("unchecked")
+  T get(int index) {
+    return (T) trackables[index];
+  }
+
+  int ruleId(int index) {
+    return ruleIds[index];
+  }
+
+  /**
+   * Rule identifier combined with the flag "line is null", so that an
+   * undefined line can't be equal to any line number.
+   */
+  int ruleIdAndLineNullity(int index) {
+    return (ruleIds[index] << 1) | (lineDefined[index] ? 0 : 1);
+  }
+
+  int lineHashId(int index) {
+    return lineHashIds[index];
+  }
+
+  int messageId(int index) {
+    return messageIds[index];
+  }
+
+  /**
+   * Line of trackable, 0 if undefined
+   */
+  int line(int index) {
+    return lines[index];
+  }
+}
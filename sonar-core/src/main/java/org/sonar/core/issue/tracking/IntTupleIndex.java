@@ -0,0 +1,130 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.issue.tracking;
+
+import java.util.Arrays;
+
+import static org.sonar.core.issue.tracking.ObjectIndex.capacityFor;
+import static org.sonar.core.issue.tracking.ObjectIndex.mix;
+
+/**
+ * Assigns dense int identifiers, starting with 0, to tuples of three ints. This is the
+ * primitive counterpart of a {@code Map<SearchKey, Integer>}: no object is allocated per key.
+ * <p/>
+ * Backed by an open-addressing hash table with linear probing. It can be {@link #clear() cleared}
+ * to be reused without allocating new tables.
+ */
+class IntTupleIndex {
+
+  private int[] slots;
+  private int[] as;
+  private int[] bs;
+  private int[] cs;
+  private int mask;
+  private int size = 0;
+
+  IntTupleIndex(int expectedSize) {
+    int capacity = capacityFor(expectedSize);
+    // slot contains id + 1, 0 means that slot is free
+    this.slots = new int[capacity];
+    this.as = new int[capacity / 2];
+    this.bs = new int[capacity / 2];
+    this.cs = new int[capacity / 2];
+    this.mask = capacity - 1;
+  }
+
+  /**
+   * Identifier of the tuple, or -1 if it has not been added.
+   */
+  int indexOf(int a, int b, int c) {
+    int slot = hash(a, b, c) & mask;
+    while (true) {
+      int id = slots[slot] - 1;
+      if (id < 0) {
+        return -1;
+      }
+      if (as[id] == a && bs[id] == b && cs[id] == c) {
+        return id;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  /**
+   * Identifier of the tuple. A new identifier, equal to the {@link #size()} before call, is
+   * assigned if the tuple has not already been added.
+   */
+  int add(int a, int b, int c) {
+    int slot = hash(a, b, c) & mask;
+    while (true) {
+      int id = slots[slot] - 1;
+      if (id < 0) {
+        return insert(slot, a, b, c);
+      }
+      if (as[id] == a && bs[id] == b && cs[id] == c) {
+        return id;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  void clear() {
+    Arrays.fill(slots, 0);
+    size = 0;
+  }
+
+  private int insert(int slot, int a, int b, int c) {
+    int id = size;
+    if (id == as.length) {
+      as = Arrays.copyOf(as, id * 2);
+      bs = Arrays.copyOf(bs, id * 2);
+      cs = Arrays.copyOf(cs, id * 2);
+    }
+    as[id] = a;
+    bs[id] = b;
+    cs[id] = c;
+    slots[slot] = id + 1;
+    size++;
+    if (2 * size > slots.length) {
+      rehash(slots.length * 2);
+    }
+    return id;
+  }
+
+  private void rehash(int capacity) {
+    slots = new int[capacity];
+    mask = capacity - 1;
+    for (int id = 0; id < size; id++) {
+      int slot = hash(as[id], bs[id], cs[id]) & mask;
+      while (slots[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      slots[slot] = id + 1;
+    }
+  }
+
+  private static int hash(int a, int b, int c) {
+    return mix(31 * (31 * a + b) + c);
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.issue.tracking;
+
+import javax.annotation.Nullable;
+
+/**
+ * Assigns dense int identifiers, starting with 0, to the distinct objects (according to
+ * {@link Object#equals(Object)}) it is given. Two objects have the same identifier if and only if
+ * they are equal, so identifiers can be compared and hashed instead of the objects themselves.
+ * <p/>
+ * Backed by an open-addressing hash table with linear probing, that does not allocate
+ * anything once it is large enough.
+ */
+class ObjectIndex<T> {
+
+  private Object[] keys;
+  private int[] ids;
+  private int mask;
+  private int size = 0;
+  private int nullId = -1;
+
+  ObjectIndex(int expectedSize) {
+    int capacity = capacityFor(expectedSize);
+    this.keys = new Object[capacity];
+    this.ids = new int[capacity];
+    this.mask = capacity - 1;
+  }
+
+  /**
+   * Identifier of the given object. A new identifier is assigned if the object
+   * has never been indexed.
+   */
+  int idOf(@Nullable T object) {
+    if (object == null) {
+      if (nullId < 0) {
+        nullId = size;
+        size++;
+      }
+      return nullId;
+    }
+    int slot = mix(object.hashCode()) & mask;
+    while (true) {
+      Object key = keys[slot];
+      if (key == null) {
+        int id = size;
+        keys[slot] = object;
+        ids[slot] = id;
+        size++;
+        if (2 * size > keys.length) {
+          grow();
+        }
+        return id;
+      }
+      if (key.equals(object)) {
+        return ids[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  /**
+   * Number of distinct objects indexed so far
+   */
+  int size() {
+    return size;
+  }
+
+  private void grow() {
+    Object[] oldKeys = keys;
+    int[] oldIds = ids;
+    keys = new Object[oldKeys.length * 2];
+    ids = new int[oldKeys.length * 2];
+    mask = keys.length - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      Object key = oldKeys[i];
+      if (key != null) {
+        int slot = mix(key.hashCode()) & mask;
+        while (keys[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        ids[slot] = oldIds[i];
+      }
+    }
+  }
+
+  static int capacityFor(int expectedSize) {
+    int capacity = 16;
+    while (capacity < 2 * expectedSize) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  static int mix(int hash) {
+    int h = hash * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
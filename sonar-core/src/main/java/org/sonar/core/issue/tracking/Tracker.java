@@ -19,38 +19,44 @@
  */
 package org.sonar.core.issue.tracking;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.Multimap;
-import java.util.Collection;
-import java.util.Objects;
-import javax.annotation.Nonnull;
-import org.apache.commons.lang.StringUtils;
-import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.InstantiationStrategy;
-import org.sonar.api.rule.RuleKey;
+import org.sonar.api.batch.ScannerSide;
 
+/**
+ * Matches raw issues with base issues. Rule keys, line hashes and messages are interned to ints
+ * once per call, so that the search passes compare and hash primitives in reused tables,
+ * instead of allocating a search key and a multimap entry for each issue and each pass.
+ */
 @InstantiationStrategy(InstantiationStrategy.PER_BATCH)
 @ScannerSide
 public class Tracker<RAW extends Trackable, BASE extends Trackable> {
 
   public Tracking<RAW, BASE> track(Input<RAW> rawInput, Input<BASE> baseInput) {
     Tracking<RAW, BASE> tracking = new Tracking<>(rawInput, baseInput);
+    if (tracking.isComplete()) {
+      return tracking;
+    }
+
+    ObjectIndex<Object> dictionary = new ObjectIndex<>(tracking.getRaws().size() + tracking.getBases().size());
+    IndexedTrackables<RAW> raws = new IndexedTrackables<>(tracking.getRaws(), dictionary);
+    IndexedTrackables<BASE> bases = new IndexedTrackables<>(tracking.getBases(), dictionary);
+    BaseSearch baseSearch = new BaseSearch(bases.size());
 
     // 1. match issues with same rule, same line and same line hash, but not necessarily with same message
-    match(tracking, LineAndLineHashKeyFactory.INSTANCE);
+    match(tracking, raws, bases, baseSearch, SearchKey.LINE_AND_LINE_HASH);
 
     // 2. detect code moves by comparing blocks of codes
     detectCodeMoves(rawInput, baseInput, tracking);
 
     // 3. match issues with same rule, same message and same line hash
-    match(tracking, LineHashAndMessageKeyFactory.INSTANCE);
+    match(tracking, raws, bases, baseSearch, SearchKey.LINE_HASH_AND_MESSAGE);
 
     // 4. match issues with same rule, same line and same message
-    match(tracking, LineAndMessageKeyFactory.INSTANCE);
+    match(tracking, raws, bases, baseSearch, SearchKey.LINE_AND_MESSAGE);
 
     // 5. match issues with same rule and same line hash but different line and different message.
     // See SONAR-2812
-    match(tracking, LineHashKeyFactory.INSTANCE);
+    match(tracking, raws, bases, baseSearch, SearchKey.LINE_HASH);
 
     return tracking;
   }
@@ -61,189 +67,157 @@ public class Tracker<RAW extends Trackable, BASE extends Trackable> {
     }
   }
 
-  private void match(Tracking<RAW, BASE> tracking, SearchKeyFactory factory) {
+  private void match(Tracking<RAW, BASE> tracking, IndexedTrackables<RAW> raws, IndexedTrackables<BASE> bases,
+    BaseSearch baseSearch, SearchKey searchKey) {
     if (tracking.isComplete()) {
       return;
     }
 
-    Multimap<SearchKey, BASE> baseSearch = ArrayListMultimap.create();
-    for (BASE base : tracking.getUnmatchedBases()) {
-      baseSearch.put(factory.create(base), base);
+    baseSearch.clear();
+    for (int i = 0; i < bases.size(); i++) {
+      if (tracking.containsUnmatchedBase(bases.get(i))) {
+        baseSearch.put(searchKey.a(bases, i), searchKey.b(bases, i), searchKey.c(bases, i), i);
+      }
     }
 
-    for (RAW raw : tracking.getUnmatchedRaws()) {
-      SearchKey rawKey = factory.create(raw);
-      Collection<BASE> bases = baseSearch.get(rawKey);
-      if (!bases.isEmpty()) {
+    for (int i = 0; i < raws.size(); i++) {
+      RAW raw = raws.get(i);
+      if (tracking.containsUnmatchedRaw(raw)) {
         // TODO taking the first one. Could be improved if there are more than 2 issues on the same line.
         // Message could be checked to take the best one.
-        BASE match = bases.iterator().next();
-        tracking.match(raw, match);
-        baseSearch.remove(rawKey, match);
+        int match = baseSearch.pollFirst(searchKey.a(raws, i), searchKey.b(raws, i), searchKey.c(raws, i));
+        if (match >= 0) {
+          tracking.match(raw, bases.get(match));
+        }
       }
     }
   }
 
-  private interface SearchKey {
-  }
-
-  private interface SearchKeyFactory {
-    SearchKey create(Trackable trackable);
-  }
-
-  private static class LineAndLineHashKey implements SearchKey {
-    private final RuleKey ruleKey;
-    private final String lineHash;
-    private final Integer line;
-
-    LineAndLineHashKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.line = trackable.getLine();
-      this.lineHash = StringUtils.defaultString(trackable.getLineHash(), "");
-    }
-
-    @Override
-    public boolean equals(@Nonnull Object o) {
-      if (this == o) {
-        return true;
+  /**
+   * The attributes compared by a search pass. All of them include the rule.
+   */
+  private enum SearchKey {
+    LINE_AND_LINE_HASH {
+      @Override
+      int a(IndexedTrackables<?> t, int i) {
+        return t.ruleIdAndLineNullity(i);
       }
-      LineAndLineHashKey that = (LineAndLineHashKey) o;
-      // start with most discriminant field
-      return Objects.equals(line, that.line)
-        && lineHash.equals(that.lineHash)
-        && ruleKey.equals(that.ruleKey);
-    }
-
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + lineHash.hashCode();
-      result = 31 * result + (line != null ? line.hashCode() : 0);
-      return result;
-    }
-  }
-
-  private enum LineAndLineHashKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-    @Override
-    public SearchKey create(Trackable t) {
-      return new LineAndLineHashKey(t);
-    }
-  }
-
-  private static class LineHashAndMessageKey implements SearchKey {
-    private final RuleKey ruleKey;
-    private final String message;
-    private final String lineHash;
 
-    LineHashAndMessageKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.message = trackable.getMessage();
-      this.lineHash = StringUtils.defaultString(trackable.getLineHash(), "");
-    }
+      @Override
+      int b(IndexedTrackables<?> t, int i) {
+        return t.line(i);
+      }
 
-    @Override
-    public boolean equals(@Nonnull Object o) {
-      if (this == o) {
-        return true;
+      @Override
+      int c(IndexedTrackables<?> t, int i) {
+        return t.lineHashId(i);
+      }
+    },
+    LINE_HASH_AND_MESSAGE {
+      @Override
+      int a(IndexedTrackables<?> t, int i) {
+        return t.ruleId(i);
       }
-      LineHashAndMessageKey that = (LineHashAndMessageKey) o;
-      // start with most discriminant field
-      return lineHash.equals(that.lineHash)
-        && message.equals(that.message)
-        && ruleKey.equals(that.ruleKey);
-    }
 
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + message.hashCode();
-      result = 31 * result + lineHash.hashCode();
-      return result;
-    }
-  }
+      @Override
+      int b(IndexedTrackables<?> t, int i) {
+        return t.messageId(i);
+      }
 
-  private enum LineHashAndMessageKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-    @Override
-    public SearchKey create(Trackable t) {
-      return new LineHashAndMessageKey(t);
-    }
-  }
+      @Override
+      int c(IndexedTrackables<?> t, int i) {
+        return t.lineHashId(i);
+      }
+    },
+    LINE_AND_MESSAGE {
+      @Override
+      int a(IndexedTrackables<?> t, int i) {
+        return t.ruleIdAndLineNullity(i);
+      }
 
-  private static class LineAndMessageKey implements SearchKey {
-    private final RuleKey ruleKey;
-    private final String message;
-    private final Integer line;
+      @Override
+      int b(IndexedTrackables<?> t, int i) {
+        return t.line(i);
+      }
 
-    LineAndMessageKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.message = trackable.getMessage();
-      this.line = trackable.getLine();
-    }
+      @Override
+      int c(IndexedTrackables<?> t, int i) {
+        return t.messageId(i);
+      }
+    },
+    LINE_HASH {
+      @Override
+      int a(IndexedTrackables<?> t, int i) {
+        return t.ruleId(i);
+      }
 
-    @Override
-    public boolean equals(@Nonnull Object o) {
-      if (this == o) {
-        return true;
+      @Override
+      int b(IndexedTrackables<?> t, int i) {
+        return t.lineHashId(i);
       }
-      LineAndMessageKey that = (LineAndMessageKey) o;
-      // start with most discriminant field
-      return Objects.equals(line, that.line)
-        && message.equals(that.message)
-        && ruleKey.equals(that.ruleKey);
-    }
 
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + message.hashCode();
-      result = 31 * result + (line != null ? line.hashCode() : 0);
-      return result;
-    }
-  }
+      @Override
+      int c(IndexedTrackables<?> t, int i) {
+        return 0;
+      }
+    };
 
-  private enum LineAndMessageKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-    @Override
-    public SearchKey create(Trackable t) {
-      return new LineAndMessageKey(t);
-    }
-  }
+    abstract int a(IndexedTrackables<?> t, int i);
 
-  private static class LineHashKey implements SearchKey {
-    private final RuleKey ruleKey;
-    private final String lineHash;
+    abstract int b(IndexedTrackables<?> t, int i);
 
-    LineHashKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.lineHash = StringUtils.defaultString(trackable.getLineHash(), "");
-    }
+    abstract int c(IndexedTrackables<?> t, int i);
+  }
 
-    @Override
-    public boolean equals(@Nonnull Object o) {
-      if (this == o) {
-        return true;
+  /**
+   * Primitive equivalent of {@code ListMultimap<SearchKey, BASE>}. Bases are referenced by their
+   * index in {@link IndexedTrackables}. Values of a key are a linked list, that keeps the order
+   * of insertion, so that the first base of a key can be removed in constant time.
+   */
+  private static final class BaseSearch {
+    private final IntTupleIndex keys;
+    // first and last bases of each key, -1 when empty
+    private final int[] first;
+    private final int[] last;
+    // next base with the same key, -1 if none
+    private final int[] next;
+
+    BaseSearch(int baseCount) {
+      this.keys = new IntTupleIndex(baseCount);
+      this.first = new int[baseCount];
+      this.last = new int[baseCount];
+      this.next = new int[baseCount];
+    }
+
+    void clear() {
+      keys.clear();
+    }
+
+    void put(int a, int b, int c, int base) {
+      int sizeBefore = keys.size();
+      int key = keys.add(a, b, c);
+      next[base] = -1;
+      if (key == sizeBefore) {
+        first[key] = base;
+      } else {
+        next[last[key]] = base;
       }
-      LineHashKey that = (LineHashKey) o;
-      // start with most discriminant field
-      return lineHash.equals(that.lineHash)
-        && ruleKey.equals(that.ruleKey);
-    }
-
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + lineHash.hashCode();
-      return result;
+      last[key] = base;
     }
-  }
 
-  private enum LineHashKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-    @Override
-    public SearchKey create(Trackable t) {
-      return new LineHashKey(t);
+    /**
+     * Removes and returns the first base of the key, or -1 if none.
+     */
+    int pollFirst(int a, int b, int c) {
+      int key = keys.indexOf(a, b, c);
+      if (key < 0) {
+        return -1;
+      }
+      int base = first[key];
+      if (base >= 0) {
+        first[key] = next[base];
+      }
+      return base;
     }
   }
 }
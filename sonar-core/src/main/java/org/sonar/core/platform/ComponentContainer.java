@@ -110,8 +110,11 @@ public class ComponentContainer implements ContainerPopulator.Container {
    */
   protected ComponentContainer(ComponentContainer parent) {
     this.parent = parent;
-    this.pico = parent.pico.makeChildContainer();
-    this.parent.children.add(this);
+    // child containers may be created and removed concurrently, for example when modules are scanned in parallel
+    synchronized (parent) {
+      this.pico = parent.pico.makeChildContainer();
+      this.parent.children.add(this);
+    }
     this.propertyDefinitions = parent.propertyDefinitions;
     this.componentKeys = new ComponentKeys();
     addSingleton(this);
@@ -281,7 +284,7 @@ public class ComponentContainer implements ContainerPopulator.Container {
     return pico.getComponents(tClass);
   }
 
-  public ComponentContainer removeChild(ComponentContainer childToBeRemoved) {
+  public synchronized ComponentContainer removeChild(ComponentContainer childToBeRemoved) {
     requireNonNull(childToBeRemoved);
     Iterator<ComponentContainer> childrenIterator = children.iterator();
     while (childrenIterator.hasNext()) {
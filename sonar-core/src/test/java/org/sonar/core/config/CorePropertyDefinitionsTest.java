@@ -45,6 +45,17 @@ public class CorePropertyDefinitionsTest {
     assertThat(prop.get().type()).isEqualTo(PropertyType.PASSWORD);
   }
 
+  @Test
+  public void scanner_threads_properties_are_sequential_by_default() {
+    List<PropertyDefinition> defs = CorePropertyDefinitions.all();
+    for (String key : new String[] {ScannerThreadsProperties.MODULES_THREADS, ScannerThreadsProperties.SENSORS_THREADS, ScannerThreadsProperties.SCM_THREADS,
+      ScannerThreadsProperties.CPD_THREADS, ScannerThreadsProperties.COLORIZER_THREADS}) {
+      PropertyDefinition prop = from(defs).filter(new HasKeyPredicate(key)).first().get();
+      assertThat(prop.type()).isEqualTo(PropertyType.INTEGER);
+      assertThat(prop.defaultValue()).isEqualTo("1");
+    }
+  }
+
   private final class HasKeyPredicate implements Predicate<PropertyDefinition> {
     private final String key;
 
@@ -0,0 +1,63 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.issue.tracking;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IntTupleIndexTest {
+
+  private IntTupleIndex underTest = new IntTupleIndex(0);
+
+  @Test
+  public void add_and_get_tuples() {
+    assertThat(underTest.add(1, 2, 3)).isEqualTo(0);
+    assertThat(underTest.add(3, 2, 1)).isEqualTo(1);
+    assertThat(underTest.add(1, 2, 3)).isEqualTo(0);
+
+    assertThat(underTest.indexOf(1, 2, 3)).isEqualTo(0);
+    assertThat(underTest.indexOf(3, 2, 1)).isEqualTo(1);
+    assertThat(underTest.indexOf(1, 2, 4)).isEqualTo(-1);
+    assertThat(underTest.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void grow_when_many_tuples_are_added() {
+    for (int i = 0; i < 10_000; i++) {
+      assertThat(underTest.add(i, -i, i % 7)).isEqualTo(i);
+    }
+    for (int i = 0; i < 10_000; i++) {
+      assertThat(underTest.indexOf(i, -i, i % 7)).isEqualTo(i);
+    }
+    assertThat(underTest.indexOf(10_000, -10_000, 10_000 % 7)).isEqualTo(-1);
+  }
+
+  @Test
+  public void clear() {
+    underTest.add(1, 2, 3);
+
+    underTest.clear();
+
+    assertThat(underTest.size()).isEqualTo(0);
+    assertThat(underTest.indexOf(1, 2, 3)).isEqualTo(-1);
+    assertThat(underTest.add(4, 5, 6)).isEqualTo(0);
+  }
+}
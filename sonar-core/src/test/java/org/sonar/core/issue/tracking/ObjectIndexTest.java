@@ -0,0 +1,61 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.issue.tracking;
+
+import org.junit.Test;
+import org.sonar.api.rule.RuleKey;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ObjectIndexTest {
+
+  private ObjectIndex<Object> underTest = new ObjectIndex<>(0);
+
+  @Test
+  public void equal_objects_have_same_id() {
+    int id = underTest.idOf(RuleKey.of("java", "S1"));
+
+    assertThat(underTest.idOf(RuleKey.of("java", "S1"))).isEqualTo(id);
+    assertThat(underTest.idOf(new String("foo"))).isEqualTo(underTest.idOf("foo"));
+    assertThat(underTest.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void ids_are_assigned_in_sequence() {
+    for (int i = 0; i < 1_000; i++) {
+      assertThat(underTest.idOf("value" + i)).isEqualTo(i);
+    }
+    for (int i = 0; i < 1_000; i++) {
+      assertThat(underTest.idOf("value" + i)).isEqualTo(i);
+    }
+    assertThat(underTest.size()).isEqualTo(1_000);
+  }
+
+  @Test
+  public void null_has_its_own_id() {
+    underTest.idOf("foo");
+
+    int id = underTest.idOf(null);
+
+    assertThat(id).isEqualTo(1);
+    assertThat(underTest.idOf(null)).isEqualTo(id);
+    assertThat(underTest.idOf("")).isEqualTo(2);
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.issue.tracking;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.rule.RuleKey;
+
+/**
+ * Generates reproducible base and raw versions of a file with issues. The raw version is an edition of
+ * the base version: lines are inserted, deleted and moved by blocks, and issues are fixed, created or
+ * get a different message. As in the Compute Engine, raw issues have no key, so they are all equal.
+ */
+public class SyntheticTrackingInputs {
+
+  private static final int RULES = 8;
+  private static final int MESSAGES = 4;
+
+  private final SyntheticInput base;
+  private final SyntheticInput raw;
+
+  private SyntheticTrackingInputs(SyntheticInput base, SyntheticInput raw) {
+    this.base = base;
+    this.raw = raw;
+  }
+
+  public Input<SyntheticIssue> base() {
+    return base;
+  }
+
+  public Input<SyntheticIssue> raw() {
+    return raw;
+  }
+
+  public static SyntheticTrackingInputs generate(long seed, int lines, int issues) {
+    Random random = new Random(seed);
+
+    List<String> baseHashes = new ArrayList<>(lines);
+    for (int i = 0; i < lines; i++) {
+      // many duplicated hashes, including empty lines
+      int hash = random.nextInt(lines / 3 + 1);
+      baseHashes.add(hash == 0 ? "" : ("h" + hash));
+    }
+
+    // origin of each raw line: index of base line, or -1 for a new line
+    List<Integer> origins = new ArrayList<>(lines);
+    for (int i = 0; i < lines; i++) {
+      origins.add(i);
+    }
+    int edits = 1 + random.nextInt(lines / 10 + 1);
+    for (int i = 0; i < edits && !origins.isEmpty(); i++) {
+      int position = random.nextInt(origins.size());
+      switch (random.nextInt(3)) {
+        case 0:
+          origins.add(position, -1);
+          break;
+        case 1:
+          origins.remove(position);
+          break;
+        default:
+          int length = Math.min(1 + random.nextInt(20), origins.size() - position);
+          List<Integer> block = new ArrayList<>(origins.subList(position, position + length));
+          origins.subList(position, position + length).clear();
+          origins.addAll(random.nextInt(origins.size() + 1), block);
+      }
+    }
+    List<String> rawHashes = new ArrayList<>(origins.size());
+    for (Integer origin : origins) {
+      rawHashes.add(origin < 0 ? ("n" + random.nextInt(lines / 3 + 1)) : baseHashes.get(origin));
+    }
+
+    SyntheticInput base = new SyntheticInput(baseHashes);
+    SyntheticInput raw = new SyntheticInput(rawHashes);
+    for (int i = 0; i < issues; i++) {
+      RuleKey ruleKey = RuleKey.of("synthetic", "rule" + random.nextInt(RULES));
+      String message = "message " + random.nextInt(MESSAGES);
+      Integer baseLine = (lines == 0 || random.nextInt(20) == 0) ? null : (1 + random.nextInt(lines));
+      base.add("B" + i, baseLine, ruleKey, message);
+
+      int change = random.nextInt(10);
+      if (change == 0) {
+        // fixed
+        continue;
+      }
+      if (change == 1) {
+        message = "other " + message;
+      }
+      Integer rawLine = baseLine;
+      if (baseLine != null) {
+        int position = origins.indexOf(baseLine - 1);
+        if (position >= 0) {
+          rawLine = position + 1;
+        } else if (rawHashes.isEmpty()) {
+          rawLine = null;
+        } else {
+          rawLine = 1 + random.nextInt(rawHashes.size());
+        }
+      }
+      raw.add(null, rawLine, ruleKey, message);
+      if (change == 2 && !rawHashes.isEmpty()) {
+        // new issue
+        raw.add(null, 1 + random.nextInt(rawHashes.size()), RuleKey.of("synthetic", "rule" + random.nextInt(RULES)), "message " + random.nextInt(MESSAGES));
+      }
+    }
+    Collections.shuffle(raw.issues, random);
+    return new SyntheticTrackingInputs(base, raw);
+  }
+
+  public static class SyntheticIssue implements Trackable {
+    private final String key;
+    private final Integer line;
+    private final String lineHash;
+    private final RuleKey ruleKey;
+    private final String message;
+
+    SyntheticIssue(@Nullable String key, @Nullable Integer line, String lineHash, RuleKey ruleKey, String message) {
+      this.key = key;
+      this.line = line;
+      this.lineHash = lineHash;
+      this.ruleKey = ruleKey;
+      this.message = message;
+    }
+
+    @CheckForNull
+    public String getKey() {
+      return key;
+    }
+
+    @Override
+    public Integer getLine() {
+      return line;
+    }
+
+    @Override
+    public String getMessage() {
+      return message;
+    }
+
+    @Override
+    public String getLineHash() {
+      return lineHash;
+    }
+
+    @Override
+    public RuleKey getRuleKey() {
+      return ruleKey;
+    }
+
+    /**
+     * Same as {@link org.sonar.core.issue.DefaultIssue}: issues are equal if they have the same nullable key
+     */
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      return Objects.equals(key, ((SyntheticIssue) o).key);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(key);
+    }
+
+    @Override
+    public String toString() {
+      return ruleKey + " on line " + line + ": " + message;
+    }
+  }
+
+  private static class SyntheticInput implements Input<SyntheticIssue> {
+    private final LineHashSequence lineHashSequence;
+    private final BlockHashSequence blockHashSequence;
+    private final List<SyntheticIssue> issues = new ArrayList<>();
+
+    SyntheticInput(List<String> lineHashes) {
+      this.lineHashSequence = new LineHashSequence(lineHashes);
+      this.blockHashSequence = BlockHashSequence.create(lineHashSequence);
+    }
+
+    void add(@Nullable String key, @Nullable Integer line, RuleKey ruleKey, String message) {
+      String lineHash = line == null ? "" : lineHashSequence.getHashForLine(line);
+      issues.add(new SyntheticIssue(key, line, lineHash, ruleKey, message));
+    }
+
+    @Override
+    public LineHashSequence getLineHashSequence() {
+      return lineHashSequence;
+    }
+
+    @Override
+    public BlockHashSequence getBlockHashSequence() {
+      return blockHashSequence;
+    }
+
+    @Override
+    public Collection<SyntheticIssue> getIssues() {
+      return issues;
+    }
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.issue.tracking;
+
+import org.junit.Test;
+import org.sonar.core.issue.tracking.SyntheticTrackingInputs.SyntheticIssue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that {@link Tracker} matches exactly the same issues as {@link ReferenceTracker}
+ */
+public class TrackerConsistencyTest {
+
+  @Test
+  public void same_matches_as_reference_implementation_on_small_files() {
+    for (long seed = 0; seed < 500; seed++) {
+      verify(seed, 1 + (int) (seed % 50), (int) (seed % 30));
+    }
+  }
+
+  @Test
+  public void same_matches_as_reference_implementation_on_large_files() {
+    for (long seed = 0; seed < 20; seed++) {
+      verify(seed, 2_000, 50 + (int) (seed * 40));
+    }
+  }
+
+  @Test
+  public void same_matches_as_reference_implementation_when_all_issues_are_on_same_lines() {
+    for (long seed = 0; seed < 50; seed++) {
+      verify(seed, 3, 100);
+    }
+  }
+
+  private static void verify(long seed, int lines, int issues) {
+    SyntheticTrackingInputs inputs = SyntheticTrackingInputs.generate(seed, lines, issues);
+
+    Tracking<SyntheticIssue, SyntheticIssue> expected = new ReferenceTracker<SyntheticIssue, SyntheticIssue>().track(inputs.raw(), inputs.base());
+    Tracking<SyntheticIssue, SyntheticIssue> tracking = new Tracker<SyntheticIssue, SyntheticIssue>().track(inputs.raw(), inputs.base());
+
+    // maps compare references of issues
+    assertThat(tracking.getMatchedRaws()).as("seed %d, %d lines, %d issues", seed, lines, issues).isEqualTo(expected.getMatchedRaws());
+  }
+}
@@ -75,6 +75,15 @@ public class CeActivityDto {
    * </p>
    */
   private boolean hasScannerContext;
+  /**
+   * Serialized {@link org.sonar.db.protobuf.DbCe.TaskProfile} of the resources consumed by each step of the task, if any.
+   * <p>
+   * This property can be populated when inserting but <strong>is populated only when reading by a specific UUID.</strong>
+   * </p>
+   *
+   * @see CeActivityDao#selectByUuid(DbSession, String)
+   */
+  private byte[] profileData;
 
   CeActivityDto() {
     // required for MyBatis
@@ -255,6 +264,16 @@ public class CeActivityDto {
     this.hasScannerContext = hasScannerContext;
   }
 
+  @CheckForNull
+  public byte[] getProfileData() {
+    return profileData;
+  }
+
+  public CeActivityDto setProfileData(@Nullable byte[] profileData) {
+    this.profileData = profileData;
+    return this;
+  }
+
   @Override
   public String toString() {
     return MoreObjects.toStringHelper(this)
@@ -20,13 +20,17 @@
 package org.sonar.db.ce;
 
 import com.google.common.base.Optional;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import javax.annotation.Nullable;
 import org.apache.ibatis.session.RowBounds;
 import org.sonar.api.utils.System2;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Collections.emptyList;
 import static org.sonar.db.ce.CeQueueDto.Status.IN_PROGRESS;
 import static org.sonar.db.ce.CeQueueDto.Status.PENDING;
@@ -34,6 +38,7 @@ import static org.sonar.db.ce.CeQueueDto.Status.PENDING;
 public class CeQueueDao implements Dao {
 
   private static final RowBounds ONE_ROW_LIMIT = new RowBounds(0, 1);
+  private static final RowBounds ELIGIBLE_FOR_PEEK_ROW_LIMIT = new RowBounds(0, 1_000);
 
   private final System2 system2;
 
@@ -118,6 +123,47 @@ public class CeQueueDao implements Dao {
     return tryToPeek(session, taskUuid);
   }
 
+  /**
+   * Oldest pending tasks which can be peeked, ordered by ascending date of creation. At most {@code maxTasks}
+   * tasks are returned and there is at most one task per component, so that tasks of a component are never
+   * processed concurrently.
+   */
+  public List<CeQueueDto> selectEligibleForPeek(DbSession session, int maxTasks) {
+    checkArgument(maxTasks > 0, "Max number of tasks must be positive");
+    List<CeQueueDto> pendingTasks = mapper(session).selectEligibleTasksForPeek(ELIGIBLE_FOR_PEEK_ROW_LIMIT);
+    Set<String> componentUuids = new HashSet<>();
+    List<CeQueueDto> result = new ArrayList<>();
+    for (CeQueueDto task : pendingTasks) {
+      if (task.getComponentUuid() == null || componentUuids.add(task.getComponentUuid())) {
+        result.add(task);
+        if (result.size() == maxTasks) {
+          break;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Change the status of the specified tasks from {@link CeQueueDto.Status#PENDING} to {@link CeQueueDto.Status#IN_PROGRESS}
+   * in a single transaction. Tasks which are not pending anymore, for example because they have been peeked concurrently,
+   * are ignored.
+   *
+   * @return the tasks which status has been changed
+   */
+  public List<CeQueueDto> peek(DbSession session, List<CeQueueDto> eligibleTasks) {
+    long now = system2.now();
+    List<CeQueueDto> result = new ArrayList<>(eligibleTasks.size());
+    for (CeQueueDto task : eligibleTasks) {
+      int touchedRows = mapper(session).updateIfStatus(task.getUuid(), IN_PROGRESS, now, now, PENDING);
+      if (touchedRows == 1) {
+        result.add(mapper(session).selectByUuid(task.getUuid()));
+      }
+    }
+    session.commit();
+    return result;
+  }
+
   private Optional<CeQueueDto> tryToPeek(DbSession session, String taskUuid) {
     int touchedRows = mapper(session).updateIfStatus(taskUuid, IN_PROGRESS, system2.now(), system2.now(), PENDING);
     if (touchedRows != 1) {
@@ -91,6 +91,13 @@ public class IssueDao implements Dao {
     return mapper(session).selectComponentUuidsOfOpenIssuesForProjectUuid(projectUuid);
   }
 
+  /**
+   * Uuids of the root components (projects, views...) which have issues, whatever their status.
+   */
+  public List<String> selectProjectUuids(DbSession session) {
+    return mapper(session).selectProjectUuids();
+  }
+
   public void insert(DbSession session, IssueDto dto) {
     mapper(session).insert(dto);
   }
@@ -19,6 +19,7 @@
  */
 package org.sonar.db.notification;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import org.apache.ibatis.session.SqlSession;
@@ -60,6 +61,31 @@ public class NotificationQueueDao implements Dao {
     }
   }
 
+  /**
+   * Removes the oldest notifications from the queue and returns them. A notification is returned
+   * only to the caller which deleted it, so concurrent consumers never get the same notification.
+   */
+  public List<NotificationQueueDto> claimOldest(int count) {
+    List<NotificationQueueDto> oldest = selectOldest(count);
+    if (oldest.isEmpty()) {
+      return oldest;
+    }
+    List<NotificationQueueDto> claimed = new ArrayList<>(oldest.size());
+    DbSession session = mybatis.openSession(false);
+    NotificationQueueMapper mapper = session.getMapper(NotificationQueueMapper.class);
+    try {
+      for (NotificationQueueDto dto : oldest) {
+        if (mapper.delete(dto.getId()) > 0) {
+          claimed.add(dto);
+        }
+      }
+      session.commit();
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+    return claimed;
+  }
+
   public List<NotificationQueueDto> selectOldest(int count) {
     if (count < 1) {
       return Collections.emptyList();
@@ -28,7 +28,7 @@ public interface NotificationQueueMapper {
 
   void insert(NotificationQueueDto actionPlanDto);
 
-  void delete(long id);
+  int delete(long id);
 
   List<NotificationQueueDto> findOldest(int count);
 
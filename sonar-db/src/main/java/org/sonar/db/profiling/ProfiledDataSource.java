@@ -320,12 +320,19 @@ public class ProfiledDataSource extends BasicDataSource {
 
   @Override
   public Connection getConnection() throws SQLException {
-    return connectionInterceptor.getConnection(delegate);
+    return currentConnectionInterceptor().getConnection(delegate);
   }
 
   @Override
   public Connection getConnection(String login, String password) throws SQLException {
-    return connectionInterceptor.getConnection(this, login, password);
+    return currentConnectionInterceptor().getConnection(this, login, password);
+  }
+
+  private ConnectionInterceptor currentConnectionInterceptor() {
+    if (connectionInterceptor == NullConnectionInterceptor.INSTANCE && SqlStatementCounter.isStarted()) {
+      return ProfiledConnectionInterceptor.INSTANCE;
+    }
+    return connectionInterceptor;
   }
 
   @Override
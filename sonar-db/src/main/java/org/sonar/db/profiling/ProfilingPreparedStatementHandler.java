@@ -39,10 +39,14 @@ class ProfilingPreparedStatementHandler implements InvocationHandler {
   @Override
   public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
     if (method.getName().startsWith("execute")) {
+      if (!ProfiledDataSource.SQL_LOGGER.isTraceEnabled()) {
+        // connection is profiled only to count statements, SQL is not logged
+        return executeAndCount(method, args);
+      }
       Profiler profiler = Profiler.create(ProfiledDataSource.SQL_LOGGER).start();
       Object result = null;
       try {
-        result = InvocationUtils.invokeQuietly(statement, method, args);
+        result = executeAndCount(method, args);
       } finally {
         profiler.addContext("sql", SqlLogFormatter.formatSql(sql));
         if (sqlParams.length > 0) {
@@ -59,4 +63,12 @@ class ProfilingPreparedStatementHandler implements InvocationHandler {
     }
   }
 
+  private Object executeAndCount(Method method, Object[] args) throws Throwable {
+    long start = System.nanoTime();
+    try {
+      return InvocationUtils.invokeQuietly(statement, method, args);
+    } finally {
+      SqlStatementCounter.record(System.nanoTime() - start);
+    }
+  }
 }
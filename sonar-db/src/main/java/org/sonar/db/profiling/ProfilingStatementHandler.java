@@ -35,10 +35,14 @@ class ProfilingStatementHandler implements InvocationHandler {
   @Override
   public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
     if (method.getName().startsWith("execute")) {
+      if (!ProfiledDataSource.SQL_LOGGER.isTraceEnabled()) {
+        // connection is profiled only to count statements, SQL is not logged
+        return executeAndCount(method, args);
+      }
       Profiler profiler = Profiler.create(ProfiledDataSource.SQL_LOGGER).start();
       Object result = null;
       try {
-        result = InvocationUtils.invokeQuietly(statement, method, args);
+        result = executeAndCount(method, args);
       } finally {
         String sql = (String) args[0];
         profiler.addContext("sql", SqlLogFormatter.formatSql(sql));
@@ -49,4 +53,13 @@ class ProfilingStatementHandler implements InvocationHandler {
       return InvocationUtils.invokeQuietly(statement, method, args);
     }
   }
+
+  private Object executeAndCount(Method method, Object[] args) throws Throwable {
+    long start = System.nanoTime();
+    try {
+      return InvocationUtils.invokeQuietly(statement, method, args);
+    } finally {
+      SqlStatementCounter.record(System.nanoTime() - start);
+    }
+  }
 }
@@ -0,0 +1,79 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+/**
+ * Counts the SQL statements executed by the current thread, and the time spent to execute them,
+ * between calls to {@link #start()} and {@link #stop()}.
+ * <p>
+ * Connections obtained from {@link ProfiledDataSource} by a thread while counting is started are
+ * profiled even if SQL logs are disabled. Statements executed on connections obtained before
+ * the call to {@link #start()} are not counted.
+ * </p>
+ */
+public final class SqlStatementCounter {
+
+  private static final ThreadLocal<Counts> COUNTS = new ThreadLocal<>();
+
+  private SqlStatementCounter() {
+    // only statics
+  }
+
+  public static void start() {
+    COUNTS.set(new Counts());
+  }
+
+  public static void stop() {
+    COUNTS.remove();
+  }
+
+  public static boolean isStarted() {
+    return COUNTS.get() != null;
+  }
+
+  /**
+   * Number of statements executed by the current thread since counting started, or 0 if it is not started.
+   */
+  public static int getStatementCount() {
+    Counts counts = COUNTS.get();
+    return counts == null ? 0 : counts.statements;
+  }
+
+  /**
+   * Time spent by the current thread to execute statements since counting started, or 0 if it is not started.
+   */
+  public static long getDurationNanos() {
+    Counts counts = COUNTS.get();
+    return counts == null ? 0L : counts.durationNanos;
+  }
+
+  static void record(long durationNanos) {
+    Counts counts = COUNTS.get();
+    if (counts != null) {
+      counts.statements++;
+      counts.durationNanos += durationNanos;
+    }
+  }
+
+  private static final class Counts {
+    private int statements = 0;
+    private long durationNanos = 0L;
+  }
+}
@@ -21,13 +21,16 @@ package org.sonar.db.source;
 
 import com.google.common.base.Function;
 import com.google.common.base.Splitter;
+import com.google.common.collect.Iterables;
 import java.io.Reader;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.BiConsumer;
 import javax.annotation.CheckForNull;
 import org.apache.commons.dbutils.DbUtils;
 import org.apache.commons.io.IOUtils;
@@ -36,6 +39,8 @@ import org.sonar.db.DbSession;
 import org.sonar.db.MyBatis;
 import org.sonar.db.source.FileSourceDto.Type;
 
+import static org.sonar.db.DatabaseUtils.PARTITION_SIZE_FOR_ORACLE;
+
 public class FileSourceDao implements Dao {
 
   private static final Splitter END_OF_LINE_SPLITTER = Splitter.on('\n');
@@ -109,6 +114,55 @@ public class FileSourceDao implements Dao {
     }
   }
 
+  /**
+   * Calls {@code consumer} with the UUID and the line hashes of each of the given files which has line hashes,
+   * in no particular order. Unlike {@link #readLineHashesStream(DbSession, String, Function)}, the connection
+   * of the session is not closed.
+   */
+  public void readLineHashesStream(DbSession dbSession, Collection<String> fileUuids, BiConsumer<String, Reader> consumer) {
+    for (List<String> partition : Iterables.partition(fileUuids, PARTITION_SIZE_FOR_ORACLE)) {
+      readLineHashesStream(dbSession.getConnection(), partition, consumer);
+    }
+  }
+
+  private static void readLineHashesStream(Connection connection, List<String> fileUuids, BiConsumer<String, Reader> consumer) {
+    StringBuilder sql = new StringBuilder("SELECT file_uuid, line_hashes FROM file_sources WHERE data_type=? AND file_uuid IN (");
+    for (int i = 0; i < fileUuids.size(); i++) {
+      sql.append(i == 0 ? "?" : ",?");
+    }
+    sql.append(")");
+    PreparedStatement pstmt = null;
+    ResultSet rs = null;
+    try {
+      pstmt = connection.prepareStatement(sql.toString());
+      pstmt.setString(1, Type.SOURCE);
+      for (int i = 0; i < fileUuids.size(); i++) {
+        pstmt.setString(i + 2, fileUuids.get(i));
+      }
+      rs = pstmt.executeQuery();
+      while (rs.next()) {
+        consumeLineHashes(rs, consumer);
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException("Fail to read FILE_SOURCES.LINE_HASHES of files " + fileUuids, e);
+    } finally {
+      DbUtils.closeQuietly(rs);
+      DbUtils.closeQuietly(pstmt);
+    }
+  }
+
+  private static void consumeLineHashes(ResultSet rs, BiConsumer<String, Reader> consumer) throws SQLException {
+    String fileUuid = rs.getString(1);
+    Reader reader = rs.getCharacterStream(2);
+    if (reader != null) {
+      try {
+        consumer.accept(fileUuid, reader);
+      } finally {
+        IOUtils.closeQuietly(reader);
+      }
+    }
+  }
+
   public void insert(FileSourceDto dto) {
     DbSession session = mybatis.openSession(false);
     try {
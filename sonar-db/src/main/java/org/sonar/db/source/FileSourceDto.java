@@ -95,6 +95,9 @@ public class FileSourceDto {
 
   public DbFileSources.Data decodeSourceData(byte[] binaryData) {
     try {
+      if (SourceLineBlocks.isBlockEncoded(binaryData)) {
+        return SourceLineBlocks.decode(binaryData);
+      }
       return decodeRegularSourceData(binaryData);
     } catch (IOException e) {
       throw new IllegalStateException(
@@ -103,6 +106,34 @@ public class FileSourceDto {
     }
   }
 
+  /**
+   * Same as {@link #decodeSourceData(byte[])} but returns only the lines between {@code from} and {@code toInclusive}.
+   * Only the blocks of lines covering the range are decompressed, except for data persisted before
+   * the introduction of blocks, which is fully decoded.
+   */
+  public DbFileSources.Data decodeSourceData(byte[] binaryData, int from, int toInclusive) {
+    if (!SourceLineBlocks.isBlockEncoded(binaryData)) {
+      return filterLines(decodeSourceData(binaryData), from, toInclusive);
+    }
+    try {
+      return SourceLineBlocks.decode(binaryData, from, toInclusive);
+    } catch (IOException e) {
+      throw new IllegalStateException(
+        format("Fail to decompress and deserialize source data [id=%s,fileUuid=%s,projectUuid=%s]", id, fileUuid, projectUuid),
+        e);
+    }
+  }
+
+  private static DbFileSources.Data filterLines(DbFileSources.Data data, int from, int toInclusive) {
+    DbFileSources.Data.Builder builder = DbFileSources.Data.newBuilder();
+    for (DbFileSources.Line line : data.getLinesList()) {
+      if (line.getLine() >= from && line.getLine() <= toInclusive) {
+        builder.addLines(line);
+      }
+    }
+    return builder.build();
+  }
+
   private static DbFileSources.Data decodeRegularSourceData(byte[] binaryData) throws IOException {
     try (LZ4BlockInputStream lz4Input = new LZ4BlockInputStream(new ByteArrayInputStream(binaryData))) {
       return DbFileSources.Data.parseFrom(lz4Input);
@@ -124,19 +155,14 @@ public class FileSourceDto {
 
   /**
    * Serialize and compress protobuf message {@link org.sonar.db.protobuf.DbFileSources.Data}
-   * in the column BINARY_DATA.
+   * in the column BINARY_DATA, by blocks of lines.
+   * @see SourceLineBlocks
    */
   public static byte[] encodeSourceData(DbFileSources.Data data) {
-    ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
-    LZ4BlockOutputStream compressedOutput = new LZ4BlockOutputStream(byteOutput);
     try {
-      data.writeTo(compressedOutput);
-      compressedOutput.close();
-      return byteOutput.toByteArray();
+      return SourceLineBlocks.encode(data);
     } catch (IOException e) {
       throw new IllegalStateException("Fail to serialize and compress source data", e);
-    } finally {
-      IOUtils.closeQuietly(compressedOutput);
     }
   }
 
@@ -212,6 +238,13 @@ public class FileSourceDto {
     return decodeSourceData(binaryData);
   }
 
+  /**
+   * Lines of {@link #getSourceData()} between {@code from} and {@code toInclusive}
+   */
+  public DbFileSources.Data getSourceData(int from, int toInclusive) {
+    return decodeSourceData(binaryData, from, toInclusive);
+  }
+
   public FileSourceDto setSourceData(DbFileSources.Data data) {
     this.dataType = Type.SOURCE;
     this.binaryData = encodeSourceData(data);
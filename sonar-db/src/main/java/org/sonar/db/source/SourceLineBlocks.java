@@ -0,0 +1,151 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.source;
+
+import com.google.protobuf.CodedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import net.jpountz.lz4.LZ4BlockInputStream;
+import net.jpountz.lz4.LZ4BlockOutputStream;
+import org.sonar.db.protobuf.DbFileSources;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Encoding of {@link DbFileSources.Data} in the column FILE_SOURCES.BINARY_DATA, where lines are
+ * grouped in blocks of {@link #LINES_PER_BLOCK} lines. Each block is compressed on its own,
+ * so that a range of lines can be read without decompressing the whole file:
+ * <pre>
+ *   bytes  magic number "SQLB", followed by the format version
+ *   int    number of blocks
+ *   for each block: int first line, int last line, int offset, int length
+ *   for each block: LZ4 stream of the serialized {@link DbFileSources.Data} containing the lines of the block
+ * </pre>
+ * Offsets are relative to the end of the index.
+ */
+class SourceLineBlocks {
+
+  static final int LINES_PER_BLOCK = 500;
+
+  private static final byte[] MAGIC = {'S', 'Q', 'L', 'B'};
+  private static final byte VERSION = 1;
+  private static final int HEADER_SIZE = MAGIC.length + 1 + 4;
+  private static final int INDEX_ENTRY_SIZE = 4 * 4;
+
+  private SourceLineBlocks() {
+    // only static methods
+  }
+
+  /**
+   * Whether the data has been encoded by {@link #encode(DbFileSources.Data)}. Data written by previous
+   * versions is a single LZ4 stream, which starts with the magic number "LZ4Block".
+   */
+  static boolean isBlockEncoded(byte[] binaryData) {
+    if (binaryData.length < HEADER_SIZE) {
+      return false;
+    }
+    for (int i = 0; i < MAGIC.length; i++) {
+      if (binaryData[i] != MAGIC[i]) {
+        return false;
+      }
+    }
+    return binaryData[MAGIC.length] == VERSION;
+  }
+
+  static byte[] encode(DbFileSources.Data data) throws IOException {
+    List<DbFileSources.Line> lines = data.getLinesList();
+    int blockCount = (lines.size() + LINES_PER_BLOCK - 1) / LINES_PER_BLOCK;
+    int[] firstLines = new int[blockCount];
+    int[] lastLines = new int[blockCount];
+    int[] lengths = new int[blockCount];
+    ByteArrayOutputStream blocks = new ByteArrayOutputStream();
+    DbFileSources.Data.Builder blockBuilder = DbFileSources.Data.newBuilder();
+    for (int block = 0; block < blockCount; block++) {
+      List<DbFileSources.Line> blockLines = lines.subList(block * LINES_PER_BLOCK, Math.min(lines.size(), (block + 1) * LINES_PER_BLOCK));
+      firstLines[block] = blockLines.get(0).getLine();
+      lastLines[block] = blockLines.get(blockLines.size() - 1).getLine();
+      int start = blocks.size();
+      // closing the LZ4 stream flushes its last chunk, closing a ByteArrayOutputStream has no effect
+      try (LZ4BlockOutputStream compressedOutput = new LZ4BlockOutputStream(blocks)) {
+        blockBuilder.clear().addAllLines(blockLines).build().writeTo(compressedOutput);
+      }
+      lengths[block] = blocks.size() - start;
+    }
+
+    ByteArrayOutputStream byteOutput = new ByteArrayOutputStream(HEADER_SIZE + blockCount * INDEX_ENTRY_SIZE + blocks.size());
+    DataOutputStream output = new DataOutputStream(byteOutput);
+    output.write(MAGIC);
+    output.writeByte(VERSION);
+    output.writeInt(blockCount);
+    int offset = 0;
+    for (int block = 0; block < blockCount; block++) {
+      output.writeInt(firstLines[block]);
+      output.writeInt(lastLines[block]);
+      output.writeInt(offset);
+      output.writeInt(lengths[block]);
+      offset += lengths[block];
+    }
+    blocks.writeTo(output);
+    output.flush();
+    return byteOutput.toByteArray();
+  }
+
+  static DbFileSources.Data decode(byte[] binaryData) throws IOException {
+    return decode(binaryData, Integer.MIN_VALUE, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Decodes only the blocks which contain lines in the range. Returned lines are restricted to this range.
+   */
+  static DbFileSources.Data decode(byte[] binaryData, int from, int toInclusive) throws IOException {
+    checkArgument(isBlockEncoded(binaryData), "Source data is not encoded by blocks of lines");
+    DataInputStream input = new DataInputStream(new ByteArrayInputStream(binaryData, MAGIC.length + 1, binaryData.length - MAGIC.length - 1));
+    int blockCount = input.readInt();
+    int blocksStart = HEADER_SIZE + blockCount * INDEX_ENTRY_SIZE;
+    DbFileSources.Data.Builder result = DbFileSources.Data.newBuilder();
+    for (int block = 0; block < blockCount; block++) {
+      int firstLine = input.readInt();
+      int lastLine = input.readInt();
+      int offset = input.readInt();
+      int length = input.readInt();
+      if (lastLine >= from && firstLine <= toInclusive) {
+        for (DbFileSources.Line line : decodeBlock(binaryData, blocksStart + offset, length).getLinesList()) {
+          if (line.getLine() >= from && line.getLine() <= toInclusive) {
+            result.addLines(line);
+          }
+        }
+      }
+    }
+    return result.build();
+  }
+
+  private static DbFileSources.Data decodeBlock(byte[] binaryData, int offset, int length) throws IOException {
+    try (LZ4BlockInputStream lz4Input = new LZ4BlockInputStream(new ByteArrayInputStream(binaryData, offset, length))) {
+      CodedInputStream input = CodedInputStream.newInstance(lz4Input);
+      // a block is usually small, but there is no limit on the length of a line
+      input.setSizeLimit(Integer.MAX_VALUE);
+      return DbFileSources.Data.parseFrom(input);
+    }
+  }
+}
@@ -159,6 +159,7 @@ import org.sonar.db.version.v61.DropIsGlobalFromDashboards;
 import org.sonar.db.version.v61.PopulateTableProperties2;
 import org.sonar.db.version.v61.RemoveViewsDefinitionFromProperties;
 import org.sonar.db.version.v61.ShrinkModuleUuidPathOfProjects;
+import org.sonar.db.version.v62.AddProfileDataColumnToCeActivity;
 import org.sonar.db.version.v62.CreateDefaultOrganization;
 import org.sonar.db.version.v62.CreateTableOrganizations;
 import org.sonar.db.version.v62.DeletePermissionShareDashboard;
@@ -344,7 +345,8 @@ public class MigrationStepModule extends Module {
       // 6.2
       CreateTableOrganizations.class,
       CreateDefaultOrganization.class,
-      DeletePermissionShareDashboard.class
+      DeletePermissionShareDashboard.class,
+      AddProfileDataColumnToCeActivity.class
     );
   }
 }
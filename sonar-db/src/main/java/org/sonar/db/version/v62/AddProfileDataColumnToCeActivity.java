@@ -17,54 +17,28 @@
  * along with this program; if not, write to the Free Software Foundation,
  * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
  */
-package org.sonar.db.measure;
+package org.sonar.db.version.v62;
 
-import javax.annotation.CheckForNull;
-import javax.annotation.Nullable;
+import java.sql.SQLException;
+import org.sonar.db.Database;
+import org.sonar.db.version.AddColumnsBuilder;
+import org.sonar.db.version.DdlChange;
 
-import static java.util.Objects.requireNonNull;
+import static org.sonar.db.version.BlobColumnDef.newBlobColumnDefBuilder;
 
-public class PastMeasureDto {
+public class AddProfileDataColumnToCeActivity extends DdlChange {
 
-  private int metricId;
+  private static final String TABLE_CE_ACTIVITY = "ce_activity";
 
-  @CheckForNull
-  private Double value;
-
-  @CheckForNull
-  private Long personId;
-
-  public double getValue() {
-    requireNonNull(value);
-    return value;
-  }
-
-  PastMeasureDto setValue(@Nullable Double value) {
-    this.value = value;
-    return this;
-  }
-
-  public boolean hasValue() {
-    return value != null;
-  }
-
-  public int getMetricId() {
-    return metricId;
-  }
-
-  PastMeasureDto setMetricId(int i) {
-    this.metricId = i;
-    return this;
-  }
-
-  @CheckForNull
-  public Long getPersonId() {
-    return personId;
+  public AddProfileDataColumnToCeActivity(Database db) {
+    super(db);
   }
 
-  PastMeasureDto setPersonId(@Nullable Long l) {
-    this.personId = l;
-    return this;
+  @Override
+  public void execute(Context context) throws SQLException {
+    context.execute(new AddColumnsBuilder(getDatabase().getDialect(), TABLE_CE_ACTIVITY)
+      .addColumn(newBlobColumnDefBuilder().setColumnName("profile_data").setIsNullable(true).build())
+      .build());
   }
 
 }
@@ -74,6 +74,7 @@ public class CeActivityDaoTest {
     assertThat(dto.getErrorMessage()).isNull();
     assertThat(dto.getErrorStacktrace()).isNull();
     assertThat(dto.isHasScannerContext()).isFalse();
+    assertThat(dto.getProfileData()).isNull();
   }
 
   @Test
@@ -109,6 +110,25 @@ public class CeActivityDaoTest {
     assertThat(read.getErrorStacktrace()).isEqualTo(dto.getErrorStacktrace());
   }
 
+  @Test
+  public void test_insert_profile_data() {
+    CeActivityDto dto = createActivityDto("TASK_1", REPORT, "PROJECT_1", SUCCESS)
+      .setProfileData(new byte[] {1, 2, 3});
+    underTest.insert(db.getSession(), dto);
+
+    Optional<CeActivityDto> saved = underTest.selectByUuid(db.getSession(), "TASK_1");
+    assertThat(saved.get().getProfileData()).isEqualTo(new byte[] {1, 2, 3});
+  }
+
+  @Test
+  public void selectByQuery_does_not_populate_profileData_field() {
+    underTest.insert(db.getSession(), createActivityDto("TASK_1", REPORT, "PROJECT_1", SUCCESS).setProfileData(new byte[] {1, 2, 3}));
+    db.commit();
+
+    List<CeActivityDto> dtos = underTest.selectByQuery(db.getSession(), new CeTaskQuery(), 0, 10);
+    assertThat(dtos).extracting("profileData").containsOnly((byte[]) null);
+  }
+
   @Test
   public void test_insert_error_message_only() {
     CeActivityDto dto = createActivityDto("TASK_1", REPORT, "PROJECT_1", CeActivityDto.Status.FAILED);
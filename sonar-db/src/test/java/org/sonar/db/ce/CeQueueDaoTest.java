@@ -182,6 +182,50 @@ public class CeQueueDaoTest {
     assertThat(peek.get().getUuid()).isEqualTo(TASK_UUID_2);
   }
 
+  @Test
+  public void selectEligibleForPeek_returns_oldest_pending_tasks_with_at_most_one_task_per_component() {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
+    system2.setNow(INIT_TIME + 1_000);
+    insert(TASK_UUID_2, COMPONENT_UUID_1, PENDING);
+    system2.setNow(INIT_TIME + 2_000);
+    insert(TASK_UUID_3, COMPONENT_UUID_2, PENDING);
+    system2.setNow(INIT_TIME + 3_000);
+    insert("TASK_4", "PROJECT_3", IN_PROGRESS);
+    system2.setNow(INIT_TIME + 4_000);
+    insert("TASK_5", "PROJECT_3", PENDING);
+
+    assertThat(underTest.selectEligibleForPeek(db.getSession(), 10)).extracting(CeQueueDto::getUuid).containsExactly(TASK_UUID_1, TASK_UUID_3);
+    assertThat(underTest.selectEligibleForPeek(db.getSession(), 1)).extracting(CeQueueDto::getUuid).containsExactly(TASK_UUID_1);
+  }
+
+  @Test
+  public void peek_multiple_tasks_in_a_single_transaction() {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
+    system2.setNow(INIT_TIME + 1_000);
+    insert(TASK_UUID_2, COMPONENT_UUID_2, PENDING);
+    List<CeQueueDto> eligibleTasks = underTest.selectEligibleForPeek(db.getSession(), 10);
+
+    List<CeQueueDto> peeked = underTest.peek(db.getSession(), eligibleTasks);
+
+    assertThat(peeked).extracting(CeQueueDto::getUuid).containsExactly(TASK_UUID_1, TASK_UUID_2);
+    assertThat(peeked).extracting(CeQueueDto::getStatus).containsOnly(IN_PROGRESS);
+    verifyCeQueueStatuses(TASK_UUID_1, IN_PROGRESS, TASK_UUID_2, IN_PROGRESS);
+  }
+
+  @Test
+  public void peek_multiple_tasks_ignores_tasks_which_are_not_pending_anymore() {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
+    system2.setNow(INIT_TIME + 1_000);
+    insert(TASK_UUID_2, COMPONENT_UUID_2, PENDING);
+    List<CeQueueDto> eligibleTasks = underTest.selectEligibleForPeek(db.getSession(), 10);
+    // task has been peeked concurrently
+    assertThat(underTest.peek(db.getSession()).get().getUuid()).isEqualTo(TASK_UUID_1);
+
+    List<CeQueueDto> peeked = underTest.peek(db.getSession(), eligibleTasks);
+
+    assertThat(peeked).extracting(CeQueueDto::getUuid).containsExactly(TASK_UUID_2);
+  }
+
   @Test
   public void select_by_query() {
     // task status not in query
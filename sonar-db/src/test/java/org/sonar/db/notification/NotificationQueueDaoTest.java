@@ -21,6 +21,7 @@ package org.sonar.db.notification;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.notifications.Notification;
@@ -80,4 +81,17 @@ public class NotificationQueueDaoTest {
     result = dao.selectOldest(6);
     assertThat(result).hasSize(4);
   }
+
+  @Test
+  public void claim_oldest_notifications() throws Exception {
+    db.prepareDbUnit(getClass(), "should_findOldest.xml");
+
+    List<NotificationQueueDto> claimed = dao.claimOldest(3);
+
+    assertThat(claimed).extracting("id").containsExactly(1L, 2L, 3L);
+    assertThat(claimed.get(0).toNotification().getType()).isEqualTo("email1");
+    assertThat(dao.count()).isEqualTo(1);
+    assertThat(dao.claimOldest(3)).extracting("id").containsExactly(4L);
+    assertThat(dao.claimOldest(3)).isEmpty();
+  }
 }
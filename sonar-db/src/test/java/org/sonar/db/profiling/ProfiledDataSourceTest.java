@@ -132,6 +132,34 @@ public class ProfiledDataSourceTest {
       .doesNotContain("params=");
   }
 
+  @Test
+  public void count_statements_of_current_thread_when_sql_logs_are_disabled() throws Exception {
+    Connection connection = mock(Connection.class);
+    when(originDataSource.getConnection()).thenReturn(connection);
+    Statement stmt = mock(Statement.class);
+    when(connection.createStatement()).thenReturn(stmt);
+    PreparedStatement preparedStatement = mock(PreparedStatement.class);
+    when(connection.prepareStatement("select from dual")).thenReturn(preparedStatement);
+
+    ProfiledDataSource underTest = new ProfiledDataSource(originDataSource, NullConnectionInterceptor.INSTANCE);
+
+    assertThat(underTest.getConnection()).isSameAs(connection);
+    SqlStatementCounter.start();
+    try {
+      Connection connectionProxy = underTest.getConnection();
+      connectionProxy.createStatement().execute("select from dual");
+      connectionProxy.prepareStatement("select from dual").executeQuery();
+
+      assertThat(SqlStatementCounter.getStatementCount()).isEqualTo(2);
+      assertThat(SqlStatementCounter.getDurationNanos()).isGreaterThanOrEqualTo(0L);
+      assertThat(logTester.logs(LoggerLevel.TRACE)).isEmpty();
+    } finally {
+      SqlStatementCounter.stop();
+    }
+    assertThat(SqlStatementCounter.isStarted()).isFalse();
+    assertThat(SqlStatementCounter.getStatementCount()).isEqualTo(0);
+  }
+
   @Test
   public void delegate_to_underlying_data_source() throws Exception {
     ProfiledDataSource proxy = new ProfiledDataSource(originDataSource, ProfiledConnectionInterceptor.INSTANCE);
@@ -24,6 +24,8 @@ import com.google.common.base.Throwables;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
 import javax.annotation.Nullable;
 import org.apache.commons.io.IOUtils;
 import org.junit.Rule;
@@ -33,7 +35,9 @@ import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.source.FileSourceDto.Type;
 
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 import static org.assertj.core.api.Assertions.fail;
 import static org.assertj.core.api.Assertions.in;
 
@@ -93,6 +97,32 @@ public class FileSourceDaoTest {
     assertThat(fn.result).isNull();
   }
 
+  @Test
+  public void select_line_hashes_of_several_files() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+
+    Map<String, String> hashesByFileUuid = new HashMap<>();
+    underTest.readLineHashesStream(dbTester.getSession(), asList("FILE1_UUID", "unknown"), (fileUuid, reader) -> {
+      try {
+        hashesByFileUuid.put(fileUuid, IOUtils.toString(reader));
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    });
+
+    assertThat(hashesByFileUuid).containsOnly(entry("FILE1_UUID", "ABC\\nDEF\\nGHI"));
+  }
+
+  @Test
+  public void no_line_hashes_of_several_files_when_only_test_data() {
+    dbTester.prepareDbUnit(getClass(), "no_line_hashes_when_only_test_data.xml");
+
+    Map<String, String> hashesByFileUuid = new HashMap<>();
+    underTest.readLineHashesStream(dbTester.getSession(), asList("FILE1_UUID"), (fileUuid, reader) -> hashesByFileUuid.put(fileUuid, "read"));
+
+    assertThat(hashesByFileUuid).isEmpty();
+  }
+
   @Test
   public void insert() {
     dbTester.prepareDbUnit(getClass(), "shared.xml");
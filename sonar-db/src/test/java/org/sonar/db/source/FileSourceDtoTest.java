@@ -19,8 +19,11 @@
  */
 package org.sonar.db.source;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import net.jpountz.lz4.LZ4BlockOutputStream;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -80,6 +83,66 @@ public class FileSourceDtoTest {
     assertThat(data.getLinesCount()).isEqualTo(build.getLinesCount());
   }
 
+  @Test
+  public void getSourceData_decodes_all_blocks_of_lines() {
+    DbFileSources.Data data = createData(2 * SourceLineBlocks.LINES_PER_BLOCK + 10);
+
+    FileSourceDto underTest = new FileSourceDto().setSourceData(data);
+
+    assertThat(SourceLineBlocks.isBlockEncoded(underTest.getBinaryData())).isTrue();
+    assertThat(underTest.getSourceData()).isEqualTo(data);
+  }
+
+  @Test
+  public void getSourceData_returns_range_of_lines_overlapping_blocks() {
+    FileSourceDto underTest = new FileSourceDto().setSourceData(createData(3 * SourceLineBlocks.LINES_PER_BLOCK));
+    int from = SourceLineBlocks.LINES_PER_BLOCK - 1;
+    int to = SourceLineBlocks.LINES_PER_BLOCK + 2;
+
+    DbFileSources.Data range = underTest.getSourceData(from, to);
+
+    assertThat(range.getLinesList()).extracting(DbFileSources.Line::getLine).containsExactly(from, from + 1, from + 2, from + 3);
+    assertThat(range.getLines(0).getSource()).isEqualTo("line " + from);
+  }
+
+  @Test
+  public void getSourceData_returns_no_lines_when_range_is_out_of_file() {
+    FileSourceDto underTest = new FileSourceDto().setSourceData(createData(10));
+
+    assertThat(underTest.getSourceData(11, 20).getLinesCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void encode_and_decode_empty_source_data() {
+    FileSourceDto underTest = new FileSourceDto().setSourceData(DbFileSources.Data.getDefaultInstance());
+
+    assertThat(underTest.getSourceData().getLinesCount()).isEqualTo(0);
+    assertThat(underTest.getSourceData(1, 10).getLinesCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void getSourceData_reads_data_persisted_as_a_single_LZ4_stream() throws IOException {
+    DbFileSources.Data data = createData(20);
+    ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
+    try (LZ4BlockOutputStream compressedOutput = new LZ4BlockOutputStream(byteOutput)) {
+      data.writeTo(compressedOutput);
+    }
+
+    FileSourceDto underTest = new FileSourceDto().setBinaryData(byteOutput.toByteArray());
+
+    assertThat(SourceLineBlocks.isBlockEncoded(underTest.getBinaryData())).isFalse();
+    assertThat(underTest.getSourceData()).isEqualTo(data);
+    assertThat(underTest.getSourceData(5, 7).getLinesList()).extracting(DbFileSources.Line::getLine).containsExactly(5, 6, 7);
+  }
+
+  private static DbFileSources.Data createData(int lines) {
+    DbFileSources.Data.Builder dataBuilder = DbFileSources.Data.newBuilder();
+    for (int i = 1; i <= lines; i++) {
+      dataBuilder.addLinesBuilder().setLine(i).setSource("line " + i);
+    }
+    return dataBuilder.build();
+  }
+
   private static DbFileSources.Data createOver64MBDataStructure() {
     DbFileSources.Data.Builder dataBuilder = DbFileSources.Data.newBuilder();
     DbFileSources.Line.Builder lineBuilder = DbFileSources.Line.newBuilder();
@@ -270,10 +270,24 @@ public class FileMetadata {
    * Maximum performance is needed.
    */
   public Metadata readMetadata(File file, Charset encoding) {
+    return readMetadata(file, encoding, new CharHandler[0]);
+  }
+
+  /**
+   * Same as {@link #readMetadata(File, Charset)}, the file being also given to other handlers
+   * during the same pass, so that it doesn't have to be read again.
+   * @since 6.2
+   */
+  public Metadata readMetadata(File file, Charset encoding, CharHandler... otherHandlers) {
     LineCounter lineCounter = new LineCounter(file, encoding);
     FileHashComputer fileHashComputer = new FileHashComputer(file);
     LineOffsetCounter lineOffsetCounter = new LineOffsetCounter();
-    readFile(file, encoding, lineCounter, fileHashComputer, lineOffsetCounter);
+    CharHandler[] handlers = new CharHandler[3 + otherHandlers.length];
+    handlers[0] = lineCounter;
+    handlers[1] = fileHashComputer;
+    handlers[2] = lineOffsetCounter;
+    System.arraycopy(otherHandlers, 0, handlers, 3, otherHandlers.length);
+    readFile(file, encoding, handlers);
     return new Metadata(lineCounter.lines(), lineCounter.nonBlankLines(), fileHashComputer.getHash(), lineOffsetCounter.getOriginalLineOffsets(),
       lineOffsetCounter.getLastValidOffset());
   }
@@ -358,13 +372,36 @@ public class FileMetadata {
     final int[] originalLineOffsets;
     final int lastValidOffset;
 
-    private Metadata(int lines, int nonBlankLines, String hash, int[] originalLineOffsets, int lastValidOffset) {
+    /**
+     * @since 6.2 public, to restore metadata computed by a previous analysis
+     */
+    public Metadata(int lines, int nonBlankLines, String hash, int[] originalLineOffsets, int lastValidOffset) {
       this.lines = lines;
       this.nonBlankLines = nonBlankLines;
       this.hash = hash;
       this.originalLineOffsets = originalLineOffsets;
       this.lastValidOffset = lastValidOffset;
     }
+
+    public int lines() {
+      return lines;
+    }
+
+    public int nonBlankLines() {
+      return nonBlankLines;
+    }
+
+    public String hash() {
+      return hash;
+    }
+
+    public int[] originalLineOffsets() {
+      return originalLineOffsets;
+    }
+
+    public int lastValidOffset() {
+      return lastValidOffset;
+    }
   }
 
   public interface LineHashConsumer {
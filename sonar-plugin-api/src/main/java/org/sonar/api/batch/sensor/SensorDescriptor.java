@@ -79,4 +79,14 @@ public interface SensorDescriptor {
    */
   SensorDescriptor requireProperties(String... propertyKeys);
 
+  /**
+   * Declare that this {@link Sensor} can be executed concurrently with other thread-safe sensors of the same phase.
+   * The {@link Sensor} must not share mutable state with other sensors. Data saved through {@link SensorContext} is
+   * safe for concurrent callers.
+   * Sensors are executed concurrently only if the property "sonar.sensors.threads" is greater than 1.
+   * Default is to execute the {@link Sensor} alone.
+   * @since 6.2
+   */
+  SensorDescriptor threadSafe();
+
 }
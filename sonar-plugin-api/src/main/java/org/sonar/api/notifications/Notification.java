@@ -25,6 +25,7 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.Map;
 
 /**
@@ -117,6 +118,16 @@ public class Notification implements Serializable {
     return fields.get(field);
   }
 
+  /**
+   * Returns all the fields of the notification, including the default message.
+   *
+   * @return an unmodifiable view of the fields, keyed by name
+   * @since 6.2
+   */
+  public Map<String, String> getFields() {
+    return Collections.unmodifiableMap(fields);
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (!(obj instanceof Notification)) {
@@ -26,6 +26,7 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 import javax.annotation.CheckForNull;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.utils.DateUtils;
@@ -296,6 +297,16 @@ public abstract class Request {
    */
   public abstract String getPath();
 
+  /**
+   * Returns value of a HTTP header, for example {@code If-None-Match}. Returns
+   * an empty {@link Optional} if the header is not present or if the request is not
+   * an HTTP request (for instance a call from {@link LocalConnector}).
+   * @since 6.2
+   */
+  public Optional<String> header(String name) {
+    return Optional.empty();
+  }
+
   /**
    * @since 6.0
    */
@@ -192,6 +192,18 @@ public final class ZipUtils {
     }
   }
 
+  /**
+   * Compresses the files of a directory into a stream. The stream is not closed, so that
+   * it can be for example the body of an HTTP request.
+   * @since 6.2
+   */
+  public static void zipDir(File dir, OutputStream out) throws IOException {
+    ZipOutputStream zout = new ZipOutputStream(out);
+    doZipDir(dir, zout);
+    zout.finish();
+    zout.flush();
+  }
+
   private static void doZip(String entryName, InputStream in, ZipOutputStream out) throws IOException {
     ZipEntry entry = new ZipEntry(entryName);
     out.putNextEntry(entry);
@@ -28,8 +28,10 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Iterator;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -61,6 +63,22 @@ public class ZipUtilsTest {
     assertThat(new File(unzipDir, "dir1/hello.properties")).exists().isFile();
   }
 
+  @Test
+  public void zip_directory_into_stream_without_closing_it() throws IOException {
+    File foo = FileUtils.toFile(getClass().getResource("/org/sonar/api/utils/ZipUtilsTest/shouldZipDirectory/foo.txt"));
+    File dir = foo.getParentFile();
+    File zip = temp.newFile();
+
+    try (OutputStream out = new FileOutputStream(zip)) {
+      ZipUtils.zipDir(dir, out);
+      // stream is still open
+      out.flush();
+    }
+
+    Iterator<? extends ZipEntry> zipEntries = Iterators.forEnumeration(new ZipFile(zip).entries());
+    assertThat(zipEntries).hasSize(4);
+  }
+
   @Test
   public void unzipping_creates_target_directory_if_it_does_not_exist() throws IOException {
     File zip = FileUtils.toFile(urlToZip());
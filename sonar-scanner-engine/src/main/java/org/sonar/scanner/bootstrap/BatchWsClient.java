@@ -25,22 +25,31 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import javax.annotation.Nullable;
+import org.apache.commons.io.IOUtils;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.utils.MessageException;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.api.utils.log.Profiler;
+import org.sonarqube.ws.client.GetRequest;
 import org.sonarqube.ws.client.HttpException;
 import org.sonarqube.ws.client.WsClient;
 import org.sonarqube.ws.client.WsConnector;
 import org.sonarqube.ws.client.WsRequest;
 import org.sonarqube.ws.client.WsResponse;
 
+import static com.google.common.net.HttpHeaders.ETAG;
+import static com.google.common.net.HttpHeaders.IF_NONE_MATCH;
 import static java.lang.String.format;
 import static java.net.HttpURLConnection.HTTP_BAD_REQUEST;
 import static java.net.HttpURLConnection.HTTP_FORBIDDEN;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
 import static java.net.HttpURLConnection.HTTP_UNAUTHORIZED;
 
 public class BatchWsClient {
@@ -49,10 +58,16 @@ public class BatchWsClient {
 
   private final WsClient target;
   private final boolean hasCredentials;
+  private final WsResponseCache cache;
 
   public BatchWsClient(WsClient target, boolean hasCredentials) {
+    this(target, hasCredentials, null);
+  }
+
+  BatchWsClient(WsClient target, boolean hasCredentials, @Nullable WsResponseCache cache) {
     this.target = target;
     this.hasCredentials = hasCredentials;
+    this.cache = cache;
   }
 
   /**
@@ -65,10 +80,51 @@ public class BatchWsClient {
    * @throws HttpException if the response code is not in range [200..300)
    */
   public WsResponse call(WsRequest request) {
+    if (cache != null && request instanceof GetRequest) {
+      return callWithCache((GetRequest) request);
+    }
+    WsResponse response = doCall(request);
+    failIfUnauthorized(response);
+    return response;
+  }
+
+  /**
+   * GET responses with an ETag are kept in cache. The next calls of the same request send the
+   * ETag in the header If-None-Match, so that the server replies 304 (Not Modified) without
+   * content if the cached response is still up-to-date.
+   */
+  private WsResponse callWithCache(GetRequest request) {
+    String key = cache.key(baseUrl(), request);
+    WsResponseCache.Entry cached = cache.get(key);
+    if (cached != null) {
+      request.setHeader(IF_NONE_MATCH, cached.etag());
+    }
+    WsResponse response = doCall(request);
+    if (cached != null && response.code() == HTTP_NOT_MODIFIED) {
+      response.close();
+      return cached.toResponse(response.requestUrl());
+    }
+    failIfUnauthorized(response);
+    Optional<String> etag = response.header(ETAG);
+    if (!etag.isPresent()) {
+      return response;
+    }
+    WsResponseCache.Entry entry;
+    try (InputStream input = response.contentStream()) {
+      entry = new WsResponseCache.Entry(etag.get(), response.contentType(), IOUtils.toByteArray(input));
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to read response of " + response.requestUrl(), e);
+    } finally {
+      response.close();
+    }
+    cache.put(key, entry);
+    return entry.toResponse(response.requestUrl());
+  }
+
+  private WsResponse doCall(WsRequest request) {
     Profiler profiler = Profiler.createIfDebug(LOG).start();
     WsResponse response = target.wsConnector().call(request);
     profiler.stopDebug(format("%s %d %s", request.getMethod(), response.code(), response.requestUrl()));
-    failIfUnauthorized(response);
     return response;
   }
 
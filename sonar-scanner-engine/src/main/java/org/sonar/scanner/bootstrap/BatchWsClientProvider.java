@@ -19,13 +19,16 @@
  */
 package org.sonar.scanner.bootstrap;
 
+import java.io.File;
 import org.picocontainer.injectors.ProviderAdapter;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.batch.bootstrapper.EnvironmentInformation;
+import org.sonar.home.cache.FileCacheBuilder;
 import org.sonarqube.ws.client.HttpConnector;
 import org.sonarqube.ws.client.WsClientFactories;
 
+import static com.google.common.base.Strings.nullToEmpty;
 import static java.lang.Integer.parseInt;
 import static java.lang.String.valueOf;
 import static org.apache.commons.lang.StringUtils.defaultIfBlank;
@@ -37,6 +40,13 @@ public class BatchWsClientProvider extends ProviderAdapter {
   static final String READ_TIMEOUT_SEC_PROPERTY = "sonar.ws.timeout";
   static final int DEFAULT_READ_TIMEOUT_SEC = 60;
 
+  /**
+   * Keep the responses of web services in the user cache, so that they are not downloaded again
+   * by the next analyses if they did not change on server. Disabled by default as the responses
+   * may contain secured settings.
+   */
+  static final String CACHE_PROPERTY = "sonar.scanner.wsCache";
+
   private BatchWsClient wsClient;
 
   public synchronized BatchWsClient provide(final GlobalProperties settings, final EnvironmentInformation env) {
@@ -46,12 +56,13 @@ public class BatchWsClientProvider extends ProviderAdapter {
 
       String timeoutSec = defaultIfBlank(settings.property(READ_TIMEOUT_SEC_PROPERTY), valueOf(DEFAULT_READ_TIMEOUT_SEC));
       String login = defaultIfBlank(settings.property(CoreProperties.LOGIN), null);
+      String password = settings.property(CoreProperties.PASSWORD);
       connectorBuilder
         .readTimeoutMilliseconds(parseInt(timeoutSec) * 1_000)
         .connectTimeoutMilliseconds(CONNECT_TIMEOUT_MS)
         .userAgent(env.toString())
         .url(url)
-        .credentials(login, settings.property(CoreProperties.PASSWORD));
+        .credentials(login, password);
 
       // OkHttp detect 'http.proxyHost' java property, but credentials should be filled
       final String proxyUser = System.getProperty("http.proxyUser", "");
@@ -59,7 +70,13 @@ public class BatchWsClientProvider extends ProviderAdapter {
         connectorBuilder.proxyCredentials(proxyUser, System.getProperty("http.proxyPassword"));
       }
 
-      wsClient = new BatchWsClient(WsClientFactories.getDefault().newClient(connectorBuilder.build()), login != null);
+      WsResponseCache cache = null;
+      if ("true".equals(settings.property(CACHE_PROPERTY))) {
+        File cacheDir = new FileCacheBuilder(new Slf4jLogger()).setUserHome(settings.property("sonar.userHome")).build().getDir();
+        cache = new WsResponseCache(cacheDir, nullToEmpty(login) + ":" + nullToEmpty(password));
+      }
+
+      wsClient = new BatchWsClient(WsClientFactories.getDefault().newClient(connectorBuilder.build()), login != null, cache);
     }
     return wsClient;
   }
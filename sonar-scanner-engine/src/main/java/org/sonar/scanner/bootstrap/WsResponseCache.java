@@ -0,0 +1,201 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.bootstrap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonarqube.ws.client.WsRequest;
+import org.sonarqube.ws.client.WsResponse;
+
+import static java.net.HttpURLConnection.HTTP_OK;
+
+/**
+ * Responses of web services that are identified by an ETag, persisted in the user cache
+ * (see {@link org.sonar.home.cache.FileCache}) so that they are shared by the next analyses.
+ * The server is then called with the header If-None-Match and does not send the response again
+ * if it did not change.
+ * <p/>
+ * Entries are keyed by the SHA1 of server URL, credentials and request, so users of the same
+ * machine with different permissions never share entries. Files are created with the default
+ * permissions of temporary files, which are restricted to owner on POSIX file systems.
+ */
+class WsResponseCache {
+
+  static final String DIR_NAME = "_ws";
+  private static final Logger LOG = Loggers.get(WsResponseCache.class);
+
+  private final File dir;
+  private final String identity;
+
+  WsResponseCache(File cacheDir, String identity) {
+    this.dir = new File(cacheDir, DIR_NAME);
+    this.identity = identity;
+  }
+
+  String key(String baseUrl, WsRequest request) {
+    StringBuilder sb = new StringBuilder();
+    sb.append(baseUrl).append('\n')
+      .append(identity).append('\n')
+      .append(request.getMethod()).append(' ').append(request.getPath()).append('\n')
+      .append(request.getMediaType());
+    for (String paramKey : request.getParameters().getKeys()) {
+      sb.append('\n').append(paramKey).append('=').append(String.join(",", request.getParameters().getValues(paramKey)));
+    }
+    return DigestUtils.sha1Hex(sb.toString());
+  }
+
+  @CheckForNull
+  Entry get(String key) {
+    File file = new File(dir, key);
+    if (!file.exists()) {
+      return null;
+    }
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+      String etag = input.readUTF();
+      String contentType = input.readUTF();
+      byte[] content = new byte[input.readInt()];
+      input.readFully(content);
+      return new Entry(etag, contentType, content);
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("Fail to read the cached response " + file, e);
+      return null;
+    }
+  }
+
+  void put(String key, Entry entry) {
+    try {
+      Files.createDirectories(dir.toPath());
+      Path tempFile = Files.createTempFile(dir.toPath(), key, ".tmp");
+      try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+        output.writeUTF(entry.etag);
+        output.writeUTF(entry.contentType);
+        output.writeInt(entry.content.length);
+        output.write(entry.content);
+      }
+      Files.move(tempFile, new File(dir, key).toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      // the cache is an optimization only
+      LOG.warn("Fail to cache the response " + key, e);
+    }
+  }
+
+  static class Entry {
+    private final String etag;
+    private final String contentType;
+    private final byte[] content;
+
+    Entry(String etag, @Nullable String contentType, byte[] content) {
+      this.etag = etag;
+      this.contentType = contentType == null ? "" : contentType;
+      this.content = content;
+    }
+
+    String etag() {
+      return etag;
+    }
+
+    WsResponse toResponse(String requestUrl) {
+      return new CachedWsResponse(requestUrl, this);
+    }
+  }
+
+  private static class CachedWsResponse implements WsResponse {
+    private final String requestUrl;
+    private final Entry entry;
+
+    private CachedWsResponse(String requestUrl, Entry entry) {
+      this.requestUrl = requestUrl;
+      this.entry = entry;
+    }
+
+    @Override
+    public String requestUrl() {
+      return requestUrl;
+    }
+
+    @Override
+    public int code() {
+      return HTTP_OK;
+    }
+
+    @Override
+    public boolean isSuccessful() {
+      return true;
+    }
+
+    @Override
+    public WsResponse failIfNotSuccessful() {
+      return this;
+    }
+
+    @Override
+    public String contentType() {
+      return entry.contentType;
+    }
+
+    @Override
+    public Optional<String> header(String name) {
+      return "ETag".equalsIgnoreCase(name) ? Optional.of(entry.etag) : Optional.empty();
+    }
+
+    @Override
+    public boolean hasContent() {
+      return true;
+    }
+
+    @Override
+    public InputStream contentStream() {
+      return new ByteArrayInputStream(entry.content);
+    }
+
+    @Override
+    public Reader contentReader() {
+      return new InputStreamReader(contentStream(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String content() {
+      return new String(entry.content, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() {
+      // nothing to release
+    }
+  }
+}
@@ -22,7 +22,10 @@ package org.sonar.scanner.cpd;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
@@ -30,10 +33,12 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import javax.annotation.CheckForNull;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.config.Settings;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.config.ScannerThreadsProperties;
 import org.sonar.duplications.block.Block;
 import org.sonar.duplications.detector.suffixtree.SuffixTreeCloneDetectionAlgorithm;
 import org.sonar.duplications.index.CloneGroup;
@@ -54,9 +59,14 @@ import static com.google.common.collect.FluentIterable.from;
  * Runs on the root module, at the end of the project analysis.
  * It executes copy paste detection involving all files of all modules, which were indexed during sensors execution for each module
  * by {@link CpdSensor). The sensor is responsible for handling exclusions and block sizes.
+ * <p/>
+ * Detection of duplications of each file can be executed in parallel by setting the property {@link #THREADS_PROPERTY}.
+ * The index is read-only at this stage. Results are saved to report by the calling thread, in the same order as
+ * in sequential mode.
  */
 public class CpdExecutor {
   private static final Logger LOG = Loggers.get(CpdExecutor.class);
+  static final String THREADS_PROPERTY = ScannerThreadsProperties.CPD_THREADS;
   // timeout for the computation of duplicates in a file (seconds)
   private static final int TIMEOUT = 5 * 60;
   static final int MAX_CLONE_GROUP_PER_FILE = 100;
@@ -66,7 +76,6 @@ public class CpdExecutor {
   private final ReportPublisher publisher;
   private final BatchComponentCache batchComponentCache;
   private final Settings settings;
-  private final ExecutorService executorService;
   private final ProgressReport progressReport;
   private int count;
   private int total;
@@ -76,50 +85,77 @@ public class CpdExecutor {
     this.index = index;
     this.publisher = publisher;
     this.batchComponentCache = batchComponentCache;
-    this.executorService = Executors.newSingleThreadExecutor();
     this.progressReport = new ProgressReport("CPD computation", TimeUnit.SECONDS.toMillis(10));
   }
 
   public void execute() {
+    long timeoutMs = TimeUnit.SECONDS.toMillis(TIMEOUT);
+    int threads = getThreads();
     total = index.noResources();
     progressReport.start(String.format("Calculating CPD for %d files", total));
+    ExecutorService executorService = threads == 1 ? Executors.newSingleThreadExecutor()
+      : Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("cpd-%d").setDaemon(true).build());
     try {
       Iterator<ResourceBlocks> it = index.iterator();
+      // no more pending files than threads, so that each file starts to be processed as soon as submitted
+      Deque<FileDetection> pending = new ArrayDeque<>(threads);
 
       while (it.hasNext()) {
         ResourceBlocks resourceBlocks = it.next();
-        runCpdAnalysis(resourceBlocks.resourceId(), resourceBlocks.blocks());
-        count++;
+        FileDetection detection = submitCpdAnalysis(executorService, resourceBlocks.resourceId(), resourceBlocks.blocks());
+        if (detection == null) {
+          count++;
+        } else {
+          pending.add(detection);
+        }
+        if (pending.size() >= threads) {
+          completeCpdAnalysis(pending.poll(), timeoutMs);
+        }
+      }
+      while (!pending.isEmpty()) {
+        completeCpdAnalysis(pending.poll(), timeoutMs);
       }
       progressReport.stop("CPD calculation finished");
     } catch (Exception e) {
       progressReport.stop("");
       throw e;
+    } finally {
+      executorService.shutdownNow();
     }
   }
 
-  private void runCpdAnalysis(String resource, final Collection<Block> fileBlocks) {
+  @VisibleForTesting
+  int getThreads() {
+    int threads = settings.getInt(THREADS_PROPERTY);
+    return threads > 0 ? threads : 1;
+  }
+
+  @CheckForNull
+  private FileDetection submitCpdAnalysis(ExecutorService executorService, String resource, final Collection<Block> fileBlocks) {
     LOG.debug("Detection of duplications for {}", resource);
 
     BatchComponent component = batchComponentCache.get(resource);
     if (component == null) {
       LOG.error("Resource not found in component cache: {}. Skipping CPD computation for it", resource);
-      return;
+      return null;
     }
 
-    InputFile inputFile = (InputFile) component.inputComponent();
+    Future<List<CloneGroup>> futureResult = executorService.submit(() -> SuffixTreeCloneDetectionAlgorithm.detect(index, fileBlocks));
+    return new FileDetection(component, futureResult, System.currentTimeMillis());
+  }
+
+  private void completeCpdAnalysis(FileDetection detection, long timeoutMs) {
+    InputFile inputFile = (InputFile) detection.component.inputComponent();
     progressReport.message(String.format("%d/%d - current file: %s", count, total, inputFile.absolutePath()));
+    count++;
 
     List<CloneGroup> duplications;
-    Future<List<CloneGroup>> futureResult = null;
     try {
-      futureResult = executorService.submit(() -> SuffixTreeCloneDetectionAlgorithm.detect(index, fileBlocks));
-      duplications = futureResult.get(TIMEOUT, TimeUnit.SECONDS);
+      long remainingMs = Math.max(0L, detection.startedAt + timeoutMs - System.currentTimeMillis());
+      duplications = detection.futureResult.get(remainingMs, TimeUnit.MILLISECONDS);
     } catch (TimeoutException e) {
       LOG.warn("Timeout during detection of duplications for " + inputFile.absolutePath());
-      if (futureResult != null) {
-        futureResult.cancel(true);
-      }
+      detection.futureResult.cancel(true);
       return;
     } catch (Exception e) {
       throw new IllegalStateException("Fail during detection of duplication for " + inputFile.absolutePath(), e);
@@ -133,7 +169,19 @@ public class CpdExecutor {
       filtered = duplications;
     }
 
-    saveDuplications(component, filtered);
+    saveDuplications(detection.component, filtered);
+  }
+
+  private static class FileDetection {
+    private final BatchComponent component;
+    private final Future<List<CloneGroup>> futureResult;
+    private final long startedAt;
+
+    private FileDetection(BatchComponent component, Future<List<CloneGroup>> futureResult, long startedAt) {
+      this.component = component;
+      this.futureResult = futureResult;
+      this.startedAt = startedAt;
+    }
   }
 
   @VisibleForTesting
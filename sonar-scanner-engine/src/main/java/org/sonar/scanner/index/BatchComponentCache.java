@@ -22,6 +22,7 @@ package org.sonar.scanner.index;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.collect.Maps;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Map;
 import javax.annotation.CheckForNull;
@@ -30,6 +31,10 @@ import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.fs.InputComponent;
 import org.sonar.api.resources.Resource;
 
+/**
+ * Components are added by the modules while they index their filesystem, one module after the other
+ * so that references of components do not depend on concurrent scanning of modules.
+ */
 @ScannerSide
 public class BatchComponentCache {
   // components by key
@@ -38,19 +43,19 @@ public class BatchComponentCache {
   private BatchComponent root;
 
   @CheckForNull
-  public BatchComponent get(String componentKey) {
+  public synchronized BatchComponent get(String componentKey) {
     return components.get(componentKey);
   }
 
-  public BatchComponent get(Resource resource) {
+  public synchronized BatchComponent get(Resource resource) {
     return components.get(resource.getEffectiveKey());
   }
 
-  public BatchComponent get(InputComponent inputComponent) {
+  public synchronized BatchComponent get(InputComponent inputComponent) {
     return components.get(inputComponent.key());
   }
 
-  public BatchComponent add(Resource resource, @Nullable Resource parentResource) {
+  public synchronized BatchComponent add(Resource resource, @Nullable Resource parentResource) {
     String componentKey = resource.getEffectiveKey();
     Preconditions.checkState(!Strings.isNullOrEmpty(componentKey), "Missing resource effective key");
     BatchComponent parent = parentResource != null ? get(parentResource.getEffectiveKey()) : null;
@@ -62,11 +67,11 @@ public class BatchComponentCache {
     return batchComponent;
   }
 
-  public Collection<BatchComponent> all() {
-    return components.values();
+  public synchronized Collection<BatchComponent> all() {
+    return new ArrayList<>(components.values());
   }
 
-  public BatchComponent getRoot() {
+  public synchronized BatchComponent getRoot() {
     return root;
   }
 }
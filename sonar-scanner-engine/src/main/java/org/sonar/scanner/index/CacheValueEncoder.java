@@ -0,0 +1,104 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.index;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * Encodes values of any type to bytes. Each encoded value starts with a tag identifying its encoding:
+ * the {@link CacheValueCodec} registered for its type, UTF-8 for strings, or else Java serialization.
+ * Thread-safe.
+ */
+class CacheValueEncoder {
+
+  private static final byte NULL = 0;
+  private static final byte STRING = 1;
+  private static final byte SERIALIZED = 2;
+  private static final int FIRST_CODEC = 3;
+
+  private final Map<Class<?>, Integer> codecIdsByType = new ConcurrentHashMap<>();
+  private final List<CacheValueCodec<?>> codecs = new CopyOnWriteArrayList<>();
+
+  synchronized <V> void register(Class<V> type, CacheValueCodec<V> codec) {
+    if (FIRST_CODEC + codecs.size() > Byte.MAX_VALUE) {
+      throw new IllegalStateException("Too many value codecs");
+    }
+    codecs.add(codec);
+    codecIdsByType.put(type, FIRST_CODEC + codecs.size() - 1);
+  }
+
+  @SuppressWarnings("unchecked")
+  byte[] encode(@Nullable Object value) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(bytes)) {
+      if (value == null) {
+        output.writeByte(NULL);
+      } else if (value instanceof String) {
+        output.writeByte(STRING);
+        CacheValueCodecs.writeString(output, (String) value);
+      } else {
+        Integer codecId = codecIdsByType.get(value.getClass());
+        if (codecId != null) {
+          output.writeByte(codecId);
+          ((CacheValueCodec<Object>) codecs.get(codecId - FIRST_CODEC)).write(output, value);
+        } else {
+          output.writeByte(SERIALIZED);
+          ObjectOutputStream objectOutput = new ObjectOutputStream(output);
+          objectOutput.writeObject(value);
+          objectOutput.flush();
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to encode value of type " + value.getClass().getName(), e);
+    }
+    return bytes.toByteArray();
+  }
+
+  @CheckForNull
+  Object decode(byte[] bytes) {
+    try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      byte tag = input.readByte();
+      switch (tag) {
+        case NULL:
+          return null;
+        case STRING:
+          return CacheValueCodecs.readString(input);
+        case SERIALIZED:
+          return new ObjectInputStream(input).readObject();
+        default:
+          return codecs.get(tag - FIRST_CODEC).read(input);
+      }
+    } catch (IOException | ClassNotFoundException e) {
+      throw new IllegalStateException("Fail to decode value", e);
+    }
+  }
+}
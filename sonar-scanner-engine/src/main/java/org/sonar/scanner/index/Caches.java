@@ -19,33 +19,72 @@
  */
 package org.sonar.scanner.index;
 
-import com.google.common.collect.Maps;
-
-import java.util.Map;
-import java.util.Map.Entry;
-
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
 import com.persistit.Exchange;
-import com.persistit.Value;
-import com.persistit.encoding.CoderManager;
 import com.persistit.Persistit;
-import com.persistit.encoding.ValueCoder;
-import com.persistit.exception.PersistitException;
+import com.persistit.Value;
 import com.persistit.Volume;
+import com.persistit.exception.PersistitException;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Map.Entry;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.picocontainer.Startable;
 import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.config.Settings;
 
+/**
+ * Creates the caches of a project analysis. The storage of caches is chosen by the property {@link #BACKEND_PROPERTY}:
+ * <ul>
+ *   <li>{@link #PERSISTIT_BACKEND} (default): a temporary Persistit volume</li>
+ *   <li>{@link #MMAP_BACKEND}: memory-mapped files, values being kept out of the Java heap. Reads and writes
+ *   are not serialized.</li>
+ * </ul>
+ */
 @ScannerSide
 public class Caches implements Startable {
+  public static final String BACKEND_PROPERTY = "sonar.scanner.cache.backend";
+  public static final String PERSISTIT_BACKEND = "persistit";
+  public static final String MMAP_BACKEND = "mmap";
+
   private final Map<String, Exchange> cacheMap = Maps.newHashMap();
+  private final CacheValueEncoder encoder = new CacheValueEncoder();
+  private final boolean mmap;
+  private final File tempDir;
   private Persistit persistit;
   private Volume volume;
+  @CheckForNull
+  private MappedStorage mappedStorage;
 
   public Caches(CachesManager caches) {
-    persistit = caches.persistit();
+    this(caches, false);
+  }
+
+  public Caches(CachesManager caches, Settings settings) {
+    this(caches, isMmap(settings.getString(BACKEND_PROPERTY)));
+  }
+
+  private Caches(CachesManager caches, boolean mmap) {
+    this.persistit = caches.persistit();
+    this.tempDir = caches.tempDir();
+    this.mmap = mmap;
     doStart();
   }
 
+  private static boolean isMmap(@Nullable String backend) {
+    if (backend == null || PERSISTIT_BACKEND.equals(backend)) {
+      return false;
+    }
+    if (MMAP_BACKEND.equals(backend)) {
+      return true;
+    }
+    throw new IllegalArgumentException(String.format("Unsupported value of property %s: %s. Supported values are %s and %s", BACKEND_PROPERTY,
+      backend, PERSISTIT_BACKEND, MMAP_BACKEND));
+  }
+
   @Override
   public void start() {
     // done in constructor
@@ -53,25 +92,37 @@ public class Caches implements Startable {
 
   private void doStart() {
     try {
-      persistit.flush();
-      volume = persistit.createTemporaryVolume();
+      if (mmap) {
+        mappedStorage = new MappedStorage(Files.createTempDirectory(tempDir.toPath(), "mapped").toFile(), MappedStorage.DEFAULT_SEGMENT_SIZE);
+      } else {
+        persistit.flush();
+        volume = persistit.createTemporaryVolume();
+      }
     } catch (Exception e) {
       throw new IllegalStateException("Fail to create a cache volume", e);
     }
   }
 
-  public void registerValueCoder(Class<?> clazz, ValueCoder coder) {
-    CoderManager cm = persistit.getCoderManager();
-    cm.registerValueCoder(clazz, coder);
+  /**
+   * Registers the encoding of the values of the given type, for all the caches.
+   */
+  public <V> void registerValueCodec(Class<V> clazz, CacheValueCodec<V> codec) {
+    encoder.register(clazz, codec);
+    persistit.getCoderManager().registerValueCoder(clazz, new PersistitValueCoder<>(codec));
   }
 
   public <V> Cache<V> createCache(String cacheName) {
-    Preconditions.checkState(volume != null && volume.isOpened(), "Caches are not initialized");
     Preconditions.checkState(!cacheMap.containsKey(cacheName), "Cache is already created: " + cacheName);
+    if (mmap) {
+      Preconditions.checkState(mappedStorage != null, "Caches are not initialized");
+      cacheMap.put(cacheName, null);
+      return new MappedCache<>(cacheName, mappedStorage, encoder);
+    }
+    Preconditions.checkState(volume != null && volume.isOpened(), "Caches are not initialized");
     try {
       Exchange exchange = persistit.getExchange(volume, cacheName, true);
       exchange.setMaximumValueSize(Value.MAXIMUM_SIZE);
-      Cache<V> cache = new Cache<>(cacheName, exchange);
+      Cache<V> cache = new PersistitCache<>(cacheName, exchange);
       cacheMap.put(cacheName, exchange);
       return cache;
     } catch (Exception e) {
@@ -82,11 +133,18 @@ public class Caches implements Startable {
   @Override
   public void stop() {
     for (Entry<String, Exchange> e : cacheMap.entrySet()) {
-      persistit.releaseExchange(e.getValue());
+      if (e.getValue() != null) {
+        persistit.releaseExchange(e.getValue());
+      }
     }
 
     cacheMap.clear();
 
+    if (mappedStorage != null) {
+      mappedStorage.close();
+      mappedStorage = null;
+    }
+
     if (volume != null) {
       try {
         volume.close();
@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -58,10 +59,13 @@ public class DefaultIndex {
   private final BatchComponentCache componentCache;
   private final MeasureCache measureCache;
   private final DefaultProjectTree projectTree;
+  // modules may be scanned concurrently, each one by its own thread and the threads it creates
+  private final ThreadLocal<Project> moduleOfThread = new InheritableThreadLocal<>();
+  private final ThreadLocal<DefaultSensorStorage> sensorStorageOfThread = new InheritableThreadLocal<>();
   // caches
-  private DefaultSensorStorage sensorStorage;
-  private Project currentProject;
-  private Map<Resource, Bucket> buckets = Maps.newLinkedHashMap();
+  private volatile DefaultSensorStorage sensorStorage;
+  private volatile Project currentProject;
+  private final Map<Resource, Bucket> buckets = Maps.newLinkedHashMap();
 
   public DefaultIndex(BatchComponentCache componentCache, DefaultProjectTree projectTree, MeasureCache measureCache) {
     this.componentCache = componentCache;
@@ -76,7 +80,7 @@ public class DefaultIndex {
     }
   }
 
-  void doStart(Project rootProject) {
+  synchronized void doStart(Project rootProject) {
     Bucket bucket = new Bucket(rootProject);
     addBucket(rootProject, bucket);
     BatchComponent component = componentCache.add(rootProject, null);
@@ -104,26 +108,39 @@ public class DefaultIndex {
     }
   }
 
+  /**
+   * The module scanned by the current thread, or else the last module to be scanned
+   */
   public Project getProject() {
-    return currentProject;
+    Project module = moduleOfThread.get();
+    return module != null ? module : currentProject;
+  }
+
+  private DefaultSensorStorage getSensorStorage() {
+    DefaultSensorStorage storage = sensorStorageOfThread.get();
+    return storage != null ? storage : sensorStorage;
   }
 
   public void setCurrentProject(Project project, DefaultSensorStorage sensorStorage) {
     this.currentProject = project;
+    this.moduleOfThread.set(project);
 
     // the following components depend on the current module, so they need to be reloaded.
     this.sensorStorage = sensorStorage;
+    this.sensorStorageOfThread.set(sensorStorage);
   }
 
   /**
-   * Keep only project stuff
+   * Keep only project stuff. Only the resources of the current module are removed, as other
+   * modules may be scanned concurrently.
    */
-  public void clear() {
+  public synchronized void clear() {
+    Project module = getProject();
     Iterator<Map.Entry<Resource, Bucket>> it = buckets.entrySet().iterator();
     while (it.hasNext()) {
       Map.Entry<Resource, Bucket> entry = it.next();
       Resource resource = entry.getKey();
-      if (!ResourceUtils.isSet(resource)) {
+      if (!ResourceUtils.isSet(resource) && isInModule(entry.getValue(), module)) {
         entry.getValue().clear();
         it.remove();
       }
@@ -131,6 +148,14 @@ public class DefaultIndex {
     }
   }
 
+  private static boolean isInModule(Bucket bucket, Project module) {
+    Bucket parent = bucket.getParent();
+    while (parent != null && !ResourceUtils.isSet(parent.getResource())) {
+      parent = parent.getParent();
+    }
+    return parent == null || parent.getResource().equals(module);
+  }
+
   @CheckForNull
   public Measure getMeasure(Resource resource, org.sonar.api.batch.measure.Metric<?> metric) {
     return getMeasures(resource, MeasuresFilters.metric(metric));
@@ -161,7 +186,7 @@ public class DefaultIndex {
   public Measure addMeasure(Resource resource, Measure measure) {
     Bucket bucket = getBucket(resource);
     if (bucket != null) {
-      return sensorStorage.saveMeasure(resource, measure);
+      return getSensorStorage().saveMeasure(resource, measure);
     }
     return measure;
   }
@@ -170,15 +195,15 @@ public class DefaultIndex {
     return dependency;
   }
 
-  public Set<Resource> getResources() {
-    return buckets.keySet();
+  public synchronized Set<Resource> getResources() {
+    return new LinkedHashSet<>(buckets.keySet());
   }
 
   public String getSource(Resource reference) {
     Resource resource = getResource(reference);
     if (resource instanceof File) {
       File file = (File) resource;
-      Project module = currentProject;
+      Project module = getProject();
       ProjectDefinition def = projectTree.getProjectDefinition(module);
       try {
         return FileUtils.readFileToString(new java.io.File(def.getBaseDir(), file.getPath()));
@@ -192,13 +217,13 @@ public class DefaultIndex {
   /**
    * Does nothing if the resource is already registered.
    */
-  public Resource addResource(Resource resource) {
+  public synchronized Resource addResource(Resource resource) {
     Bucket bucket = doIndex(resource);
     return bucket != null ? bucket.getResource() : null;
   }
 
   @CheckForNull
-  public <R extends Resource> R getResource(@Nullable R reference) {
+  public synchronized <R extends Resource> R getResource(@Nullable R reference) {
     Bucket bucket = getBucket(reference);
     if (bucket != null) {
       return (R) bucket.getResource();
@@ -206,7 +231,7 @@ public class DefaultIndex {
     return null;
   }
 
-  public List<Resource> getChildren(Resource resource) {
+  public synchronized List<Resource> getChildren(Resource resource) {
     List<Resource> children = Lists.newLinkedList();
     Bucket bucket = getBucket(resource);
     if (bucket != null) {
@@ -217,7 +242,7 @@ public class DefaultIndex {
     return children;
   }
 
-  public Resource getParent(Resource resource) {
+  public synchronized Resource getParent(Resource resource) {
     Bucket bucket = getBucket(resource);
     if (bucket != null && bucket.getParent() != null) {
       return bucket.getParent().getResource();
@@ -225,7 +250,7 @@ public class DefaultIndex {
     return null;
   }
 
-  public boolean index(Resource resource) {
+  public synchronized boolean index(Resource resource) {
     Bucket bucket = doIndex(resource);
     return bucket != null;
   }
@@ -237,7 +262,7 @@ public class DefaultIndex {
     return doIndex(resource, resource.getParent());
   }
 
-  public boolean index(Resource resource, Resource parentReference) {
+  public synchronized boolean index(Resource resource, Resource parentReference) {
     Bucket bucket = doIndex(resource, parentReference);
     return bucket != null;
   }
@@ -253,7 +278,8 @@ public class DefaultIndex {
       return null;
     }
 
-    Resource parent = (Resource) ObjectUtils.defaultIfNull(parentReference, currentProject);
+    Project module = getProject();
+    Resource parent = (Resource) ObjectUtils.defaultIfNull(parentReference, module);
 
     Bucket parentBucket = getBucket(parent);
     if (parentBucket == null && parent != null) {
@@ -264,7 +290,7 @@ public class DefaultIndex {
     if (ResourceUtils.isProject(resource) || /* For technical projects */ResourceUtils.isRootProject(resource)) {
       resource.setEffectiveKey(resource.getKey());
     } else {
-      resource.setEffectiveKey(ComponentKeys.createEffectiveKey(currentProject, resource));
+      resource.setEffectiveKey(ComponentKeys.createEffectiveKey(module, resource));
     }
     bucket = new Bucket(resource).setParent(parentBucket);
     addBucket(resource, bucket);
@@ -278,7 +304,7 @@ public class DefaultIndex {
     return bucket;
   }
 
-  private Bucket getBucket(@Nullable Resource reference) {
+  private synchronized Bucket getBucket(@Nullable Resource reference) {
     if (reference == null) {
       return null;
     }
@@ -0,0 +1,216 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.index;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.annotation.CheckForNull;
+
+/**
+ * Cache which values are stored in memory-mapped files (see {@link MappedStorage}) and encoded by
+ * {@link CacheValueEncoder}. Keys and addresses of values are kept in a concurrent sorted map, so
+ * reads and writes can be done concurrently.
+ */
+class MappedCache<V> extends Cache<V> {
+
+  private final ConcurrentNavigableMap<Object[], Long> addressesByKey = new ConcurrentSkipListMap<>(KeyComparator.INSTANCE);
+  private final MappedStorage storage;
+  private final CacheValueEncoder encoder;
+
+  MappedCache(String name, MappedStorage storage, CacheValueEncoder encoder) {
+    super(name);
+    this.storage = storage;
+    this.encoder = encoder;
+  }
+
+  @Override
+  public Cache<V> put(Object[] key, V value) {
+    long address = storage.write(encoder.encode(value));
+    // the key is copied as the array may be modified by caller
+    addressesByKey.put(key.clone(), address);
+    return this;
+  }
+
+  @CheckForNull
+  @Override
+  public V get(Object[] key) {
+    Long address = addressesByKey.get(key);
+    return address == null ? null : read(address);
+  }
+
+  @Override
+  public boolean containsKey(Object[] key) {
+    return addressesByKey.containsKey(key);
+  }
+
+  @Override
+  public boolean remove(Object[] key) {
+    return addressesByKey.remove(key) != null;
+  }
+
+  @Override
+  public Cache<V> clear(Object[] key) {
+    Iterator<Object[]> keys = addressesByKey.tailMap(key, true).keySet().iterator();
+    while (keys.hasNext() && startsWith(keys.next(), key)) {
+      keys.remove();
+    }
+    return this;
+  }
+
+  @Override
+  public void clear() {
+    addressesByKey.clear();
+  }
+
+  @Override
+  Set<Object> keySet(Object[] prefix) {
+    Set<Object> keys = new LinkedHashSet<>();
+    for (Object[] key : addressesByKey.tailMap(prefix, true).keySet()) {
+      if (!startsWith(key, prefix)) {
+        break;
+      }
+      if (key.length > prefix.length) {
+        keys.add(key[prefix.length]);
+      }
+    }
+    return keys;
+  }
+
+  @Override
+  Iterator<V> valueIterator(Object[] prefix) {
+    return new PrefixIterator<V>(prefix) {
+      @Override
+      V convert(Object[] key, long address) {
+        return read(address);
+      }
+    };
+  }
+
+  @Override
+  Iterator<Entry<V>> entryIterator(Object[] prefix) {
+    return new PrefixIterator<Entry<V>>(prefix) {
+      @Override
+      Entry<V> convert(Object[] key, long address) {
+        return new Entry<>(key.clone(), read(address));
+      }
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  private V read(long address) {
+    return (V) encoder.decode(storage.read(address));
+  }
+
+  private static boolean startsWith(Object[] key, Object[] prefix) {
+    if (key.length < prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (KeyComparator.compareParts(key[i], prefix[i]) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Iterates over the keys starting with a prefix. As the map of keys is sorted, they are contiguous.
+   */
+  private abstract class PrefixIterator<T> implements Iterator<T> {
+    private final Object[] prefix;
+    private final Iterator<Map.Entry<Object[], Long>> entries;
+    private Map.Entry<Object[], Long> nextEntry;
+    private boolean done = false;
+
+    PrefixIterator(Object[] prefix) {
+      this.prefix = prefix;
+      this.entries = addressesByKey.tailMap(prefix, true).entrySet().iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (nextEntry == null && !done && entries.hasNext()) {
+        Map.Entry<Object[], Long> entry = entries.next();
+        if (startsWith(entry.getKey(), prefix)) {
+          nextEntry = entry;
+        } else {
+          // next keys don't start with the prefix either
+          done = true;
+        }
+      }
+      return nextEntry != null;
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Map.Entry<Object[], Long> entry = nextEntry;
+      nextEntry = null;
+      return convert(entry.getKey(), entry.getValue());
+    }
+
+    abstract T convert(Object[] key, long address);
+  }
+
+  /**
+   * Keys are compared part by part. A key is lower than the keys it is a prefix of.
+   */
+  static class KeyComparator implements Comparator<Object[]> {
+    static final KeyComparator INSTANCE = new KeyComparator();
+
+    @Override
+    public int compare(Object[] key1, Object[] key2) {
+      int length = Math.min(key1.length, key2.length);
+      for (int i = 0; i < length; i++) {
+        int cmp = compareParts(key1[i], key2[i]);
+        if (cmp != 0) {
+          return cmp;
+        }
+      }
+      return Integer.compare(key1.length, key2.length);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static int compareParts(Object part1, Object part2) {
+      if (part1 == part2) {
+        return 0;
+      }
+      if (part1 == null) {
+        return -1;
+      }
+      if (part2 == null) {
+        return 1;
+      }
+      if (part1.getClass() == part2.getClass() && part1 instanceof Comparable) {
+        return ((Comparable) part1).compareTo(part2);
+      }
+      int cmp = part1.getClass().getName().compareTo(part2.getClass().getName());
+      return cmp != 0 ? cmp : part1.toString().compareTo(part2.toString());
+    }
+  }
+}
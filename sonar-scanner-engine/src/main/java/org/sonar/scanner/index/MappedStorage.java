@@ -0,0 +1,97 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.sonar.core.util.FileUtils.deleteQuietly;
+
+/**
+ * Append-only storage of byte arrays in memory-mapped files ("segments"). Data is out of the Java heap and
+ * paged to disk by the operating system when memory is short. The space of removed or replaced values
+ * is not reclaimed, storage living no longer than an analysis.
+ * <p/>
+ * Writes are serialized, reads are concurrent. An address is the index of the segment (high 32 bits) and the offset
+ * of the data in the segment (low 32 bits).
+ */
+class MappedStorage {
+
+  static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+  private final File dir;
+  private final int segmentSize;
+  private final List<ByteBuffer> segments = new CopyOnWriteArrayList<>();
+  // guarded by this
+  private ByteBuffer current;
+
+  MappedStorage(File dir, int segmentSize) {
+    this.dir = dir;
+    this.segmentSize = segmentSize;
+  }
+
+  synchronized long write(byte[] bytes) {
+    int size = Integer.BYTES + bytes.length;
+    if (current == null || current.remaining() < size) {
+      current = newSegment(Math.max(segmentSize, size));
+    }
+    long address = ((long) (segments.size() - 1) << 32) | current.position();
+    current.putInt(bytes.length);
+    current.put(bytes);
+    return address;
+  }
+
+  byte[] read(long address) {
+    ByteBuffer segment = segments.get((int) (address >>> 32)).duplicate();
+    segment.position((int) address);
+    byte[] bytes = new byte[segment.getInt()];
+    segment.get(bytes);
+    return bytes;
+  }
+
+  private ByteBuffer newSegment(int size) {
+    File file = new File(dir, "segment-" + segments.size());
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+      FileChannel channel = randomAccessFile.getChannel()) {
+      // mapping is still valid when the channel is closed
+      MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      segments.add(segment);
+      return segment;
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to create cache segment " + file, e);
+    }
+  }
+
+  /**
+   * Files can't be deleted on Windows while they are mapped. They are then deleted with the temporary
+   * directory of caches.
+   */
+  synchronized void close() {
+    segments.clear();
+    current = null;
+    deleteQuietly(dir);
+  }
+}
@@ -0,0 +1,270 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.index;
+
+import com.google.common.collect.Sets;
+import com.persistit.Exchange;
+import com.persistit.Key;
+import com.persistit.KeyFilter;
+import com.persistit.exception.PersistitException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+
+/**
+ * <p>
+ * Cache stored in a Persistit volume.
+ * </p>
+ * <p>
+ * An {@link com.persistit.Exchange} is not thread-safe, so each thread works on its own copy of the exchange
+ * of the cache.
+ * </p>
+ */
+class PersistitCache<V> extends Cache<V> {
+
+  // never used directly, only copied, so that each thread works on its own exchange
+  private final Exchange templateExchange;
+  private final ThreadLocal<Exchange> exchanges;
+
+  PersistitCache(String name, Exchange exchange) {
+    super(name);
+    this.templateExchange = exchange;
+    this.exchanges = ThreadLocal.withInitial(() -> new Exchange(templateExchange));
+  }
+
+  private Exchange exchange() {
+    return exchanges.get();
+  }
+
+  @Override
+  public Cache<V> put(Object[] key, V value) {
+    try {
+      Exchange exchange = resetKey(key);
+      exchange.getValue().put(value);
+      exchange.store();
+      return this;
+    } catch (Exception e) {
+      throw new IllegalStateException("Fail to put element in the cache " + name(), e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @CheckForNull
+  @Override
+  public V get(Object[] key) {
+    try {
+      Exchange exchange = resetKey(key);
+      exchange.fetch();
+      if (!exchange.getValue().isDefined()) {
+        return null;
+      }
+      return (V) exchange.getValue().get();
+    } catch (Exception e) {
+      // TODO add parameters to message
+      throw new IllegalStateException("Fail to get element from cache " + name(), e);
+    }
+  }
+
+  @Override
+  public boolean containsKey(Object[] key) {
+    try {
+      Exchange exchange = resetKey(key);
+      exchange.fetch();
+      return exchange.isValueDefined();
+    } catch (Exception e) {
+      // TODO add parameters to message
+      throw new IllegalStateException("Fail to check if element is in cache " + name(), e);
+    }
+  }
+
+  @Override
+  public boolean remove(Object[] key) {
+    try {
+      return resetKey(key).remove();
+    } catch (Exception e) {
+      // TODO add parameters to message
+      throw new IllegalStateException("Fail to get element from cache " + name(), e);
+    }
+  }
+
+  @Override
+  public Cache<V> clear(Object[] key) {
+    try {
+      Exchange exchange = resetKey(key);
+      Key to = new Key(exchange.getKey());
+      to.append(Key.AFTER);
+      exchange.removeKeyRange(exchange.getKey(), to);
+      return this;
+    } catch (Exception e) {
+      throw new IllegalStateException("Fail to clear values from cache " + name(), e);
+    }
+  }
+
+  @Override
+  public void clear() {
+    try {
+      Exchange exchange = exchange();
+      exchange.clear();
+      exchange.removeAll();
+    } catch (Exception e) {
+      throw new IllegalStateException("Fail to clear cache", e);
+    }
+  }
+
+  @Override
+  Set<Object> keySet(Object[] prefix) {
+    try {
+      Set<Object> keys = Sets.newLinkedHashSet();
+      Exchange exchange = exchange();
+      exchange.clear();
+      Exchange iteratorExchange = new Exchange(exchange);
+      for (Object part : prefix) {
+        iteratorExchange.append(part);
+      }
+      iteratorExchange.append(Key.BEFORE);
+      while (iteratorExchange.next(false)) {
+        keys.add(iteratorExchange.getKey().indexTo(-1).decode());
+      }
+      return keys;
+    } catch (Exception e) {
+      throw new IllegalStateException("Fail to get keys from cache " + name(), e);
+    }
+  }
+
+  @Override
+  Iterator<V> valueIterator(Object[] prefix) {
+    KeyFilter filter = new KeyFilter();
+    for (Object key : prefix) {
+      filter = filter.append(KeyFilter.simpleTerm(key));
+    }
+    return new ValueIterator<>(iteratorExchange(prefix), filter);
+  }
+
+  @Override
+  Iterator<Entry<V>> entryIterator(Object[] prefix) {
+    KeyFilter filter = new KeyFilter();
+    for (Object key : prefix) {
+      filter = filter.append(KeyFilter.simpleTerm(key));
+    }
+    return new EntryIterator<>(iteratorExchange(prefix), filter);
+  }
+
+  private Exchange iteratorExchange(Object[] prefix) {
+    Exchange originExchange = resetKey(prefix);
+    originExchange.append(Key.BEFORE);
+    return new Exchange(originExchange);
+  }
+
+  private Exchange resetKey(Object[] keys) {
+    Exchange exchange = exchange();
+    exchange.clear();
+    for (Object o : keys) {
+      exchange.append(o);
+    }
+    return exchange;
+  }
+
+  //
+  // LAZY ITERATORS
+  //
+
+  private static class ValueIterator<T> implements Iterator<T> {
+    private final Exchange exchange;
+    private final KeyFilter keyFilter;
+
+    private ValueIterator(Exchange exchange, KeyFilter keyFilter) {
+      this.exchange = exchange;
+      this.keyFilter = keyFilter;
+    }
+
+    @Override
+    public boolean hasNext() {
+      try {
+        return exchange.hasNext(keyFilter);
+      } catch (PersistitException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T next() {
+      try {
+        exchange.next(keyFilter);
+      } catch (PersistitException e) {
+        throw new IllegalStateException(e);
+      }
+      if (exchange.getValue().isDefined()) {
+        return (T) exchange.getValue().get();
+      }
+      throw new NoSuchElementException();
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("Removing an item is not supported");
+    }
+  }
+
+  private static class EntryIterator<T> implements Iterator<Entry<T>> {
+    private final Exchange exchange;
+    private final KeyFilter keyFilter;
+
+    private EntryIterator(Exchange exchange, KeyFilter keyFilter) {
+      this.exchange = exchange;
+      this.keyFilter = keyFilter;
+    }
+
+    @Override
+    public boolean hasNext() {
+      try {
+        return exchange.hasNext(keyFilter);
+      } catch (PersistitException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Entry<T> next() {
+      try {
+        exchange.next(keyFilter);
+      } catch (PersistitException e) {
+        throw new IllegalStateException(e);
+      }
+      if (exchange.getValue().isDefined()) {
+        T value = (T) exchange.getValue().get();
+        Key key = exchange.getKey();
+        Object[] array = new Object[key.getDepth()];
+        for (int i = 0; i < key.getDepth(); i++) {
+          array[i] = key.indexTo(i - key.getDepth()).decode();
+        }
+        return new Entry<>(array, value);
+      }
+      throw new NoSuchElementException();
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("Removing an item is not supported");
+    }
+  }
+}
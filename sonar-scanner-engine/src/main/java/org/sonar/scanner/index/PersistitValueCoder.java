@@ -0,0 +1,62 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.index;
+
+import com.persistit.Value;
+import com.persistit.encoding.CoderContext;
+import com.persistit.encoding.ValueCoder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Stores values encoded by a {@link CacheValueCodec} as byte arrays in Persistit.
+ */
+class PersistitValueCoder<V> implements ValueCoder {
+
+  private final CacheValueCodec<V> codec;
+
+  PersistitValueCoder(CacheValueCodec<V> codec) {
+    this.codec = codec;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public void put(Value value, Object object, CoderContext context) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(bytes)) {
+      codec.write(output, (V) object);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to encode value of type " + object.getClass().getName(), e);
+    }
+    value.putByteArray(bytes.toByteArray());
+  }
+
+  @Override
+  public Object get(Value value, Class<?> clazz, CoderContext context) {
+    try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(value.getByteArray()))) {
+      return codec.read(input);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to decode value of type " + clazz.getName(), e);
+    }
+  }
+}
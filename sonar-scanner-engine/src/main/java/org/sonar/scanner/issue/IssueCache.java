@@ -23,6 +23,7 @@ import org.sonar.api.batch.ScannerSide;
 import org.sonar.scanner.index.Cache;
 import org.sonar.scanner.index.Caches;
 import org.sonar.scanner.issue.tracking.TrackedIssue;
+import org.sonar.scanner.issue.tracking.TrackedIssueValueCoder;
 import java.util.Collection;
 
 /**
@@ -35,6 +36,7 @@ public class IssueCache {
   private final Cache<TrackedIssue> cache;
 
   public IssueCache(Caches caches) {
+    caches.registerValueCodec(TrackedIssue.class, new TrackedIssueValueCoder());
     cache = caches.createCache("issues");
   }
 
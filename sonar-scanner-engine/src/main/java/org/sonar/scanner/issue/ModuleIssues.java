@@ -38,7 +38,7 @@ import org.sonar.scanner.protocol.output.ScannerReport.IssueLocation;
 import org.sonar.scanner.report.ReportPublisher;
 
 /**
- * Initialize the issues raised during scan.
+ * Initialize the issues raised during scan. Issues may be raised by sensors executed concurrently.
  */
 public class ModuleIssues {
 
@@ -56,7 +56,7 @@ public class ModuleIssues {
     this.componentCache = componentCache;
   }
 
-  public boolean initAndAddIssue(Issue issue) {
+  public synchronized boolean initAndAddIssue(Issue issue) {
     InputComponent inputComponent = issue.primaryLocation().inputComponent();
     BatchComponent component = componentCache.get(inputComponent);
 
@@ -144,7 +144,7 @@ public class ModuleIssues {
     return rule;
   }
 
-  public void write(BatchComponent component, ScannerReport.Issue rawIssue) {
+  public synchronized void write(BatchComponent component, ScannerReport.Issue rawIssue) {
     reportPublisher.getWriter().appendComponentIssue(component.batchId(), rawIssue);
   }
 
@@ -44,11 +44,14 @@ public class PatternMatcher {
     return matchingPattern;
   }
 
-  public Collection<IssuePattern> getPatternsForComponent(String componentKey) {
+  public synchronized Collection<IssuePattern> getPatternsForComponent(String componentKey) {
     return patternByComponent.get(componentKey);
   }
 
-  public void addPatternForComponent(String component, IssuePattern pattern) {
+  /**
+   * Patterns can be added concurrently, when files are indexed.
+   */
+  public synchronized void addPatternForComponent(String component, IssuePattern pattern) {
     patternByComponent.put(component, pattern.forResource(component));
   }
 
@@ -60,7 +60,8 @@ public final class IssueExclusionsLoader {
           String path = inputFile.relativePath();
           inclusionPatternInitializer.initializePatternsForPath(path, componentEffectiveKey);
           exclusionPatternInitializer.initializePatternsForPath(path, componentEffectiveKey);
-          if (exclusionPatternInitializer.hasFileContentPattern()) {
+          if (exclusionPatternInitializer.hasFileContentPattern() && !regexpScanner.isScanned(componentEffectiveKey)) {
+            // usually already done when the file was indexed
             regexpScanner.scan(componentEffectiveKey, inputFile.file(), sourcesEncoding);
           }
         }
@@ -69,6 +70,9 @@ public final class IssueExclusionsLoader {
           + sourcesEncoding.name() + "'.", e);
       }
     }
+    if (exclusionPatternInitializer.hasFileContentPattern()) {
+      regexpScanner.logStatistics();
+    }
   }
 
   @Override
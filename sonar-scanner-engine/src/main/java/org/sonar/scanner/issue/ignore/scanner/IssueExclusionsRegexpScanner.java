@@ -21,137 +21,263 @@ package org.sonar.scanner.issue.ignore.scanner;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
-import org.apache.commons.io.FileUtils;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import javax.annotation.CheckForNull;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.batch.fs.internal.FileMetadata;
+import org.sonar.api.batch.fs.internal.FileMetadata.CharHandler;
 import org.sonar.scanner.issue.ignore.pattern.IssueExclusionPatternInitializer;
 import org.sonar.scanner.issue.ignore.pattern.IssuePattern;
 import org.sonar.scanner.issue.ignore.pattern.LineRange;
-import java.io.File;
-import java.io.IOException;
-import java.nio.charset.Charset;
-import java.util.List;
-import java.util.Set;
 
+/**
+ * Looks for the "all file" and "block" exclusion patterns in the content of source files. Files are read
+ * line by line, without being loaded in memory. All the patterns of a kind are combined into a single regular
+ * expression, so that a line which doesn't match any pattern (nearly all of them) is evaluated only once.
+ * <p/>
+ * The {@link CharHandler} returned by {@link #createCharHandler(String)} allows to scan a file during the pass
+ * which computes its metadata when it is indexed, instead of reading it once more.
+ */
 @ScannerSide
 public class IssueExclusionsRegexpScanner {
 
   private static final Logger LOG = LoggerFactory.getLogger(IssueExclusionsRegexpScanner.class);
 
-  private IssueExclusionPatternInitializer exclusionPatternInitializer;
-  private List<java.util.regex.Pattern> allFilePatterns;
-  private List<DoubleRegexpMatcher> blockMatchers;
+  private final IssueExclusionPatternInitializer exclusionPatternInitializer;
+  private final List<Pattern> allFilePatterns;
+  private final List<DoubleRegexpMatcher> blockMatchers;
+  @CheckForNull
+  private final Pattern allFilePattern;
+  @CheckForNull
+  private final Pattern beginBlockPattern;
 
-  // fields to be reset at every new scan
-  private DoubleRegexpMatcher currentMatcher;
-  private int fileLength;
-  private List<LineExclusion> lineExclusions;
-  private LineExclusion currentLineExclusion;
+  private final Set<String> scannedResources = ConcurrentHashMap.newKeySet();
+  private final AtomicLong scanTimeNanos = new AtomicLong();
 
   public IssueExclusionsRegexpScanner(IssueExclusionPatternInitializer patternsInitializer) {
     this.exclusionPatternInitializer = patternsInitializer;
 
-    lineExclusions = Lists.newArrayList();
     allFilePatterns = Lists.newArrayList();
     blockMatchers = Lists.newArrayList();
 
     for (IssuePattern pattern : patternsInitializer.getAllFilePatterns()) {
-      allFilePatterns.add(java.util.regex.Pattern.compile(pattern.getAllFileRegexp()));
+      allFilePatterns.add(Pattern.compile(pattern.getAllFileRegexp()));
     }
+    List<Pattern> beginBlockPatterns = Lists.newArrayList();
     for (IssuePattern pattern : patternsInitializer.getBlockPatterns()) {
-      blockMatchers.add(new DoubleRegexpMatcher(
-        java.util.regex.Pattern.compile(pattern.getBeginBlockRegexp()),
-        java.util.regex.Pattern.compile(pattern.getEndBlockRegexp())));
+      DoubleRegexpMatcher matcher = new DoubleRegexpMatcher(
+        Pattern.compile(pattern.getBeginBlockRegexp()),
+        Pattern.compile(pattern.getEndBlockRegexp()));
+      blockMatchers.add(matcher);
+      beginBlockPatterns.add(matcher.firstPattern);
     }
+    allFilePattern = combine(allFilePatterns);
+    beginBlockPattern = combine(beginBlockPatterns);
+  }
 
-    init();
+  /**
+   * Builds the alternation of the given patterns. Patterns declaring groups are not combined, as their
+   * back references would no longer match the expected groups. Returns {@code null} in that case or if
+   * there are no patterns.
+   */
+  @CheckForNull
+  private static Pattern combine(List<Pattern> patterns) {
+    if (patterns.isEmpty()) {
+      return null;
+    }
+    if (patterns.size() == 1) {
+      return patterns.get(0);
+    }
+    StringBuilder regexp = new StringBuilder();
+    for (Pattern pattern : patterns) {
+      if (pattern.matcher("").groupCount() > 0) {
+        return null;
+      }
+      if (regexp.length() > 0) {
+        regexp.append('|');
+      }
+      regexp.append("(?:").append(pattern.pattern()).append(')');
+    }
+    return Pattern.compile(regexp.toString());
+  }
+
+  public boolean hasPatterns() {
+    return !allFilePatterns.isEmpty() || !blockMatchers.isEmpty();
   }
 
-  private void init() {
-    currentMatcher = null;
-    fileLength = 0;
-    lineExclusions.clear();
-    currentLineExclusion = null;
+  /**
+   * Whether the content of the resource has already been scanned by an handler returned by {@link #createCharHandler(String)}.
+   */
+  public boolean isScanned(String resource) {
+    return scannedResources.contains(resource);
   }
 
   public void scan(String resource, File file, Charset sourcesEncoding) throws IOException {
+    FileMetadata.readFile(file, sourcesEncoding, createCharHandler(resource));
+  }
+
+  /**
+   * Creates an handler which scans the content of a single file. Handlers can be used concurrently
+   * on different files.
+   */
+  public CharHandler createCharHandler(String resource) {
     LOG.debug("Scanning {}", resource);
-    init();
+    return new ExclusionsScanHandler(resource);
+  }
 
-    List<String> lines = FileUtils.readLines(file, sourcesEncoding.name());
-    int lineIndex = 0;
-    for (String line : lines) {
-      lineIndex++;
-      if (line.trim().length() == 0) {
-        continue;
+  public void logStatistics() {
+    LOG.debug("Issue exclusions: {} files scanned, {} ms spent on matching patterns", scannedResources.size(),
+      TimeUnit.NANOSECONDS.toMillis(scanTimeNanos.get()));
+  }
+
+  private boolean matchesAllFilePattern(String line) {
+    if (allFilePattern != null) {
+      return allFilePattern.matcher(line).find();
+    }
+    for (Pattern pattern : allFilePatterns) {
+      if (pattern.matcher(line).find()) {
+        return true;
       }
+    }
+    return false;
+  }
 
-      // first check the single regexp patterns that can be used to totally exclude a file
-      for (java.util.regex.Pattern pattern : allFilePatterns) {
-        if (pattern.matcher(line).find()) {
-          exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeResource(resource);
-          // nothing more to do on this file
-          LOG.debug("- Exclusion pattern '{}': every violation in this file will be ignored.", pattern);
-          return;
-        }
+  @CheckForNull
+  private DoubleRegexpMatcher findBeginBlockMatcher(String line) {
+    if (beginBlockPattern != null && !beginBlockPattern.matcher(line).find()) {
+      return null;
+    }
+    // the first declared pattern wins, as the alternation may have matched another one
+    for (DoubleRegexpMatcher matcher : blockMatchers) {
+      if (matcher.matchesFirstPattern(line)) {
+        return matcher;
       }
+    }
+    return null;
+  }
 
-      // then check the double regexps if we're still here
-      checkDoubleRegexps(line, lineIndex);
+  /**
+   * State of the scan of a single file.
+   */
+  private class ExclusionsScanHandler extends CharHandler {
+    private final String resource;
+    private final StringBuilder line = new StringBuilder();
+    private final List<LineExclusion> lineExclusions = Lists.newArrayList();
+    private boolean emptyLine = true;
+    private int lineIndex = 0;
+    private boolean excludedFile = false;
+    private DoubleRegexpMatcher currentMatcher;
+    private LineExclusion currentLineExclusion;
+
+    ExclusionsScanHandler(String resource) {
+      this.resource = resource;
     }
 
-    if (currentMatcher != null && !currentMatcher.hasSecondPattern()) {
-      // this will happen when there is a start block regexp but no end block regexp
-      endExclusion(lineIndex + 1);
+    @Override
+    protected void handleIgnoreEoL(char c) {
+      if (!excludedFile) {
+        line.append(c);
+      }
+      emptyLine = false;
     }
 
-    // now create the new line-based pattern for this file if there are exclusions
-    fileLength = lineIndex;
-    if (!lineExclusions.isEmpty()) {
-      Set<LineRange> lineRanges = convertLineExclusionsToLineRanges();
-      LOG.debug("- Line exclusions found: {}", lineRanges);
-      exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeLines(resource, lineRanges);
+    @Override
+    protected void newLine() {
+      lineIndex++;
+      if (!excludedFile) {
+        long start = System.nanoTime();
+        checkLine(line.toString());
+        scanTimeNanos.addAndGet(System.nanoTime() - start);
+      }
+      line.setLength(0);
+      emptyLine = true;
     }
-  }
 
-  private Set<LineRange> convertLineExclusionsToLineRanges() {
-    Set<LineRange> lineRanges = Sets.newHashSet();
-    for (LineExclusion lineExclusion : lineExclusions) {
-      lineRanges.add(lineExclusion.toLineRange());
+    @Override
+    protected void eof() {
+      if (!emptyLine) {
+        // last line without line ending
+        newLine();
+      }
+      scannedResources.add(resource);
+      if (excludedFile) {
+        return;
+      }
+      if (currentMatcher != null && !currentMatcher.hasSecondPattern()) {
+        // this will happen when there is a start block regexp but no end block regexp
+        endExclusion(lineIndex + 1);
+      }
+
+      // now create the new line-based pattern for this file if there are exclusions
+      if (!lineExclusions.isEmpty()) {
+        Set<LineRange> lineRanges = convertLineExclusionsToLineRanges();
+        LOG.debug("- Line exclusions found: {}", lineRanges);
+        exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeLines(resource, lineRanges);
+      }
     }
-    return lineRanges;
-  }
 
-  private void checkDoubleRegexps(String line, int lineIndex) {
-    if (currentMatcher == null) {
-      for (DoubleRegexpMatcher matcher : blockMatchers) {
-        if (matcher.matchesFirstPattern(line)) {
+    private void checkLine(String line) {
+      if (line.trim().length() == 0) {
+        return;
+      }
+
+      // first check the single regexp patterns that can be used to totally exclude a file
+      if (matchesAllFilePattern(line)) {
+        exclusionPatternInitializer.getPatternMatcher().addPatternToExcludeResource(resource);
+        // nothing more to do on this file
+        LOG.debug("- Exclusion pattern found: every violation in {} will be ignored.", resource);
+        excludedFile = true;
+        return;
+      }
+
+      // then check the double regexps if we're still here
+      checkDoubleRegexps(line);
+    }
+
+    private void checkDoubleRegexps(String line) {
+      if (currentMatcher == null) {
+        DoubleRegexpMatcher matcher = findBeginBlockMatcher(line);
+        if (matcher != null) {
           startExclusion(lineIndex);
           currentMatcher = matcher;
-          break;
         }
-      }
-    } else {
-      if (currentMatcher.matchesSecondPattern(line)) {
+      } else if (currentMatcher.matchesSecondPattern(line)) {
         endExclusion(lineIndex);
         currentMatcher = null;
       }
     }
-  }
 
-  private void startExclusion(int lineIndex) {
-    currentLineExclusion = new LineExclusion(lineIndex);
-    lineExclusions.add(currentLineExclusion);
-  }
+    private Set<LineRange> convertLineExclusionsToLineRanges() {
+      Set<LineRange> lineRanges = Sets.newHashSet();
+      for (LineExclusion lineExclusion : lineExclusions) {
+        lineRanges.add(lineExclusion.toLineRange(lineIndex));
+      }
+      return lineRanges;
+    }
 
-  private void endExclusion(int lineIndex) {
-    currentLineExclusion.setEnd(lineIndex);
-    currentLineExclusion = null;
+    private void startExclusion(int lineIndex) {
+      currentLineExclusion = new LineExclusion(lineIndex);
+      lineExclusions.add(currentLineExclusion);
+    }
+
+    private void endExclusion(int lineIndex) {
+      currentLineExclusion.setEnd(lineIndex);
+      currentLineExclusion = null;
+    }
   }
 
-  private class LineExclusion {
+  private static class LineExclusion {
 
     private int start;
     private int end;
@@ -165,7 +291,7 @@ public class IssueExclusionsRegexpScanner {
       this.end = end;
     }
 
-    public LineRange toLineRange() {
+    public LineRange toLineRange(int fileLength) {
       return new LineRange(start, end == -1 ? fileLength : end);
     }
 
@@ -173,10 +299,10 @@ public class IssueExclusionsRegexpScanner {
 
   private static class DoubleRegexpMatcher {
 
-    private java.util.regex.Pattern firstPattern;
-    private java.util.regex.Pattern secondPattern;
+    private Pattern firstPattern;
+    private Pattern secondPattern;
 
-    DoubleRegexpMatcher(java.util.regex.Pattern firstPattern, java.util.regex.Pattern secondPattern) {
+    DoubleRegexpMatcher(Pattern firstPattern, Pattern secondPattern) {
       this.firstPattern = firstPattern;
       this.secondPattern = secondPattern;
     }
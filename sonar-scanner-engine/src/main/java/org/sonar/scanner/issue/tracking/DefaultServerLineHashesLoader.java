@@ -22,7 +22,13 @@ package org.sonar.scanner.issue.tracking;
 import org.sonarqube.ws.client.GetRequest;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import com.google.common.base.Splitter;
 import com.google.common.collect.Iterators;
@@ -30,9 +36,17 @@ import org.apache.commons.io.IOUtils;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.api.utils.log.Profiler;
 import org.sonar.scanner.bootstrap.BatchWsClient;
+import org.sonar.scanner.protocol.input.ScannerInput.FileLineHashes;
 import org.sonar.scanner.util.BatchUtils;
 
 public class DefaultServerLineHashesLoader implements ServerLineHashesLoader {
+  /**
+   * Keep the URL of the bulk requests far below the default limits of web servers and proxies
+   */
+  static final int MAX_KEYS_PER_REQUEST = 100;
+  static final int MAX_ENCODED_KEYS_LENGTH = 4000;
+  private static final String ENCODED_COMMA = "%2C";
+
   private BatchWsClient wsClient;
 
   public DefaultServerLineHashesLoader(BatchWsClient wsClient) {
@@ -60,4 +74,50 @@ public class DefaultServerLineHashesLoader implements ServerLineHashesLoader {
       profiler.stopDebug();
     }
   }
+
+  @Override
+  public Map<String, String[]> getLineHashes(Collection<String> fileKeys) {
+    Map<String, String[]> hashesByKey = new HashMap<>();
+    List<String> encodedKeys = new ArrayList<>();
+    int encodedKeysLength = 0;
+    for (String fileKey : fileKeys) {
+      if (fileKey.indexOf(',') >= 0) {
+        // can't be part of a comma-separated list of keys
+        hashesByKey.put(fileKey, getLineHashes(fileKey));
+        continue;
+      }
+      String encodedKey = BatchUtils.encodeForUrl(fileKey);
+      if (!encodedKeys.isEmpty() && (encodedKeys.size() == MAX_KEYS_PER_REQUEST || encodedKeysLength + encodedKey.length() > MAX_ENCODED_KEYS_LENGTH)) {
+        loadHashesFromWs(encodedKeys, hashesByKey);
+        encodedKeys.clear();
+        encodedKeysLength = 0;
+      }
+      encodedKeys.add(encodedKey);
+      encodedKeysLength += encodedKey.length() + ENCODED_COMMA.length();
+    }
+    if (!encodedKeys.isEmpty()) {
+      loadHashesFromWs(encodedKeys, hashesByKey);
+    }
+    return hashesByKey;
+  }
+
+  private void loadHashesFromWs(List<String> encodedKeys, Map<String, String[]> hashesByKey) {
+    Profiler profiler = Profiler.createIfDebug(Loggers.get(getClass()))
+      .addContext("files", encodedKeys.size())
+      .startDebug("Load line hashes");
+
+    GetRequest getRequest = new GetRequest("/api/sources/hashes?keys=" + String.join(ENCODED_COMMA, encodedKeys));
+    InputStream is = wsClient.call(getRequest).contentStream();
+    try {
+      FileLineHashes fileLineHashes;
+      while ((fileLineHashes = FileLineHashes.parseDelimitedFrom(is)) != null) {
+        hashesByKey.put(fileLineHashes.getFileKey(), fileLineHashes.getLineHashList().toArray(new String[0]));
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to get line hashes", e);
+    } finally {
+      IOUtils.closeQuietly(is);
+      profiler.stopDebug();
+    }
+  }
 }
@@ -0,0 +1,136 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.issue.tracking;
+
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.CheckForNull;
+import org.picocontainer.Startable;
+import org.sonar.api.batch.ScannerSide;
+
+/**
+ * Loads the line hashes of files in batches on a background thread, so that the calls to the server
+ * overlap with issue tracking. At most {@link #MAX_BATCHES_AHEAD} batches are loaded and not yet
+ * consumed at any time, in the order of {@link #prefetch(Collection)}. Files which were not prefetched
+ * are loaded synchronously.
+ * <p/>
+ * Not thread-safe: must be called by the thread performing issue tracking.
+ */
+@ScannerSide
+public class LineHashesPrefetcher implements Startable {
+
+  static final int BATCH_SIZE = 100;
+  static final int MAX_BATCHES_AHEAD = 3;
+
+  private final ServerLineHashesLoader loader;
+  private final Map<String, Batch> batchesByKey = new HashMap<>();
+  private final Deque<Batch> pendingBatches = new ArrayDeque<>();
+  private ExecutorService executor;
+  private int batchesAhead = 0;
+
+  public LineHashesPrefetcher(ServerLineHashesLoader loader) {
+    this.loader = loader;
+  }
+
+  @Override
+  public void start() {
+    executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("line-hashes-prefetcher").setDaemon(true).build());
+  }
+
+  @Override
+  public void stop() {
+    executor.shutdownNow();
+  }
+
+  public void prefetch(Collection<String> fileKeys) {
+    for (List<String> keys : Iterables.partition(fileKeys, BATCH_SIZE)) {
+      Batch batch = new Batch(keys);
+      keys.forEach(key -> batchesByKey.put(key, batch));
+      pendingBatches.add(batch);
+    }
+    submitPendingBatches();
+  }
+
+  @CheckForNull
+  public String[] getLineHashes(String fileKey) {
+    Batch batch = batchesByKey.remove(fileKey);
+    if (batch == null) {
+      return loader.getLineHashes(fileKey);
+    }
+    if (batch.future == null) {
+      // requested out of order
+      pendingBatches.remove(batch);
+      submit(batch);
+    }
+    String[] lineHashes = batch.get().get(fileKey);
+    batch.remaining--;
+    if (batch.remaining == 0) {
+      batchesAhead--;
+      submitPendingBatches();
+    }
+    return lineHashes;
+  }
+
+  private void submitPendingBatches() {
+    while (batchesAhead < MAX_BATCHES_AHEAD && !pendingBatches.isEmpty()) {
+      submit(pendingBatches.poll());
+    }
+  }
+
+  private void submit(Batch batch) {
+    batch.future = executor.submit(() -> loader.getLineHashes(batch.keys));
+    batchesAhead++;
+  }
+
+  private static class Batch {
+    private final List<String> keys;
+    private int remaining;
+    private Future<Map<String, String[]>> future;
+
+    Batch(List<String> keys) {
+      this.keys = keys;
+      this.remaining = keys.size();
+    }
+
+    Map<String, String[]> get() {
+      try {
+        return future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while loading line hashes", e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw new IllegalStateException("Fail to load line hashes", e.getCause());
+      }
+    }
+  }
+}
@@ -47,14 +47,14 @@ import org.sonar.scanner.repository.ProjectRepositories;
 @ScannerSide
 public class LocalIssueTracking {
   private final Tracker<TrackedIssue, ServerIssueFromWs> tracker;
-  private final ServerLineHashesLoader lastLineHashes;
+  private final LineHashesPrefetcher lastLineHashes;
   private final ActiveRules activeRules;
   private final ServerIssueRepository serverIssueRepository;
   private final DefaultAnalysisMode mode;
 
   private boolean hasServerAnalysis;
 
-  public LocalIssueTracking(Tracker<TrackedIssue, ServerIssueFromWs> tracker, ServerLineHashesLoader lastLineHashes,
+  public LocalIssueTracking(Tracker<TrackedIssue, ServerIssueFromWs> tracker, LineHashesPrefetcher lastLineHashes,
     ActiveRules activeRules, ServerIssueRepository serverIssueRepository, ProjectRepositories projectRepositories, DefaultAnalysisMode mode) {
     this.tracker = tracker;
     this.lastLineHashes = lastLineHashes;
@@ -64,12 +64,29 @@ public class LocalIssueTracking {
     this.hasServerAnalysis = projectRepositories.lastAnalysisDate() != null;
   }
 
-  public void init() {
+  public void init(Collection<BatchComponent> components) {
     if (hasServerAnalysis) {
       serverIssueRepository.load();
+      lastLineHashes.prefetch(changedFileKeys(components));
     }
   }
 
+  /**
+   * Keys of the files whose line hashes will be needed by {@link SourceHashHolder}, in the order of tracking
+   */
+  private static List<String> changedFileKeys(Collection<BatchComponent> components) {
+    List<String> keys = new ArrayList<>();
+    for (BatchComponent component : components) {
+      if (component.isFile()) {
+        DefaultInputFile file = (DefaultInputFile) component.inputComponent();
+        if (file != null && file.status() == Status.CHANGED) {
+          keys.add(file.key());
+        }
+      }
+    }
+    return keys;
+  }
+
   public List<TrackedIssue> trackIssues(BatchComponent component, Collection<ScannerReport.Issue> reportIssues, Date analysisDate) {
     List<TrackedIssue> trackedIssues = new LinkedList<>();
     if (hasServerAnalysis) {
@@ -161,7 +178,7 @@ public class LocalIssueTracking {
       if (file == null) {
         throw new IllegalStateException("Resource " + component.resource() + " was not found in InputPath cache");
       }
-      sourceHashHolder = new SourceHashHolder(file, lastLineHashes);
+      sourceHashHolder = new SourceHashHolder(file, lastLineHashes::getLineHashes);
     }
     return sourceHashHolder;
   }
@@ -19,10 +19,25 @@
  */
 package org.sonar.scanner.issue.tracking;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import org.sonar.api.batch.ScannerSide;
 
 @ScannerSide
 public interface ServerLineHashesLoader {
 
   String[] getLineHashes(String fileKey);
+
+  /**
+   * Line hashes of several files, by file key. Files unknown by the server may be missing
+   * from the returned map.
+   */
+  default Map<String, String[]> getLineHashes(Collection<String> fileKeys) {
+    Map<String, String[]> hashesByKey = new HashMap<>();
+    for (String fileKey : fileKeys) {
+      hashesByKey.put(fileKey, getLineHashes(fileKey));
+    }
+    return hashesByKey;
+  }
 }
@@ -26,6 +26,7 @@ import org.sonar.scanner.events.EventBus;
 import org.sonar.scanner.index.DefaultIndex;
 import org.sonar.scanner.issue.ignore.scanner.IssueExclusionsLoader;
 import org.sonar.scanner.rule.QProfileVerifier;
+import org.sonar.scanner.scan.ModuleScanScheduler;
 import org.sonar.scanner.scan.filesystem.DefaultModuleFileSystem;
 import org.sonar.scanner.scan.filesystem.FileSystemLogger;
 
@@ -41,11 +42,12 @@ public abstract class AbstractPhaseExecutor {
   private final DefaultModuleFileSystem fs;
   private final QProfileVerifier profileVerifier;
   private final IssueExclusionsLoader issueExclusionsLoader;
+  private final ModuleScanScheduler moduleScanScheduler;
 
   public AbstractPhaseExecutor(InitializersExecutor initializersExecutor, PostJobsExecutor postJobsExecutor, SensorsExecutor sensorsExecutor,
     SensorContext sensorContext, DefaultIndex index,
     EventBus eventBus, FileSystemLogger fsLogger, DefaultModuleFileSystem fs, QProfileVerifier profileVerifier,
-    IssueExclusionsLoader issueExclusionsLoader) {
+    IssueExclusionsLoader issueExclusionsLoader, ModuleScanScheduler moduleScanScheduler) {
     this.postJobsExecutor = postJobsExecutor;
     this.initializersExecutor = initializersExecutor;
     this.sensorsExecutor = sensorsExecutor;
@@ -56,6 +58,7 @@ public abstract class AbstractPhaseExecutor {
     this.fs = fs;
     this.profileVerifier = profileVerifier;
     this.issueExclusionsLoader = issueExclusionsLoader;
+    this.moduleScanScheduler = moduleScanScheduler;
   }
 
   /**
@@ -68,6 +71,7 @@ public abstract class AbstractPhaseExecutor {
 
     // Index and lock the filesystem
     indexFs();
+    moduleScanScheduler.moduleIndexed(module);
 
     // Log detected languages and their profiles after FS is indexed and languages detected
     profileVerifier.execute();
@@ -19,42 +19,145 @@
  */
 package org.sonar.scanner.phases;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.sonar.api.batch.Phase;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
+import org.sonar.api.config.Settings;
 import org.sonar.api.resources.Project;
+import org.sonar.api.utils.AnnotationUtils;
+import org.sonar.core.config.ScannerThreadsProperties;
 import org.sonar.scanner.bootstrap.BatchExtensionDictionnary;
 import org.sonar.scanner.events.EventBus;
-import java.util.Collection;
+import org.sonar.scanner.sensor.SensorWrapper;
 
+/**
+ * Sensors are executed one after the other, in the order of their dependencies. When the property
+ * {@link #THREADS_PROPERTY} is greater than 1, consecutive sensors which declare themselves thread-safe
+ * (see {@link org.sonar.api.batch.sensor.SensorDescriptor#threadSafe()}) and belong to the same phase
+ * are executed concurrently. Other sensors are barriers: they start once all previous sensors are finished.
+ */
 @ScannerSide
 public class SensorsExecutor {
 
+  static final String THREADS_PROPERTY = ScannerThreadsProperties.SENSORS_THREADS;
+
   private EventBus eventBus;
   private Project module;
   private BatchExtensionDictionnary selector;
+  private Settings settings;
 
-  public SensorsExecutor(BatchExtensionDictionnary selector, Project project, EventBus eventBus) {
+  public SensorsExecutor(BatchExtensionDictionnary selector, Project project, EventBus eventBus, Settings settings) {
     this.selector = selector;
     this.eventBus = eventBus;
     this.module = project;
+    this.settings = settings;
   }
 
   public void execute(SensorContext context) {
     Collection<Sensor> sensors = selector.select(Sensor.class, module, true, null);
     eventBus.fireEvent(new SensorsPhaseEvent(Lists.newArrayList(sensors), true));
 
-    for (Sensor sensor : sensors) {
-      executeSensor(context, sensor);
+    int threads = getThreads();
+    if (threads == 1) {
+      for (Sensor sensor : sensors) {
+        executeSensor(context, sensor);
+      }
+    } else {
+      executeConcurrently(context, sensors, threads);
     }
 
     eventBus.fireEvent(new SensorsPhaseEvent(Lists.newArrayList(sensors), false));
   }
 
+  @VisibleForTesting
+  int getThreads() {
+    int threads = settings.getInt(THREADS_PROPERTY);
+    return threads > 0 ? threads : 1;
+  }
+
+  private void executeConcurrently(SensorContext context, Collection<Sensor> sensors, int threads) {
+    ExecutorService executorService = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("sensor-%d").setDaemon(true).build());
+    try {
+      List<Sensor> group = new ArrayList<>();
+      for (Sensor sensor : sensors) {
+        if (!group.isEmpty() && !canExecuteConcurrently(group.get(0), sensor)) {
+          executeGroup(context, group, executorService);
+          group.clear();
+        }
+        group.add(sensor);
+      }
+      executeGroup(context, group, executorService);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private static boolean canExecuteConcurrently(Sensor groupSensor, Sensor sensor) {
+    return isThreadSafe(groupSensor) && isThreadSafe(sensor) && phase(groupSensor) == phase(sensor);
+  }
+
+  private static boolean isThreadSafe(Sensor sensor) {
+    return sensor instanceof SensorWrapper && ((SensorWrapper) sensor).isThreadSafe();
+  }
+
+  private static Phase.Name phase(Sensor sensor) {
+    Phase phase = AnnotationUtils.getAnnotation(((SensorWrapper) sensor).wrappedSensor(), Phase.class);
+    return phase == null ? Phase.Name.DEFAULT : phase.name();
+  }
+
+  private void executeGroup(SensorContext context, List<Sensor> group, ExecutorService executorService) {
+    if (group.size() == 1) {
+      executeSensor(context, group.get(0));
+      return;
+    }
+    List<Future<?>> futures = new ArrayList<>(group.size());
+    for (Sensor sensor : group) {
+      futures.add(executorService.submit(() -> executeSensor(context, sensor)));
+    }
+    for (int i = 0; i < futures.size(); i++) {
+      waitFor(group.get(i), futures.get(i));
+    }
+  }
+
+  private static void waitFor(Sensor sensor, Future<?> future) {
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted during execution of sensor " + sensor, e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException("Fail to execute sensor " + sensor, cause);
+    }
+  }
+
   private void executeSensor(SensorContext context, Sensor sensor) {
-    eventBus.fireEvent(new SensorExecutionEvent(sensor, true));
+    fireEvent(new SensorExecutionEvent(sensor, true));
     sensor.analyse(module, context);
-    eventBus.fireEvent(new SensorExecutionEvent(sensor, false));
+    fireEvent(new SensorExecutionEvent(sensor, false));
+  }
+
+  /**
+   * Event handlers are not expected to be thread-safe
+   */
+  private synchronized void fireEvent(SensorExecutionEvent event) {
+    eventBus.fireEvent(event);
   }
 }
@@ -21,6 +21,7 @@ package org.sonar.scanner.report;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
+import com.google.common.io.CountingOutputStream;
 import com.google.common.io.Files;
 import okhttp3.HttpUrl;
 import java.io.File;
@@ -31,6 +32,7 @@ import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nullable;
 import org.apache.commons.io.FileUtils;
 import org.picocontainer.Startable;
@@ -62,6 +64,10 @@ public class ReportPublisher implements Startable {
   public static final String KEEP_REPORT_PROP_KEY = "sonar.batch.keepReport";
   public static final String VERBOSE_KEY = "sonar.verbose";
   public static final String METADATA_DUMP_FILENAME = "report-task.txt";
+  /**
+   * When enabled, report is compressed while being uploaded, without temporary zip file
+   */
+  public static final String STREAM_REPORT_PROP_KEY = "sonar.scanner.streamReport";
 
   private final Settings settings;
   private final BatchWsClient wsClient;
@@ -120,12 +126,18 @@ public class ReportPublisher implements Startable {
     // If this is a issues mode analysis then we should not upload reports
     String taskId = null;
     if (!analysisMode.isIssues()) {
-      File report = generateReportFile();
-      if (shouldKeepReport()) {
-        LOG.info("Analysis report generated in " + reportDir);
-      }
-      if (!analysisMode.isMediumTest()) {
-        taskId = upload(report);
+      if (settings.getBoolean(STREAM_REPORT_PROP_KEY)) {
+        writeReport();
+        logKeptReport();
+        if (!analysisMode.isMediumTest()) {
+          taskId = uploadStream();
+        }
+      } else {
+        File report = generateReportFile();
+        logKeptReport();
+        if (!analysisMode.isMediumTest()) {
+          taskId = upload(report);
+        }
       }
     }
     logSuccess(taskId);
@@ -135,19 +147,29 @@ public class ReportPublisher implements Startable {
     return settings.getBoolean(KEEP_REPORT_PROP_KEY) || settings.getBoolean(VERBOSE_KEY);
   }
 
+  private void logKeptReport() {
+    if (shouldKeepReport()) {
+      LOG.info("Analysis report generated in " + reportDir);
+    }
+  }
+
+  private void writeReport() {
+    long startTime = System.currentTimeMillis();
+    for (ReportPublisherStep publisher : publishers) {
+      publisher.publish(writer);
+    }
+    long stopTime = System.currentTimeMillis();
+    LOG.info("Analysis report generated in {}ms, dir size={}", stopTime - startTime, FileUtils.byteCountToDisplaySize(FileUtils.sizeOfDirectory(reportDir)));
+  }
+
   private File generateReportFile() {
     try {
-      long startTime = System.currentTimeMillis();
-      for (ReportPublisherStep publisher : publishers) {
-        publisher.publish(writer);
-      }
-      long stopTime = System.currentTimeMillis();
-      LOG.info("Analysis report generated in {}ms, dir size={}", stopTime - startTime, FileUtils.byteCountToDisplaySize(FileUtils.sizeOfDirectory(reportDir)));
+      writeReport();
 
-      startTime = System.currentTimeMillis();
+      long startTime = System.currentTimeMillis();
       File reportZip = temp.newFile("batch-report", ".zip");
       ZipUtils.zipDir(reportDir, reportZip);
-      stopTime = System.currentTimeMillis();
+      long stopTime = System.currentTimeMillis();
       LOG.info("Analysis reports compressed in {}ms, zip size={}", stopTime - startTime, FileUtils.byteCountToDisplaySize(FileUtils.sizeOf(reportZip)));
       return reportZip;
     } catch (IOException e) {
@@ -160,10 +182,28 @@ public class ReportPublisher implements Startable {
    */
   @VisibleForTesting
   String upload(File report) {
+    return submit(new PostRequest.Part(MediaTypes.ZIP, report));
+  }
+
+  /**
+   * Compresses the report directory while uploading it, and returns the generated task id
+   */
+  @VisibleForTesting
+  String uploadStream() {
+    AtomicLong zipSize = new AtomicLong();
+    String taskId = submit(new PostRequest.Part(MediaTypes.ZIP, output -> {
+      CountingOutputStream counting = new CountingOutputStream(output);
+      ZipUtils.zipDir(reportDir, counting);
+      zipSize.set(counting.getCount());
+    }));
+    LOG.info("Analysis report compressed on the fly, zip size={}", FileUtils.byteCountToDisplaySize(zipSize.get()));
+    return taskId;
+  }
+
+  private String submit(PostRequest.Part filePart) {
     LOG.debug("Upload report");
     long startTime = System.currentTimeMillis();
     ProjectDefinition projectDefinition = projectReactor.getRoot();
-    PostRequest.Part filePart = new PostRequest.Part(MediaTypes.ZIP, report);
     PostRequest post = new PostRequest("api/ce/submit")
       .setMediaType(MediaTypes.PROTOBUF)
       .setParam("projectKey", projectDefinition.getKey())
@@ -19,8 +19,8 @@
  */
 package org.sonar.scanner.repository;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.sonar.api.batch.ScannerSide;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -28,7 +28,8 @@ import static com.google.common.base.Preconditions.checkArgument;
 @ScannerSide
 public class ContextPropertiesCache {
 
-  private final Map<String, String> props = new HashMap<>();
+  // modules may be scanned concurrently
+  private final Map<String, String> props = new ConcurrentHashMap<>();
 
   /**
    * Value is overridden if the key was already stored.
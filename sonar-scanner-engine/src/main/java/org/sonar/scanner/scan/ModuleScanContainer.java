@@ -63,6 +63,7 @@ import org.sonar.scanner.scan.filesystem.ComponentIndexer;
 import org.sonar.scanner.scan.filesystem.DefaultModuleFileSystem;
 import org.sonar.scanner.scan.filesystem.ExclusionFilters;
 import org.sonar.scanner.scan.filesystem.FileIndexer;
+import org.sonar.scanner.scan.filesystem.FileMetadataSnapshot;
 import org.sonar.scanner.scan.filesystem.FileSystemLogger;
 import org.sonar.scanner.scan.filesystem.InputFileBuilderFactory;
 import org.sonar.scanner.scan.filesystem.LanguageDetectionFactory;
@@ -124,6 +125,7 @@ public class ModuleScanContainer extends ComponentContainer {
       ExclusionFilters.class,
       InputFileBuilderFactory.class,
       FileMetadata.class,
+      FileMetadataSnapshot.class,
       StatusDetectionFactory.class,
       LanguageDetectionFactory.class,
       FileIndexer.class,
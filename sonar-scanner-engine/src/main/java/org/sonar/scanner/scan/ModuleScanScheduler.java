@@ -0,0 +1,167 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.config.Settings;
+import org.sonar.api.resources.Project;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.config.ScannerThreadsProperties;
+
+/**
+ * Schedules the scan of the modules of the project. By default modules are scanned one after the other, depth-first,
+ * the root module being the last one. When the property {@link #THREADS_PROPERTY} is greater than 1, the modules
+ * other than the root are scanned concurrently by a bounded pool of threads, each one in its own container. The root
+ * module is scanned once all the other modules are done.
+ * <p/>
+ * To keep the report deterministic, modules index their filesystem in the same order as in sequential mode: the scan
+ * of a module starts only once the previous module has indexed its files (see {@link #moduleIndexed(Project)}).
+ * References of components are then the same as in sequential mode.
+ */
+@ScannerSide
+public class ModuleScanScheduler {
+
+  private static final Logger LOG = Loggers.get(ModuleScanScheduler.class);
+  static final String THREADS_PROPERTY = ScannerThreadsProperties.MODULES_THREADS;
+
+  private final Settings settings;
+  private final Map<String, CountDownLatch> indexingByModuleKey = new ConcurrentHashMap<>();
+
+  public ModuleScanScheduler(Settings settings) {
+    this.settings = settings;
+  }
+
+  public void scan(Project rootProject, Consumer<Project> moduleScanner) {
+    List<Project> modules = new ArrayList<>();
+    addDepthFirst(rootProject, modules);
+    int threads = getThreads();
+    if (threads == 1 || modules.size() <= 2) {
+      modules.forEach(moduleScanner);
+      return;
+    }
+    LOG.info("Scan modules with {} threads", threads);
+    Project root = modules.remove(modules.size() - 1);
+    scanConcurrently(modules, moduleScanner, threads);
+    moduleScanner.accept(root);
+  }
+
+  public boolean isConcurrent() {
+    return getThreads() > 1;
+  }
+
+  /**
+   * Called by each module once its filesystem is indexed. Does nothing when modules are scanned sequentially.
+   */
+  public void moduleIndexed(Project module) {
+    CountDownLatch indexing = indexingByModuleKey.remove(module.getKey());
+    if (indexing != null) {
+      indexing.countDown();
+    }
+  }
+
+  @VisibleForTesting
+  int getThreads() {
+    if (settings.getBoolean(CoreProperties.PROFILING_LOG_PROPERTY)) {
+      // profiling of phases assumes that a single module is scanned at a time
+      return 1;
+    }
+    int threads = settings.getInt(THREADS_PROPERTY);
+    return threads > 0 ? threads : 1;
+  }
+
+  private static void addDepthFirst(Project module, List<Project> modules) {
+    for (Project subModule : module.getModules()) {
+      addDepthFirst(subModule, modules);
+    }
+    modules.add(module);
+  }
+
+  private void scanConcurrently(List<Project> modules, Consumer<Project> moduleScanner, int threads) {
+    ExecutorService executorService = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("module-%d").setDaemon(true).build());
+    try {
+      List<Future<?>> futures = new ArrayList<>(modules.size());
+      for (Project module : modules) {
+        CountDownLatch indexing = new CountDownLatch(1);
+        indexingByModuleKey.put(module.getKey(), indexing);
+        Future<?> future = executorService.submit(() -> {
+          try {
+            moduleScanner.accept(module);
+          } finally {
+            // in case of failure before the end of indexing
+            moduleIndexed(module);
+          }
+        });
+        futures.add(future);
+        await(indexing, module);
+        if (future.isDone()) {
+          // fail fast
+          waitFor(future, module);
+        }
+      }
+      for (int i = 0; i < futures.size(); i++) {
+        waitFor(futures.get(i), modules.get(i));
+      }
+    } finally {
+      executorService.shutdownNow();
+      indexingByModuleKey.clear();
+    }
+  }
+
+  private static void await(CountDownLatch indexing, Project module) {
+    try {
+      indexing.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while indexing module " + module.getKey(), e);
+    }
+  }
+
+  private static void waitFor(Future<?> future, Project module) {
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted during scan of module " + module.getKey(), e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException("Fail to scan module " + module.getKey(), cause);
+    }
+  }
+}
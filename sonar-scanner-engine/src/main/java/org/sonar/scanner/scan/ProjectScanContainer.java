@@ -51,6 +51,7 @@ import org.sonar.scanner.issue.DefaultProjectIssues;
 import org.sonar.scanner.issue.IssueCache;
 import org.sonar.scanner.issue.tracking.DefaultServerLineHashesLoader;
 import org.sonar.scanner.issue.tracking.IssueTransition;
+import org.sonar.scanner.issue.tracking.LineHashesPrefetcher;
 import org.sonar.scanner.issue.tracking.LocalIssueTracking;
 import org.sonar.scanner.issue.tracking.ServerIssueRepository;
 import org.sonar.scanner.issue.tracking.ServerLineHashesLoader;
@@ -130,6 +131,7 @@ public class ProjectScanContainer extends ComponentContainer {
       new ImmutableProjectReactorProvider(),
       ProjectBuildersExecutor.class,
       ProjectLock.class,
+      ModuleScanScheduler.class,
       EventBus.class,
       PhasesTimeProfiler.class,
       ResourceTypes.class,
@@ -210,6 +212,7 @@ public class ProjectScanContainer extends ComponentContainer {
   private void addIssueTrackingComponents() {
     add(
       LocalIssueTracking.class,
+      LineHashesPrefetcher.class,
       ServerIssueRepository.class);
     addIfMissing(DefaultServerIssuesLoader.class, ServerIssuesLoader.class);
     addIfMissing(DefaultServerLineHashesLoader.class, ServerLineHashesLoader.class);
@@ -229,17 +232,19 @@ public class ProjectScanContainer extends ComponentContainer {
     analysisMode.printMode();
     LOG.debug("Start recursive analysis of project modules");
     DefaultProjectTree tree = getComponentByType(DefaultProjectTree.class);
-    scanRecursively(tree.getRootProject());
+    scanModules(tree.getRootProject());
     if (analysisMode.isMediumTest()) {
       getComponentByType(ScanTaskObservers.class).notifyEndOfScanTask();
     }
   }
 
-  private void scanRecursively(Project module) {
-    for (Project subModules : module.getModules()) {
-      scanRecursively(subModules);
+  private void scanModules(Project rootProject) {
+    ModuleScanScheduler scheduler = getComponentByType(ModuleScanScheduler.class);
+    if (scheduler.isConcurrent()) {
+      // lazy instantiation of the components shared by modules is not thread-safe
+      getComponentsByType(Object.class);
     }
-    scan(module);
+    scheduler.scan(rootProject, this::scan);
   }
 
   @VisibleForTesting
@@ -65,20 +65,24 @@ public class FileIndexer {
   private final boolean isAggregator;
   private final ExclusionFilters exclusionFilters;
   private final InputFileBuilderFactory inputFileBuilderFactory;
+  private final FileMetadataSnapshot metadataSnapshot;
 
   private ProgressReport progressReport;
   private ExecutorService executorService;
   private List<Future<Void>> tasks;
 
-  public FileIndexer(ExclusionFilters exclusionFilters, InputFileBuilderFactory inputFileBuilderFactory, ProjectDefinition def, InputFileFilter[] filters) {
+  public FileIndexer(ExclusionFilters exclusionFilters, InputFileBuilderFactory inputFileBuilderFactory, ProjectDefinition def, FileMetadataSnapshot metadataSnapshot,
+    InputFileFilter[] filters) {
     this.filters = filters;
     this.exclusionFilters = exclusionFilters;
     this.inputFileBuilderFactory = inputFileBuilderFactory;
+    this.metadataSnapshot = metadataSnapshot;
     this.isAggregator = !def.getSubProjects().isEmpty();
   }
 
-  public FileIndexer(ExclusionFilters exclusionFilters, InputFileBuilderFactory inputFileBuilderFactory, ProjectDefinition def) {
-    this(exclusionFilters, inputFileBuilderFactory, def, new InputFileFilter[0]);
+  public FileIndexer(ExclusionFilters exclusionFilters, InputFileBuilderFactory inputFileBuilderFactory, ProjectDefinition def,
+    FileMetadataSnapshot metadataSnapshot) {
+    this(exclusionFilters, inputFileBuilderFactory, def, metadataSnapshot, new InputFileFilter[0]);
   }
 
   void index(DefaultModuleFileSystem fileSystem) {
@@ -92,6 +96,7 @@ public class FileIndexer {
 
     Progress progress = new Progress();
 
+    metadataSnapshot.load(fileSystem.encoding());
     InputFileBuilder inputFileBuilder = inputFileBuilderFactory.create(fileSystem);
     int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
     executorService = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("FileIndexer-%d").build());
@@ -100,6 +105,7 @@ public class FileIndexer {
     indexFiles(fileSystem, progress, inputFileBuilder, fileSystem.tests(), InputFile.Type.TEST);
 
     waitForTasksToComplete();
+    metadataSnapshot.save();
 
     progressReport.stop(progress.count() + " files indexed");
 
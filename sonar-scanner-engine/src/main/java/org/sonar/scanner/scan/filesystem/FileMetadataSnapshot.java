@@ -0,0 +1,264 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan.filesystem;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.SonarRuntime;
+import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.batch.bootstrap.ProjectDefinition;
+import org.sonar.api.batch.fs.internal.FileMetadata.Metadata;
+import org.sonar.api.config.Settings;
+import org.sonar.scanner.scan.ImmutableProjectReactor;
+
+/**
+ * Metadata of the files indexed by the previous analysis of the module, persisted in the working directory
+ * of the project. The metadata of a file which size, last modification date and file key (inode on Unix) didn't
+ * change is reused, so the file doesn't have to be read.
+ * <p/>
+ * The snapshot is ignored if the encoding of files or the version of the scanner changed. Files modified less
+ * than {@link #RACY_DELAY_MS} before being read are not stored, as a further modification could keep the same
+ * last modification date.
+ * <p/>
+ * Thread-safe, files being indexed concurrently.
+ */
+@ScannerSide
+public class FileMetadataSnapshot {
+
+  public static final String ENABLED_PROPERTY = "sonar.scanner.fileMetadataSnapshot";
+  /**
+   * Kept by {@link org.sonar.scanner.scan.WorkDirectoryCleaner}
+   */
+  public static final String DIR_NAME = ".metadata-snapshot";
+  static final long RACY_DELAY_MS = 2_000L;
+
+  private static final Logger LOG = LoggerFactory.getLogger(FileMetadataSnapshot.class);
+  private static final int FORMAT_VERSION = 1;
+
+  private final File file;
+  private final boolean enabled;
+  private final String version;
+  private Map<String, Entry> previousEntries = Collections.emptyMap();
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private String fingerprint;
+
+  public FileMetadataSnapshot(ImmutableProjectReactor reactor, ProjectDefinition module, Settings settings, SonarRuntime runtime) {
+    this.file = new File(new File(reactor.getRoot().getWorkDir(), DIR_NAME), DigestUtils.sha1Hex(module.getKeyWithBranch()));
+    this.enabled = !settings.hasKey(ENABLED_PROPERTY) || settings.getBoolean(ENABLED_PROPERTY);
+    this.version = runtime.getApiVersion().toString();
+  }
+
+  /**
+   * Loads the snapshot of the previous analysis, which is ignored if it was made with other settings.
+   */
+  public void load(Charset encoding) {
+    fingerprint = FORMAT_VERSION + "|" + version + "|" + encoding.name();
+    previousEntries = Collections.emptyMap();
+    entries.clear();
+    if (!enabled || !file.exists()) {
+      return;
+    }
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+      if (!fingerprint.equals(input.readUTF())) {
+        LOG.debug("Settings changed, metadata of files is computed again");
+        return;
+      }
+      int count = input.readInt();
+      Map<String, Entry> loaded = new HashMap<>(count);
+      for (int i = 0; i < count; i++) {
+        String relativePath = input.readUTF();
+        loaded.put(relativePath, Entry.read(input));
+      }
+      previousEntries = loaded;
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("Fail to load the snapshot of file metadata " + file, e);
+    }
+  }
+
+  /**
+   * Returns the metadata of the file stored in the snapshot, if the file didn't change since then.
+   */
+  @CheckForNull
+  public Metadata get(String relativePath, @Nullable FileState state) {
+    Entry entry = previousEntries.get(relativePath);
+    if (entry == null || state == null || !entry.state.sameAs(state)) {
+      return null;
+    }
+    entries.put(relativePath, entry);
+    return entry.metadata;
+  }
+
+  /**
+   * Stores the metadata of a file which was read. The state must be taken before reading the file.
+   */
+  public void put(String relativePath, @Nullable FileState state, Metadata metadata) {
+    if (enabled && state != null && state.lastModified < state.readTime - RACY_DELAY_MS) {
+      entries.put(relativePath, new Entry(state, metadata));
+    }
+  }
+
+  /**
+   * Replaces the snapshot of the previous analysis by the metadata of the files indexed by this analysis.
+   */
+  public void save() {
+    if (!enabled || fingerprint == null) {
+      return;
+    }
+    try {
+      Files.createDirectories(file.getParentFile().toPath());
+      Path tempFile = new File(file.getParentFile(), file.getName() + ".tmp").toPath();
+      try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+        output.writeUTF(fingerprint);
+        Map<String, Entry> snapshot = new HashMap<>(entries);
+        output.writeInt(snapshot.size());
+        for (Map.Entry<String, Entry> entry : snapshot.entrySet()) {
+          output.writeUTF(entry.getKey());
+          entry.getValue().write(output);
+        }
+      }
+      Files.move(tempFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      // the snapshot is an optimization only
+      LOG.warn("Fail to save the snapshot of file metadata " + file, e);
+    }
+    previousEntries = Collections.emptyMap();
+    entries.clear();
+  }
+
+  /**
+   * Attributes of a file which tell whether its content changed.
+   */
+  public static class FileState {
+    private final long size;
+    private final long lastModified;
+    private final String fileKey;
+    private final long readTime;
+
+    FileState(long size, long lastModified, String fileKey, long readTime) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.fileKey = fileKey;
+      this.readTime = readTime;
+    }
+
+    /**
+     * Returns {@code null} if attributes of the file can't be read.
+     */
+    @CheckForNull
+    public static FileState of(Path path) {
+      long now = System.currentTimeMillis();
+      try {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        Object fileKey = attributes.fileKey();
+        return new FileState(attributes.size(), attributes.lastModifiedTime().toMillis(), fileKey == null ? "" : fileKey.toString(), now);
+      } catch (IOException e) {
+        return null;
+      }
+    }
+
+    boolean sameAs(FileState other) {
+      return size == other.size && lastModified == other.lastModified && fileKey.equals(other.fileKey);
+    }
+  }
+
+  private static class Entry {
+    private final FileState state;
+    private final Metadata metadata;
+
+    Entry(FileState state, Metadata metadata) {
+      this.state = state;
+      this.metadata = metadata;
+    }
+
+    void write(DataOutput output) throws IOException {
+      output.writeLong(state.size);
+      output.writeLong(state.lastModified);
+      output.writeUTF(state.fileKey);
+      output.writeInt(metadata.lines());
+      output.writeInt(metadata.nonBlankLines());
+      output.writeUTF(metadata.hash());
+      output.writeInt(metadata.lastValidOffset());
+      int[] offsets = metadata.originalLineOffsets();
+      writeVarInt(output, offsets.length);
+      int previous = 0;
+      for (int offset : offsets) {
+        // offsets are increasing, deltas are line lengths
+        writeVarInt(output, offset - previous);
+        previous = offset;
+      }
+    }
+
+    static Entry read(DataInput input) throws IOException {
+      FileState state = new FileState(input.readLong(), input.readLong(), input.readUTF(), 0L);
+      int lines = input.readInt();
+      int nonBlankLines = input.readInt();
+      String hash = input.readUTF();
+      int lastValidOffset = input.readInt();
+      int[] offsets = new int[readVarInt(input)];
+      int previous = 0;
+      for (int i = 0; i < offsets.length; i++) {
+        previous += readVarInt(input);
+        offsets[i] = previous;
+      }
+      return new Entry(state, new Metadata(lines, nonBlankLines, hash, offsets, lastValidOffset));
+    }
+
+    private static void writeVarInt(DataOutput output, int value) throws IOException {
+      int v = value;
+      while ((v & ~0x7F) != 0) {
+        output.writeByte((v & 0x7F) | 0x80);
+        v >>>= 7;
+      }
+      output.writeByte(v);
+    }
+
+    private static int readVarInt(DataInput input) throws IOException {
+      int value = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = input.readByte();
+        value |= (b & 0x7F) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      return value;
+    }
+  }
+}
@@ -26,8 +26,11 @@ import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.FileMetadata;
+import org.sonar.api.batch.fs.internal.FileMetadata.Metadata;
 import org.sonar.api.config.Settings;
 import org.sonar.api.scan.filesystem.PathResolver;
+import org.sonar.scanner.issue.ignore.scanner.IssueExclusionsRegexpScanner;
+import org.sonar.scanner.scan.filesystem.FileMetadataSnapshot.FileState;
 
 import javax.annotation.CheckForNull;
 
@@ -44,9 +47,12 @@ class InputFileBuilder {
   private final DefaultModuleFileSystem fs;
   private final Settings settings;
   private final FileMetadata fileMetadata;
+  private final IssueExclusionsRegexpScanner exclusionsScanner;
+  private final FileMetadataSnapshot metadataSnapshot;
 
   InputFileBuilder(String moduleKey, PathResolver pathResolver, LanguageDetection langDetection,
-    StatusDetection statusDetection, DefaultModuleFileSystem fs, Settings settings, FileMetadata fileMetadata) {
+    StatusDetection statusDetection, DefaultModuleFileSystem fs, Settings settings, FileMetadata fileMetadata,
+    IssueExclusionsRegexpScanner exclusionsScanner, FileMetadataSnapshot metadataSnapshot) {
     this.moduleKey = moduleKey;
     this.pathResolver = pathResolver;
     this.langDetection = langDetection;
@@ -54,6 +60,8 @@ class InputFileBuilder {
     this.fs = fs;
     this.settings = settings;
     this.fileMetadata = fileMetadata;
+    this.exclusionsScanner = exclusionsScanner;
+    this.metadataSnapshot = metadataSnapshot;
   }
 
   String moduleKey() {
@@ -101,11 +109,30 @@ class InputFileBuilder {
     }
     inputFile.setLanguage(lang);
 
-    inputFile.initMetadata(fileMetadata.readMetadata(inputFile.file(), fs.encoding()));
+    inputFile.initMetadata(metadata(inputFile));
 
     inputFile.setStatus(statusDetection.status(inputFile.moduleKey(), inputFile.relativePath(), inputFile.hash()));
 
     return inputFile;
   }
 
+  /**
+   * Metadata is read from the snapshot of the previous analysis when the file didn't change
+   */
+  private Metadata metadata(DefaultInputFile inputFile) {
+    FileState state = FileState.of(inputFile.path());
+    Metadata metadata = metadataSnapshot.get(inputFile.relativePath(), state);
+    if (metadata != null) {
+      return metadata;
+    }
+    if (exclusionsScanner.hasPatterns()) {
+      // look for issue exclusion patterns while the file is read
+      metadata = fileMetadata.readMetadata(inputFile.file(), fs.encoding(), exclusionsScanner.createCharHandler(inputFile.key()));
+    } else {
+      metadata = fileMetadata.readMetadata(inputFile.file(), fs.encoding());
+    }
+    metadataSnapshot.put(inputFile.relativePath(), state, metadata);
+    return metadata;
+  }
+
 }
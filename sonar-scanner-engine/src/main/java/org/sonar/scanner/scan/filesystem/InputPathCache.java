@@ -19,8 +19,10 @@
  */
 package org.sonar.scanner.scan.filesystem;
 
-import com.google.common.collect.Table;
-import com.google.common.collect.TreeBasedTable;
+import com.google.common.collect.Iterables;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.fs.InputDir;
 import org.sonar.api.batch.fs.InputFile;
@@ -30,63 +32,75 @@ import javax.annotation.CheckForNull;
 /**
  * Cache of all files and dirs. This cache is shared amongst all project modules. Inclusion and
  * exclusion patterns are already applied.
+ * <p/>
+ * Modules may be scanned concurrently, so files and dirs are stored in concurrent maps, sorted by module key
+ * and then by relative path. Returned iterables are live views.
  */
 @ScannerSide
 public class InputPathCache {
 
-  private final Table<String, String, InputFile> inputFileCache = TreeBasedTable.create();
-  private final Table<String, String, InputDir> inputDirCache = TreeBasedTable.create();
+  private final ConcurrentNavigableMap<String, ConcurrentNavigableMap<String, InputFile>> inputFileCache = new ConcurrentSkipListMap<>();
+  private final ConcurrentNavigableMap<String, ConcurrentNavigableMap<String, InputDir>> inputDirCache = new ConcurrentSkipListMap<>();
 
   public Iterable<InputFile> allFiles() {
-    return inputFileCache.values();
+    return Iterables.concat(Iterables.transform(inputFileCache.values(), Map::values));
   }
 
   public Iterable<InputDir> allDirs() {
-    return inputDirCache.values();
+    return Iterables.concat(Iterables.transform(inputDirCache.values(), Map::values));
   }
 
   public Iterable<InputFile> filesByModule(String moduleKey) {
-    return inputFileCache.row(moduleKey).values();
+    return row(inputFileCache, moduleKey).values();
   }
 
   public Iterable<InputDir> dirsByModule(String moduleKey) {
-    return inputDirCache.row(moduleKey).values();
+    return row(inputDirCache, moduleKey).values();
   }
 
   public InputPathCache removeModule(String moduleKey) {
-    inputFileCache.row(moduleKey).clear();
-    inputDirCache.row(moduleKey).clear();
+    row(inputFileCache, moduleKey).clear();
+    row(inputDirCache, moduleKey).clear();
     return this;
   }
 
   public InputPathCache remove(String moduleKey, InputFile inputFile) {
-    inputFileCache.remove(moduleKey, inputFile.relativePath());
+    row(inputFileCache, moduleKey).remove(inputFile.relativePath());
     return this;
   }
 
   public InputPathCache remove(String moduleKey, InputDir inputDir) {
-    inputDirCache.remove(moduleKey, inputDir.relativePath());
+    row(inputDirCache, moduleKey).remove(inputDir.relativePath());
     return this;
   }
 
   public InputPathCache put(String moduleKey, InputFile inputFile) {
-    inputFileCache.put(moduleKey, inputFile.relativePath(), inputFile);
+    row(inputFileCache, moduleKey).put(inputFile.relativePath(), inputFile);
     return this;
   }
 
   public InputPathCache put(String moduleKey, InputDir inputDir) {
-    inputDirCache.put(moduleKey, inputDir.relativePath(), inputDir);
+    row(inputDirCache, moduleKey).put(inputDir.relativePath(), inputDir);
     return this;
   }
 
   @CheckForNull
   public InputFile getFile(String moduleKey, String relativePath) {
-    return inputFileCache.get(moduleKey, relativePath);
+    Map<String, InputFile> files = inputFileCache.get(moduleKey);
+    return files == null ? null : files.get(relativePath);
   }
 
   @CheckForNull
   public InputDir getDir(String moduleKey, String relativePath) {
-    return inputDirCache.get(moduleKey, relativePath);
+    Map<String, InputDir> dirs = inputDirCache.get(moduleKey);
+    return dirs == null ? null : dirs.get(relativePath);
+  }
+
+  /**
+   * Rows are never removed, so that views returned by {@link #filesByModule(String)} stay live
+   */
+  private static <T> ConcurrentNavigableMap<String, T> row(ConcurrentNavigableMap<String, ConcurrentNavigableMap<String, T>> table, String moduleKey) {
+    return table.computeIfAbsent(moduleKey, k -> new ConcurrentSkipListMap<>());
   }
 
 }
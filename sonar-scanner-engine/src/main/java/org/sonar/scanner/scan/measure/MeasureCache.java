@@ -38,7 +38,7 @@ public class MeasureCache {
   private final Cache<Measure> cache;
 
   public MeasureCache(Caches caches, MetricFinder metricFinder) {
-    caches.registerValueCoder(Measure.class, new MeasureValueCoder(metricFinder));
+    caches.registerValueCodec(Measure.class, new MeasureValueCoder(metricFinder));
     cache = caches.createCache("measures");
   }
 
@@ -19,16 +19,25 @@
  */
 package org.sonar.scanner.scan.measure;
 
-import com.persistit.Value;
-import com.persistit.encoding.CoderContext;
-import com.persistit.encoding.ValueCoder;
-import javax.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import org.sonar.api.batch.measure.MetricFinder;
 import org.sonar.api.measures.Measure;
 import org.sonar.api.measures.Metric;
 import org.sonar.api.measures.PersistenceMode;
+import org.sonar.scanner.index.CacheValueCodec;
 
-class MeasureValueCoder implements ValueCoder {
+import static org.sonar.scanner.index.CacheValueCodecs.readNullableDate;
+import static org.sonar.scanner.index.CacheValueCodecs.readNullableDouble;
+import static org.sonar.scanner.index.CacheValueCodecs.readNullableInt;
+import static org.sonar.scanner.index.CacheValueCodecs.readNullableString;
+import static org.sonar.scanner.index.CacheValueCodecs.writeNullableDate;
+import static org.sonar.scanner.index.CacheValueCodecs.writeNullableDouble;
+import static org.sonar.scanner.index.CacheValueCodecs.writeNullableInt;
+import static org.sonar.scanner.index.CacheValueCodecs.writeNullableString;
+
+class MeasureValueCoder implements CacheValueCodec<Measure> {
 
   private final MetricFinder metricFinder;
 
@@ -37,58 +46,50 @@ class MeasureValueCoder implements ValueCoder {
   }
 
   @Override
-  public void put(Value value, Object object, CoderContext context) {
-    Measure<?> m = (Measure) object;
-    value.putUTF(m.getMetricKey());
-    value.put(m.getValue());
-    putUTFOrNull(value, m.getData());
-    putUTFOrNull(value, m.getDescription());
-    value.putString(m.getAlertStatus() != null ? m.getAlertStatus().name() : null);
-    putUTFOrNull(value, m.getAlertText());
-    value.putDate(m.getDate());
-    value.put(m.getVariation1());
-    value.put(m.getVariation2());
-    value.put(m.getVariation3());
-    value.put(m.getVariation4());
-    value.put(m.getVariation5());
-    putUTFOrNull(value, m.getUrl());
-    Integer personId = m.getPersonId();
-    value.put(personId != null ? personId.intValue() : null);
+  public void write(DataOutput output, Measure m) throws IOException {
+    output.writeUTF(m.getMetricKey());
+    writeNullableDouble(output, m.getValue());
+    writeNullableString(output, m.getData());
+    writeNullableString(output, m.getDescription());
+    writeNullableString(output, m.getAlertStatus() != null ? m.getAlertStatus().name() : null);
+    writeNullableString(output, m.getAlertText());
+    writeNullableDate(output, m.getDate());
+    writeNullableDouble(output, m.getVariation1());
+    writeNullableDouble(output, m.getVariation2());
+    writeNullableDouble(output, m.getVariation3());
+    writeNullableDouble(output, m.getVariation4());
+    writeNullableDouble(output, m.getVariation5());
+    writeNullableString(output, m.getUrl());
+    writeNullableInt(output, m.getPersonId());
     PersistenceMode persistenceMode = m.getPersistenceMode();
-    value.putString(persistenceMode != null ? persistenceMode.name() : null);
-  }
-
-  private static void putUTFOrNull(Value value, @Nullable String utfOrNull) {
-    if (utfOrNull != null) {
-      value.putUTF(utfOrNull);
-    } else {
-      value.putNull();
-    }
+    writeNullableString(output, persistenceMode != null ? persistenceMode.name() : null);
   }
 
   @Override
-  public Object get(Value value, Class clazz, CoderContext context) {
+  public Measure read(DataInput input) throws IOException {
     Measure<?> m = new Measure();
-    String metricKey = value.getString();
+    String metricKey = input.readUTF();
     org.sonar.api.batch.measure.Metric metric = metricFinder.findByKey(metricKey);
     if (metric == null) {
       throw new IllegalStateException("Unknow metric with key " + metricKey);
     }
     m.setMetric((org.sonar.api.measures.Metric) metric);
-    m.setRawValue(value.isNull(true) ? null : value.getDouble());
-    m.setData(value.getString());
-    m.setDescription(value.getString());
-    m.setAlertStatus(value.isNull(true) ? null : Metric.Level.valueOf(value.getString()));
-    m.setAlertText(value.getString());
-    m.setDate(value.getDate());
-    m.setVariation1(value.isNull(true) ? null : value.getDouble());
-    m.setVariation2(value.isNull(true) ? null : value.getDouble());
-    m.setVariation3(value.isNull(true) ? null : value.getDouble());
-    m.setVariation4(value.isNull(true) ? null : value.getDouble());
-    m.setVariation5(value.isNull(true) ? null : value.getDouble());
-    m.setUrl(value.getString());
-    m.setPersonId(value.isNull(true) ? null : value.getInt());
-    m.setPersistenceMode(value.isNull(true) ? null : PersistenceMode.valueOf(value.getString()));
+    m.setRawValue(readNullableDouble(input));
+    m.setData(readNullableString(input));
+    m.setDescription(readNullableString(input));
+    String alertStatus = readNullableString(input);
+    m.setAlertStatus(alertStatus == null ? null : Metric.Level.valueOf(alertStatus));
+    m.setAlertText(readNullableString(input));
+    m.setDate(readNullableDate(input));
+    m.setVariation1(readNullableDouble(input));
+    m.setVariation2(readNullableDouble(input));
+    m.setVariation3(readNullableDouble(input));
+    m.setVariation4(readNullableDouble(input));
+    m.setVariation5(readNullableDouble(input));
+    m.setUrl(readNullableString(input));
+    m.setPersonId(readNullableInt(input));
+    String persistenceMode = readNullableString(input);
+    m.setPersistenceMode(persistenceMode == null ? null : PersistenceMode.valueOf(persistenceMode));
     return m;
   }
 }
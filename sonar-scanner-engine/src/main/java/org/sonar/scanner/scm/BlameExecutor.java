@@ -0,0 +1,132 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scm;
+
+import com.google.common.collect.Lists;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.scm.BlameCommand;
+import org.sonar.api.batch.scm.BlameCommand.BlameOutput;
+import org.sonar.api.batch.scm.BlameLine;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.config.ScannerThreadsProperties;
+import org.sonar.scanner.util.BoundedExecutor;
+
+/**
+ * Executes the blame command of the SCM provider. By default all the files are given at once to the provider. When
+ * the property {@link #THREADS_PROPERTY} is greater than 1, files are split into chunks of {@link #FILES_PER_TASK}
+ * files, which are blamed concurrently by a pool of threads. At most two chunks per thread are submitted at a time, so
+ * that the number of files being blamed, and the memory used by providers, is bounded.
+ * <p/>
+ * Providers blame files by batches and give no timing per file, so only the interval between two consecutive results
+ * of a chunk is recorded, the first interval starting with the chunk. The histogram of intervals is logged at the end.
+ */
+class BlameExecutor {
+
+  private static final Logger LOG = Loggers.get(BlameExecutor.class);
+  static final String THREADS_PROPERTY = ScannerThreadsProperties.SCM_THREADS;
+  static final int FILES_PER_TASK = 20;
+
+  private final int threads;
+  private final IntervalHistogram resultIntervals = new IntervalHistogram();
+
+  BlameExecutor(int threads) {
+    this.threads = threads;
+  }
+
+  void blame(BlameCommand command, FileSystem fs, List<InputFile> filesToBlame, DefaultBlameOutput output) {
+    if (threads == 1 || filesToBlame.size() <= FILES_PER_TASK) {
+      command.blame(new DefaultBlameInput(fs, filesToBlame), new TimedBlameOutput(output, resultIntervals));
+    } else {
+      blameConcurrently(command, fs, filesToBlame, output);
+    }
+    LOG.debug("Interval between consecutive blame results: {}", resultIntervals);
+  }
+
+  private void blameConcurrently(BlameCommand command, FileSystem fs, List<InputFile> filesToBlame, DefaultBlameOutput output) {
+    LOG.info("Blame files with {} threads", threads);
+    try (BoundedExecutor executor = new BoundedExecutor("scm-blame-%d", threads, "SCM blame")) {
+      for (List<InputFile> chunk : Lists.partition(filesToBlame, FILES_PER_TASK)) {
+        if (!executor.submit(() -> command.blame(new DefaultBlameInput(fs, chunk), new TimedBlameOutput(output, resultIntervals)))) {
+          // fail fast
+          break;
+        }
+      }
+      executor.awaitTermination();
+    }
+  }
+
+  /**
+   * Results of a chunk, which may be provided by several threads of the SCM provider
+   */
+  private static class TimedBlameOutput implements BlameOutput {
+    private final DefaultBlameOutput delegate;
+    private final IntervalHistogram intervals;
+    private long lastResult = System.nanoTime();
+
+    TimedBlameOutput(DefaultBlameOutput delegate, IntervalHistogram intervals) {
+      this.delegate = delegate;
+      this.intervals = intervals;
+    }
+
+    @Override
+    public void blameResult(InputFile file, List<BlameLine> lines) {
+      long now = System.nanoTime();
+      long interval;
+      synchronized (this) {
+        interval = now - lastResult;
+        lastResult = now;
+      }
+      intervals.record(TimeUnit.NANOSECONDS.toMillis(interval));
+      delegate.blameResult(file, lines);
+    }
+  }
+
+  static class IntervalHistogram {
+    private static final long[] BOUNDS_MS = {10L, 100L, 1_000L, 10_000L};
+    private final AtomicLongArray counts = new AtomicLongArray(BOUNDS_MS.length + 1);
+
+    void record(long intervalMs) {
+      int bucket = 0;
+      while (bucket < BOUNDS_MS.length && intervalMs >= BOUNDS_MS[bucket]) {
+        bucket++;
+      }
+      counts.incrementAndGet(bucket);
+    }
+
+    long count(int bucket) {
+      return counts.get(bucket);
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < BOUNDS_MS.length; i++) {
+        sb.append("<").append(BOUNDS_MS[i]).append("ms=").append(counts.get(i)).append(", ");
+      }
+      sb.append(">=").append(BOUNDS_MS[BOUNDS_MS.length - 1]).append("ms=").append(counts.get(BOUNDS_MS.length));
+      return sb.toString();
+    }
+  }
+}
@@ -19,7 +19,7 @@
  */
 package org.sonar.scanner.scm;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.CoreProperties;
@@ -30,6 +30,7 @@ import org.sonar.api.batch.fs.InputFile.Status;
 import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.SensorDescriptor;
+import org.sonar.api.config.Settings;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.scanner.index.BatchComponent;
@@ -50,15 +51,17 @@ public final class ScmSensor implements Sensor {
   private final ProjectRepositories projectRepositories;
   private final BatchComponentCache componentCache;
   private final ReportPublisher publishReportJob;
+  private final Settings settings;
 
   public ScmSensor(ProjectDefinition projectDefinition, ScmConfiguration configuration,
-    ProjectRepositories projectRepositories, FileSystem fs, BatchComponentCache componentCache, ReportPublisher publishReportJob) {
+    ProjectRepositories projectRepositories, FileSystem fs, BatchComponentCache componentCache, ReportPublisher publishReportJob, Settings settings) {
     this.projectDefinition = projectDefinition;
     this.configuration = configuration;
     this.projectRepositories = projectRepositories;
     this.fs = fs;
     this.componentCache = componentCache;
     this.publishReportJob = publishReportJob;
+    this.settings = settings;
   }
 
   @Override
@@ -83,7 +86,7 @@ public final class ScmSensor implements Sensor {
       LOG.info("SCM provider for this project is: " + key);
       DefaultBlameOutput output = new DefaultBlameOutput(publishReportJob.getWriter(), componentCache, filesToBlame);
       try {
-        configuration.provider().blameCommand().blame(new DefaultBlameInput(fs, filesToBlame), output);
+        new BlameExecutor(getThreads()).blame(configuration.provider().blameCommand(), fs, filesToBlame, output);
       } catch (Exception e) {
         output.finish(false);
         throw e;
@@ -92,11 +95,16 @@ public final class ScmSensor implements Sensor {
     }
   }
 
+  private int getThreads() {
+    int threads = settings.getInt(BlameExecutor.THREADS_PROPERTY);
+    return threads > 0 ? threads : 1;
+  }
+
   private List<InputFile> collectFilesToBlame() {
     if (configuration.forceReloadAll()) {
       LOG.warn("Forced reloading of SCM data for all files.");
     }
-    List<InputFile> filesToBlame = new LinkedList<>();
+    List<InputFile> filesToBlame = new ArrayList<>();
     for (InputFile f : fs.inputFiles(fs.predicates().all())) {
       if (configuration.forceReloadAll() || f.status() != Status.SAME) {
         addIfNotEmpty(filesToBlame, f);
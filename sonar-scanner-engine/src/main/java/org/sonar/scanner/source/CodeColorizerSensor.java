@@ -19,19 +19,33 @@
  */
 package org.sonar.scanner.source;
 
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
 import org.sonar.api.batch.Phase;
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.SensorDescriptor;
+import org.sonar.core.config.ScannerThreadsProperties;
 import org.sonar.scanner.index.BatchComponentCache;
-import org.sonar.scanner.protocol.output.ScannerReportReader;
+import org.sonar.scanner.protocol.output.FileStructure;
+import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.report.ReportPublisher;
+import org.sonar.scanner.util.BoundedExecutor;
 
+/**
+ * Highlights the files which were not highlighted by a language plugin, using the tokenizers of
+ * {@link org.sonar.api.web.CodeColorizerFormat}. Files can be colorized by a pool of threads by setting the property
+ * {@link #THREADS_PROPERTY}. At most two files per thread are submitted at a time, so that the number of highlightings
+ * held in memory is bounded, and no more files are submitted after the first failure.
+ */
 @Phase(name = Phase.Name.POST)
 public final class CodeColorizerSensor implements Sensor {
 
+  static final String THREADS_PROPERTY = ScannerThreadsProperties.COLORIZER_THREADS;
+
   private final ReportPublisher reportPublisher;
   private final BatchComponentCache resourceCache;
   private final CodeColorizers codeColorizers;
@@ -50,14 +64,39 @@ public final class CodeColorizerSensor implements Sensor {
   @Override
   public void execute(final SensorContext context) {
     FileSystem fs = context.fileSystem();
+    ScannerReportWriter writer = reportPublisher.getWriter();
+    List<InputFile> filesToColorize = new ArrayList<>();
     for (InputFile f : fs.inputFiles(fs.predicates().all())) {
-      ScannerReportReader reader = new ScannerReportReader(reportPublisher.getReportDir());
-      int batchId = resourceCache.get(f).batchId();
       String language = f.language();
-      if (reader.hasSyntaxHighlighting(batchId) || language == null) {
+      if (language == null || writer.hasComponentData(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, resourceCache.get(f).batchId())) {
         continue;
       }
-      codeColorizers.toSyntaxHighlighting(f.file(), fs.encoding(), language, context.newHighlighting().onFile(f));
+      filesToColorize.add(f);
+    }
+
+    int threads = context.settings().getInt(THREADS_PROPERTY);
+    if (threads <= 1 || filesToColorize.size() <= 1) {
+      for (InputFile f : filesToColorize) {
+        colorize(f, fs.encoding(), context);
+      }
+    } else {
+      colorizeConcurrently(filesToColorize, fs.encoding(), context, threads);
+    }
+  }
+
+  private void colorize(InputFile f, Charset encoding, SensorContext context) {
+    codeColorizers.toSyntaxHighlighting(f.file(), encoding, f.language(), context.newHighlighting().onFile(f));
+  }
+
+  private void colorizeConcurrently(List<InputFile> files, Charset encoding, SensorContext context, int threads) {
+    try (BoundedExecutor executor = new BoundedExecutor("colorizer-%d", threads, "colorization of files")) {
+      for (InputFile f : files) {
+        if (!executor.submit(() -> colorize(f, encoding, context))) {
+          // fail fast
+          break;
+        }
+      }
+      executor.awaitTermination();
     }
   }
 
@@ -19,12 +19,15 @@
  */
 package org.sonar.scanner.source;
 
+import javax.annotation.CheckForNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
 import org.sonar.api.batch.sensor.highlighting.TypeOfText;
 import org.sonar.colorizer.HtmlCodeBuilder;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -34,7 +37,9 @@ public class HighlightingCodeBuilder extends HtmlCodeBuilder {
 
   private int currentOffset = 0;
   private static final Pattern START_TAG_PATTERN = Pattern.compile("<span class=\"(.+)\">");
-  private static final Pattern END_TAG_PATTERN = Pattern.compile("</span>");
+  private static final String END_TAG = "</span>";
+  // tags are the same for all the tokens of a tokenizer
+  private final Map<String, String> cssClassByStartTag = new HashMap<>();
   private int startOffset = -1;
   private String cssClass;
   private final NewHighlighting highlighting;
@@ -45,9 +50,13 @@ public class HighlightingCodeBuilder extends HtmlCodeBuilder {
 
   @Override
   public Appendable append(CharSequence csq) {
-    for (int i = 0; i < csq.length(); i++) {
-      append(csq.charAt(i));
-    }
+    currentOffset += csq.length();
+    return this;
+  }
+
+  @Override
+  public Appendable append(CharSequence csq, int start, int end) {
+    currentOffset += end - start;
     return this;
   }
 
@@ -60,16 +69,15 @@ public class HighlightingCodeBuilder extends HtmlCodeBuilder {
   @Override
   public void appendWithoutTransforming(String htmlTag) {
     if (startOffset == -1) {
-      Matcher startMatcher = START_TAG_PATTERN.matcher(htmlTag);
-      if (startMatcher.matches()) {
+      String startCssClass = cssClass(htmlTag);
+      if (startCssClass != null) {
         startOffset = currentOffset;
-        cssClass = startMatcher.group(1);
+        cssClass = startCssClass;
       } else {
         LOG.warn("Expected to match highlighting start html tag but was: " + htmlTag);
       }
     } else {
-      Matcher endMatcher = END_TAG_PATTERN.matcher(htmlTag);
-      if (endMatcher.matches()) {
+      if (END_TAG.equals(htmlTag)) {
         highlighting.highlight(startOffset, currentOffset, TypeOfText.forCssClass(cssClass));
         startOffset = -1;
       } else {
@@ -78,6 +86,20 @@ public class HighlightingCodeBuilder extends HtmlCodeBuilder {
     }
   }
 
+  @CheckForNull
+  private String cssClass(String startTag) {
+    String startCssClass = cssClassByStartTag.get(startTag);
+    if (startCssClass == null) {
+      Matcher startMatcher = START_TAG_PATTERN.matcher(startTag);
+      if (!startMatcher.matches()) {
+        return null;
+      }
+      startCssClass = startMatcher.group(1);
+      cssClassByStartTag.put(startTag, startCssClass);
+    }
+    return startCssClass;
+  }
+
   @Override
   public String toString() {
     throw new UnsupportedOperationException();
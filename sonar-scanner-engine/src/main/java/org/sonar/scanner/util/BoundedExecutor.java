@@ -0,0 +1,121 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.util;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Executes tasks with a fixed pool of daemon threads. At most two tasks per thread are submitted at a time, so
+ * that the memory held by pending tasks is bounded. Once a task failed, no more tasks are accepted and the failure
+ * is thrown by {@link #awaitTermination()}.
+ * <p/>
+ * Threads are stopped by {@link #close()}, so instances are expected to be used in try-with-resources statements.
+ */
+public class BoundedExecutor implements AutoCloseable {
+
+  private final String description;
+  private final ExecutorService executorService;
+  private final Semaphore inFlight;
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+  private final List<Future<?>> futures = new ArrayList<>();
+
+  /**
+   * @param threadNameFormat format of thread names, for example "scm-blame-%d"
+   * @param description what tasks do, used in error messages, for example "SCM blame"
+   */
+  public BoundedExecutor(String threadNameFormat, int threads, String description) {
+    this.description = description;
+    this.executorService = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat(threadNameFormat).setDaemon(true).build());
+    this.inFlight = new Semaphore(2 * threads);
+  }
+
+  /**
+   * Submits the task, waiting if too many tasks are pending.
+   *
+   * @return {@code false} if the task is not submitted because a previous task failed
+   */
+  public boolean submit(Runnable task) {
+    acquire();
+    if (failure.get() != null) {
+      inFlight.release();
+      return false;
+    }
+    futures.add(executorService.submit(() -> {
+      try {
+        task.run();
+      } catch (RuntimeException | Error e) {
+        failure.compareAndSet(null, e);
+        throw e;
+      } finally {
+        inFlight.release();
+      }
+    }));
+    return true;
+  }
+
+  /**
+   * Waits for the completion of the submitted tasks, and throws the failure of the first failed task, if any.
+   */
+  public void awaitTermination() {
+    for (Future<?> future : futures) {
+      waitFor(future);
+    }
+  }
+
+  @Override
+  public void close() {
+    executorService.shutdownNow();
+  }
+
+  private void acquire() {
+    try {
+      inFlight.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted during " + description, e);
+    }
+  }
+
+  private void waitFor(Future<?> future) {
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted during " + description, e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException("Fail to execute " + description, cause);
+    }
+  }
+}
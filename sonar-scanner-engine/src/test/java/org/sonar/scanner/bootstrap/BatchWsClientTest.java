@@ -19,10 +19,12 @@
  */
 package org.sonar.scanner.bootstrap;
 
+import java.io.File;
 import java.util.List;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 import org.sonar.api.utils.MessageException;
 import org.sonar.api.utils.log.LogTester;
@@ -35,6 +37,7 @@ import org.sonarqube.ws.client.WsRequest;
 import org.sonarqube.ws.client.WsResponse;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -46,6 +49,9 @@ public class BatchWsClientTest {
   @Rule
   public ExpectedException expectedException = ExpectedException.none();
 
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
   WsClient wsClient = mock(WsClient.class, Mockito.RETURNS_DEEP_STUBS);
 
   @Test
@@ -121,6 +127,48 @@ public class BatchWsClientTest {
     new BatchWsClient(wsClient, true).call(request);
   }
 
+  @Test
+  public void cache_response_with_etag_and_reuse_it_if_not_modified() throws Exception {
+    WsResponseCache cache = new WsResponseCache(temp.newFolder(), "theLogin:thePassword");
+    BatchWsClient underTest = new BatchWsClient(wsClient, true, cache);
+    when(wsClient.wsConnector().call(any(WsRequest.class)))
+      .thenReturn(newResponse().setContentType("application/json").setHeader("ETag", "\"v1\"").setContent("{}"))
+      .thenReturn(newResponse().setCode(304));
+
+    assertThat(underTest.call(newRequest()).content()).isEqualTo("{}");
+
+    GetRequest secondRequest = new GetRequest("api/issues/search");
+    WsResponse second = underTest.call(secondRequest);
+    assertThat(secondRequest.getHeaders()).containsEntry("If-None-Match", "\"v1\"");
+    assertThat(second.code()).isEqualTo(200);
+    assertThat(second.contentType()).isEqualTo("application/json");
+    assertThat(second.content()).isEqualTo("{}");
+  }
+
+  @Test
+  public void do_not_cache_response_without_etag() throws Exception {
+    WsResponseCache cache = new WsResponseCache(temp.newFolder(), "theLogin:thePassword");
+    BatchWsClient underTest = new BatchWsClient(wsClient, true, cache);
+    WsResponse response = newResponse().setContent("{}");
+    when(wsClient.wsConnector().call(any(WsRequest.class))).thenReturn(response);
+
+    assertThat(underTest.call(newRequest())).isSameAs(response);
+
+    GetRequest secondRequest = new GetRequest("api/issues/search");
+    underTest.call(secondRequest);
+    assertThat(secondRequest.getHeaders()).isEmpty();
+  }
+
+  @Test
+  public void do_not_share_cached_responses_between_users() throws Exception {
+    File dir = temp.newFolder();
+    WsResponseCache cache1 = new WsResponseCache(dir, "user1:");
+    WsResponseCache cache2 = new WsResponseCache(dir, "user2:");
+
+    assertThat(cache1.key("http://localhost:9000/", newRequest())).isNotEqualTo(cache2.key("http://localhost:9000/", newRequest()));
+    assertThat(cache1.key("http://localhost:9000/", newRequest())).isEqualTo(cache1.key("http://localhost:9000/", newRequest()));
+  }
+
   private MockWsResponse newResponse() {
     return new MockWsResponse().setRequestUrl("https://local/api/issues/search");
   }
@@ -19,6 +19,7 @@
  */
 package org.sonar.scanner.cpd;
 
+import com.google.common.collect.Lists;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -37,6 +38,8 @@ import org.sonar.api.resources.Project;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.core.util.CloseableIterator;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
 import org.sonar.duplications.index.CloneGroup;
 import org.sonar.duplications.index.ClonePart;
 import org.sonar.scanner.cpd.index.SonarCpdBlockIndex;
@@ -197,6 +200,67 @@ public class CpdExecutorTest {
     assertDuplication(dups[1], 15, 214, batchComponent3.batchId(), 15, 214);
   }
 
+  @Test
+  public void threads_are_configurable() {
+    assertThat(executor.getThreads()).isEqualTo(1);
+
+    settings.setProperty(CpdExecutor.THREADS_PROPERTY, "4");
+    assertThat(executor.getThreads()).isEqualTo(4);
+
+    settings.setProperty(CpdExecutor.THREADS_PROPERTY, "0");
+    assertThat(executor.getThreads()).isEqualTo(1);
+  }
+
+  @Test
+  public void parallel_detection_gives_same_report_as_sequential_detection() throws Exception {
+    List<BatchComponent> components = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      BatchComponent component = createComponent("src/Dup" + i + ".java", 100);
+      ((DefaultInputFile) component.inputComponent()).setLanguage("java");
+      components.add(component);
+    }
+
+    List<List<Duplication>> sequential = detectDuplications(components, 1);
+    List<List<Duplication>> parallel = detectDuplications(components, 4);
+
+    assertThat(sequential).hasSize(20);
+    assertThat(sequential.get(0)).isNotEmpty();
+    assertThat(parallel).isEqualTo(sequential);
+  }
+
+  private List<List<Duplication>> detectDuplications(List<BatchComponent> components, int threads) throws IOException {
+    File outputDir = temp.newFolder();
+    ReportPublisher reportPublisher = mock(ReportPublisher.class);
+    when(reportPublisher.getWriter()).thenReturn(new ScannerReportWriter(outputDir));
+    Settings executorSettings = new MapSettings().setProperty(CpdExecutor.THREADS_PROPERTY, threads);
+    SonarCpdBlockIndex realIndex = new SonarCpdBlockIndex(reportPublisher, componentCache, executorSettings);
+    for (int i = 0; i < components.size(); i++) {
+      // each file shares its blocks with the next one
+      List<Block> blocks = new ArrayList<>();
+      for (int j = 0; j < 10; j++) {
+        blocks.add(Block.builder()
+          .setResourceId(components.get(i).key())
+          .setBlockHash(new ByteArray((long) (i / 2) * 100 + j))
+          .setIndexInFile(j)
+          .setLines(j + 1, j + 2)
+          .setUnit(j, j + 1)
+          .build());
+      }
+      realIndex.insert((DefaultInputFile) components.get(i).inputComponent(), blocks);
+    }
+
+    new CpdExecutor(executorSettings, realIndex, reportPublisher, componentCache).execute();
+
+    ScannerReportReader reportReader = new ScannerReportReader(outputDir);
+    List<List<Duplication>> result = new ArrayList<>();
+    for (BatchComponent component : components) {
+      try (CloseableIterator<Duplication> it = reportReader.readComponentDuplications(component.batchId())) {
+        result.add(Lists.newArrayList(it));
+      }
+    }
+    return result;
+  }
+
   private Duplication[] readDuplications(int expected) {
     assertThat(reader.readComponentDuplications(batchComponent1.batchId())).hasSize(expected);
     Duplication[] duplications = new Duplication[expected];
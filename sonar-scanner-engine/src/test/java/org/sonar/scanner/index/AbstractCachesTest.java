@@ -57,10 +57,14 @@ public abstract class AbstractCachesTest {
 
   @Before
   public void start() {
-    caches = new Caches(cachesManager);
+    caches = createCaches();
     caches.start();
   }
 
+  protected Caches createCaches() {
+    return new Caches(cachesManager);
+  }
+
   @After
   public void stop() {
     if (caches != null) {
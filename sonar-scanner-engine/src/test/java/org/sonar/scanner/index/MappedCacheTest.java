@@ -0,0 +1,139 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.index;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+import org.sonar.api.config.MapSettings;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the tests of {@link CacheTest} on caches stored in memory-mapped files.
+ */
+public class MappedCacheTest extends CacheTest {
+
+  @Override
+  protected Caches createCaches() {
+    return new Caches(cachesManager, new MapSettings().setProperty(Caches.BACKEND_PROPERTY, Caches.MMAP_BACKEND));
+  }
+
+  @Test
+  public void create_mapped_caches() {
+    assertThat(caches.createCache("foo")).isInstanceOf(MappedCache.class);
+  }
+
+  @Test
+  public void encode_values_with_registered_codec_or_java_serialization() {
+    caches.registerValueCodec(Point.class, new PointCodec());
+    Cache<Object> cache = caches.createCache("values");
+
+    cache.put("point", new Point(3, 4));
+    cache.put("serializable", new SerializablePoint(5));
+    cache.put("string", "foo");
+
+    assertThat(((Point) cache.get("point")).x).isEqualTo(3);
+    assertThat(((Point) cache.get("point")).y).isEqualTo(4);
+    assertThat(((SerializablePoint) cache.get("serializable")).x).isEqualTo(5);
+    assertThat(cache.get("string")).isEqualTo("foo");
+  }
+
+  @Test
+  public void store_values_bigger_than_segments() throws Exception {
+    MappedStorage storage = new MappedStorage(temp.newFolder(), 16);
+    Cache<String> cache = new MappedCache<>("big", storage, new CacheValueEncoder());
+    String big = StringUtils.repeat("a", 100);
+
+    cache.put("small1", "a");
+    cache.put("big", big);
+    cache.put("small2", "b");
+
+    assertThat(cache.get("small1")).isEqualTo("a");
+    assertThat(cache.get("big")).isEqualTo(big);
+    assertThat(cache.get("small2")).isEqualTo("b");
+    storage.close();
+  }
+
+  @Test
+  public void read_and_write_concurrently() throws Exception {
+    Cache<String> cache = caches.createCache("concurrent");
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        String thread = "t" + t;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 1_000; i++) {
+            cache.put(thread, i, thread + i);
+            assertThat(cache.get(thread, i)).isEqualTo(thread + i);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertThat(cache.keySet()).containsOnly("t0", "t1", "t2", "t3");
+    assertThat(cache.values("t2")).hasSize(1_000);
+  }
+
+  private static class Point {
+    private final int x;
+    private final int y;
+
+    Point(int x, int y) {
+      this.x = x;
+      this.y = y;
+    }
+  }
+
+  private static class PointCodec implements CacheValueCodec<Point> {
+    @Override
+    public void write(DataOutput output, Point value) throws IOException {
+      output.writeInt(value.x);
+      output.writeInt(value.y);
+    }
+
+    @Override
+    public Point read(DataInput input) throws IOException {
+      return new Point(input.readInt(), input.readInt());
+    }
+  }
+
+  private static class SerializablePoint implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final int x;
+
+    SerializablePoint(int x) {
+      this.x = x;
+    }
+  }
+}
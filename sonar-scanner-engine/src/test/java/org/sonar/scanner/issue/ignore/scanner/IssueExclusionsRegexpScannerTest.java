@@ -25,6 +25,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.sonar.api.batch.fs.internal.FileMetadata;
 import org.sonar.scanner.issue.ignore.pattern.IssueExclusionPatternInitializer;
 import org.sonar.scanner.issue.ignore.pattern.IssuePattern;
 import org.sonar.scanner.issue.ignore.pattern.LineRange;
@@ -35,6 +36,7 @@ import java.util.Arrays;
 import java.util.Set;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -165,4 +167,31 @@ public class IssueExclusionsRegexpScannerTest {
     verifyNoMoreInteractions(patternsInitializer);
   }
 
+  @Test
+  public void shouldScanFileWhileReadingMetadata() throws Exception {
+    File file = new File(Resources.getResource(
+      "org/sonar/scanner/issue/ignore/scanner/IssueExclusionsRegexpScannerTest/file-with-double-regexp.txt").toURI());
+    assertThat(regexpScanner.isScanned(javaFile)).isFalse();
+
+    new FileMetadata().readMetadata(file, UTF_8, regexpScanner.createCharHandler(javaFile));
+
+    Set<LineRange> lineRanges = Sets.newHashSet();
+    lineRanges.add(new LineRange(21, 25));
+    verify(patternMatcher, times(1)).addPatternToExcludeLines(javaFile, lineRanges);
+    assertThat(regexpScanner.isScanned(javaFile)).isTrue();
+  }
+
+  @Test
+  public void shouldNotCombinePatternsDeclaringGroups() throws Exception {
+    when(blockPattern1.getBeginBlockRegexp()).thenReturn("// (SONAR)-OFF");
+    regexpScanner = new IssueExclusionsRegexpScanner(patternsInitializer);
+
+    regexpScanner.scan(javaFile, new File(Resources.getResource(
+      "org/sonar/scanner/issue/ignore/scanner/IssueExclusionsRegexpScannerTest/file-with-double-regexp.txt").toURI()), UTF_8);
+
+    Set<LineRange> lineRanges = Sets.newHashSet();
+    lineRanges.add(new LineRange(21, 25));
+    verify(patternMatcher, times(1)).addPatternToExcludeLines(javaFile, lineRanges);
+  }
+
 }
@@ -19,9 +19,15 @@
  */
 package org.sonar.scanner.issue.tracking;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.StringReader;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -29,9 +35,15 @@ import org.junit.rules.ExpectedException;
 import org.sonar.api.utils.HttpDownloader;
 import org.sonar.scanner.WsTestUtil;
 import org.sonar.scanner.bootstrap.BatchWsClient;
+import org.sonar.scanner.protocol.input.ScannerInput.FileLineHashes;
+import org.sonarqube.ws.client.WsRequest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static java.util.Arrays.asList;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 public class DefaultServerLineHashesLoaderTest {
   private BatchWsClient wsClient;
@@ -73,4 +85,33 @@ public class DefaultServerLineHashesLoaderTest {
     lastSnapshots.getLineHashes("foo");
   }
 
+  @Test
+  public void should_download_sources_of_several_files_in_one_call() throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    FileLineHashes.newBuilder().setFileKey("myproject:org/foo/Bar.c").addLineHash("ae12").addLineHash("").addLineHash("43fb").build().writeDelimitedTo(output);
+    FileLineHashes.newBuilder().setFileKey("myproject:org/foo/Foo Bar.c").addLineHash("ff").build().writeDelimitedTo(output);
+    WsTestUtil.mockStream(wsClient, new ByteArrayInputStream(output.toByteArray()));
+    ServerLineHashesLoader lastSnapshots = new DefaultServerLineHashesLoader(wsClient);
+
+    Map<String, String[]> hashes = lastSnapshots.getLineHashes(asList("myproject:org/foo/Bar.c", "myproject:org/foo/Foo Bar.c", "myproject:unknown"));
+
+    assertThat(hashes).hasSize(2);
+    assertThat(hashes.get("myproject:org/foo/Bar.c")).containsExactly("ae12", "", "43fb");
+    assertThat(hashes.get("myproject:org/foo/Foo Bar.c")).containsExactly("ff");
+    WsTestUtil.verifyCall(wsClient, "/api/sources/hashes?keys=myproject%3Aorg%2Ffoo%2FBar.c%2Cmyproject%3Aorg%2Ffoo%2FFoo+Bar.c%2Cmyproject%3Aunknown");
+  }
+
+  @Test
+  public void should_split_download_of_many_files_in_several_calls() {
+    WsTestUtil.mockStream(wsClient, new ByteArrayInputStream(new byte[0]));
+    ServerLineHashesLoader lastSnapshots = new DefaultServerLineHashesLoader(wsClient);
+    List<String> keys = new ArrayList<>();
+    for (int i = 0; i < DefaultServerLineHashesLoader.MAX_KEYS_PER_REQUEST + 1; i++) {
+      keys.add("myproject:File" + i + ".c");
+    }
+
+    assertThat(lastSnapshots.getLineHashes(keys)).isEmpty();
+
+    verify(wsClient, times(2)).call(any(WsRequest.class));
+  }
 }
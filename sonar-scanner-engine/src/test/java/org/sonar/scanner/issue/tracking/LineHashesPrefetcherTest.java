@@ -0,0 +1,127 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.issue.tracking;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static com.google.common.collect.ImmutableMap.of;
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LineHashesPrefetcherTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private ServerLineHashesLoader loader = mock(ServerLineHashesLoader.class);
+  private LineHashesPrefetcher underTest = new LineHashesPrefetcher(loader);
+
+  @Before
+  public void setUp() {
+    underTest.start();
+  }
+
+  @After
+  public void tearDown() {
+    underTest.stop();
+  }
+
+  @Test
+  public void load_prefetched_files_in_one_call() {
+    when(loader.getLineHashes(asList("A", "B"))).thenReturn(of("A", new String[] {"a1", "a2"}, "B", new String[] {"b1"}));
+
+    underTest.prefetch(asList("A", "B"));
+
+    assertThat(underTest.getLineHashes("A")).containsExactly("a1", "a2");
+    assertThat(underTest.getLineHashes("B")).containsExactly("b1");
+    verify(loader, never()).getLineHashes("A");
+    verify(loader, never()).getLineHashes("B");
+  }
+
+  @Test
+  public void return_null_if_prefetched_file_is_unknown_by_server() {
+    when(loader.getLineHashes(asList("A"))).thenReturn(of());
+
+    underTest.prefetch(asList("A"));
+
+    assertThat(underTest.getLineHashes("A")).isNull();
+  }
+
+  @Test
+  public void load_synchronously_files_which_were_not_prefetched() {
+    when(loader.getLineHashes("A")).thenReturn(new String[] {"a1"});
+
+    assertThat(underTest.getLineHashes("A")).containsExactly("a1");
+  }
+
+  @Test
+  public void load_a_limited_number_of_batches_ahead() {
+    List<String> keys = new ArrayList<>();
+    for (int i = 0; i < LineHashesPrefetcher.BATCH_SIZE * (LineHashesPrefetcher.MAX_BATCHES_AHEAD + 1); i++) {
+      keys.add("File" + i);
+    }
+    when(loader.getLineHashes(anyCollectionOf(String.class))).thenReturn(of());
+
+    underTest.prefetch(keys);
+    verify(loader, timeout(5000).times(LineHashesPrefetcher.MAX_BATCHES_AHEAD)).getLineHashes(anyCollectionOf(String.class));
+
+    for (String key : keys.subList(0, LineHashesPrefetcher.BATCH_SIZE)) {
+      underTest.getLineHashes(key);
+    }
+    verify(loader, timeout(5000).times(LineHashesPrefetcher.MAX_BATCHES_AHEAD + 1)).getLineHashes(anyCollectionOf(String.class));
+  }
+
+  @Test
+  public void load_batch_requested_out_of_order() {
+    List<String> keys = new ArrayList<>();
+    for (int i = 0; i < LineHashesPrefetcher.BATCH_SIZE * (LineHashesPrefetcher.MAX_BATCHES_AHEAD + 1); i++) {
+      keys.add("File" + i);
+    }
+    String lastKey = keys.get(keys.size() - 1);
+    when(loader.getLineHashes(anyCollectionOf(String.class))).thenReturn(of(lastKey, new String[] {"h"}));
+
+    underTest.prefetch(keys);
+
+    assertThat(underTest.getLineHashes(lastKey)).containsExactly("h");
+  }
+
+  @Test
+  public void propagate_failure_of_loader() {
+    when(loader.getLineHashes(anyCollectionOf(String.class))).thenThrow(new IllegalStateException("Server is down"));
+
+    underTest.prefetch(asList("A"));
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Server is down");
+    underTest.getLineHashes("A");
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.phases;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.sonar.api.batch.Sensor;
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.batch.sensor.SensorDescriptor;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
+import org.sonar.api.resources.Project;
+import org.sonar.api.utils.MessageException;
+import org.sonar.scanner.bootstrap.BatchExtensionDictionnary;
+import org.sonar.scanner.events.EventBus;
+import org.sonar.scanner.sensor.SensorOptimizer;
+import org.sonar.scanner.sensor.SensorWrapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SensorsExecutorTest {
+
+  Project project = new Project("project");
+  BatchExtensionDictionnary selector = mock(BatchExtensionDictionnary.class);
+  SensorContext context = mock(SensorContext.class);
+  Settings settings = new MapSettings();
+  SensorsExecutor underTest = new SensorsExecutor(selector, project, mock(EventBus.class), settings);
+
+  List<String> executions = new ArrayList<>();
+
+  @Test
+  public void execute_sensors_sequentially_by_default() {
+    select(new FakeSensor("A", true, null), new FakeSensor("B", true, null));
+
+    underTest.execute(context);
+
+    assertThat(underTest.getThreads()).isEqualTo(1);
+    assertThat(executions).containsExactly("A", "B");
+  }
+
+  @Test
+  public void execute_thread_safe_sensors_concurrently() {
+    settings.setProperty(SensorsExecutor.THREADS_PROPERTY, 2);
+    // each sensor waits for the other one to be started
+    CountDownLatch latch = new CountDownLatch(2);
+    select(new FakeSensor("A", true, latch), new FakeSensor("B", true, latch));
+
+    underTest.execute(context);
+
+    assertThat(executions).containsOnly("A", "B");
+  }
+
+  @Test
+  public void sensors_which_are_not_thread_safe_are_barriers() {
+    settings.setProperty(SensorsExecutor.THREADS_PROPERTY, 4);
+    select(new FakeSensor("A", true, null), new FakeSensor("B", false, null), new FakeSensor("C", true, null));
+
+    underTest.execute(context);
+
+    assertThat(executions).containsExactly("A", "B", "C");
+  }
+
+  @Test
+  public void propagate_failure_of_concurrent_sensor() {
+    settings.setProperty(SensorsExecutor.THREADS_PROPERTY, 2);
+    FakeSensor failing = new FakeSensor("A", true, null) {
+      @Override
+      public void execute(org.sonar.api.batch.sensor.SensorContext context) {
+        throw MessageException.of("Invalid report");
+      }
+    };
+    select(failing, new FakeSensor("B", true, null));
+
+    try {
+      underTest.execute(context);
+      fail();
+    } catch (MessageException e) {
+      assertThat(e).hasMessage("Invalid report");
+    }
+  }
+
+  @Test
+  public void ignore_invalid_number_of_threads() {
+    settings.setProperty(SensorsExecutor.THREADS_PROPERTY, 0);
+
+    assertThat(underTest.getThreads()).isEqualTo(1);
+  }
+
+  private void select(FakeSensor... sensors) {
+    List<Sensor> wrappers = new ArrayList<>();
+    for (FakeSensor sensor : sensors) {
+      wrappers.add(new SensorWrapper(sensor, mock(org.sonar.api.batch.sensor.SensorContext.class), mock(SensorOptimizer.class)));
+    }
+    when(selector.select(Sensor.class, project, true, null)).thenReturn(wrappers);
+  }
+
+  private class FakeSensor implements org.sonar.api.batch.sensor.Sensor {
+    private final String name;
+    private final boolean threadSafe;
+    private final CountDownLatch latch;
+
+    FakeSensor(String name, boolean threadSafe, CountDownLatch latch) {
+      this.name = name;
+      this.threadSafe = threadSafe;
+      this.latch = latch;
+    }
+
+    @Override
+    public void describe(SensorDescriptor descriptor) {
+      descriptor.name(name);
+      if (threadSafe) {
+        descriptor.threadSafe();
+      }
+    }
+
+    @Override
+    public void execute(org.sonar.api.batch.sensor.SensorContext context) {
+      String execution = name;
+      if (latch != null) {
+        latch.countDown();
+        try {
+          if (!latch.await(10, TimeUnit.SECONDS)) {
+            execution += " (timeout)";
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      synchronized (executions) {
+        executions.add(execution);
+      }
+    }
+  }
+}
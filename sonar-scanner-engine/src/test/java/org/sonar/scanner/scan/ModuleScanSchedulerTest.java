@@ -0,0 +1,108 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
+import org.sonar.api.resources.Project;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class ModuleScanSchedulerTest {
+
+  Project root = new Project("root");
+  Project moduleA = new Project("moduleA").setParent(root);
+  Project moduleA1 = new Project("moduleA1").setParent(moduleA);
+  Project moduleB = new Project("moduleB").setParent(root);
+
+  Settings settings = new MapSettings();
+  ModuleScanScheduler underTest = new ModuleScanScheduler(settings);
+
+  List<String> indexed = Collections.synchronizedList(new ArrayList<>());
+  List<String> scanned = Collections.synchronizedList(new ArrayList<>());
+
+  @Test
+  public void scan_modules_sequentially_by_default() {
+    underTest.scan(root, this::scanModule);
+
+    assertThat(underTest.getThreads()).isEqualTo(1);
+    assertThat(underTest.isConcurrent()).isFalse();
+    assertThat(scanned).containsExactly("moduleA1", "moduleA", "moduleB", "root");
+  }
+
+  @Test
+  public void scan_modules_concurrently_and_root_last() {
+    settings.setProperty(ModuleScanScheduler.THREADS_PROPERTY, 3);
+
+    underTest.scan(root, this::scanModule);
+
+    assertThat(underTest.isConcurrent()).isTrue();
+    assertThat(scanned).containsOnly("moduleA1", "moduleA", "moduleB", "root");
+    assertThat(scanned.get(3)).isEqualTo("root");
+  }
+
+  @Test
+  public void modules_are_indexed_in_sequential_order() {
+    settings.setProperty(ModuleScanScheduler.THREADS_PROPERTY, 3);
+
+    underTest.scan(root, this::scanModule);
+
+    assertThat(indexed).containsExactly("moduleA1", "moduleA", "moduleB", "root");
+  }
+
+  @Test
+  public void propagate_failure_of_concurrent_scan() {
+    settings.setProperty(ModuleScanScheduler.THREADS_PROPERTY, 2);
+
+    try {
+      underTest.scan(root, module -> {
+        if (module == moduleA) {
+          throw new IllegalStateException("BOOM");
+        }
+        scanModule(module);
+      });
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("BOOM");
+    }
+    assertThat(scanned).doesNotContain("root");
+  }
+
+  @Test
+  public void profiling_forces_sequential_scan() {
+    settings.setProperty(ModuleScanScheduler.THREADS_PROPERTY, 3);
+    settings.setProperty(CoreProperties.PROFILING_LOG_PROPERTY, true);
+
+    assertThat(underTest.getThreads()).isEqualTo(1);
+    assertThat(underTest.isConcurrent()).isFalse();
+  }
+
+  private void scanModule(Project module) {
+    indexed.add(module.getKey());
+    underTest.moduleIndexed(module);
+    scanned.add(module.getKey());
+  }
+}
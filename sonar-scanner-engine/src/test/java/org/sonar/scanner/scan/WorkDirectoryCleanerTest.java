@@ -27,6 +27,7 @@ import org.sonar.api.batch.bootstrap.ProjectDefinition;
 import org.sonar.api.batch.bootstrap.ProjectReactor;
 import org.sonar.home.cache.DirectoryLock;
 import org.sonar.scanner.scan.WorkDirectoryCleaner;
+import org.sonar.scanner.scan.filesystem.FileMetadataSnapshot;
 import java.io.File;
 import java.io.IOException;
 
@@ -76,4 +77,16 @@ public class WorkDirectoryCleanerTest {
     assertThat(temp.getRoot().list()).containsOnly(DirectoryLock.LOCK_FILE_NAME);
   }
 
+  @Test
+  public void keep_metadata_snapshots() throws IOException {
+    File snapshots = new File(temp.getRoot(), FileMetadataSnapshot.DIR_NAME);
+    snapshots.mkdir();
+    new File(snapshots, "module").createNewFile();
+
+    cleaner.execute();
+
+    assertThat(temp.getRoot().list()).containsOnly(DirectoryLock.LOCK_FILE_NAME, FileMetadataSnapshot.DIR_NAME);
+    assertThat(new File(snapshots, "module")).exists();
+  }
+
 }
@@ -0,0 +1,145 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan.filesystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.SonarQubeSide;
+import org.sonar.api.batch.bootstrap.ProjectDefinition;
+import org.sonar.api.batch.fs.internal.FileMetadata;
+import org.sonar.api.batch.fs.internal.FileMetadata.Metadata;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.internal.SonarRuntimeImpl;
+import org.sonar.api.utils.Version;
+import org.sonar.scanner.scan.ImmutableProjectReactor;
+import org.sonar.scanner.scan.filesystem.FileMetadataSnapshot.FileState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileMetadataSnapshotTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private ProjectDefinition module;
+  private MapSettings settings = new MapSettings();
+  private File sourceFile;
+
+  @Before
+  public void prepare() throws IOException {
+    module = ProjectDefinition.create().setKey("foo").setWorkDir(temp.newFolder());
+    sourceFile = temp.newFile("Foo.java");
+    FileUtils.write(sourceFile, "foo\nbar\n", StandardCharsets.UTF_8);
+    sourceFile.setLastModified(System.currentTimeMillis() - 60_000L);
+  }
+
+  @Test
+  public void reuse_metadata_of_unchanged_file() {
+    Metadata metadata = analyze();
+    assertThat(metadata.lines()).isEqualTo(3);
+
+    FileMetadataSnapshot snapshot = newSnapshot("6.2");
+    snapshot.load(StandardCharsets.UTF_8);
+    Metadata reused = snapshot.get("Foo.java", FileState.of(sourceFile.toPath()));
+
+    assertThat(reused).isNotNull();
+    assertThat(reused.lines()).isEqualTo(metadata.lines());
+    assertThat(reused.nonBlankLines()).isEqualTo(metadata.nonBlankLines());
+    assertThat(reused.hash()).isEqualTo(metadata.hash());
+    assertThat(reused.originalLineOffsets()).isEqualTo(metadata.originalLineOffsets());
+    assertThat(reused.lastValidOffset()).isEqualTo(metadata.lastValidOffset());
+  }
+
+  @Test
+  public void do_not_reuse_metadata_of_modified_file() throws IOException {
+    analyze();
+
+    FileUtils.write(sourceFile, "foo\nbar\nbaz\n", StandardCharsets.UTF_8);
+    sourceFile.setLastModified(System.currentTimeMillis() - 30_000L);
+
+    FileMetadataSnapshot snapshot = newSnapshot("6.2");
+    snapshot.load(StandardCharsets.UTF_8);
+    assertThat(snapshot.get("Foo.java", FileState.of(sourceFile.toPath()))).isNull();
+  }
+
+  @Test
+  public void ignore_snapshot_if_encoding_or_version_changed() {
+    analyze();
+
+    FileMetadataSnapshot snapshot = newSnapshot("6.2");
+    snapshot.load(StandardCharsets.ISO_8859_1);
+    assertThat(snapshot.get("Foo.java", FileState.of(sourceFile.toPath()))).isNull();
+
+    snapshot = newSnapshot("6.3");
+    snapshot.load(StandardCharsets.UTF_8);
+    assertThat(snapshot.get("Foo.java", FileState.of(sourceFile.toPath()))).isNull();
+  }
+
+  @Test
+  public void do_not_store_recently_modified_file() {
+    sourceFile.setLastModified(System.currentTimeMillis());
+    analyze();
+
+    FileMetadataSnapshot snapshot = newSnapshot("6.2");
+    snapshot.load(StandardCharsets.UTF_8);
+    assertThat(snapshot.get("Foo.java", FileState.of(sourceFile.toPath()))).isNull();
+  }
+
+  @Test
+  public void only_keep_files_of_last_analysis() {
+    analyze();
+
+    FileMetadataSnapshot snapshot = newSnapshot("6.2");
+    snapshot.load(StandardCharsets.UTF_8);
+    snapshot.save();
+
+    snapshot.load(StandardCharsets.UTF_8);
+    assertThat(snapshot.get("Foo.java", FileState.of(sourceFile.toPath()))).isNull();
+  }
+
+  @Test
+  public void disable_snapshot() {
+    settings.setProperty(FileMetadataSnapshot.ENABLED_PROPERTY, "false");
+    analyze();
+
+    assertThat(new File(module.getWorkDir(), FileMetadataSnapshot.DIR_NAME)).doesNotExist();
+  }
+
+  private Metadata analyze() {
+    FileMetadataSnapshot snapshot = newSnapshot("6.2");
+    snapshot.load(StandardCharsets.UTF_8);
+    FileState state = FileState.of(sourceFile.toPath());
+    Metadata metadata = new FileMetadata().readMetadata(sourceFile, StandardCharsets.UTF_8);
+    snapshot.put("Foo.java", state, metadata);
+    snapshot.save();
+    return metadata;
+  }
+
+  private FileMetadataSnapshot newSnapshot(String version) {
+    return new FileMetadataSnapshot(new ImmutableProjectReactor(module), module, settings,
+      SonarRuntimeImpl.forSonarQube(Version.parse(version), SonarQubeSide.SCANNER));
+  }
+}
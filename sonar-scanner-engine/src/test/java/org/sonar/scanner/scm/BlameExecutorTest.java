@@ -0,0 +1,131 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.scm.BlameCommand;
+import org.sonar.api.batch.scm.BlameLine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class BlameExecutorTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private FileSystem fs = mock(FileSystem.class);
+  private DefaultBlameOutput output = mock(DefaultBlameOutput.class);
+
+  @Test
+  public void blame_all_files_at_once_by_default() {
+    List<InputFile> files = newFiles(100);
+    FakeBlameCommand command = new FakeBlameCommand();
+
+    new BlameExecutor(1).blame(command, fs, files, output);
+
+    assertThat(command.calls.get()).isEqualTo(1);
+    for (InputFile file : files) {
+      verify(output).blameResult(eq(file), any(List.class));
+    }
+  }
+
+  @Test
+  public void blame_chunks_of_files_concurrently() {
+    List<InputFile> files = newFiles(10 * BlameExecutor.FILES_PER_TASK + 1);
+    FakeBlameCommand command = new FakeBlameCommand();
+
+    new BlameExecutor(4).blame(command, fs, files, output);
+
+    assertThat(command.calls.get()).isEqualTo(11);
+    assertThat(command.maxConcurrentCalls.get()).isLessThanOrEqualTo(4);
+    verify(output, times(files.size())).blameResult(any(InputFile.class), any(List.class));
+  }
+
+  @Test
+  public void propagate_failure_of_provider() {
+    List<InputFile> files = newFiles(10 * BlameExecutor.FILES_PER_TASK);
+    BlameCommand command = new BlameCommand() {
+      @Override
+      public void blame(BlameInput input, BlameOutput output) {
+        throw new IllegalStateException("boom");
+      }
+    };
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("boom");
+
+    new BlameExecutor(4).blame(command, fs, files, output);
+  }
+
+  @Test
+  public void histogram_of_intervals() {
+    BlameExecutor.IntervalHistogram histogram = new BlameExecutor.IntervalHistogram();
+    histogram.record(0L);
+    histogram.record(10L);
+    histogram.record(50_000L);
+
+    assertThat(histogram.count(0)).isEqualTo(1);
+    assertThat(histogram.count(1)).isEqualTo(1);
+    assertThat(histogram.count(4)).isEqualTo(1);
+    assertThat(histogram.toString()).isEqualTo("<10ms=1, <100ms=1, <1000ms=0, <10000ms=0, >=10000ms=1");
+  }
+
+  private static List<InputFile> newFiles(int count) {
+    List<InputFile> files = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      files.add(new DefaultInputFile("foo", "src/Foo" + i + ".java").setLines(1));
+    }
+    return files;
+  }
+
+  private static class FakeBlameCommand extends BlameCommand {
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger concurrentCalls = new AtomicInteger();
+    private final AtomicInteger maxConcurrentCalls = new AtomicInteger();
+
+    @Override
+    public void blame(BlameInput input, BlameOutput output) {
+      calls.incrementAndGet();
+      int concurrent = concurrentCalls.incrementAndGet();
+      maxConcurrentCalls.accumulateAndGet(concurrent, Math::max);
+      try {
+        for (InputFile file : input.filesToBlame()) {
+          output.blameResult(file, Collections.singletonList(new BlameLine().revision("1")));
+        }
+      } finally {
+        concurrentCalls.decrementAndGet();
+      }
+    }
+  }
+}
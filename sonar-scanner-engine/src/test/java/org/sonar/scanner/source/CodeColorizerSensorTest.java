@@ -0,0 +1,131 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.source;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.scanner.index.BatchComponent;
+import org.sonar.scanner.index.BatchComponentCache;
+import org.sonar.scanner.protocol.output.FileStructure;
+import org.sonar.scanner.protocol.output.ScannerReportWriter;
+import org.sonar.scanner.report.ReportPublisher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CodeColorizerSensorTest {
+
+  private static final int FILES = 50;
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private SensorContextTester context;
+  private ScannerReportWriter writer = mock(ScannerReportWriter.class);
+  private BatchComponentCache componentCache = mock(BatchComponentCache.class);
+  private ReportPublisher reportPublisher = mock(ReportPublisher.class);
+
+  @Before
+  public void setUp() throws Exception {
+    File baseDir = temp.newFolder();
+    context = SensorContextTester.create(baseDir);
+    when(reportPublisher.getWriter()).thenReturn(writer);
+    for (int i = 1; i <= FILES; i++) {
+      DefaultInputFile file = new DefaultInputFile("foo", "src/Foo" + i + ".java").setLanguage("java").setModuleBaseDir(baseDir.toPath());
+      context.fileSystem().add(file);
+      BatchComponent component = mock(BatchComponent.class);
+      when(component.batchId()).thenReturn(i);
+      when(componentCache.get(file)).thenReturn(component);
+    }
+    // first file is already highlighted by its language plugin
+    when(writer.hasComponentData(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, 1)).thenReturn(true);
+  }
+
+  @Test
+  public void colorize_files_which_are_not_highlighted() {
+    FakeCodeColorizers colorizers = new FakeCodeColorizers(false);
+
+    new CodeColorizerSensor(reportPublisher, componentCache, colorizers).execute(context);
+
+    assertThat(colorizers.colorizedFiles).hasSize(FILES - 1).doesNotContain("Foo1.java").contains("Foo2.java", "Foo50.java");
+    assertThat(colorizers.threadNames).containsOnly(Thread.currentThread().getName());
+  }
+
+  @Test
+  public void colorize_files_concurrently() {
+    context.settings().setProperty(CodeColorizerSensor.THREADS_PROPERTY, 4);
+    FakeCodeColorizers colorizers = new FakeCodeColorizers(false);
+
+    new CodeColorizerSensor(reportPublisher, componentCache, colorizers).execute(context);
+
+    assertThat(colorizers.colorizedFiles).hasSize(FILES - 1).doesNotContain("Foo1.java").contains("Foo2.java", "Foo50.java");
+    assertThat(colorizers.threadNames).doesNotContain(Thread.currentThread().getName());
+    assertThat(colorizers.threadNames.size()).isBetween(1, 4);
+  }
+
+  @Test
+  public void stop_submitting_files_after_first_failure() {
+    context.settings().setProperty(CodeColorizerSensor.THREADS_PROPERTY, 2);
+    FakeCodeColorizers colorizers = new FakeCodeColorizers(true);
+
+    try {
+      new CodeColorizerSensor(reportPublisher, componentCache, colorizers).execute(context);
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("boom");
+    }
+
+    // at most two files per thread are submitted before the first failure is known
+    assertThat(colorizers.calls.get()).isBetween(1, 4);
+  }
+
+  private static class FakeCodeColorizers extends CodeColorizers {
+    private final boolean fail;
+    private final AtomicInteger calls = new AtomicInteger();
+    private final Set<String> colorizedFiles = ConcurrentHashMap.newKeySet();
+    private final Set<String> threadNames = ConcurrentHashMap.newKeySet();
+
+    FakeCodeColorizers(boolean fail) {
+      this.fail = fail;
+    }
+
+    @Override
+    public void toSyntaxHighlighting(File file, Charset charset, String language, NewHighlighting highlighting) {
+      calls.incrementAndGet();
+      if (fail) {
+        throw new IllegalStateException("boom");
+      }
+      colorizedFiles.add(file.getName());
+      threadNames.add(Thread.currentThread().getName());
+    }
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.source;
+
+import org.junit.Test;
+import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+public class HighlightingCodeBuilderTest {
+
+  private NewHighlighting highlighting = mock(NewHighlighting.class);
+  private HighlightingCodeBuilder underTest = new HighlightingCodeBuilder(highlighting);
+
+  @Test
+  public void offsets_count_appended_characters() {
+    underTest.append("int ");
+    underTest.appendWithoutTransforming("<span class=\"k\">");
+    underTest.append("public static", 0, 6);
+    underTest.appendWithoutTransforming("</span>");
+    underTest.append(' ');
+    underTest.appendWithoutTransforming("<span class=\"cd\">");
+    underTest.append("// comment", 0, 10);
+    underTest.append('\n');
+    underTest.appendWithoutTransforming("</span>");
+    underTest.appendWithoutTransforming("<span class=\"k\">");
+    underTest.append("xxreturnxx", 2, 8);
+    underTest.appendWithoutTransforming("</span>");
+
+    verify(highlighting).highlight(4, 10, TypeOfText.KEYWORD);
+    verify(highlighting).highlight(11, 22, TypeOfText.COMMENT);
+    verify(highlighting).highlight(22, 28, TypeOfText.KEYWORD);
+    verifyNoMoreInteractions(highlighting);
+  }
+
+  @Test
+  public void ignore_unexpected_tags() {
+    underTest.appendWithoutTransforming("<b>");
+    underTest.append("foo");
+    underTest.appendWithoutTransforming("<span class=\"s\">");
+    underTest.append("\"bar\"");
+    underTest.appendWithoutTransforming("<i>");
+    underTest.appendWithoutTransforming("</span>");
+
+    verify(highlighting).highlight(3, 8, TypeOfText.STRING);
+    verifyNoMoreInteractions(highlighting);
+  }
+}
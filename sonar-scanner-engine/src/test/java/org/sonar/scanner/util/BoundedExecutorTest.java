@@ -0,0 +1,98 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BoundedExecutorTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void execute_all_tasks() {
+    AtomicInteger executed = new AtomicInteger();
+    try (BoundedExecutor executor = new BoundedExecutor("test-%d", 3, "test")) {
+      for (int i = 0; i < 100; i++) {
+        assertThat(executor.submit(executed::incrementAndGet)).isTrue();
+      }
+      executor.awaitTermination();
+    }
+
+    assertThat(executed.get()).isEqualTo(100);
+  }
+
+  @Test
+  public void at_most_two_tasks_per_thread_are_pending() throws Exception {
+    CountDownLatch blocked = new CountDownLatch(1);
+    AtomicInteger started = new AtomicInteger();
+    try (BoundedExecutor executor = new BoundedExecutor("test-%d", 2, "test")) {
+      for (int i = 0; i < 4; i++) {
+        executor.submit(() -> {
+          started.incrementAndGet();
+          await(blocked);
+        });
+      }
+      Thread submitter = new Thread(() -> executor.submit(started::incrementAndGet));
+      submitter.start();
+      submitter.join(200L);
+      assertThat(submitter.isAlive()).isTrue();
+
+      blocked.countDown();
+      submitter.join();
+      executor.awaitTermination();
+    }
+
+    assertThat(started.get()).isEqualTo(5);
+  }
+
+  @Test
+  public void refuse_tasks_after_first_failure() {
+    AtomicInteger executed = new AtomicInteger();
+    try (BoundedExecutor executor = new BoundedExecutor("test-%d", 1, "test")) {
+      int submitted = 0;
+      while (executor.submit(() -> {
+        executed.incrementAndGet();
+        throw new IllegalStateException("boom");
+      })) {
+        submitted++;
+      }
+
+      assertThat(submitted).isBetween(1, 2);
+      thrown.expect(IllegalStateException.class);
+      thrown.expectMessage("boom");
+      executor.awaitTermination();
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
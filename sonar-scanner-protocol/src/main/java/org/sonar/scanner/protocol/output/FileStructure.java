@@ -48,8 +48,20 @@ public class FileStructure {
       this.filePrefix = filePrefix;
       this.fileSuffix = fileSuffix;
     }
+
+    /**
+     * Name of the file, which is also the name of the entry in the zipped report
+     */
+    public String fileName(int componentRef) {
+      return filePrefix + componentRef + fileSuffix;
+    }
   }
 
+  public static final String METADATA_FILE_NAME = "metadata.pb";
+  public static final String ANALYSIS_LOG_FILE_NAME = "analysis.log";
+  public static final String ACTIVE_RULES_FILE_NAME = "activerules.pb";
+  public static final String CONTEXT_PROPERTIES_FILE_NAME = "context-props.pb";
+
   private final File dir;
 
   public FileStructure(File dir) {
@@ -60,22 +72,22 @@ public class FileStructure {
   }
 
   public File metadataFile() {
-    return new File(dir, "metadata.pb");
+    return new File(dir, METADATA_FILE_NAME);
   }
 
   public File analysisLog() {
-    return new File(dir, "analysis.log");
+    return new File(dir, ANALYSIS_LOG_FILE_NAME);
   }
 
   public File activeRules() {
-    return new File(dir, "activerules.pb");
+    return new File(dir, ACTIVE_RULES_FILE_NAME);
   }
 
   public File fileFor(Domain domain, int componentRef) {
-    return new File(dir, domain.filePrefix + componentRef + domain.fileSuffix);
+    return new File(dir, domain.fileName(componentRef));
   }
 
   public File contextProperties() {
-    return new File(dir, "context-props.pb");
+    return new File(dir, CONTEXT_PROPERTIES_FILE_NAME);
   }
 }
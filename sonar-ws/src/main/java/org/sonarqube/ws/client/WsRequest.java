@@ -43,6 +43,13 @@ public interface WsRequest {
 
   Parameters getParameters();
 
+  /**
+   * Additional HTTP headers, for example {@code If-None-Match}
+   *
+   * @since 6.2
+   */
+  Map<String, String> getHeaders();
+
   enum Method {
     GET, POST
   }
@@ -80,6 +80,7 @@ public class IssueFilterParameters {
   public static final String SINCE_LEAK_PERIOD = "sinceLeakPeriod";
   public static final String PAGE_SIZE = "pageSize";
   public static final String PAGE_INDEX = "pageIndex";
+  public static final String CURSOR = "cursor";
   public static final String SORT = "sort";
   public static final String ASC = "asc";
   public static final String ADDITIONAL_FIELDS = "additionalFields";
@@ -38,6 +38,7 @@ import static org.sonarqube.ws.client.issue.IssueFilterParameters.CREATED_AFTER;
 import static org.sonarqube.ws.client.issue.IssueFilterParameters.CREATED_AT;
 import static org.sonarqube.ws.client.issue.IssueFilterParameters.CREATED_BEFORE;
 import static org.sonarqube.ws.client.issue.IssueFilterParameters.CREATED_IN_LAST;
+import static org.sonarqube.ws.client.issue.IssueFilterParameters.CURSOR;
 import static org.sonarqube.ws.client.issue.IssueFilterParameters.DEPRECATED_ACTION_PLANS;
 import static org.sonarqube.ws.client.issue.IssueFilterParameters.DIRECTORIES;
 import static org.sonarqube.ws.client.issue.IssueFilterParameters.FACET_MODE;
@@ -82,6 +83,7 @@ public class IssuesService extends BaseService {
         .setParam(CREATED_AT, request.getCreatedAt())
         .setParam(CREATED_BEFORE, request.getCreatedBefore())
         .setParam(CREATED_IN_LAST, request.getCreatedInLast())
+        .setParam(CURSOR, request.getCursor())
         .setParam(DIRECTORIES, inlineMultipleParamValue(request.getDirectories()))
         .setParam(FACET_MODE, request.getFacetMode())
         .setParam("facets", inlineMultipleParamValue(request.getFacets()))
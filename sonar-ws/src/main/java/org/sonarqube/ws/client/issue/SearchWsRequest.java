@@ -39,6 +39,7 @@ public class SearchWsRequest {
   private String createdAt;
   private String createdBefore;
   private String createdInLast;
+  private String cursor;
   private List<String> directories;
   private String facetMode;
   private List<String> facets;
@@ -182,6 +183,16 @@ public class SearchWsRequest {
     return this;
   }
 
+  @CheckForNull
+  public String getCursor() {
+    return cursor;
+  }
+
+  public SearchWsRequest setCursor(@Nullable String cursor) {
+    this.cursor = cursor;
+    return this;
+  }
+
   @CheckForNull
   public List<String> getDirectories() {
     return directories;
@@ -0,0 +1,77 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.detector.suffixtree.SuffixTreeCloneDetectionAlgorithm;
+import org.sonar.duplications.index.PackedMemoryCloneIndex;
+
+/**
+ * Detection of clones of all the files of a project, given an index that contains the blocks of all files
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CloneDetectionBenchmark {
+
+  @Param({"100", "500"})
+  public int files;
+
+  @Param({"200"})
+  public int blocksPerFile;
+
+  private List<List<Block>> blocks;
+  private PackedMemoryCloneIndex index;
+
+  @Setup
+  public void setUp() {
+    blocks = Fixtures.cpdBlocks(files, blocksPerFile);
+    index = new PackedMemoryCloneIndex();
+    for (List<Block> fileBlocks : blocks) {
+      for (Block block : fileBlocks) {
+        index.insert(block);
+      }
+    }
+  }
+
+  @Benchmark
+  public void detect(Blackhole blackhole) {
+    for (List<Block> fileBlocks : blocks) {
+      blackhole.consume(SuffixTreeCloneDetectionAlgorithm.detect(index, fileBlocks));
+    }
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rule.Severity;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.Duration;
+import org.sonar.api.utils.System2;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.server.computation.task.projectanalysis.issue.DefaultIssueCodec;
+import org.sonar.server.util.cache.DiskCache;
+import org.sonar.server.util.cache.DiskCacheCodec;
+import org.sonar.server.util.cache.JavaSerializationCodec;
+
+/**
+ * Round-trip of issues through the disk cache of the Compute Engine ({@link org.sonar.server.computation.task.projectanalysis.issue.IssueCache}):
+ * issues are appended then traversed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DiskCacheBenchmark {
+
+  @Param({"java", "binary", "binary-lz4"})
+  public String codec;
+
+  @Param({"10000"})
+  public int issues;
+
+  private File dir;
+  private List<DefaultIssue> fixtures;
+
+  @Setup
+  public void setUp() {
+    dir = Fixtures.createTempDir();
+    fixtures = createIssues(issues);
+  }
+
+  @TearDown
+  public void tearDown() {
+    FileUtils.deleteQuietly(dir);
+  }
+
+  @Benchmark
+  public int appendAndTraverse() {
+    DiskCache<DefaultIssue> cache = new DiskCache<>(new File(dir, "issues"), System2.INSTANCE, newCodec());
+    try (DiskCache<DefaultIssue>.DiskAppender appender = cache.newAppender()) {
+      for (DefaultIssue issue : fixtures) {
+        appender.append(issue);
+      }
+    }
+    int count = 0;
+    try (CloseableIterator<DefaultIssue> it = cache.traverse()) {
+      while (it.hasNext()) {
+        it.next();
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private DiskCacheCodec<DefaultIssue> newCodec() {
+    switch (codec) {
+      case "java":
+        return new JavaSerializationCodec<>();
+      case "binary":
+        return new DefaultIssueCodec(false);
+      case "binary-lz4":
+        return new DefaultIssueCodec(true);
+      default:
+        throw new IllegalArgumentException("Unsupported codec: " + codec);
+    }
+  }
+
+  private static List<DefaultIssue> createIssues(int count) {
+    Random random = new Random(count);
+    Date date = new Date(1_470_000_000_000L);
+    List<DefaultIssue> result = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      result.add(new DefaultIssue()
+        .setKey("AVb" + i)
+        .setType(RuleType.CODE_SMELL)
+        .setRuleKey(RuleKey.of("java", "S" + random.nextInt(500)))
+        .setComponentUuid("FILE_" + (i / 20))
+        .setComponentKey("project:src/main/java/File" + (i / 20) + ".java")
+        .setProjectUuid("PROJECT")
+        .setSeverity(Severity.ALL.get(random.nextInt(Severity.ALL.size())))
+        .setMessage("Remove this unused private field number " + random.nextInt(100) + ".")
+        .setLine(1 + random.nextInt(2_000))
+        .setGap(random.nextBoolean() ? null : 2.0)
+        .setEffort(Duration.create(5L + random.nextInt(60)))
+        .setChecksum(Integer.toHexString(random.nextInt()))
+        .setStatus(Issue.STATUS_OPEN)
+        .setAssignee(random.nextBoolean() ? null : "user" + random.nextInt(10))
+        .setAuthorLogin("author" + random.nextInt(10))
+        .setTags(Arrays.asList("security", "tag" + random.nextInt(10)))
+        .setCreationDate(date)
+        .setUpdateDate(date)
+        .setNew(false));
+    }
+    return result;
+  }
+}
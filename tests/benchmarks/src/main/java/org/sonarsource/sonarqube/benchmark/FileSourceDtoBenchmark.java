@@ -0,0 +1,89 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.db.protobuf.DbFileSources;
+import org.sonar.db.source.FileSourceDto;
+
+/**
+ * Encoding and decoding of the sources of a file, as stored in the table FILE_SOURCES
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FileSourceDtoBenchmark {
+
+  private DbFileSources.Data data;
+  private byte[] encoded;
+  private final FileSourceDto dto = new FileSourceDto();
+
+  @Setup
+  public void setUp() {
+    List<String> lines = Fixtures.sourceLines();
+    Random random = new Random(lines.size());
+    DbFileSources.Data.Builder builder = DbFileSources.Data.newBuilder();
+    for (int i = 0; i < lines.size(); i++) {
+      int line = i + 1;
+      builder.addLinesBuilder()
+        .setLine(line)
+        .setSource(lines.get(i))
+        .setScmAuthor("author" + random.nextInt(10))
+        .setScmRevision(Integer.toHexString(random.nextInt(50)))
+        .setScmDate(1_470_000_000_000L + random.nextInt(1_000_000))
+        .setUtLineHits(random.nextInt(3))
+        .setOverallLineHits(random.nextInt(3))
+        .setHighlighting("0,6,k;7,12,k")
+        .setSymbols("13,20,1");
+    }
+    data = builder.build();
+    encoded = FileSourceDto.encodeSourceData(data);
+  }
+
+  @Benchmark
+  public byte[] encode() {
+    return FileSourceDto.encodeSourceData(data);
+  }
+
+  @Benchmark
+  public DbFileSources.Data decode() {
+    return dto.decodeSourceData(encoded);
+  }
+
+  @Benchmark
+  public DbFileSources.Data decodeRangeOfLines() {
+    return dto.decodeSourceData(encoded, 1_000, 1_100);
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.apache.commons.io.IOUtils;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Synthetic fixtures shared by benchmarks. Source code is checked-in, other fixtures are generated
+ * with fixed seeds, so that results are reproducible.
+ */
+public final class Fixtures {
+
+  public static final String SOURCE_FILENAME = "SyntheticSource.java";
+  private static final String SOURCE_RESOURCE = "/fixtures/SyntheticSource.java.txt";
+
+  private Fixtures() {
+    // only static stuff
+  }
+
+  /**
+   * Lines of the checked-in source file
+   */
+  public static List<String> sourceLines() {
+    try (InputStream input = Fixtures.class.getResourceAsStream(SOURCE_RESOURCE)) {
+      return IOUtils.readLines(input, UTF_8);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to read " + SOURCE_RESOURCE, e);
+    }
+  }
+
+  /**
+   * Copies the checked-in source file to the directory, as {@link #SOURCE_FILENAME}
+   */
+  public static File copySourceTo(File dir) {
+    File file = new File(dir, SOURCE_FILENAME);
+    try (InputStream input = Fixtures.class.getResourceAsStream(SOURCE_RESOURCE)) {
+      Files.copy(input, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      return file;
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to copy " + SOURCE_RESOURCE, e);
+    }
+  }
+
+  public static File createTempDir() {
+    try {
+      return Files.createTempDirectory("benchmark").toFile();
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to create temp directory", e);
+    }
+  }
+
+  /**
+   * CPD blocks of files. Files are made of sequences of blocks that are either unique, or copied from
+   * a shared library of blocks, so that there are clones between files.
+   *
+   * @return the blocks of each file
+   */
+  public static List<List<Block>> cpdBlocks(int files, int blocksPerFile) {
+    Random random = new Random(files * 31L + blocksPerFile);
+    long[] library = new long[5_000];
+    for (int i = 0; i < library.length; i++) {
+      library[i] = random.nextLong();
+    }
+
+    List<List<Block>> result = new ArrayList<>(files);
+    for (int file = 0; file < files; file++) {
+      String resourceId = "file" + file;
+      List<Block> blocks = new ArrayList<>(blocksPerFile);
+      while (blocks.size() < blocksPerFile) {
+        int length = 5 + random.nextInt(45);
+        boolean duplicated = random.nextInt(3) == 0;
+        int libraryOffset = random.nextInt(library.length - length);
+        for (int i = 0; i < length && blocks.size() < blocksPerFile; i++) {
+          long hash = duplicated ? library[libraryOffset + i] : random.nextLong();
+          int index = blocks.size();
+          blocks.add(Block.builder()
+            .setResourceId(resourceId)
+            .setBlockHash(new ByteArray(hash))
+            .setIndexInFile(index)
+            .setLines(index + 1, index + 10)
+            .setUnit(index, index + 10)
+            .build());
+        }
+      }
+      result.add(blocks);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.batch.measure.MetricFinder;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.Measure;
+import org.sonar.api.measures.Metric;
+import org.sonar.api.resources.File;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rule.Severity;
+import org.sonar.api.utils.internal.DefaultTempFolder;
+import org.sonar.scanner.index.Caches;
+import org.sonar.scanner.index.CachesManager;
+import org.sonar.scanner.issue.IssueCache;
+import org.sonar.scanner.issue.tracking.TrackedIssue;
+import org.sonar.scanner.scan.measure.MeasureCache;
+
+/**
+ * Workloads of the scanner caches {@link MeasureCache} and {@link IssueCache}, for each storage of caches
+ * (see {@link Caches#BACKEND_PROPERTY}): values are stored, then read by component and traversed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ScannerCacheBenchmark {
+
+  private static final List<Metric> METRICS = new ArrayList<>(CoreMetrics.getMetrics());
+
+  @Param({Caches.PERSISTIT_BACKEND, Caches.MMAP_BACKEND})
+  public String backend;
+
+  @Param({"1000"})
+  public int files;
+
+  private java.io.File dir;
+  private CachesManager cachesManager;
+  private Caches caches;
+  private List<String> componentKeys;
+  private List<TrackedIssue> issues;
+
+  @Setup
+  public void setUp() {
+    dir = Fixtures.createTempDir();
+    cachesManager = new CachesManager(new DefaultTempFolder(dir));
+    componentKeys = new ArrayList<>(files);
+    for (int i = 0; i < files; i++) {
+      componentKeys.add("project:src/main/java/File" + i + ".java");
+    }
+    issues = createIssues(componentKeys);
+  }
+
+  @Setup(Level.Invocation)
+  public void createCaches() {
+    caches = new Caches(cachesManager, new MapSettings().setProperty(Caches.BACKEND_PROPERTY, backend));
+  }
+
+  @TearDown(Level.Invocation)
+  public void stopCaches() {
+    caches.stop();
+  }
+
+  @TearDown
+  public void tearDown() {
+    cachesManager.stop();
+    FileUtils.deleteQuietly(dir);
+  }
+
+  @Benchmark
+  public int measures() {
+    MeasureCache measureCache = new MeasureCache(caches, new CoreMetricFinder());
+    for (String componentKey : componentKeys) {
+      File file = File.create(componentKey);
+      file.setEffectiveKey(componentKey);
+      for (Metric metric : METRICS.subList(0, 30)) {
+        measureCache.put(file, new Measure(metric, 12.0).setData("data of " + componentKey));
+      }
+    }
+    int count = 0;
+    for (String componentKey : componentKeys) {
+      for (Measure measure : measureCache.byComponentKey(componentKey)) {
+        count += measure.getMetricKey().length();
+      }
+    }
+    for (Measure measure : measureCache.all()) {
+      count++;
+    }
+    return count;
+  }
+
+  @Benchmark
+  public int issues() {
+    IssueCache issueCache = new IssueCache(caches);
+    for (TrackedIssue issue : issues) {
+      issueCache.put(issue);
+    }
+    int count = 0;
+    for (String componentKey : componentKeys) {
+      for (TrackedIssue issue : issueCache.byComponent(componentKey)) {
+        count += issue.startLine();
+      }
+    }
+    for (TrackedIssue issue : issueCache.all()) {
+      count++;
+    }
+    return count;
+  }
+
+  private static List<TrackedIssue> createIssues(List<String> componentKeys) {
+    Random random = new Random(componentKeys.size());
+    Date date = new Date(1_470_000_000_000L);
+    List<TrackedIssue> result = new ArrayList<>();
+    for (String componentKey : componentKeys) {
+      for (int i = 0; i < 20; i++) {
+        TrackedIssue issue = new TrackedIssue();
+        issue.setKey(componentKey + "_" + i);
+        issue.setComponentKey(componentKey);
+        issue.setRuleKey(RuleKey.of("java", "S" + random.nextInt(500)));
+        issue.setSeverity(Severity.ALL.get(random.nextInt(Severity.ALL.size())));
+        issue.setMessage("Remove this unused private field number " + random.nextInt(100) + ".");
+        issue.setStartLine(1 + random.nextInt(2_000));
+        issue.setEndLine(issue.startLine());
+        issue.setGap(random.nextBoolean() ? null : 2.0);
+        issue.setStatus(Issue.STATUS_OPEN);
+        issue.setNew(random.nextBoolean());
+        issue.setCreationDate(date);
+        result.add(issue);
+      }
+    }
+    return result;
+  }
+
+  private static class CoreMetricFinder implements MetricFinder {
+    @Override
+    public <G extends Serializable> org.sonar.api.batch.measure.Metric<G> findByKey(String key) {
+      return CoreMetrics.getMetric(key);
+    }
+
+    @Override
+    public Collection<org.sonar.api.batch.measure.Metric<Serializable>> findAll(List<String> metricKeys) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Collection<org.sonar.api.batch.measure.Metric<Serializable>> findAll() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
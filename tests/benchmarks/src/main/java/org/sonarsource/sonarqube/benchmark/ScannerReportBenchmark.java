@@ -0,0 +1,131 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.scanner.protocol.Constants;
+import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.scanner.protocol.output.ScannerReportReader;
+import org.sonar.scanner.protocol.output.ScannerReportWriter;
+
+/**
+ * Streams of protobuf messages of the scanner report, written by the scanner and read by the Compute Engine
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ScannerReportBenchmark {
+
+  private static final int COMPONENT_REF = 1;
+
+  @Param({"1000", "50000"})
+  public int messages;
+
+  private File writeDir;
+  private File readDir;
+  private List<ScannerReport.Issue> issues;
+  private List<ScannerReport.Measure> measures;
+
+  @Setup
+  public void setUp() {
+    writeDir = Fixtures.createTempDir();
+    readDir = Fixtures.createTempDir();
+    Random random = new Random(messages);
+    issues = new ArrayList<>(messages);
+    measures = new ArrayList<>(messages);
+    for (int i = 0; i < messages; i++) {
+      int line = 1 + random.nextInt(2_000);
+      issues.add(ScannerReport.Issue.newBuilder()
+        .setRuleRepository("java")
+        .setRuleKey("S" + random.nextInt(500))
+        .setMsg("Remove this unused private field number " + random.nextInt(100) + ".")
+        .setSeverity(Constants.Severity.MAJOR)
+        .setTextRange(ScannerReport.TextRange.newBuilder().setStartLine(line).setEndLine(line).setStartOffset(4).setEndOffset(20))
+        .build());
+      measures.add(ScannerReport.Measure.newBuilder()
+        .setMetricKey("metric" + (i % 100))
+        .setIntValue(ScannerReport.Measure.IntValue.newBuilder().setValue(random.nextInt()))
+        .build());
+    }
+    ScannerReportWriter writer = new ScannerReportWriter(readDir);
+    writer.writeComponentIssues(COMPONENT_REF, issues);
+    writer.writeComponentMeasures(COMPONENT_REF, measures);
+  }
+
+  @TearDown
+  public void tearDown() {
+    FileUtils.deleteQuietly(writeDir);
+    FileUtils.deleteQuietly(readDir);
+  }
+
+  @Benchmark
+  public File writeIssues() {
+    return new ScannerReportWriter(writeDir).writeComponentIssues(COMPONENT_REF, issues);
+  }
+
+  @Benchmark
+  public File writeMeasures() {
+    return new ScannerReportWriter(writeDir).writeComponentMeasures(COMPONENT_REF, measures);
+  }
+
+  @Benchmark
+  public int readIssues() {
+    try (CloseableIterator<ScannerReport.Issue> it = new ScannerReportReader(readDir).readComponentIssues(COMPONENT_REF)) {
+      return count(it);
+    }
+  }
+
+  @Benchmark
+  public int readMeasures() {
+    try (CloseableIterator<ScannerReport.Measure> it = new ScannerReportReader(readDir).readComponentMeasures(COMPONENT_REF)) {
+      return count(it);
+    }
+  }
+
+  private static int count(CloseableIterator<?> it) {
+    int count = 0;
+    while (it.hasNext()) {
+      it.next();
+      count++;
+    }
+    return count;
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.core.issue.tracking.ReferenceTracker;
+import org.sonar.core.issue.tracking.SyntheticTrackingInputs;
+import org.sonar.core.issue.tracking.SyntheticTrackingInputs.SyntheticIssue;
+import org.sonar.core.issue.tracking.Tracker;
+import org.sonar.core.issue.tracking.Tracking;
+
+/**
+ * Compares {@link Tracker} with {@link ReferenceTracker}, the implementation based on multimaps.
+ * Use the option "-prof gc" of JMH to compare allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TrackerBenchmark {
+
+  @Param({"1000", "10000"})
+  public int lines;
+
+  @Param({"100", "5000"})
+  public int issues;
+
+  private SyntheticTrackingInputs inputs;
+  private final Tracker<SyntheticIssue, SyntheticIssue> tracker = new Tracker<>();
+  private final ReferenceTracker<SyntheticIssue, SyntheticIssue> referenceTracker = new ReferenceTracker<>();
+
+  @Setup
+  public void setUp() {
+    inputs = SyntheticTrackingInputs.generate(42L, lines, issues);
+  }
+
+  @Benchmark
+  public Tracking<SyntheticIssue, SyntheticIssue> tracker() {
+    return tracker.track(inputs.raw(), inputs.base());
+  }
+
+  @Benchmark
+  public Tracking<SyntheticIssue, SyntheticIssue> reference() {
+    return referenceTracker.track(inputs.raw(), inputs.base());
+  }
+}
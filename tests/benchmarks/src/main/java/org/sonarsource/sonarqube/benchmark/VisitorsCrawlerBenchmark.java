@@ -0,0 +1,180 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2016 SonarSource SA
+ * mailto:contact AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.ComponentImpl;
+import org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor;
+import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
+import org.sonar.server.computation.task.projectanalysis.component.FileAttributes;
+import org.sonar.server.computation.task.projectanalysis.component.PathAwareVisitorAdapter;
+import org.sonar.server.computation.task.projectanalysis.component.ReportAttributes;
+import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
+import org.sonar.server.computation.task.projectanalysis.component.VisitorsCrawler;
+
+/**
+ * Traversal of a synthetic project tree by the visitors of the Compute Engine, with a mix of
+ * pre-order, post-order and path-aware visitors, as in the step that executes visitors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class VisitorsCrawlerBenchmark {
+
+  private static final int MODULES = 10;
+
+  @Param({"10", "50"})
+  public int directoriesPerModule;
+
+  @Param({"20"})
+  public int filesPerDirectory;
+
+  private Component project;
+
+  @Setup
+  public void setUp() {
+    project = createTree();
+  }
+
+  @Benchmark
+  public long visit() {
+    FileCounter fileCounter = new FileCounter();
+    DirectoryCounter directoryCounter = new DirectoryCounter();
+    SizeAggregator sizeAggregator = new SizeAggregator();
+    List<ComponentVisitor> visitors = Arrays.asList(fileCounter, directoryCounter, sizeAggregator);
+    new VisitorsCrawler(visitors).visit(project);
+    return fileCounter.count + directoryCounter.count + sizeAggregator.projectSize;
+  }
+
+  private Component createTree() {
+    int ref = 1;
+    ComponentImpl.Builder projectBuilder = builder(Component.Type.PROJECT, ref, "project");
+    for (int m = 0; m < MODULES; m++) {
+      ref++;
+      String moduleKey = "project:module" + m;
+      ComponentImpl.Builder moduleBuilder = builder(Component.Type.MODULE, ref, moduleKey);
+      for (int d = 0; d < directoriesPerModule; d++) {
+        ref++;
+        String directoryKey = moduleKey + ":src/dir" + d;
+        ComponentImpl.Builder directoryBuilder = builder(Component.Type.DIRECTORY, ref, directoryKey);
+        for (int f = 0; f < filesPerDirectory; f++) {
+          ref++;
+          directoryBuilder.addChildren(builder(Component.Type.FILE, ref, directoryKey + "/File" + f + ".java")
+            .setFileAttributes(new FileAttributes(false, "java"))
+            .build());
+        }
+        moduleBuilder.addChildren(directoryBuilder.build());
+      }
+      projectBuilder.addChildren(moduleBuilder.build());
+    }
+    return projectBuilder.build();
+  }
+
+  private static ComponentImpl.Builder builder(Component.Type type, int ref, String key) {
+    return ComponentImpl.builder(type)
+      .setReportAttributes(ReportAttributes.newBuilder(ref).build())
+      .setUuid("UUID_" + ref)
+      .setKey(key)
+      .setName(key);
+  }
+
+  private static class FileCounter extends TypeAwareVisitorAdapter {
+    private long count = 0;
+
+    FileCounter() {
+      super(CrawlerDepthLimit.FILE, Order.POST_ORDER);
+    }
+
+    @Override
+    public void visitFile(Component file) {
+      count++;
+    }
+  }
+
+  private static class DirectoryCounter extends TypeAwareVisitorAdapter {
+    private long count = 0;
+
+    DirectoryCounter() {
+      super(CrawlerDepthLimit.DIRECTORY, Order.PRE_ORDER);
+    }
+
+    @Override
+    public void visitAny(Component any) {
+      count++;
+    }
+  }
+
+  /**
+   * Aggregates the length of keys of files up to the project, as formulas do with measures
+   */
+  private static class SizeAggregator extends PathAwareVisitorAdapter<SizeAggregator.Size> {
+    private long projectSize = 0;
+
+    SizeAggregator() {
+      super(CrawlerDepthLimit.FILE, Order.POST_ORDER, new SimpleStackElementFactory<Size>() {
+        @Override
+        public Size createForAny(Component component) {
+          return new Size();
+        }
+      });
+    }
+
+    @Override
+    public void visitFile(Component file, Path<Size> path) {
+      path.parent().value += file.getKey().length();
+    }
+
+    @Override
+    public void visitDirectory(Component directory, Path<Size> path) {
+      path.parent().value += path.current().value;
+    }
+
+    @Override
+    public void visitModule(Component module, Path<Size> path) {
+      path.parent().value += path.current().value;
+    }
+
+    @Override
+    public void visitProject(Component project, Path<Size> path) {
+      projectSize = path.current().value;
+    }
+
+    static class Size {
+      private long value = 0;
+    }
+  }
+}